@@ -0,0 +1,68 @@
+package com.uros.kernel.telemetry.benchmark;
+
+import com.uros.kernel.telemetry.simd.AggregationKernels;
+import com.uros.kernel.telemetry.simd.RangeStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聚合计算核基准测试：标量实现与向量实现在大区间上的求和/最值/方差
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "--add-modules=jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class AggregationKernelsBenchmark {
+
+    @Param({"1000000", "10000000", "100000000"})
+    public int points;
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    private double[] values;
+
+    private AggregationKernels kernels;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        kernels = "scalar".equals(kernel) ? AggregationKernels.scalar() : AggregationKernels.get();
+        if (!kernels.getName().startsWith(kernel)) {
+            throw new IllegalStateException("Requested " + kernel + " kernels but got " + kernels.getName());
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        values = new double[points];
+        double value = 20.0;
+        for (int i = 0; i < points; i++) {
+            value += random.nextDouble(-0.5, 0.5);
+            values[i] = value;
+        }
+    }
+
+    @Benchmark
+    public RangeStats statistics() {
+        RangeStats stats = new RangeStats();
+        kernels.accumulate(values, 0, values.length, stats);
+        return stats;
+    }
+
+    @Benchmark
+    public double sum() {
+        return kernels.sum(values, 0, values.length);
+    }
+}
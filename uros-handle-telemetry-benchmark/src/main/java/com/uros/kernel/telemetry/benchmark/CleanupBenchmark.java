@@ -0,0 +1,56 @@
+package com.uros.kernel.telemetry.benchmark;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * cleanupAllHistory 规模化基准测试
+ * 每轮迭代重新构造数据，保留周期取数据跨度的一半，即每次清理约一半的数据点
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class CleanupBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int seriesCount;
+
+    @Param({"1000", "10000"})
+    public int pointsPerSeries;
+
+    private TelemetryService service;
+
+    private long retentionPeriod;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        service = new TelemetryServiceImpl();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < seriesCount; i++) {
+            TelemetryFixtures.populate(service, "cleanup-source-" + i, pointsPerSeries, now);
+        }
+        retentionPeriod = pointsPerSeries / 2 * TelemetryFixtures.STEP_MILLIS;
+    }
+
+    @Benchmark
+    public int cleanupAllHistory() {
+        return service.cleanupAllHistory(retentionPeriod);
+    }
+}
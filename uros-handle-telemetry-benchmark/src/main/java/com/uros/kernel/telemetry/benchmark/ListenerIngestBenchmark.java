@@ -0,0 +1,165 @@
+package com.uros.kernel.telemetry.benchmark;
+
+import com.uros.kernel.telemetry.TelemetryApplication;
+import com.uros.kernel.telemetry.ingest.TelemetryNetworkListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 本地监听器与HTTP写入接口的端到端吞吐对比
+ * 启动完整应用，http向 /api/telemetry/record 逐点提交，tcp经监听器的文本行协议按批发送；
+ * tcp每批发送后等待监听器写入完成，两者的结果都是每秒写入服务的数据点数
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ListenerIngestBenchmark {
+
+    /** tcp每次调用发送的行数 */
+    static final int LINES_PER_BATCH = 1000;
+
+    @State(Scope.Benchmark)
+    public static class ApplicationState {
+
+        ServletWebServerApplicationContext context;
+
+        TelemetryNetworkListener listener;
+
+        HttpClient client;
+
+        String recordUrl;
+
+        int tcpPort;
+
+        /** 已经通过tcp发出的行数 */
+        final AtomicLong sent = new AtomicLong();
+
+        final AtomicInteger threadCounter = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            tcpPort = freePort();
+            context = (ServletWebServerApplicationContext) SpringApplication.run(TelemetryApplication.class,
+                    "--server.port=0",
+                    "--logging.level.root=WARN",
+                    "--logging.level.com.uros.kernel=WARN",
+                    "--logging.level.org.springframework.web=WARN",
+                    "--uros.telemetry.listener.enabled=true",
+                    "--uros.telemetry.listener.udp-port=0",
+                    "--uros.telemetry.listener.tcp-port=" + tcpPort);
+            listener = context.getBean(TelemetryNetworkListener.class);
+            String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+            recordUrl = "http://127.0.0.1:" + context.getWebServer().getPort() + contextPath + "/api/telemetry/record";
+            client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+
+        long received() {
+            return (Long) listener.getStatistics().get("received");
+        }
+
+        private static int freePort() throws IOException {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                return socket.getLocalPort();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WriterState {
+
+        String sourceId;
+
+        long timestamp;
+
+        SocketChannel channel;
+
+        ByteBuffer batch;
+
+        @Setup(Level.Trial)
+        public void setUp(ApplicationState app) throws IOException {
+            sourceId = "source-" + app.threadCounter.getAndIncrement();
+            timestamp = System.currentTimeMillis();
+            channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", app.tcpPort));
+            batch = ByteBuffer.allocate(LINES_PER_BATCH * 64);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            channel.close();
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int http(ApplicationState app, WriterState writer) throws IOException, InterruptedException {
+        long timestamp = writer.timestamp++;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(app.recordUrl
+                        + "?sourceId=" + writer.sourceId
+                        + "&metricName=" + TelemetryFixtures.METRIC
+                        + "&value=" + (timestamp % 100) * 0.25))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return app.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    @Threads(8)
+    @OperationsPerInvocation(LINES_PER_BATCH)
+    public long tcp(ApplicationState app, WriterState writer) throws IOException {
+        ByteBuffer batch = writer.batch;
+        batch.clear();
+        for (int i = 0; i < LINES_PER_BATCH; i++) {
+            long timestamp = writer.timestamp++;
+            String line = writer.sourceId + ' ' + TelemetryFixtures.METRIC + ' '
+                    + (timestamp % 100) * 0.25 + ' ' + timestamp + '\n';
+            batch.put(line.getBytes(StandardCharsets.US_ASCII));
+        }
+        batch.flip();
+        while (batch.hasRemaining()) {
+            writer.channel.write(batch);
+        }
+        // 等待监听器写入到目前为止发出的全部数据点
+        long target = app.sent.addAndGet(LINES_PER_BATCH);
+        long received;
+        while ((received = app.received()) < target) {
+            LockSupport.parkNanos(10_000);
+        }
+        return received;
+    }
+}
@@ -0,0 +1,59 @@
+package com.uros.kernel.telemetry.benchmark;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * queryMetrics 查询延迟基准测试
+ * 查询窗口固定为最近1000个数据点，因此结果集大小不变，耗时随序列长度的变化反映扫描和复制的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class QueryMetricsBenchmark {
+
+    private static final String SOURCE_ID = "query-source";
+
+    private static final int WINDOW_POINTS = 1000;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int points;
+
+    private TelemetryService service;
+
+    private long windowStart;
+
+    private long windowEnd;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new TelemetryServiceImpl();
+        windowEnd = System.currentTimeMillis();
+        TelemetryFixtures.populate(service, SOURCE_ID, points, windowEnd);
+        windowStart = windowEnd - (WINDOW_POINTS - 1) * TelemetryFixtures.STEP_MILLIS;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> queryRecentWindow() {
+        return service.queryMetrics(SOURCE_ID, TelemetryFixtures.METRIC, windowStart, windowEnd);
+    }
+}
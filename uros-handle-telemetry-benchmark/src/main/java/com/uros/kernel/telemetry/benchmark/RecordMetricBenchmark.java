@@ -0,0 +1,92 @@
+package com.uros.kernel.telemetry.benchmark;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * recordMetric 写入吞吐基准测试
+ * hot布局下所有线程写同一序列，用于观察单序列写锁的争用；
+ * spread布局下每个线程写自己的序列
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RecordMetricBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ServiceState {
+
+        @Param({"hot", "spread"})
+        public String seriesLayout;
+
+        TelemetryService service;
+
+        final AtomicInteger threadCounter = new AtomicInteger();
+
+        /** 每轮迭代重建服务，避免历史数据无限增长 */
+        @Setup(Level.Iteration)
+        public void setUp() {
+            service = new TelemetryServiceImpl();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WriterState {
+
+        String sourceId;
+
+        long timestamp;
+
+        double value;
+
+        @Setup(Level.Trial)
+        public void setUp(ServiceState serviceState) {
+            sourceId = "hot".equals(serviceState.seriesLayout)
+                    ? "hot-source"
+                    : "source-" + serviceState.threadCounter.getAndIncrement();
+            timestamp = System.currentTimeMillis();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean record1Thread(ServiceState serviceState, WriterState writer) {
+        return record(serviceState, writer);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean record8Threads(ServiceState serviceState, WriterState writer) {
+        return record(serviceState, writer);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean record64Threads(ServiceState serviceState, WriterState writer) {
+        return record(serviceState, writer);
+    }
+
+    private static boolean record(ServiceState serviceState, WriterState writer) {
+        writer.value += 0.25;
+        return serviceState.service.recordMetric(
+                writer.sourceId, TelemetryFixtures.METRIC, writer.value, writer.timestamp++);
+    }
+}
@@ -0,0 +1,57 @@
+package com.uros.kernel.telemetry.benchmark;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * calculateStatistics 与 analyzeTrend 基准测试
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class SeriesAnalysisBenchmark {
+
+    private static final String SOURCE_ID = "analysis-source";
+
+    /** 趋势分析周期：最近一小时 */
+    private static final long TREND_PERIOD = TimeUnit.HOURS.toMillis(1);
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int points;
+
+    private TelemetryService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new TelemetryServiceImpl();
+        TelemetryFixtures.populate(service, SOURCE_ID, points, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public Map<String, Object> calculateStatistics() {
+        return service.calculateStatistics(SOURCE_ID, TelemetryFixtures.METRIC);
+    }
+
+    @Benchmark
+    public String analyzeTrend() {
+        return service.analyzeTrend(SOURCE_ID, TelemetryFixtures.METRIC, TREND_PERIOD);
+    }
+}
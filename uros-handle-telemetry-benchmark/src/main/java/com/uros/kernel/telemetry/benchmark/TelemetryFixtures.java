@@ -0,0 +1,39 @@
+package com.uros.kernel.telemetry.benchmark;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+
+import java.util.SplittableRandom;
+
+/**
+ * 基准测试数据构造工具
+ */
+final class TelemetryFixtures {
+
+    /** 基准测试使用的指标名称 */
+    static final String METRIC = "temperature";
+
+    /** 数据点间隔（毫秒） */
+    static final long STEP_MILLIS = 1000;
+
+    private TelemetryFixtures() {
+    }
+
+    /**
+     * 向序列写入指定数量的数据点，最后一个数据点的时间为endTime
+     *
+     * @param service 遥测服务
+     * @param sourceId 数据源ID
+     * @param points 数据点数量
+     * @param endTime 最后一个数据点的时间戳
+     */
+    static void populate(TelemetryService service, String sourceId, int points, long endTime) {
+        SplittableRandom random = new SplittableRandom(42);
+        long startTime = endTime - (points - 1) * STEP_MILLIS;
+        double value = 20.0;
+        for (int i = 0; i < points; i++) {
+            // 随机游走，避免数据过于规整
+            value += random.nextDouble(-0.5, 0.5);
+            service.recordMetric(sourceId, METRIC, value, startTime + i * STEP_MILLIS);
+        }
+    }
+}
@@ -1,11 +1,38 @@
 package com.uros.kernel.telemetry.controller;
 
+import com.uros.kernel.telemetry.exception.IngestQueueFullException;
+import com.uros.kernel.telemetry.exception.UnknownSourceException;
+import com.uros.kernel.telemetry.export.ArrowBulkExporter;
+import com.uros.kernel.telemetry.export.ArrowIpcWriter;
+import com.uros.kernel.telemetry.index.SourceSnapshotIndex;
+import com.uros.kernel.telemetry.ingest.AsyncIngestPipeline;
+import com.uros.kernel.telemetry.ingest.BulkImporter;
+import com.uros.kernel.telemetry.ingest.SharedMemoryIngestDrainer;
+import com.uros.kernel.telemetry.ingest.SourceRateLimiter;
+import com.uros.kernel.telemetry.ingest.SourceValidator;
+import com.uros.kernel.telemetry.ingest.TelemetryNetworkListener;
+import com.uros.kernel.telemetry.model.MetricKind;
+import com.uros.kernel.telemetry.model.StoragePolicy;
+import com.uros.kernel.telemetry.query.FillStrategy;
+import com.uros.kernel.telemetry.query.ParallelRangeAggregator;
+import com.uros.kernel.telemetry.query.ResampleAggregation;
+import com.uros.kernel.telemetry.query.ql.QueryEngine;
+import com.uros.kernel.telemetry.rule.RecordingRule;
+import com.uros.kernel.telemetry.rule.RuleFunction;
 import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.tier.ColdTierStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +46,36 @@ public class TelemetryController {
     @Autowired
     private TelemetryService telemetryService;
     
+    @Autowired
+    private SourceRateLimiter rateLimiter;
+    
+    @Autowired
+    private AsyncIngestPipeline ingestPipeline;
+    
+    @Autowired
+    private SourceValidator sourceValidator;
+    
+    @Autowired
+    private TelemetryNetworkListener networkListener;
+    
+    @Autowired
+    private SharedMemoryIngestDrainer sharedMemoryDrainer;
+    
+    @Autowired
+    private ArrowBulkExporter bulkExporter;
+    
+    @Autowired
+    private BulkImporter bulkImporter;
+    
+    @Autowired
+    private ColdTierStore coldTierStore;
+    
+    @Autowired
+    private QueryEngine queryEngine;
+    
+    @Autowired
+    private ParallelRangeAggregator rangeAggregator;
+    
     /**
      * 记录单个指标
      */
@@ -28,10 +85,28 @@ public class TelemetryController {
             @RequestParam("metricName") String metricName,
             @RequestParam("value") double value) {
         
-        boolean success = telemetryService.recordMetric(sourceId, metricName, value);
+        rateLimiter.acquire(sourceId, 1);
+        SourceValidator.Verdict verdict = sourceValidator.check(sourceId);
+        if (verdict == SourceValidator.Verdict.REJECT) {
+            throw new UnknownSourceException(sourceId);
+        }
+        boolean success;
+        if (verdict == SourceValidator.Verdict.QUARANTINE) {
+            sourceValidator.quarantine(sourceId, metricName, value, System.currentTimeMillis());
+            success = true;
+        } else if (ingestPipeline.isEnabled()) {
+            if (!ingestPipeline.enqueue(sourceId, metricName, value, System.currentTimeMillis())) {
+                throw new IngestQueueFullException(sourceId);
+            }
+            success = true;
+        } else {
+            success = telemetryService.recordMetric(sourceId, metricName, value);
+        }
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", success);
+        response.put("queued", ingestPipeline.isEnabled());
+        response.put("quarantined", verdict == SourceValidator.Verdict.QUARANTINE);
         response.put("sourceId", sourceId);
         response.put("metricName", metricName);
         response.put("value", value);
@@ -47,10 +122,37 @@ public class TelemetryController {
             @RequestParam("sourceId") String sourceId,
             @RequestBody Map<String, Double> metrics) {
         
-        int successCount = telemetryService.recordMetrics(sourceId, metrics);
+        rateLimiter.acquire(sourceId, metrics.size());
+        SourceValidator.Verdict verdict = sourceValidator.check(sourceId);
+        if (verdict == SourceValidator.Verdict.REJECT) {
+            throw new UnknownSourceException(sourceId);
+        }
+        int successCount;
+        if (verdict == SourceValidator.Verdict.QUARANTINE) {
+            long timestamp = System.currentTimeMillis();
+            for (Map.Entry<String, Double> entry : metrics.entrySet()) {
+                sourceValidator.quarantine(sourceId, entry.getKey(), entry.getValue(), timestamp);
+            }
+            successCount = metrics.size();
+        } else if (ingestPipeline.isEnabled()) {
+            long timestamp = System.currentTimeMillis();
+            successCount = 0;
+            for (Map.Entry<String, Double> entry : metrics.entrySet()) {
+                if (ingestPipeline.enqueue(sourceId, entry.getKey(), entry.getValue(), timestamp)) {
+                    successCount++;
+                }
+            }
+            if (successCount == 0 && !metrics.isEmpty()) {
+                throw new IngestQueueFullException(sourceId);
+            }
+        } else {
+            successCount = telemetryService.recordMetrics(sourceId, metrics);
+        }
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", successCount > 0);
+        response.put("queued", ingestPipeline.isEnabled());
+        response.put("quarantined", verdict == SourceValidator.Verdict.QUARANTINE);
         response.put("sourceId", sourceId);
         response.put("totalMetrics", metrics.size());
         response.put("successCount", successCount);
@@ -75,6 +177,29 @@ public class TelemetryController {
         return ResponseEntity.ok(metric);
     }
     
+    /**
+     * 获取数据源下所有指标的最新值，一次调用返回整个设备；支持以快照版本作为ETag的条件请求
+     */
+    @GetMapping("/latest/source")
+    public ResponseEntity<byte[]> getSourceSnapshot(
+            @RequestParam("sourceId") String sourceId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        
+        SourceSnapshotIndex.Snapshot snapshot = telemetryService.getSourceSnapshot(sourceId);
+        if (snapshot == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        String etag = snapshot.getETag();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .body(snapshot.getJson());
+    }
+    
     /**
      * 查询指定时间范围内的指标
      */
@@ -90,6 +215,49 @@ public class TelemetryController {
         return ResponseEntity.ok(metrics);
     }
     
+    /**
+     * 按固定步长重采样查询指标
+     */
+    @GetMapping("/resample")
+    public ResponseEntity<Map<String, Object>> resampleMetrics(
+            @RequestParam("sourceId") String sourceId,
+            @RequestParam("metricName") String metricName,
+            @RequestParam("startTime") long startTime,
+            @RequestParam("endTime") long endTime,
+            @RequestParam("step") long step,
+            @RequestParam(value = "fill", defaultValue = "NULL") FillStrategy fill,
+            @RequestParam(value = "aggregation", defaultValue = "AVG") ResampleAggregation aggregation) {
+        
+        List<Map<String, Object>> points = telemetryService.resampleMetrics(
+                sourceId, metricName, startTime, endTime, step, fill, aggregation);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("sourceId", sourceId);
+        response.put("metricName", metricName);
+        response.put("step", step);
+        response.put("fill", fill);
+        response.put("aggregation", aggregation);
+        response.put("points", points);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 按时间戳对齐查询多个序列，单个序列范围内点数和结果行数均受上限约束，超出返回400
+     */
+    @GetMapping("/join")
+    public ResponseEntity<Map<String, Object>> joinMetrics(
+            @RequestParam("series") List<String> series,
+            @RequestParam("startTime") long startTime,
+            @RequestParam("endTime") long endTime,
+            @RequestParam(value = "tolerance", defaultValue = "0") long tolerance,
+            @RequestParam(value = "requireAll", defaultValue = "false") boolean requireAll,
+            @RequestParam(value = "correlation", defaultValue = "false") boolean correlation) {
+        
+        return ResponseEntity.ok(telemetryService.joinMetrics(
+                series, startTime, endTime, tolerance, requireAll, correlation));
+    }
+    
     /**
      * 计算统计数据
      */
@@ -127,6 +295,73 @@ public class TelemetryController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * 批量分析匹配序列的趋势，返回上升最快和下降最快的前K个序列，标签条件格式为 tag=key:value，可重复
+     */
+    @GetMapping("/trend/scan")
+    public ResponseEntity<Map<String, Object>> scanTrends(
+            @RequestParam(value = "metricName", required = false) String metricName,
+            @RequestParam(value = "tag", required = false) List<String> tags,
+            @RequestParam(value = "period", defaultValue = "3600000") long period,
+            @RequestParam(value = "topK", defaultValue = "10") int topK) {
+        
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive: " + period);
+        }
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK must not be negative: " + topK);
+        }
+        
+        return ResponseEntity.ok(telemetryService.scanTrends(metricName, parseTagMatchers(tags), period, topK));
+    }
+    
+    /**
+     * 启用或关闭量值序列的指数平滑预测，step不大于0时关闭；season为0时使用Holt线性趋势模型
+     */
+    @PutMapping("/series/forecasting")
+    public ResponseEntity<Map<String, Object>> setForecasting(
+            @RequestParam("sourceId") String sourceId,
+            @RequestParam("metricName") String metricName,
+            @RequestParam(value = "step", defaultValue = "300000") long step,
+            @RequestParam(value = "season", defaultValue = "86400000") long season,
+            @RequestParam(value = "alpha", defaultValue = "0.1") double alpha,
+            @RequestParam(value = "beta", defaultValue = "0.05") double beta,
+            @RequestParam(value = "gamma", defaultValue = "0.3") double gamma) {
+        
+        boolean success = telemetryService.setForecasting(sourceId, metricName, step, season, alpha, beta, gamma);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", success);
+        response.put("sourceId", sourceId);
+        response.put("metricName", metricName);
+        response.put("enabled", step > 0);
+        response.put("step", step);
+        response.put("season", season);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 预测量值序列在最后一个完整步长之后horizon毫秒内的值
+     */
+    @GetMapping("/forecast")
+    public ResponseEntity<Map<String, Object>> forecast(
+            @RequestParam("sourceId") String sourceId,
+            @RequestParam("metricName") String metricName,
+            @RequestParam(value = "horizon", defaultValue = "3600000") long horizon) {
+        
+        if (horizon <= 0) {
+            throw new IllegalArgumentException("horizon must be positive: " + horizon);
+        }
+        
+        Map<String, Object> forecast = telemetryService.forecast(sourceId, metricName, horizon);
+        if (forecast.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        return ResponseEntity.ok(forecast);
+    }
+    
     /**
      * 清除历史数据
      */
@@ -162,4 +397,492 @@ public class TelemetryController {
         
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+    
+    /**
+     * 注册序列并设置标签
+     */
+    @PostMapping("/series")
+    public ResponseEntity<Map<String, Object>> registerSeries(
+            @RequestParam("sourceId") String sourceId,
+            @RequestParam("metricName") String metricName,
+            @RequestBody(required = false) Map<String, String> tags) {
+        
+        boolean success = telemetryService.registerSeries(sourceId, metricName, tags);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", success);
+        response.put("sourceId", sourceId);
+        response.put("metricName", metricName);
+        response.put("tags", tags == null ? new HashMap<>() : tags);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 按指标名称和标签选择序列，标签条件格式为 tag=key:value，可重复
+     */
+    @GetMapping("/series")
+    public ResponseEntity<List<Map<String, Object>>> selectSeries(
+            @RequestParam(value = "metricName", required = false) String metricName,
+            @RequestParam(value = "tag", required = false) List<String> tags) {
+        
+        List<Map<String, Object>> series = telemetryService.selectSeries(metricName, parseTagMatchers(tags));
+        
+        return ResponseEntity.ok(series);
+    }
+    
+    // 解析 key:value 形式的标签条件
+    private static Map<String, String> parseTagMatchers(List<String> tags) {
+        Map<String, String> tagMatchers = new HashMap<>();
+        if (tags != null) {
+            for (String tag : tags) {
+                int separator = tag.indexOf(':');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("Invalid tag matcher '" + tag + "', expected key:value");
+                }
+                tagMatchers.put(tag.substring(0, separator), tag.substring(separator + 1));
+            }
+        }
+        return tagMatchers;
+    }
+    
+    /**
+     * 设置序列的存储策略
+     */
+    @PutMapping("/series/storage-policy")
+    public ResponseEntity<Map<String, Object>> setStoragePolicy(
+            @RequestParam("sourceId") String sourceId,
+            @RequestParam("metricName") String metricName,
+            @RequestParam("type") StoragePolicy.Type type,
+            @RequestParam(value = "tolerance", defaultValue = "0") double tolerance) {
+        
+        boolean success = telemetryService.setStoragePolicy(sourceId, metricName, StoragePolicy.of(type, tolerance));
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", success);
+        response.put("sourceId", sourceId);
+        response.put("metricName", metricName);
+        response.put("type", type);
+        response.put("tolerance", tolerance);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 设置序列的写入时降采样，不传聚合方式时关闭
+     */
+    @PutMapping("/series/downsampling")
+    public ResponseEntity<Map<String, Object>> setDownsampling(
+            @RequestParam("sourceId") String sourceId,
+            @RequestParam("metricName") String metricName,
+            @RequestParam(value = "sampleRate", defaultValue = "1000") long sampleRate,
+            @RequestParam(value = "aggregation", required = false) ResampleAggregation aggregation) {
+        
+        boolean success = telemetryService.setDownsampling(sourceId, metricName, sampleRate, aggregation);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", success);
+        response.put("sourceId", sourceId);
+        response.put("metricName", metricName);
+        response.put("sampleRate", sampleRate);
+        response.put("aggregation", aggregation);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取各数据源的写入准入统计
+     */
+    @GetMapping("/ingest/rate-limits")
+    public ResponseEntity<Map<String, Object>> getRateLimitStatistics() {
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("enabled", rateLimiter.isEnabled());
+        response.put("sources", rateLimiter.getStatistics());
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取异步写入管道的运行指标
+     */
+    @GetMapping("/ingest/pipeline")
+    public ResponseEntity<Map<String, Object>> getPipelineStatistics() {
+        return ResponseEntity.ok(ingestPipeline.getStatistics());
+    }
+    
+    /**
+     * 获取UDP/TCP监听器的运行指标
+     */
+    @GetMapping("/ingest/listener")
+    public ResponseEntity<Map<String, Object>> getListenerStatistics() {
+        return ResponseEntity.ok(networkListener.getStatistics());
+    }
+    
+    /**
+     * 获取共享内存写入队列的运行指标
+     */
+    @GetMapping("/ingest/shm")
+    public ResponseEntity<Map<String, Object>> getSharedMemoryStatistics() {
+        return ResponseEntity.ok(sharedMemoryDrainer.getStatistics());
+    }
+    
+    /**
+     * 获取数据源校验的运行指标和隔离区内容
+     */
+    @GetMapping("/ingest/source-validation")
+    public ResponseEntity<Map<String, Object>> getSourceValidationStatistics() {
+        return ResponseEntity.ok(sourceValidator.getStatistics());
+    }
+    
+    /**
+     * 立即刷新已知数据源，并写入已登记数据源的隔离数据点
+     */
+    @PostMapping("/ingest/source-validation/refresh")
+    public ResponseEntity<Map<String, Object>> refreshSourceValidation() {
+        if (!sourceValidator.isEnabled()) {
+            throw new IllegalArgumentException("Source validation is disabled");
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", sourceValidator.refresh());
+        response.putAll(sourceValidator.getStatistics());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 添加记录规则（派生指标）
+     */
+    @PostMapping("/rules")
+    public ResponseEntity<Map<String, Object>> addRecordingRule(
+            @RequestParam("name") String name,
+            @RequestParam("metricName") String metricName,
+            @RequestParam("function") RuleFunction function,
+            @RequestParam(value = "window", defaultValue = "0") long window,
+            @RequestParam(value = "sourceId", required = false) String sourceId) {
+        
+        telemetryService.addRecordingRule(new RecordingRule(name, metricName, function, window, sourceId));
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("name", name);
+        response.put("metricName", metricName);
+        response.put("function", function);
+        response.put("window", window);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 删除记录规则
+     */
+    @DeleteMapping("/rules")
+    public ResponseEntity<Map<String, Object>> removeRecordingRule(@RequestParam("name") String name) {
+        boolean success = telemetryService.removeRecordingRule(name);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", success);
+        response.put("name", name);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取所有记录规则
+     */
+    @GetMapping("/rules")
+    public ResponseEntity<List<Map<String, Object>>> getRecordingRules() {
+        return ResponseEntity.ok(telemetryService.getRecordingRules());
+    }
+    
+    /**
+     * 设置序列的指标类型（gauge、counter、histogram）
+     */
+    @PutMapping("/series/kind")
+    public ResponseEntity<Map<String, Object>> defineMetricKind(
+            @RequestParam("sourceId") String sourceId,
+            @RequestParam("metricName") String metricName,
+            @RequestParam("kind") MetricKind kind,
+            @RequestParam(value = "buckets", required = false) double[] buckets,
+            @RequestParam(value = "rollup", defaultValue = "0") long rollup) {
+        
+        boolean changed = telemetryService.defineMetricKind(sourceId, metricName, kind, buckets, rollup);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("changed", changed);
+        response.put("sourceId", sourceId);
+        response.put("metricName", metricName);
+        response.put("kind", kind);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 按指标类型聚合时间范围内的数据
+     */
+    @GetMapping("/aggregate")
+    public ResponseEntity<Map<String, Object>> aggregateMetrics(
+            @RequestParam("sourceId") String sourceId,
+            @RequestParam("metricName") String metricName,
+            @RequestParam("startTime") long startTime,
+            @RequestParam("endTime") long endTime) {
+        
+        return ResponseEntity.ok(telemetryService.aggregateMetrics(sourceId, metricName, startTime, endTime));
+    }
+    
+    /**
+     * 以Arrow IPC格式流式导出时间范围内的原始数据点（timestamp、value两列），
+     * format=stream 为流格式，format=file 为文件格式
+     */
+    @GetMapping("/export/arrow")
+    public ResponseEntity<StreamingResponseBody> exportArrow(
+            @RequestParam("sourceId") String sourceId,
+            @RequestParam("metricName") String metricName,
+            @RequestParam("startTime") long startTime,
+            @RequestParam("endTime") long endTime,
+            @RequestParam(value = "batchSize", defaultValue = "4096") int batchSize,
+            @RequestParam(value = "format", defaultValue = "stream") String format) {
+        
+        boolean fileFormat;
+        if ("stream".equalsIgnoreCase(format)) {
+            fileFormat = false;
+        } else if ("file".equalsIgnoreCase(format)) {
+            fileFormat = true;
+        } else {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        if (telemetryService.getMetricKind(sourceId, metricName) == MetricKind.HISTOGRAM) {
+            throw new IllegalArgumentException("Histogram series cannot be exported as points");
+        }
+        if (telemetryService.getLatestMetric(sourceId, metricName).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        StreamingResponseBody body = out -> {
+            try (ArrowIpcWriter writer = new ArrowIpcWriter(out, fileFormat,
+                    ArrowBulkExporter.seriesMetadata(sourceId, metricName))) {
+                telemetryService.exportRange(sourceId, metricName, startTime, endTime, batchSize, writer::writeBatch);
+            }
+        };
+        String extension = fileFormat ? ".arrow" : ".arrows";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(fileFormat
+                        ? "application/vnd.apache.arrow.file" : "application/vnd.apache.arrow.stream"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(sourceId + "_" + metricName + extension, StandardCharsets.UTF_8)
+                        .build().toString())
+                .body(body);
+    }
+    
+    /**
+     * 把按指标名称和标签选择的多个序列并行导出为本地Arrow文件
+     */
+    @PostMapping("/export/arrow/files")
+    public ResponseEntity<Map<String, Object>> exportArrowFiles(
+            @RequestParam(value = "metricName", required = false) String metricName,
+            @RequestParam(value = "tag", required = false) List<String> tags,
+            @RequestParam(value = "directory", required = false) String directory,
+            @RequestParam("startTime") long startTime,
+            @RequestParam("endTime") long endTime) {
+        
+        List<Map<String, Object>> series = telemetryService.selectSeries(metricName, parseTagMatchers(tags));
+        List<Map<String, Object>> files = bulkExporter.export(series, directory, startTime, endTime);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("seriesCount", files.size());
+        response.put("files", files);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取并行区间聚合统计
+     */
+    @GetMapping("/aggregate/statistics")
+    public ResponseEntity<Map<String, Object>> getAggregateStatistics() {
+        return ResponseEntity.ok(rangeAggregator.getStatistics());
+    }
+    
+    /**
+     * 从本地CSV或NDJSON文件批量导入历史数据
+     */
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importFile(
+            @RequestParam("path") String path,
+            @RequestParam(value = "format", required = false) String format) {
+        
+        Map<String, Object> response = new HashMap<>(bulkImporter.importFile(path, format));
+        response.put("success", true);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取批量导入统计
+     */
+    @GetMapping("/import/statistics")
+    public ResponseEntity<Map<String, Object>> getImportStatistics() {
+        return ResponseEntity.ok(bulkImporter.getStatistics());
+    }
+    
+    /**
+     * 立即把早于热数据周期的历史数据迁移到冷数据归档
+     */
+    @PostMapping("/tier/offload")
+    public ResponseEntity<Map<String, Object>> offloadColdData() {
+        if (!coldTierStore.isEnabled()) {
+            throw new IllegalArgumentException("Cold tier is disabled");
+        }
+        long offloaded = coldTierStore.run(System.currentTimeMillis());
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("offloadedPoints", offloaded);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取冷数据分层统计
+     */
+    @GetMapping("/tier/statistics")
+    public ResponseEntity<Map<String, Object>> getTierStatistics() {
+        return ResponseEntity.ok(coldTierStore.getStatistics());
+    }
+    
+    /**
+     * 获取内存占用估算：总量和各存储层字节数、序列数、存储点数，以及按估算字节数排列的前K个数据源和序列；
+     * 指定sourceId时只返回该数据源，冷数据分层启用时附带归档到磁盘的点数和字节数
+     */
+    @GetMapping("/memory")
+    public ResponseEntity<Map<String, Object>> getMemoryUsage(
+            @RequestParam(value = "sourceId", required = false) String sourceId,
+            @RequestParam(value = "topK", defaultValue = "10") int topK) {
+        
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK must not be negative: " + topK);
+        }
+        
+        Map<String, Object> usage = telemetryService.getMemoryUsage(sourceId, topK);
+        if (usage.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (sourceId == null && coldTierStore.isEnabled()) {
+            Map<String, Object> tier = coldTierStore.getStatistics();
+            Map<String, Object> archive = new LinkedHashMap<>();
+            archive.put("points", tier.get("archivedPoints"));
+            archive.put("writtenBytes", tier.get("writtenBytes"));
+            usage.put("archive", archive);
+        }
+        
+        return ResponseEntity.ok(usage);
+    }
+    
+    /**
+     * 获取批量导出统计
+     */
+    @GetMapping("/export/statistics")
+    public ResponseEntity<Map<String, Object>> getExportStatistics() {
+        return ResponseEntity.ok(bulkExporter.getStatistics());
+    }
+    
+    /**
+     * 注册跨数据源聚合
+     */
+    @PostMapping("/fleet/aggregates")
+    public ResponseEntity<Map<String, Object>> registerFleetAggregate(
+            @RequestParam("metricName") String metricName) {
+        
+        boolean created = telemetryService.registerFleetAggregate(metricName);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("created", created);
+        response.put("metricName", metricName);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 删除跨数据源聚合
+     */
+    @DeleteMapping("/fleet/aggregates")
+    public ResponseEntity<Map<String, Object>> removeFleetAggregate(
+            @RequestParam("metricName") String metricName) {
+        
+        boolean success = telemetryService.removeFleetAggregate(metricName);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", success);
+        response.put("metricName", metricName);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取已注册跨数据源聚合的指标名称
+     */
+    @GetMapping("/fleet/aggregates")
+    public ResponseEntity<List<String>> getFleetAggregates() {
+        return ResponseEntity.ok(telemetryService.getFleetAggregates());
+    }
+    
+    /**
+     * 读取跨数据源聚合结果，可按最新值返回前K个数据源（order=desc 从大到小，asc 从小到大）
+     */
+    @GetMapping("/fleet/aggregate")
+    public ResponseEntity<Map<String, Object>> getFleetAggregate(
+            @RequestParam("metricName") String metricName,
+            @RequestParam(value = "topK", defaultValue = "0") int topK,
+            @RequestParam(value = "order", defaultValue = "desc") String order) {
+        
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK must not be negative: " + topK);
+        }
+        boolean descending;
+        if ("desc".equalsIgnoreCase(order)) {
+            descending = true;
+        } else if ("asc".equalsIgnoreCase(order)) {
+            descending = false;
+        } else {
+            throw new IllegalArgumentException("Unsupported order: " + order);
+        }
+        
+        Map<String, Object> aggregate = telemetryService.getFleetAggregate(metricName, topK, descending);
+        if (aggregate.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        return ResponseEntity.ok(aggregate);
+    }
+    
+    /**
+     * 在时间范围内按步长求值查询语句，例如 sum by (site) (rate(requests{env="prod"}[5m]))
+     */
+    @GetMapping("/ql/query")
+    public ResponseEntity<Map<String, Object>> executeQuery(
+            @RequestParam("query") String query,
+            @RequestParam("start") long startTime,
+            @RequestParam("end") long endTime,
+            @RequestParam(value = "step", defaultValue = "60000") long step) {
+        
+        return ResponseEntity.ok(queryEngine.execute(query, startTime, endTime, step));
+    }
+    
+    /**
+     * 查看查询语句的执行计划
+     */
+    @GetMapping("/ql/explain")
+    public ResponseEntity<Map<String, Object>> explainQuery(
+            @RequestParam("query") String query,
+            @RequestParam("start") long startTime,
+            @RequestParam("end") long endTime,
+            @RequestParam(value = "step", defaultValue = "60000") long step) {
+        
+        return ResponseEntity.ok(queryEngine.explain(query, startTime, endTime, step));
+    }
+}
@@ -0,0 +1,25 @@
+package com.uros.kernel.telemetry.exception;
+
+/**
+ * 写入队列已满异常
+ * 当异步写入管道的缓冲区已满、无法接收新数据点时抛出此异常
+ */
+public class IngestQueueFullException extends RuntimeException {
+
+    /** 数据源ID */
+    private final String sourceId;
+
+    /**
+     * 构造函数
+     *
+     * @param sourceId 数据源ID
+     */
+    public IngestQueueFullException(String sourceId) {
+        super(String.format("Ingest queue is full, data from source '%s' was not accepted", sourceId));
+        this.sourceId = sourceId;
+    }
+
+    public String getSourceId() {
+        return sourceId;
+    }
+}
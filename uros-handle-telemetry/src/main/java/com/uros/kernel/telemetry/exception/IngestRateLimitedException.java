@@ -0,0 +1,34 @@
+package com.uros.kernel.telemetry.exception;
+
+/**
+ * 写入限流异常
+ * 当数据源的写入速率超过限额时抛出此异常
+ */
+public class IngestRateLimitedException extends RuntimeException {
+
+    /** 数据源ID */
+    private final String sourceId;
+
+    /** 建议的重试等待时间（毫秒） */
+    private final long retryAfterMillis;
+
+    /**
+     * 构造函数
+     *
+     * @param sourceId 数据源ID
+     * @param retryAfterMillis 建议的重试等待时间（毫秒）
+     */
+    public IngestRateLimitedException(String sourceId, long retryAfterMillis) {
+        super(String.format("Ingest rate limit exceeded for source '%s', retry after %d ms", sourceId, retryAfterMillis));
+        this.sourceId = sourceId;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public String getSourceId() {
+        return sourceId;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
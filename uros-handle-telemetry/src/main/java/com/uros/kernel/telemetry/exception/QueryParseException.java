@@ -0,0 +1,27 @@
+package com.uros.kernel.telemetry.exception;
+
+/**
+ * 查询语句解析异常
+ * 继承IllegalArgumentException，由全局异常处理器转换为400响应
+ */
+public class QueryParseException extends IllegalArgumentException {
+
+    /** 出错位置（字符下标） */
+    private final int position;
+
+    /**
+     * 构造函数
+     *
+     * @param message 错误信息
+     * @param query 查询语句
+     * @param position 出错位置（字符下标）
+     */
+    public QueryParseException(String message, String query, int position) {
+        super(String.format("%s at position %d in query: %s", message, position, query));
+        this.position = position;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
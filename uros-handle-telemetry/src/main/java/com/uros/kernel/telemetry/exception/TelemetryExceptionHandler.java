@@ -0,0 +1,84 @@
+package com.uros.kernel.telemetry.exception;
+
+import com.uros.kernel.handle.dto.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * 遥测模块异常处理器
+ * 优先于全局异常处理器，处理遥测特有的异常
+ */
+@RestControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TelemetryExceptionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryExceptionHandler.class);
+
+    /**
+     * 处理IngestRateLimitedException异常，返回429并带上Retry-After头
+     *
+     * @param ex 异常对象
+     * @param request 请求对象
+     * @return 错误响应
+     */
+    @ExceptionHandler(IngestRateLimitedException.class)
+    public ResponseEntity<ApiResponse<Void>> handleIngestRateLimitedException(
+            IngestRateLimitedException ex, WebRequest request) {
+        logger.debug("IngestRateLimitedException: {}", ex.getMessage());
+
+        ApiResponse<Void> response = ApiResponse.error(429, "Too Many Requests", ex.getMessage());
+        response.setPath(request.getDescription(false).replace("uri=", ""));
+
+        // Retry-After以秒为单位，向上取整
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfterMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+    }
+    
+    /**
+     * 处理IngestQueueFullException异常，返回503并带上Retry-After头
+     *
+     * @param ex 异常对象
+     * @param request 请求对象
+     * @return 错误响应
+     */
+    @ExceptionHandler(IngestQueueFullException.class)
+    public ResponseEntity<ApiResponse<Void>> handleIngestQueueFullException(
+            IngestQueueFullException ex, WebRequest request) {
+        logger.warn("IngestQueueFullException: {}", ex.getMessage());
+
+        ApiResponse<Void> response = ApiResponse.error(503, "Service Unavailable", ex.getMessage());
+        response.setPath(request.getDescription(false).replace("uri=", ""));
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+    
+    /**
+     * 处理UnknownSourceException异常，返回422
+     *
+     * @param ex 异常对象
+     * @param request 请求对象
+     * @return 错误响应
+     */
+    @ExceptionHandler(UnknownSourceException.class)
+    public ResponseEntity<ApiResponse<Void>> handleUnknownSourceException(
+            UnknownSourceException ex, WebRequest request) {
+        logger.debug("UnknownSourceException: {}", ex.getMessage());
+
+        ApiResponse<Void> response = ApiResponse.error(422, "Unprocessable Entity", ex.getMessage());
+        response.setPath(request.getDescription(false).replace("uri=", ""));
+
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(response);
+    }
+}
@@ -0,0 +1,25 @@
+package com.uros.kernel.telemetry.exception;
+
+/**
+ * 未登记数据源异常
+ * 启用数据源校验且数据源ID不在资源注册表中时抛出此异常
+ */
+public class UnknownSourceException extends RuntimeException {
+
+    /** 数据源ID */
+    private final String sourceId;
+
+    /**
+     * 构造函数
+     *
+     * @param sourceId 数据源ID
+     */
+    public UnknownSourceException(String sourceId) {
+        super(String.format("Source '%s' is not a registered resource", sourceId));
+        this.sourceId = sourceId;
+    }
+
+    public String getSourceId() {
+        return sourceId;
+    }
+}
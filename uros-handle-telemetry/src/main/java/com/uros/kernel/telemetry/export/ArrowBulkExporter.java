@@ -0,0 +1,262 @@
+package com.uros.kernel.telemetry.export;
+
+import com.uros.kernel.telemetry.model.MetricKind;
+import com.uros.kernel.telemetry.service.TelemetryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 批量导出到本地Arrow文件
+ * 每个序列写出一个Arrow IPC文件格式（.arrow）的文件，多个序列由固定大小的线程池并行导出；
+ * 输出目录只能位于配置的基础目录之下
+ */
+@Component
+public class ArrowBulkExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArrowBulkExporter.class);
+
+    private static final int BATCH_SIZE = 8192;
+
+    private final TelemetryService telemetryService;
+
+    private final Path baseDir;
+
+    private final int parallelism;
+
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    private final LongAdder exportedFiles = new LongAdder();
+
+    private final LongAdder exportedRows = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param telemetryService 遥测服务
+     * @param baseDir 导出基础目录
+     * @param parallelism 并行导出的线程数
+     */
+    public ArrowBulkExporter(
+            TelemetryService telemetryService,
+            @Value("${uros.telemetry.export.base-dir:${java.io.tmpdir}/uros-telemetry-export}") String baseDir,
+            @Value("${uros.telemetry.export.parallelism:4}") int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Export parallelism must be positive: " + parallelism);
+        }
+        this.telemetryService = telemetryService;
+        this.baseDir = Paths.get(baseDir).toAbsolutePath().normalize();
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 导出多个序列在时间范围内的原始数据点
+     *
+     * @param series 序列列表，每项包含sourceId和metricName
+     * @param directory 基础目录下的相对输出目录
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 每个序列的导出结果
+     */
+    public List<Map<String, Object>> export(List<Map<String, Object>> series, String directory,
+                                            long startTime, long endTime) {
+        Path outputDir = createDirectory(resolveDirectory(directory), directory);
+        if (series.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, series.size()), runnable -> {
+            Thread thread = new Thread(runnable, "telemetry-export-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Map<String, Object>>> futures = new ArrayList<>(series.size());
+            for (Map<String, Object> entry : series) {
+                String sourceId = (String) entry.get("sourceId");
+                String metricName = (String) entry.get("metricName");
+                futures.add(executor.submit(() -> exportSeries(outputDir, sourceId, metricName, startTime, endTime)));
+            }
+            List<Map<String, Object>> results = new ArrayList<>(futures.size());
+            for (Future<Map<String, Object>> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Export failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, Object> exportSeries(Path outputDir, String sourceId, String metricName,
+                                             long startTime, long endTime) {
+        Path file = outputDir.resolve(fileName(sourceId, metricName));
+        Map<String, Object> result = new HashMap<>();
+        result.put("sourceId", sourceId);
+        result.put("metricName", metricName);
+        if (telemetryService.getMetricKind(sourceId, metricName) == MetricKind.HISTOGRAM) {
+            // 直方图不保留原始观测值，没有可导出的数据点
+            result.put("rows", 0L);
+            result.put("skipped", "histogram");
+            return result;
+        }
+        result.put("file", file.toString());
+
+        long rows;
+        try (OutputStream out = new BufferedOutputStream(openFile(file), 64 * 1024);
+             ArrowIpcWriter writer = new ArrowIpcWriter(out, true, seriesMetadata(sourceId, metricName))) {
+            rows = telemetryService.exportRange(sourceId, metricName, startTime, endTime, BATCH_SIZE,
+                    writer::writeBatch);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + file, e);
+        }
+        if (rows < 0) {
+            // 序列在选择之后被删除
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Failed to delete empty export file {}", file, e);
+            }
+            result.put("rows", 0L);
+            result.remove("file");
+            return result;
+        }
+        exportedFiles.increment();
+        exportedRows.add(rows);
+        result.put("rows", rows);
+        logger.debug("Exported {} rows of {}:{} to {}", rows, sourceId, metricName, file);
+        return result;
+    }
+
+    /**
+     * 解析输出目录，拒绝基础目录之外的路径
+     */
+    Path resolveDirectory(String directory) {
+        if (directory == null || directory.isEmpty()) {
+            return baseDir;
+        }
+        Path resolved = baseDir.resolve(directory).normalize();
+        if (!resolved.startsWith(baseDir)) {
+            throw new IllegalArgumentException("Export directory must be inside " + baseDir + ": " + directory);
+        }
+        return resolved;
+    }
+
+    /**
+     * 创建输出目录并返回其真实路径；创建前后都解析符号链接，拒绝经链接指向基础目录之外的目录
+     */
+    private Path createDirectory(Path outputDir, String directory) {
+        try {
+            Files.createDirectories(baseDir);
+            Path realBase = baseDir.toRealPath();
+            // 先检查已存在的最近上级目录，避免经符号链接在基础目录之外创建目录
+            Path existing = outputDir;
+            while (!Files.exists(existing)) {
+                existing = existing.getParent();
+            }
+            if (!existing.toRealPath().startsWith(realBase)) {
+                throw new IllegalArgumentException("Export directory must be inside " + baseDir + ": " + directory);
+            }
+            Files.createDirectories(outputDir);
+            Path real = outputDir.toRealPath();
+            if (!real.startsWith(realBase)) {
+                throw new IllegalArgumentException("Export directory must be inside " + baseDir + ": " + directory);
+            }
+            return real;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create export directory " + outputDir, e);
+        }
+    }
+
+    /**
+     * 创建导出文件，覆盖同名的旧文件；已存在的符号链接只删除链接本身，新文件不跟随链接创建
+     */
+    private static OutputStream openFile(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        return Files.newOutputStream(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                LinkOption.NOFOLLOW_LINKS);
+    }
+
+    /**
+     * 由序列标识生成文件名，非字母数字字符替换为下划线；
+     * 替换后不同的序列可能同名，因此附加原始标识的摘要前缀，保证并行写入的文件互不覆盖
+     */
+    static String fileName(String sourceId, String metricName) {
+        return sanitize(sourceId) + "__" + sanitize(metricName) + "-" + digest(sourceId, metricName) + ".arrow";
+    }
+
+    /**
+     * 原始序列标识的SHA-256前12个十六进制字符，数据源ID带长度前缀以避免拼接歧义
+     */
+    private static String digest(String sourceId, String metricName) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest((sourceId.length() + ":" + sourceId + metricName)
+                    .getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String sanitize(String name) {
+        StringBuilder builder = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            builder.append(Character.isLetterOrDigit(c) || c == '-' || c == '.' ? c : '_');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 写入schema的序列元数据
+     */
+    public static Map<String, String> seriesMetadata(String sourceId, String metricName) {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("sourceId", sourceId);
+        metadata.put("metricName", metricName);
+        return metadata;
+    }
+
+    /**
+     * 获取导出统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("baseDir", baseDir.toString());
+        stats.put("parallelism", parallelism);
+        stats.put("exportedFiles", exportedFiles.sum());
+        stats.put("exportedRows", exportedRows.sum());
+        return stats;
+    }
+}
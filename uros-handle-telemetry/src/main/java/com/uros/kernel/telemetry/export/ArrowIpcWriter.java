@@ -0,0 +1,246 @@
+package com.uros.kernel.telemetry.export;
+
+import com.google.flatbuffers.FlatBufferBuilder;
+import org.apache.arrow.flatbuf.Block;
+import org.apache.arrow.flatbuf.Buffer;
+import org.apache.arrow.flatbuf.Endianness;
+import org.apache.arrow.flatbuf.Field;
+import org.apache.arrow.flatbuf.FieldNode;
+import org.apache.arrow.flatbuf.FloatingPoint;
+import org.apache.arrow.flatbuf.Footer;
+import org.apache.arrow.flatbuf.KeyValue;
+import org.apache.arrow.flatbuf.Message;
+import org.apache.arrow.flatbuf.MessageHeader;
+import org.apache.arrow.flatbuf.MetadataVersion;
+import org.apache.arrow.flatbuf.Precision;
+import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.flatbuf.Schema;
+import org.apache.arrow.flatbuf.TimeUnit;
+import org.apache.arrow.flatbuf.Timestamp;
+import org.apache.arrow.flatbuf.Type;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Arrow IPC 写入器，输出两列：timestamp（毫秒时间戳，UTC）和 value（double）
+ * 支持流格式（application/vnd.apache.arrow.stream）和文件格式（.arrow / Feather V2）。
+ * 每次 {@link #writeBatch} 立即写出一个记录批次，不在内存中累积整个结果；
+ * 元数据使用Arrow官方FlatBuffers定义构建，数据缓冲区按小端直接写出
+ */
+public class ArrowIpcWriter implements AutoCloseable {
+
+    private static final byte[] FILE_MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int CONTINUATION = 0xFFFFFFFF;
+
+    private final OutputStream out;
+
+    private final boolean fileFormat;
+
+    private final Map<String, String> metadata;
+
+    /** 文件格式下每个记录批次的位置，用于写入尾部索引 */
+    private final List<long[]> blocks = new ArrayList<>();
+
+    private final byte[] prefix = new byte[8];
+
+    private byte[] body = new byte[0];
+
+    private long position;
+
+    private long rowCount;
+
+    private boolean started;
+
+    private boolean closed;
+
+    /**
+     * 构造函数
+     *
+     * @param out 输出流，关闭写入器时不会关闭该流
+     * @param fileFormat true为文件格式，false为流格式
+     * @param metadata 写入schema的自定义元数据，例如sourceId、metricName
+     */
+    public ArrowIpcWriter(OutputStream out, boolean fileFormat, Map<String, String> metadata) {
+        this.out = out;
+        this.fileFormat = fileFormat;
+        this.metadata = metadata;
+    }
+
+    /**
+     * 写入一个记录批次
+     *
+     * @param timestamps 时间戳
+     * @param values 数据值
+     * @param count 行数
+     * @throws IOException 写出失败
+     */
+    public void writeBatch(long[] timestamps, double[] values, int count) throws IOException {
+        start();
+        if (count <= 0) {
+            return;
+        }
+        int columnBytes = count * 8;
+        if (body.length < columnBytes * 2) {
+            body = new byte[columnBytes * 2];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(timestamps[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putDouble(values[i]);
+        }
+
+        FlatBufferBuilder builder = new FlatBufferBuilder(256);
+        RecordBatch.startNodesVector(builder, 2);
+        // 结构体向量需要逆序写入
+        FieldNode.createFieldNode(builder, count, 0);
+        FieldNode.createFieldNode(builder, count, 0);
+        int nodes = builder.endVector();
+        RecordBatch.startBuffersVector(builder, 4);
+        Buffer.createBuffer(builder, columnBytes, columnBytes);
+        Buffer.createBuffer(builder, columnBytes, 0);
+        Buffer.createBuffer(builder, 0, columnBytes);
+        Buffer.createBuffer(builder, 0, 0);
+        int buffers = builder.endVector();
+        RecordBatch.startRecordBatch(builder);
+        RecordBatch.addLength(builder, count);
+        RecordBatch.addNodes(builder, nodes);
+        RecordBatch.addBuffers(builder, buffers);
+        int recordBatch = RecordBatch.endRecordBatch(builder);
+
+        long offset = position;
+        int metadataLength = writeMessage(builder, MessageHeader.RecordBatch, recordBatch, columnBytes * 2L);
+        out.write(body, 0, columnBytes * 2);
+        position += columnBytes * 2L;
+        blocks.add(new long[]{offset, metadataLength, columnBytes * 2L});
+        rowCount += count;
+    }
+
+    /**
+     * 写入schema（首次写入批次或关闭时自动调用）
+     */
+    private void start() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+        if (started) {
+            return;
+        }
+        started = true;
+        if (fileFormat) {
+            out.write(FILE_MAGIC);
+            out.write(new byte[2]);
+            position += 8;
+        }
+        FlatBufferBuilder builder = new FlatBufferBuilder(512);
+        writeMessage(builder, MessageHeader.Schema, buildSchema(builder), 0);
+    }
+
+    private int buildSchema(FlatBufferBuilder builder) {
+        int timestampField = buildField(builder, "timestamp", Type.Timestamp,
+                Timestamp.createTimestamp(builder, TimeUnit.MILLISECOND, builder.createString("UTC")));
+        int valueField = buildField(builder, "value", Type.FloatingPoint,
+                FloatingPoint.createFloatingPoint(builder, Precision.DOUBLE));
+        int fields = Schema.createFieldsVector(builder, new int[]{timestampField, valueField});
+
+        int customMetadata = 0;
+        if (metadata != null && !metadata.isEmpty()) {
+            int[] entries = new int[metadata.size()];
+            int i = 0;
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                entries[i++] = KeyValue.createKeyValue(builder,
+                        builder.createString(entry.getKey()), builder.createString(entry.getValue()));
+            }
+            customMetadata = Schema.createCustomMetadataVector(builder, entries);
+        }
+        return Schema.createSchema(builder, Endianness.Little, fields, customMetadata, 0);
+    }
+
+    private static int buildField(FlatBufferBuilder builder, String name, byte type, int typeOffset) {
+        int nameOffset = builder.createString(name);
+        int children = Field.createChildrenVector(builder, new int[0]);
+        Field.startField(builder);
+        Field.addName(builder, nameOffset);
+        Field.addNullable(builder, false);
+        Field.addTypeType(builder, type);
+        Field.addType(builder, typeOffset);
+        Field.addChildren(builder, children);
+        return Field.endField(builder);
+    }
+
+    /**
+     * 写出封装消息的元数据部分：续接标记 | 元数据长度 | FlatBuffers消息（补齐到8字节）
+     *
+     * @return 含前缀的元数据总字节数
+     */
+    private int writeMessage(FlatBufferBuilder builder, byte headerType, int header, long bodyLength)
+            throws IOException {
+        int message = Message.createMessage(builder, MetadataVersion.V5, headerType, header, bodyLength, 0);
+        builder.finish(message);
+        byte[] bytes = builder.sizedByteArray();
+        int padding = (8 - (bytes.length + 8) % 8) % 8;
+        writePrefix(bytes.length + padding);
+        out.write(bytes);
+        out.write(new byte[padding]);
+        int total = 8 + bytes.length + padding;
+        position += total;
+        return total;
+    }
+
+    private void writePrefix(int length) throws IOException {
+        ByteBuffer.wrap(prefix).order(ByteOrder.LITTLE_ENDIAN).putInt(CONTINUATION).putInt(length);
+        out.write(prefix);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getBatchCount() {
+        return blocks.size();
+    }
+
+    /**
+     * 写入流结束标记；文件格式下再写入尾部索引
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        start();
+        closed = true;
+        writePrefix(0);
+        position += 8;
+        if (fileFormat) {
+            FlatBufferBuilder builder = new FlatBufferBuilder(512);
+            int schema = buildSchema(builder);
+            Footer.startRecordBatchesVector(builder, blocks.size());
+            for (int i = blocks.size() - 1; i >= 0; i--) {
+                long[] block = blocks.get(i);
+                Block.createBlock(builder, block[0], (int) block[1], block[2]);
+            }
+            int recordBatches = builder.endVector();
+            Footer.startFooter(builder);
+            Footer.addVersion(builder, MetadataVersion.V5);
+            Footer.addSchema(builder, schema);
+            Footer.addRecordBatches(builder, recordBatches);
+            builder.finish(Footer.endFooter(builder));
+            byte[] footer = builder.sizedByteArray();
+            out.write(footer);
+            ByteBuffer.wrap(prefix, 0, 4).order(ByteOrder.LITTLE_ENDIAN).putInt(footer.length);
+            out.write(prefix, 0, 4);
+            out.write(FILE_MAGIC);
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,21 @@
+package com.uros.kernel.telemetry.export;
+
+import java.io.IOException;
+
+/**
+ * 分批导出的数据点接收方
+ * 数组由导出方复用，接收方只能在回调期间读取前count个元素
+ */
+@FunctionalInterface
+public interface PointBatchSink {
+
+    /**
+     * 接收一批按时间升序的数据点
+     *
+     * @param timestamps 时间戳
+     * @param values 数据值
+     * @param count 有效数量
+     * @throws IOException 写出失败
+     */
+    void accept(long[] timestamps, double[] values, int count) throws IOException;
+}
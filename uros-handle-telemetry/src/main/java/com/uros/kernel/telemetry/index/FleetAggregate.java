@@ -0,0 +1,172 @@
+package com.uros.kernel.telemetry.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 跨数据源的指标聚合
+ * 对同一指标名称下每个数据源的最新值维护数量、总和（补偿求和）、最小值和最大值，
+ * 最新值变化时增量更新，O(log n)；读取汇总值O(1)，按值取前K个O(K log K)。
+ * 最小/最大值和前K个来自两个共享元素的可定位堆
+ */
+public class FleetAggregate {
+
+    private static final int MAX_SLOT = 0;
+
+    private static final int MIN_SLOT = 1;
+
+    /** 每隔多少次更新重新精确求和，消除反复加减累积的舍入误差 */
+    private static final int RESUM_INTERVAL = 1 << 20;
+
+    private final String metricName;
+
+    private final Map<String, IndexedHeap.Entry> entries = new HashMap<>();
+
+    private final IndexedHeap maxHeap = new IndexedHeap(MAX_SLOT, true);
+
+    private final IndexedHeap minHeap = new IndexedHeap(MIN_SLOT, false);
+
+    private double sum;
+
+    /** Neumaier补偿项 */
+    private double compensation;
+
+    private int updatesSinceResum;
+
+    private final long createdAt = System.currentTimeMillis();
+
+    public FleetAggregate(String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * 数据源的最新值变化，时间戳早于已记录值的更新被忽略；NaN表示移除该数据源
+     *
+     * @param sourceId 数据源ID
+     * @param value 最新值
+     * @param timestamp 时间戳
+     */
+    public synchronized void update(String sourceId, double value, long timestamp) {
+        IndexedHeap.Entry entry = entries.get(sourceId);
+        if (entry != null && timestamp < entry.timestamp) {
+            return;
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            if (entry != null) {
+                remove(entry);
+            }
+            return;
+        }
+        if (entry == null) {
+            entry = new IndexedHeap.Entry(sourceId, value, timestamp);
+            entries.put(sourceId, entry);
+            maxHeap.add(entry);
+            minHeap.add(entry);
+            add(value);
+        } else {
+            add(-entry.value);
+            add(value);
+            entry.value = value;
+            entry.timestamp = timestamp;
+            maxHeap.changed(entry);
+            minHeap.changed(entry);
+        }
+        if (++updatesSinceResum >= RESUM_INTERVAL) {
+            resum();
+        }
+    }
+
+    /**
+     * 移除数据源
+     *
+     * @param sourceId 数据源ID
+     */
+    public synchronized void remove(String sourceId) {
+        IndexedHeap.Entry entry = entries.get(sourceId);
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    private void remove(IndexedHeap.Entry entry) {
+        entries.remove(entry.sourceId);
+        maxHeap.remove(entry);
+        minHeap.remove(entry);
+        add(-entry.value);
+        if (entries.isEmpty()) {
+            sum = 0;
+            compensation = 0;
+        }
+    }
+
+    private void add(double value) {
+        double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - total) + value;
+        } else {
+            compensation += (value - total) + sum;
+        }
+        sum = total;
+    }
+
+    private void resum() {
+        sum = 0;
+        compensation = 0;
+        for (IndexedHeap.Entry entry : entries.values()) {
+            add(entry.value);
+        }
+        updatesSinceResum = 0;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    public synchronized double getSum() {
+        return sum + compensation;
+    }
+
+    /**
+     * 获取汇总结果
+     *
+     * @param topK 按值返回的数据源数，0表示不返回
+     * @param descending true按值从大到小，false从小到大
+     * @return 汇总结果
+     */
+    public synchronized Map<String, Object> toMap(int topK, boolean descending) {
+        int count = entries.size();
+        double total = sum + compensation;
+        IndexedHeap.Entry min = minHeap.peek();
+        IndexedHeap.Entry max = maxHeap.peek();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("metricName", metricName);
+        result.put("count", count);
+        result.put("sum", count == 0 ? 0.0 : total);
+        result.put("avg", count == 0 ? null : total / count);
+        result.put("min", min == null ? null : min.value);
+        result.put("minSourceId", min == null ? null : min.sourceId);
+        result.put("max", max == null ? null : max.value);
+        result.put("maxSourceId", max == null ? null : max.sourceId);
+        result.put("createdAt", createdAt);
+        if (topK > 0) {
+            List<Map<String, Object>> top = new ArrayList<>();
+            for (IndexedHeap.Entry entry : (descending ? maxHeap : minHeap).top(topK)) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("sourceId", entry.sourceId);
+                item.put("value", entry.value);
+                item.put("timestamp", entry.timestamp);
+                top.add(item);
+            }
+            result.put("top", top);
+        }
+        return result;
+    }
+}
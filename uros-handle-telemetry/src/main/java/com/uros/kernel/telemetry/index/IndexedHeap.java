@@ -0,0 +1,155 @@
+package com.uros.kernel.telemetry.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 可按元素定位的二叉堆
+ * 元素在堆中的下标记录在元素自身（{@link Entry#positions} 的对应槽位），
+ * 同一元素可以同时属于最大堆和最小堆；值变化后原地上浮或下沉，O(log n)
+ */
+class IndexedHeap {
+
+    private final int slot;
+
+    private final boolean max;
+
+    private Entry[] heap = new Entry[16];
+
+    private int size;
+
+    /**
+     * @param slot 元素中记录下标的槽位
+     * @param max true为最大堆，false为最小堆
+     */
+    IndexedHeap(int slot, boolean max) {
+        this.slot = slot;
+        this.max = max;
+    }
+
+    void add(Entry entry) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = entry;
+        entry.positions[slot] = size;
+        siftUp(size++);
+    }
+
+    void remove(Entry entry) {
+        int index = entry.positions[slot];
+        Entry last = heap[--size];
+        heap[size] = null;
+        entry.positions[slot] = -1;
+        if (index < size) {
+            heap[index] = last;
+            last.positions[slot] = index;
+            changed(last);
+        }
+    }
+
+    /**
+     * 元素值变化后恢复堆序
+     */
+    void changed(Entry entry) {
+        int index = entry.positions[slot];
+        if (index > 0 && before(heap[index], heap[(index - 1) >>> 1])) {
+            siftUp(index);
+        } else {
+            siftDown(index);
+        }
+    }
+
+    Entry peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 按堆序取前k个元素，不修改堆，O(k log k)
+     */
+    List<Entry> top(int k) {
+        int limit = Math.min(k, size);
+        List<Entry> result = new ArrayList<>(limit);
+        if (limit == 0) {
+            return result;
+        }
+        // 候选集合只包含已取出元素的子节点
+        PriorityQueue<Integer> candidates = new PriorityQueue<>(
+                (a, b) -> before(heap[a], heap[b]) ? -1 : before(heap[b], heap[a]) ? 1 : 0);
+        candidates.add(0);
+        while (result.size() < limit) {
+            int index = candidates.poll();
+            result.add(heap[index]);
+            int child = 2 * index + 1;
+            if (child < size) {
+                candidates.add(child);
+            }
+            if (child + 1 < size) {
+                candidates.add(child + 1);
+            }
+        }
+        return result;
+    }
+
+    private boolean before(Entry a, Entry b) {
+        return max ? a.value > b.value : a.value < b.value;
+    }
+
+    private void siftUp(int index) {
+        Entry entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(entry, heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heap[index].positions[slot] = index;
+            index = parent;
+        }
+        heap[index] = entry;
+        entry.positions[slot] = index;
+    }
+
+    private void siftDown(int index) {
+        Entry entry = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], entry)) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].positions[slot] = index;
+            index = child;
+        }
+        heap[index] = entry;
+        entry.positions[slot] = index;
+    }
+
+    /**
+     * 堆元素：数据源的最新值
+     */
+    static class Entry {
+        final String sourceId;
+        double value;
+        long timestamp;
+        final int[] positions = {-1, -1};
+
+        Entry(String sourceId, double value, long timestamp) {
+            this.sourceId = sourceId;
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+}
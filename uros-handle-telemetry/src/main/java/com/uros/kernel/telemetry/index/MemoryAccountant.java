@@ -0,0 +1,158 @@
+package com.uros.kernel.telemetry.index;
+
+import com.uros.kernel.telemetry.model.MemoryAccount;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按数据源汇总的内存占用估算
+ * 每个数据源一个 {@link MemoryAccount}，序列创建时取得并在写入、清理时增量更新；
+ * 汇总只遍历数据源，按占用取前K个使用大小为K的最小堆，O(N log K)
+ */
+public class MemoryAccountant {
+
+    private final Map<String, MemoryAccount> sources = new ConcurrentHashMap<>();
+
+    /**
+     * 获取或创建数据源的账户
+     *
+     * @param sourceId 数据源ID
+     * @return 账户
+     */
+    public MemoryAccount account(String sourceId) {
+        MemoryAccount account = sources.get(sourceId);
+        if (account == null) {
+            account = sources.computeIfAbsent(sourceId, MemoryAccount::new);
+        }
+        return account;
+    }
+
+    /**
+     * 获取数据源的账户
+     *
+     * @param sourceId 数据源ID
+     * @return 账户，不存在时返回null
+     */
+    public MemoryAccount get(String sourceId) {
+        return sources.get(sourceId);
+    }
+
+    /**
+     * 汇总所有数据源
+     *
+     * @param topK 按占用返回的数据源数，0表示不返回
+     * @return 总字节数、各存储层字节数、序列数、存储点数和占用最多的数据源
+     */
+    public Map<String, Object> summarize(int topK) {
+        long[] tierBytes = new long[MemoryAccount.Tier.values().length];
+        long series = 0;
+        long points = 0;
+        TopK<MemoryAccount> top = new TopK<>(topK);
+        for (MemoryAccount account : sources.values()) {
+            long bytes = 0;
+            for (MemoryAccount.Tier tier : MemoryAccount.Tier.values()) {
+                long tierValue = account.getBytes(tier);
+                tierBytes[tier.ordinal()] += tierValue;
+                bytes += tierValue;
+            }
+            series += account.getSeries();
+            points += account.getPoints();
+            top.offer(account, bytes);
+        }
+
+        long total = 0;
+        Map<String, Object> tiers = new LinkedHashMap<>();
+        for (MemoryAccount.Tier tier : MemoryAccount.Tier.values()) {
+            tiers.put(tier.name().toLowerCase(), tierBytes[tier.ordinal()]);
+            total += tierBytes[tier.ordinal()];
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("estimatedBytes", total);
+        result.put("tiers", tiers);
+        result.put("sources", sources.size());
+        result.put("series", series);
+        result.put("points", points);
+        if (topK > 0) {
+            List<Map<String, Object>> topSources = new ArrayList<>();
+            for (TopK.Entry<MemoryAccount> entry : top.drain()) {
+                topSources.add(describe(entry.item, entry.weight));
+            }
+            result.put("topSources", topSources);
+        }
+        return result;
+    }
+
+    /**
+     * 描述单个数据源的占用
+     *
+     * @param account 账户
+     * @param bytes 总字节数
+     * @return 数据源ID、总字节数、各存储层字节数、序列数和存储点数
+     */
+    public static Map<String, Object> describe(MemoryAccount account, long bytes) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("sourceId", account.getSourceId());
+        item.put("estimatedBytes", bytes);
+        Map<String, Object> tiers = new LinkedHashMap<>();
+        for (MemoryAccount.Tier tier : MemoryAccount.Tier.values()) {
+            tiers.put(tier.name().toLowerCase(), account.getBytes(tier));
+        }
+        item.put("tiers", tiers);
+        item.put("series", account.getSeries());
+        item.put("points", account.getPoints());
+        return item;
+    }
+
+    /**
+     * 按权重保留最大的K项，最小堆，每次加入O(log K)
+     */
+    public static class TopK<T> {
+        private final int k;
+        private final PriorityQueue<Entry<T>> heap;
+
+        public TopK(int k) {
+            this.k = k;
+            this.heap = new PriorityQueue<>(Math.max(1, k), (a, b) -> Long.compare(a.weight, b.weight));
+        }
+
+        public void offer(T item, long weight) {
+            if (k <= 0) {
+                return;
+            }
+            if (heap.size() < k) {
+                heap.add(new Entry<>(item, weight));
+            } else if (weight > heap.peek().weight) {
+                heap.poll();
+                heap.add(new Entry<>(item, weight));
+            }
+        }
+
+        /**
+         * @return 按权重从大到小排列的结果，调用后清空
+         */
+        public List<Entry<T>> drain() {
+            List<Entry<T>> result = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                result.add(heap.poll());
+            }
+            Collections.reverse(result);
+            return result;
+        }
+
+        public static class Entry<T> {
+            public final T item;
+            public final long weight;
+
+            private Entry(T item, long weight) {
+                this.item = item;
+                this.weight = weight;
+            }
+        }
+    }
+}
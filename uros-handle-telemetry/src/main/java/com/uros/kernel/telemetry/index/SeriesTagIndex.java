@@ -0,0 +1,217 @@
+package com.uros.kernel.telemetry.index;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 序列标签倒排索引
+ * 为每个序列分配连续的整数ID，并维护 标签键 -> 标签值 -> 序列ID位图 的倒排表，
+ * 多条件查询通过位图求交完成，无需扫描全部序列
+ */
+public class SeriesTagIndex {
+
+    /** 保留标签：数据源ID */
+    public static final String SOURCE_TAG = "__source__";
+
+    /** 保留标签：指标名称 */
+    public static final String NAME_TAG = "__name__";
+
+    /** 序列key到序列引用的映射 */
+    private final Map<String, SeriesRef> refsByKey = new HashMap<>();
+
+    /** 按序列ID存放的序列引用，下标即ID */
+    private final List<SeriesRef> refsById = new ArrayList<>();
+
+    /** 倒排表：标签键 -> 标签值 -> 位图 */
+    private final Map<String, Map<String, BitSet>> postings = new HashMap<>();
+
+    /** 读写锁，索引写入（序列注册、打标签）远少于查询 */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 注册序列（幂等），并以保留标签索引数据源ID和指标名称
+     *
+     * @param seriesKey 序列key
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @return 序列引用
+     */
+    public SeriesRef register(String seriesKey, String sourceId, String metricName) {
+        try {
+            lock.writeLock().lock();
+            SeriesRef ref = refsByKey.get(seriesKey);
+            if (ref == null) {
+                ref = new SeriesRef(refsById.size(), seriesKey, sourceId, metricName);
+                refsByKey.put(seriesKey, ref);
+                refsById.add(ref);
+                addPosting(SOURCE_TAG, sourceId, ref.getId());
+                addPosting(NAME_TAG, metricName, ref.getId());
+            }
+            return ref;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 替换序列的标签集合，旧标签的倒排项会被移除
+     *
+     * @param seriesKey 序列key
+     * @param oldTags 旧标签
+     * @param newTags 新标签
+     */
+    public void updateTags(String seriesKey, Map<String, String> oldTags, Map<String, String> newTags) {
+        try {
+            lock.writeLock().lock();
+            SeriesRef ref = refsByKey.get(seriesKey);
+            if (ref == null) {
+                return;
+            }
+            for (Map.Entry<String, String> entry : oldTags.entrySet()) {
+                removePosting(entry.getKey(), entry.getValue(), ref.getId());
+            }
+            for (Map.Entry<String, String> entry : newTags.entrySet()) {
+                addPosting(entry.getKey(), entry.getValue(), ref.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按标签等值条件选择序列，所有条件取交集；条件为空时返回全部序列
+     *
+     * @param matchers 标签条件，key为标签键，value为标签值
+     * @return 匹配的序列引用，按序列ID升序
+     */
+    public List<SeriesRef> select(Map<String, String> matchers) {
+        try {
+            lock.readLock().lock();
+            if (matchers == null || matchers.isEmpty()) {
+                return new ArrayList<>(refsById);
+            }
+
+            // 先找出最小的倒排表作为起点，再依次求交
+            List<BitSet> bitmaps = new ArrayList<>(matchers.size());
+            for (Map.Entry<String, String> entry : matchers.entrySet()) {
+                BitSet bitmap = getPosting(entry.getKey(), entry.getValue());
+                if (bitmap == null || bitmap.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                bitmaps.add(bitmap);
+            }
+            bitmaps.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+
+            BitSet result = (BitSet) bitmaps.get(0).clone();
+            for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+                result.and(bitmaps.get(i));
+            }
+
+            List<SeriesRef> refs = new ArrayList<>(result.cardinality());
+            for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+                refs.add(refsById.get(id));
+            }
+            return refs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取某个标签键下的所有取值
+     *
+     * @param tagKey 标签键
+     * @return 标签值列表
+     */
+    public List<String> getTagValues(String tagKey) {
+        try {
+            lock.readLock().lock();
+            Map<String, BitSet> values = postings.get(tagKey);
+            return values == null ? Collections.emptyList() : new ArrayList<>(values.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取已注册的序列数量
+     *
+     * @return 序列数量
+     */
+    public int size() {
+        try {
+            lock.readLock().lock();
+            return refsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet getPosting(String tagKey, String tagValue) {
+        Map<String, BitSet> values = postings.get(tagKey);
+        return values == null ? null : values.get(tagValue);
+    }
+
+    private void addPosting(String tagKey, String tagValue, int id) {
+        postings.computeIfAbsent(tagKey, k -> new HashMap<>())
+                .computeIfAbsent(tagValue, v -> new BitSet())
+                .set(id);
+    }
+
+    private void removePosting(String tagKey, String tagValue, int id) {
+        Map<String, BitSet> values = postings.get(tagKey);
+        if (values == null) {
+            return;
+        }
+        BitSet bitmap = values.get(tagValue);
+        if (bitmap == null) {
+            return;
+        }
+        bitmap.clear(id);
+        if (bitmap.isEmpty()) {
+            values.remove(tagValue);
+            if (values.isEmpty()) {
+                postings.remove(tagKey);
+            }
+        }
+    }
+
+    /**
+     * 序列引用，记录序列ID与其数据源ID、指标名称
+     */
+    public static class SeriesRef {
+        private final int id;
+        private final String key;
+        private final String sourceId;
+        private final String metricName;
+
+        public SeriesRef(int id, String key, String sourceId, String metricName) {
+            this.id = id;
+            this.key = key;
+            this.sourceId = sourceId;
+            this.metricName = metricName;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getSourceId() {
+            return sourceId;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.uros.kernel.telemetry.index;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按数据源分组的最新值索引
+ * 写入时维护每个数据源下所有序列的最新值和时间戳，一次查询即可返回设备的全部指标；
+ * 每个数据源缓存一份序列化好的JSON快照，写入只递增版本号使缓存失效，读取时按需重建
+ */
+public class SourceSnapshotIndex {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, SourceEntry> sources = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一个数据点，时间戳早于已有最新值的数据点被忽略
+     *
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param value 数据值
+     * @param timestamp 时间戳
+     * @return 最新值是否被更新
+     */
+    public boolean update(String sourceId, String metricName, double value, long timestamp) {
+        SourceEntry source = sources.get(sourceId);
+        if (source == null) {
+            source = sources.computeIfAbsent(sourceId, SourceEntry::new);
+        }
+        return source.update(metricName, value, timestamp);
+    }
+
+    /**
+     * 遍历所有数据源在某个指标上的最新值
+     *
+     * @param metricName 指标名称
+     * @param visitor 访问者
+     */
+    public void forEachLatest(String metricName, LatestVisitor visitor) {
+        for (SourceEntry source : sources.values()) {
+            Latest latest = source.metrics.get(metricName);
+            if (latest != null) {
+                visitor.visit(source.sourceId, latest.value, latest.timestamp);
+            }
+        }
+    }
+
+    /**
+     * 获取数据源的快照
+     *
+     * @param sourceId 数据源ID
+     * @return 快照，数据源不存在时返回null
+     */
+    public Snapshot getSnapshot(String sourceId) {
+        SourceEntry source = sources.get(sourceId);
+        return source == null ? null : source.snapshot();
+    }
+
+    /**
+     * @return 已索引的数据源数
+     */
+    public int getSourceCount() {
+        return sources.size();
+    }
+
+    /**
+     * 单个数据源的最新值表
+     */
+    private static class SourceEntry {
+        private final String sourceId;
+        /** 条目创建时间，和版本号一起组成ETag，避免进程重启后版本号重复 */
+        private final long epoch = System.currentTimeMillis();
+        private final Map<String, Latest> metrics = new ConcurrentHashMap<>();
+        /** 每次写入递增，缓存快照的版本号与之不同即失效 */
+        private final AtomicLong version = new AtomicLong();
+        private volatile Snapshot cached;
+
+        private SourceEntry(String sourceId) {
+            this.sourceId = sourceId;
+        }
+
+        private boolean update(String metricName, double value, long timestamp) {
+            Latest current = metrics.get(metricName);
+            if (current != null && timestamp < current.timestamp) {
+                return false;
+            }
+            Latest written = new Latest(value, timestamp);
+            Latest result = metrics.compute(metricName, (name, previous) ->
+                    previous != null && timestamp < previous.timestamp ? previous : written);
+            if (result != written) {
+                return false;
+            }
+            version.incrementAndGet();
+            return true;
+        }
+
+        private Snapshot snapshot() {
+            long currentVersion = version.get();
+            Snapshot snapshot = cached;
+            if (snapshot != null && snapshot.version == currentVersion) {
+                return snapshot;
+            }
+            // 在读取版本号之后构建，内容不会比版本号旧；构建期间的写入会使该快照在下次读取时失效
+            Map<String, Object> entries = new TreeMap<>();
+            for (Map.Entry<String, Latest> entry : metrics.entrySet()) {
+                Map<String, Object> metric = new LinkedHashMap<>();
+                metric.put("value", entry.getValue().value);
+                metric.put("timestamp", entry.getValue().timestamp);
+                entries.put(entry.getKey(), metric);
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("sourceId", sourceId);
+            body.put("version", currentVersion);
+            body.put("metricCount", entries.size());
+            body.put("metrics", entries);
+            try {
+                snapshot = new Snapshot(currentVersion, epoch, MAPPER.writeValueAsBytes(body));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException("Failed to serialize snapshot of " + sourceId, e);
+            }
+            cached = snapshot;
+            return snapshot;
+        }
+    }
+
+    /**
+     * 最新值访问者
+     */
+    @FunctionalInterface
+    public interface LatestVisitor {
+        void visit(String sourceId, double value, long timestamp);
+    }
+
+    private static class Latest {
+        private final double value;
+        private final long timestamp;
+
+        private Latest(double value, long timestamp) {
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * 序列化后的数据源快照，JSON字节在多次读取之间共享，调用方不得修改
+     */
+    public static class Snapshot {
+        private final long version;
+        private final String etag;
+        private final byte[] json;
+
+        private Snapshot(long version, long epoch, byte[] json) {
+            this.version = version;
+            this.etag = "\"" + Long.toHexString(epoch) + "-" + version + "\"";
+            this.json = json;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return 带引号的HTTP实体标签
+         */
+        public String getETag() {
+            return etag;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+    }
+}
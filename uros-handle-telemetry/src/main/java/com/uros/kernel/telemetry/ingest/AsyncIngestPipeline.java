@@ -0,0 +1,333 @@
+package com.uros.kernel.telemetry.ingest;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步批量写入管道
+ * 请求线程只把数据点放入按序列分片的有界环形缓冲区并立即返回；每个分片由一个消费者线程批量取出，
+ * 按序列分组后通过 {@link TelemetryService#recordMetricBatch} 写入，每个序列每批只获取一次写锁。
+ * 同一序列总是落在同一分片，因此序列内的写入顺序保持不变。
+ * 停止时先拒绝新的写入，消费者等到分片上正在放入的生产者全部退出、缓冲区排空后才结束，已确认的数据点不会丢失
+ */
+@Component
+public class AsyncIngestPipeline implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncIngestPipeline.class);
+
+    /** 延迟直方图桶数，第i个桶统计 [2^(i-1), 2^i) 微秒 */
+    private static final int LATENCY_BUCKETS = 40;
+
+    /** 空闲时的休眠时间 */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final TelemetryService telemetryService;
+
+    private final boolean enabled;
+
+    private final int maxBatchSize;
+
+    private final Shard[] shards;
+
+    private volatile boolean running;
+
+    private final LongAdder enqueued = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder applied = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    private final LongAdder latencyMicrosTotal = new LongAdder();
+
+    private final AtomicLong latencyMicrosMax = new AtomicLong();
+
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(LATENCY_BUCKETS);
+
+    /**
+     * 构造函数
+     *
+     * @param telemetryService 遥测服务
+     * @param enabled 是否启用异步写入
+     * @param shardCount 分片数（消费者线程数）
+     * @param capacity 每个分片的缓冲区容量
+     * @param maxBatchSize 每批最多处理的数据点数
+     */
+    public AsyncIngestPipeline(
+            TelemetryService telemetryService,
+            @Value("${uros.telemetry.ingest.async.enabled:false}") boolean enabled,
+            @Value("${uros.telemetry.ingest.async.shards:4}") int shardCount,
+            @Value("${uros.telemetry.ingest.async.capacity:65536}") int capacity,
+            @Value("${uros.telemetry.ingest.async.max-batch-size:1024}") int maxBatchSize) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shards must be at least 1");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.telemetryService = telemetryService;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.shards = new Shard[enabled ? shardCount : 0];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, new MpscRingBuffer(capacity));
+        }
+    }
+
+    /**
+     * 将数据点放入写入队列
+     *
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param value 指标值
+     * @param timestamp 时间戳
+     * @return 队列已满或管道未运行时返回false
+     */
+    public boolean enqueue(String sourceId, String metricName, double value, long timestamp) {
+        if (!running) {
+            rejected.increment();
+            return false;
+        }
+        Shard shard = shards[shardIndex(sourceId, metricName)];
+        // 先登记再复查运行状态：消费者只在看到停止且没有登记中的生产者后才做最后一次排空
+        shard.producers.incrementAndGet();
+        try {
+            if (running && shard.ring.offer(sourceId, metricName, value, timestamp)) {
+                enqueued.increment();
+                return true;
+            }
+        } finally {
+            shard.producers.decrementAndGet();
+        }
+        rejected.increment();
+        return false;
+    }
+
+    private int shardIndex(String sourceId, String metricName) {
+        int hash = sourceId.hashCode() * 31 + metricName.hashCode();
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % shards.length;
+    }
+
+    /**
+     * 消费者线程主循环，停止后等待正在放入的生产者退出，并排空缓冲区再退出
+     */
+    private void consume(Shard shard) {
+        MpscRingBuffer.Batch batch = new MpscRingBuffer.Batch(maxBatchSize);
+        while (running || shard.producers.get() > 0 || shard.ring.size() > 0) {
+            int drained = shard.ring.drainTo(batch, maxBatchSize);
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                apply(batch);
+            } catch (RuntimeException e) {
+                logger.error("Failed to apply ingest batch of {} points on shard {}", drained, shard.index, e);
+            }
+        }
+    }
+
+    /**
+     * 按序列分组后写入
+     */
+    private void apply(MpscRingBuffer.Batch batch) {
+        int size = batch.size();
+        Map<String, Map<String, SeriesBatch>> groups = new HashMap<>();
+        List<SeriesBatch> ordered = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Map<String, SeriesBatch> byMetric = groups.computeIfAbsent(batch.sourceIds[i], k -> new HashMap<>());
+            SeriesBatch series = byMetric.get(batch.metricNames[i]);
+            if (series == null) {
+                series = new SeriesBatch(batch.sourceIds[i], batch.metricNames[i]);
+                byMetric.put(batch.metricNames[i], series);
+                ordered.add(series);
+            }
+            series.add(batch.values[i], batch.timestamps[i]);
+        }
+
+        for (SeriesBatch series : ordered) {
+            applied.add(telemetryService.recordMetricBatch(
+                    series.sourceId, series.metricName, series.values, series.timestamps, series.size));
+        }
+
+        batches.increment();
+        largestBatch.accumulateAndGet(size, Math::max);
+        long now = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            recordLatency(TimeUnit.NANOSECONDS.toMicros(now - batch.enqueueNanos[i]));
+        }
+    }
+
+    private void recordLatency(long micros) {
+        latencyMicrosTotal.add(micros);
+        latencyMicrosMax.accumulateAndGet(micros, Math::max);
+        int bucket = Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        latencyBuckets.incrementAndGet(bucket);
+    }
+
+    /**
+     * 获取管道运行指标：队列深度、批大小、端到端延迟
+     *
+     * @return 指标集合
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("running", running);
+
+        List<Integer> depths = new ArrayList<>(shards.length);
+        long totalDepth = 0;
+        long totalCapacity = 0;
+        for (Shard shard : shards) {
+            int depth = shard.ring.size();
+            depths.add(depth);
+            totalDepth += depth;
+            totalCapacity += shard.ring.capacity();
+        }
+        result.put("queueDepth", totalDepth);
+        result.put("queueCapacity", totalCapacity);
+        result.put("shardQueueDepths", depths);
+
+        long appliedCount = applied.sum();
+        long batchCount = batches.sum();
+        result.put("enqueued", enqueued.sum());
+        result.put("rejected", rejected.sum());
+        result.put("applied", appliedCount);
+        result.put("batches", batchCount);
+        result.put("averageBatchSize", batchCount == 0 ? 0.0 : (double) appliedCount / batchCount);
+        result.put("largestBatchSize", largestBatch.get());
+
+        long latencyCount = 0;
+        long[] buckets = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            buckets[i] = latencyBuckets.get(i);
+            latencyCount += buckets[i];
+        }
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("count", latencyCount);
+        latency.put("averageMicros", latencyCount == 0 ? 0.0 : (double) latencyMicrosTotal.sum() / latencyCount);
+        latency.put("p50MicrosUpperBound", percentileUpperBound(buckets, latencyCount, 0.50));
+        latency.put("p99MicrosUpperBound", percentileUpperBound(buckets, latencyCount, 0.99));
+        latency.put("maxMicros", latencyMicrosMax.get());
+        result.put("latency", latency);
+        return result;
+    }
+
+    private static long percentileUpperBound(long[] buckets, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= threshold) {
+                return 1L << i;
+            }
+        }
+        return 1L << (buckets.length - 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        for (Shard shard : shards) {
+            shard.thread = new Thread(() -> consume(shard), "telemetry-ingest-" + shard.index);
+            shard.thread.setDaemon(true);
+            shard.thread.start();
+        }
+        logger.info("Async telemetry ingest started with {} shards", shards.length);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        logger.info("Async telemetry ingest stopped, {} points applied", applied.sum());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 分片：一个环形缓冲区和一个消费者线程
+     */
+    private static class Shard {
+        private final int index;
+        private final MpscRingBuffer ring;
+        /** 已通过运行检查、尚未完成放入的生产者数 */
+        private final AtomicInteger producers = new AtomicInteger();
+        private Thread thread;
+
+        private Shard(int index, MpscRingBuffer ring) {
+            this.index = index;
+            this.ring = ring;
+        }
+    }
+
+    /**
+     * 单个序列在一批中的数据点
+     */
+    private static class SeriesBatch {
+        private final String sourceId;
+        private final String metricName;
+        private double[] values = new double[8];
+        private long[] timestamps = new long[8];
+        private int size;
+
+        private SeriesBatch(String sourceId, String metricName) {
+            this.sourceId = sourceId;
+            this.metricName = metricName;
+        }
+
+        private void add(double value, long timestamp) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+            }
+            values[size] = value;
+            timestamps[size] = timestamp;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.uros.kernel.telemetry.ingest;
+
+import java.util.Collection;
+
+/**
+ * 字符串布隆过滤器，构建后只读
+ * 用作已知数据源集合的前置判断：不在过滤器中的ID一定未登记，无需再查精确集合
+ */
+class BloomFilter {
+
+    private static final int MAX_HASHES = 16;
+
+    private final long[] bits;
+
+    private final int bitCount;
+
+    private final int hashCount;
+
+    /**
+     * 按元素数和期望误判率构建
+     *
+     * @param items 元素
+     * @param falsePositiveRate 期望误判率
+     */
+    BloomFilter(Collection<String> items, double falsePositiveRate) {
+        int expected = Math.max(1, items.size());
+        long optimalBits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.max(64, Math.min(optimalBits, Integer.MAX_VALUE - 63));
+        // 元素很少时最小位数远超最优值，限制哈希次数
+        this.hashCount = Math.max(1, Math.min(MAX_HASHES, (int) Math.round((double) bitCount / expected * Math.log(2))));
+        this.bits = new long[(bitCount + 63) >>> 6];
+        for (String item : items) {
+            long hash = hash(item);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+
+    /**
+     * @param item 元素
+     * @return false表示一定不存在，true表示可能存在
+     */
+    boolean mightContain(String item) {
+        long hash = hash(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int getBitCount() {
+        return bitCount;
+    }
+
+    int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * 64位字符串哈希（FNV-1a后接murmur3终结混合），高低32位作为双重哈希的两个种子
+     */
+    private static long hash(String item) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < item.length(); i++) {
+            hash ^= item.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,420 @@
+package com.uros.kernel.telemetry.ingest;
+
+import com.uros.kernel.telemetry.ingest.protocol.ByteStringCache;
+import com.uros.kernel.telemetry.ingest.protocol.FrameDecoder;
+import com.uros.kernel.telemetry.ingest.protocol.SampleSink;
+import com.uros.kernel.telemetry.service.TelemetryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 历史数据批量导入
+ * 把本地CSV或NDJSON文件按行边界切分为若干区段，各区段内存映射后并行解析，按序列收集到基本类型数组；
+ * 解析完成后每个序列按时间排序一次，再整体写入序列存储，不经过限流、校验、异步队列和记录规则。
+ * 输入文件只能位于配置的基础目录之下
+ */
+@Component
+public class BulkImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkImporter.class);
+
+    /** 单个区段的最大字节数，MappedByteBuffer以int寻址 */
+    private static final long MAX_REGION_BYTES = 1L << 30;
+
+    /** 区段的最小字节数，小文件不值得拆分 */
+    private static final long MIN_REGION_BYTES = 1L << 20;
+
+    /** 查找行边界时每次读取的字节数 */
+    private static final int SCAN_BYTES = 8192;
+
+    private final TelemetryService telemetryService;
+
+    private final Path baseDir;
+
+    private final int parallelism;
+
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    private final LongAdder importedFiles = new LongAdder();
+
+    private final LongAdder importedRows = new LongAdder();
+
+    private final LongAdder rejectedRows = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param telemetryService 遥测服务
+     * @param baseDir 导入文件所在的基础目录
+     * @param parallelism 并行解析和写入的线程数
+     */
+    public BulkImporter(
+            TelemetryService telemetryService,
+            @Value("${uros.telemetry.import.base-dir:${java.io.tmpdir}/uros-telemetry-import}") String baseDir,
+            @Value("${uros.telemetry.import.parallelism:4}") int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Import parallelism must be positive: " + parallelism);
+        }
+        this.telemetryService = telemetryService;
+        this.baseDir = Paths.get(baseDir).toAbsolutePath().normalize();
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 导入一个文件
+     *
+     * @param path 基础目录下的相对路径
+     * @param format 文件格式：csv | ndjson，为空时按扩展名推断
+     * @return 导入结果：行数、拒绝行数、序列数、耗时和每秒行数
+     */
+    public Map<String, Object> importFile(String path, String format) {
+        Path file = resolveFile(path);
+        ImportFormat importFormat = ImportFormat.of(format, file.getFileName().toString());
+        long startNanos = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "telemetry-import-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = splitOnLines(channel, size);
+
+            // 解析：每个区段独立映射、独立解码，结果按区段顺序保存
+            List<Future<RegionResult>> parses = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                parses.add(executor.submit(() -> parseRegion(channel, start, end, importFormat)));
+            }
+            List<RegionResult> regions = new ArrayList<>(parses.size());
+            long malformed = 0;
+            for (Future<RegionResult> parse : parses) {
+                RegionResult region = parse.get();
+                regions.add(region);
+                malformed += region.malformed;
+            }
+            long parseNanos = System.nanoTime() - startNanos;
+
+            // 写入：同一序列在各区段的数据按区段顺序拼接，排序后一次写入
+            Map<SeriesKey, List<SeriesBuffer>> bySeries = new LinkedHashMap<>();
+            for (RegionResult region : regions) {
+                for (Map.Entry<SeriesKey, SeriesBuffer> entry : region.series.entrySet()) {
+                    bySeries.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry.getValue());
+                }
+            }
+            List<Future<long[]>> writes = new ArrayList<>(bySeries.size());
+            for (Map.Entry<SeriesKey, List<SeriesBuffer>> entry : bySeries.entrySet()) {
+                SeriesKey key = entry.getKey();
+                List<SeriesBuffer> parts = entry.getValue();
+                writes.add(executor.submit((Callable<long[]>) () -> writeSeries(key, parts)));
+            }
+            long parsed = 0;
+            long written = 0;
+            for (Future<long[]> write : writes) {
+                long[] counts = write.get();
+                parsed += counts[0];
+                written += counts[1];
+            }
+            long elapsedNanos = System.nanoTime() - startNanos;
+
+            // 计数器会丢弃不晚于最后一个数据点的重复时间戳
+            long rejected = malformed + (parsed - written);
+            importedFiles.increment();
+            importedRows.add(written);
+            rejectedRows.add(rejected);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("file", file.toString());
+            result.put("format", importFormat.name().toLowerCase());
+            result.put("bytes", size);
+            result.put("regions", regions.size());
+            result.put("series", bySeries.size());
+            result.put("rows", written);
+            result.put("rejected", rejected);
+            result.put("parseMillis", parseNanos / 1_000_000);
+            result.put("writeMillis", (elapsedNanos - parseNanos) / 1_000_000);
+            result.put("elapsedMillis", elapsedNanos / 1_000_000);
+            result.put("rowsPerSecond", elapsedNanos == 0 ? 0 : Math.round(written * 1e9 / elapsedNanos));
+            logger.info("Imported {} rows ({} rejected) into {} series from {} in {} ms",
+                    written, rejected, bySeries.size(), file, elapsedNanos / 1_000_000);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to import " + file, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Import failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 把文件切分为不超过 {@link #MAX_REGION_BYTES} 的区段，区段边界落在换行符之后
+     *
+     * @return 区段边界，长度为区段数加一
+     */
+    long[] splitOnLines(FileChannel channel, long size) throws IOException {
+        long regions = Math.max(parallelism, (size + MAX_REGION_BYTES - 1) / MAX_REGION_BYTES);
+        regions = Math.max(1, Math.min(regions, (size + MIN_REGION_BYTES - 1) / MIN_REGION_BYTES));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BYTES);
+        for (long i = 1; i < regions; i++) {
+            long nominal = size / regions * i;
+            long boundary = nextLineStart(channel, Math.max(nominal, bounds.get(bounds.size() - 1)), size, scan);
+            if (boundary > bounds.get(bounds.size() - 1) && boundary < size) {
+                bounds.add(boundary);
+            }
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+            if (i > 0 && result[i] - result[i - 1] > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Line longer than " + Integer.MAX_VALUE + " bytes near offset "
+                        + result[i - 1]);
+            }
+        }
+        return result;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer scan) throws IOException {
+        long position = from;
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private RegionResult parseRegion(FileChannel channel, long start, long end, ImportFormat format) throws IOException {
+        RegionResult result = new RegionResult();
+        if (end <= start) {
+            return result;
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        FrameDecoder decoder = format.newDecoder(new ByteStringCache(16 * 1024));
+        decoder.decode(buffer, result, -1, true);
+        result.malformed = decoder.getMalformedCount();
+        return result;
+    }
+
+    /**
+     * 拼接、排序并写入一个序列
+     *
+     * @return [解析的行数, 写入的行数]
+     */
+    private long[] writeSeries(SeriesKey key, List<SeriesBuffer> parts) {
+        SeriesBuffer series = parts.get(0);
+        for (int i = 1; i < parts.size(); i++) {
+            series.append(parts.get(i));
+        }
+        series.sort();
+        int written = telemetryService.importSortedSeries(key.sourceId, key.metricName,
+                series.values, series.timestamps, series.size);
+        return new long[]{series.size, written};
+    }
+
+    /**
+     * 解析输入文件，拒绝基础目录之外的路径；
+     * 比较前解析符号链接，基础目录内指向目录外的链接同样被拒绝
+     */
+    Path resolveFile(String path) {
+        if (path == null || path.isEmpty()) {
+            throw new IllegalArgumentException("Import path is required");
+        }
+        Path resolved = baseDir.resolve(path).normalize();
+        if (!resolved.startsWith(baseDir)) {
+            throw new IllegalArgumentException("Import file must be inside " + baseDir + ": " + path);
+        }
+        if (!Files.isRegularFile(resolved)) {
+            throw new IllegalArgumentException("Import file not found: " + path);
+        }
+        Path real;
+        try {
+            real = resolved.toRealPath();
+            if (!real.startsWith(baseDir.toRealPath())) {
+                throw new IllegalArgumentException("Import file must be inside " + baseDir + ": " + path);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Import file not found: " + path, e);
+        }
+        return real;
+    }
+
+    /**
+     * 获取导入统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("baseDir", baseDir.toString());
+        stats.put("parallelism", parallelism);
+        stats.put("importedFiles", importedFiles.sum());
+        stats.put("importedRows", importedRows.sum());
+        stats.put("rejectedRows", rejectedRows.sum());
+        return stats;
+    }
+
+    /**
+     * 一个区段的解析结果，按序列收集数据点
+     */
+    private static class RegionResult implements SampleSink {
+        private final Map<SeriesKey, SeriesBuffer> series = new LinkedHashMap<>();
+        private long malformed;
+        /** 相邻行通常属于同一序列，字符串来自缓存，命中时可直接按引用比较 */
+        private String lastSourceId;
+        private String lastMetricName;
+        private SeriesBuffer lastBuffer;
+
+        @Override
+        public void accept(String sourceId, String metricName, double value, long timestamp) {
+            if (sourceId != lastSourceId || metricName != lastMetricName) {
+                lastSourceId = sourceId;
+                lastMetricName = metricName;
+                lastBuffer = series.computeIfAbsent(new SeriesKey(sourceId, metricName), k -> new SeriesBuffer());
+            }
+            lastBuffer.add(timestamp, value);
+        }
+    }
+
+    private static class SeriesKey {
+        private final String sourceId;
+        private final String metricName;
+
+        private SeriesKey(String sourceId, String metricName) {
+            this.sourceId = sourceId;
+            this.metricName = metricName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SeriesKey)) {
+                return false;
+            }
+            SeriesKey other = (SeriesKey) o;
+            return sourceId.equals(other.sourceId) && metricName.equals(other.metricName);
+        }
+
+        @Override
+        public int hashCode() {
+            return sourceId.hashCode() * 31 + metricName.hashCode();
+        }
+    }
+
+    /**
+     * 单个序列的数据点，记录是否已按时间升序
+     */
+    static class SeriesBuffer {
+        long[] timestamps = new long[64];
+        double[] values = new double[64];
+        int size;
+        boolean sorted = true;
+
+        void add(long timestamp, double value) {
+            if (size == timestamps.length) {
+                grow(size * 2);
+            }
+            if (size > 0 && timestamp < timestamps[size - 1]) {
+                sorted = false;
+            }
+            timestamps[size] = timestamp;
+            values[size++] = value;
+        }
+
+        void append(SeriesBuffer other) {
+            if (size + other.size > timestamps.length) {
+                grow(Math.max(size + other.size, timestamps.length * 2));
+            }
+            if (!other.sorted || (size > 0 && other.size > 0 && other.timestamps[0] < timestamps[size - 1])) {
+                sorted = false;
+            }
+            System.arraycopy(other.timestamps, 0, timestamps, size, other.size);
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        private void grow(int capacity) {
+            long[] newTimestamps = new long[capacity];
+            double[] newValues = new double[capacity];
+            System.arraycopy(timestamps, 0, newTimestamps, 0, size);
+            System.arraycopy(values, 0, newValues, 0, size);
+            timestamps = newTimestamps;
+            values = newValues;
+        }
+
+        /**
+         * 按时间戳稳定排序（自底向上归并），已有序时不做任何事
+         */
+        void sort() {
+            if (sorted) {
+                return;
+            }
+            long[] srcTimes = timestamps;
+            double[] srcValues = values;
+            long[] dstTimes = new long[size];
+            double[] dstValues = new double[size];
+            for (int width = 1; width < size; width *= 2) {
+                for (int left = 0; left < size; left += 2 * width) {
+                    int mid = Math.min(left + width, size);
+                    int right = Math.min(left + 2 * width, size);
+                    int i = left;
+                    int j = mid;
+                    for (int k = left; k < right; k++) {
+                        if (i < mid && (j >= right || srcTimes[i] <= srcTimes[j])) {
+                            dstTimes[k] = srcTimes[i];
+                            dstValues[k] = srcValues[i++];
+                        } else {
+                            dstTimes[k] = srcTimes[j];
+                            dstValues[k] = srcValues[j++];
+                        }
+                    }
+                }
+                long[] times = srcTimes;
+                srcTimes = dstTimes;
+                dstTimes = times;
+                double[] vals = srcValues;
+                srcValues = dstValues;
+                dstValues = vals;
+            }
+            timestamps = srcTimes;
+            values = srcValues;
+            sorted = true;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.uros.kernel.telemetry.ingest;
+
+import com.uros.kernel.telemetry.ingest.protocol.ByteStringCache;
+import com.uros.kernel.telemetry.ingest.protocol.CsvDecoder;
+import com.uros.kernel.telemetry.ingest.protocol.FrameDecoder;
+import com.uros.kernel.telemetry.ingest.protocol.NdjsonDecoder;
+
+/**
+ * 批量导入的文件格式
+ */
+public enum ImportFormat {
+    /** sourceId,metricName,timestamp,value */
+    CSV,
+    /** 每行一个JSON对象 */
+    NDJSON;
+
+    FrameDecoder newDecoder(ByteStringCache strings) {
+        return this == CSV ? new CsvDecoder(strings) : new NdjsonDecoder(strings);
+    }
+
+    /**
+     * 解析格式名称，为空时按文件扩展名推断
+     *
+     * @param name 格式名称：csv | ndjson
+     * @param fileName 文件名
+     * @return 文件格式
+     */
+    public static ImportFormat of(String name, String fileName) {
+        if (name != null && !name.isEmpty()) {
+            switch (name.trim().toLowerCase()) {
+                case "csv":
+                    return CSV;
+                case "ndjson":
+                case "jsonl":
+                    return NDJSON;
+                default:
+                    throw new IllegalArgumentException("Unsupported import format: " + name);
+            }
+        }
+        String lower = fileName.toLowerCase();
+        if (lower.endsWith(".csv")) {
+            return CSV;
+        }
+        if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Cannot infer import format from file name: " + fileName);
+    }
+}
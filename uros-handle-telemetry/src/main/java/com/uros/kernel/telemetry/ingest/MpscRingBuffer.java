@@ -0,0 +1,161 @@
+package com.uros.kernel.telemetry.ingest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 有界多生产者单消费者环形缓冲区，用于暂存待写入的数据点
+ * 槽位预先分配为并行数组，每个槽位带一个序号：生产者CAS抢占写位置后写入字段，
+ * 再以release语义发布序号；消费者看到序号后读取字段并释放槽位。入队和出队均不分配对象
+ */
+public class MpscRingBuffer {
+
+    private final int capacity;
+
+    private final int mask;
+
+    /** 槽位序号：等于位置时可写，等于位置+1时可读 */
+    private final AtomicLongArray sequences;
+
+    private final String[] sourceIds;
+
+    private final String[] metricNames;
+
+    private final double[] values;
+
+    private final long[] timestamps;
+
+    private final long[] enqueueNanos;
+
+    /** 下一个写入位置（生产者竞争） */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** 下一个读取位置（仅消费者线程写入） */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * 构造函数
+     *
+     * @param requestedCapacity 期望容量，会向上取整为2的幂
+     */
+    public MpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2 || requestedCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity out of range: " + requestedCapacity);
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.sourceIds = new String[capacity];
+        this.metricNames = new String[capacity];
+        this.values = new double[capacity];
+        this.timestamps = new long[capacity];
+        this.enqueueNanos = new long[capacity];
+    }
+
+    /**
+     * 入队一个数据点
+     *
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param value 指标值
+     * @param timestamp 时间戳
+     * @return 缓冲区已满时返回false
+     */
+    public boolean offer(String sourceId, String metricName, double value, long timestamp) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    sourceIds[index] = sourceId;
+                    metricNames[index] = metricName;
+                    values[index] = value;
+                    timestamps[index] = timestamp;
+                    enqueueNanos[index] = System.nanoTime();
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+            // difference > 0：其他生产者已抢占该位置，重试
+        }
+    }
+
+    /**
+     * 批量出队，仅允许单个消费者线程调用
+     *
+     * @param batch 接收数据的批次，出队前会被清空
+     * @param maxItems 最多出队数量
+     * @return 出队数量
+     */
+    public int drainTo(Batch batch, int maxItems) {
+        batch.size = 0;
+        long position = head.get();
+        int limit = Math.min(maxItems, batch.capacity());
+        while (batch.size < limit) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            int n = batch.size++;
+            batch.sourceIds[n] = sourceIds[index];
+            batch.metricNames[n] = metricNames[index];
+            batch.values[n] = values[index];
+            batch.timestamps[n] = timestamps[index];
+            batch.enqueueNanos[n] = enqueueNanos[index];
+            sourceIds[index] = null;
+            metricNames[index] = null;
+            sequences.lazySet(index, position + capacity);
+            position++;
+        }
+        head.lazySet(position);
+        return batch.size;
+    }
+
+    /**
+     * 获取当前队列深度（近似值）
+     *
+     * @return 已入队但尚未出队的数据点数量
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 出队批次，由消费者线程复用
+     */
+    public static class Batch {
+        final String[] sourceIds;
+        final String[] metricNames;
+        final double[] values;
+        final long[] timestamps;
+        final long[] enqueueNanos;
+        int size;
+
+        public Batch(int capacity) {
+            this.sourceIds = new String[capacity];
+            this.metricNames = new String[capacity];
+            this.values = new double[capacity];
+            this.timestamps = new long[capacity];
+            this.enqueueNanos = new long[capacity];
+        }
+
+        public int capacity() {
+            return values.length;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.uros.kernel.telemetry.ingest;
+
+import com.uros.kernel.telemetry.ingest.protocol.SampleSink;
+import com.uros.kernel.telemetry.service.TelemetryService;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 把连续属于同一序列的数据点合并为一次 recordMetricBatch 调用
+ * 非线程安全，由单个读取线程持有；调用方在每轮读取结束后调用 {@link #flush()}
+ */
+class SeriesRunBatcher implements SampleSink {
+
+    /** 合并写入的最大数据点数 */
+    private static final int MAX_RUN = 1024;
+
+    private final TelemetryService telemetryService;
+
+    private final SourceValidator sourceValidator;
+
+    private final double[] values = new double[MAX_RUN];
+
+    private final long[] timestamps = new long[MAX_RUN];
+
+    private final LongAdder recorded = new LongAdder();
+
+    private String sourceId;
+
+    private String metricName;
+
+    private int size;
+
+    SeriesRunBatcher(TelemetryService telemetryService, SourceValidator sourceValidator) {
+        this.telemetryService = telemetryService;
+        this.sourceValidator = sourceValidator;
+    }
+
+    @Override
+    public void accept(String sourceId, String metricName, double value, long timestamp) {
+        if (size > 0 && (size == MAX_RUN || !sameSeries(sourceId, metricName))) {
+            flush();
+        }
+        this.sourceId = sourceId;
+        this.metricName = metricName;
+        values[size] = value;
+        timestamps[size] = timestamp;
+        size++;
+    }
+
+    private boolean sameSeries(String sourceId, String metricName) {
+        // 解码器的字符串缓存命中时是同一引用
+        return (this.sourceId == sourceId || this.sourceId.equals(sourceId))
+                && (this.metricName == metricName || this.metricName.equals(metricName));
+    }
+
+    /**
+     * 写入当前累积的数据点
+     */
+    void flush() {
+        if (size == 0) {
+            return;
+        }
+        switch (sourceValidator.check(sourceId)) {
+            case ACCEPT:
+                recorded.add(telemetryService.recordMetricBatch(sourceId, metricName, values, timestamps, size));
+                break;
+            case QUARANTINE:
+                sourceValidator.quarantine(sourceId, metricName, values, timestamps, size);
+                break;
+            default:
+                // 拒绝的数据点由校验器计数，无法回告发送方
+                break;
+        }
+        size = 0;
+    }
+
+    /**
+     * 获取已写入的数据点总数，可由其他线程读取
+     *
+     * @return 数据点数
+     */
+    long getRecordedCount() {
+        return recorded.sum();
+    }
+}
@@ -0,0 +1,196 @@
+package com.uros.kernel.telemetry.ingest;
+
+import com.uros.kernel.telemetry.ingest.protocol.ByteStringCache;
+import com.uros.kernel.telemetry.ingest.shm.SharedMemoryRing;
+import com.uros.kernel.telemetry.service.TelemetryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 共享内存写入队列的消费者
+ * 启动时创建（或复用）内存映射文件，由一个线程持续轮询所有区域，
+ * 把同机采集进程写入的数据点按序列合并后写入 {@link TelemetryService}
+ */
+@Component
+public class SharedMemoryIngestDrainer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedMemoryIngestDrainer.class);
+
+    /** 每个区域每轮最多消费的记录数，避免单个区域饿死其他区域 */
+    private static final int MAX_RECORDS_PER_REGION = 4096;
+
+    /** 连续空转多少轮后开始休眠 */
+    private static final int SPIN_ROUNDS = 1000;
+
+    private final boolean enabled;
+
+    private final Path path;
+
+    private final int regionCount;
+
+    private final int regionSize;
+
+    private final long idleParkNanos;
+
+    private final SeriesRunBatcher batcher;
+
+    private final ByteStringCache strings = new ByteStringCache(16 * 1024);
+
+    private final LongAdder corruptedRegions = new LongAdder();
+
+    private volatile boolean running;
+
+    private SharedMemoryRing ring;
+
+    private Thread thread;
+
+    /**
+     * 构造函数
+     *
+     * @param telemetryService 遥测服务
+     * @param sourceValidator 数据源校验器
+     * @param enabled 是否启用共享内存写入
+     * @param path 共享内存文件路径，建议放在tmpfs（如 /dev/shm）
+     * @param regionCount 区域数，即可同时写入的采集进程（线程）数
+     * @param regionSize 每个区域的字节数
+     * @param idleParkMicros 空闲时的休眠时间（微秒）
+     */
+    public SharedMemoryIngestDrainer(
+            TelemetryService telemetryService,
+            SourceValidator sourceValidator,
+            @Value("${uros.telemetry.ingest.shm.enabled:false}") boolean enabled,
+            @Value("${uros.telemetry.ingest.shm.path:${java.io.tmpdir}/uros-telemetry-ingest.shm}") String path,
+            @Value("${uros.telemetry.ingest.shm.regions:8}") int regionCount,
+            @Value("${uros.telemetry.ingest.shm.region-size:4194304}") int regionSize,
+            @Value("${uros.telemetry.ingest.shm.idle-park-micros:50}") long idleParkMicros) {
+        this.enabled = enabled;
+        this.path = Paths.get(path);
+        this.regionCount = regionCount;
+        this.regionSize = regionSize;
+        this.idleParkNanos = TimeUnit.MICROSECONDS.toNanos(idleParkMicros);
+        this.batcher = new SeriesRunBatcher(telemetryService, sourceValidator);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        try {
+            ring = SharedMemoryRing.create(path, regionCount, regionSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map telemetry shared memory file " + path, e);
+        }
+        running = true;
+        thread = new Thread(this::run, "telemetry-shm-drainer");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Shared memory telemetry ingest started at {} ({} regions x {} bytes)",
+                path, ring.getRegionCount(), ring.getRegionSize());
+    }
+
+    private void run() {
+        int idleRounds = 0;
+        while (running) {
+            int drained = drainOnce();
+            if (drained > 0) {
+                idleRounds = 0;
+            } else if (++idleRounds > SPIN_ROUNDS) {
+                LockSupport.parkNanos(idleParkNanos);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        // 停止前把已发布的数据取完
+        while (drainOnce() > 0) {
+            // continue
+        }
+    }
+
+    /**
+     * 轮询所有区域一次
+     *
+     * @return 本轮消费的记录数
+     */
+    int drainOnce() {
+        int total = 0;
+        for (int region = 0; region < ring.getRegionCount(); region++) {
+            try {
+                int drained = ring.drain(region, batcher, strings, MAX_RECORDS_PER_REGION);
+                if (drained < 0) {
+                    corruptedRegions.increment();
+                    logger.warn("Discarded corrupted data in shared memory region {}", region);
+                } else {
+                    total += drained;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to drain shared memory region {}", region, e);
+            }
+        }
+        batcher.flush();
+        return total;
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ring.close();
+        logger.info("Shared memory telemetry ingest stopped, {} samples recorded", batcher.getRecordedCount());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 获取共享内存写入的运行指标
+     *
+     * @return 指标集合
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("running", running);
+        result.put("path", path.toString());
+        result.put("recorded", batcher.getRecordedCount());
+        result.put("corruptedRegions", corruptedRegions.sum());
+        SharedMemoryRing current = ring;
+        if (current != null) {
+            List<Map<String, Object>> regions = new ArrayList<>(current.getRegionCount());
+            for (int i = 0; i < current.getRegionCount(); i++) {
+                Map<String, Object> region = new LinkedHashMap<>();
+                region.put("region", i);
+                region.put("ownerPid", current.getOwnerPid(i));
+                region.put("backlogBytes", current.getBacklogBytes(i));
+                regions.add(region);
+            }
+            result.put("regionSize", current.getRegionSize());
+            result.put("regions", regions);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,192 @@
+package com.uros.kernel.telemetry.ingest;
+
+import com.uros.kernel.telemetry.exception.IngestRateLimitedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按数据源的写入限流器（令牌桶）
+ * 每个数据源一个桶，桶状态只有一个理论到达时间（GCRA算法，与令牌桶等价），
+ * 通过单个AtomicLong的CAS更新，无锁且准入判断过程中不产生对象分配。
+ * 理论到达时间已经过去的桶与新建的满桶等价，准入时按固定间隔顺带清理，数据源下线后不会一直占用内存
+ */
+@Component
+public class SourceRateLimiter {
+
+    /** 空闲桶的清理间隔（纳秒） */
+    static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /** 已清理的桶的理论到达时间标记，持有旧引用的线程看到后重新获取桶 */
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    /** 是否启用限流 */
+    private final boolean enabled;
+
+    /** 每个令牌的发放间隔（纳秒） */
+    private final long emissionIntervalNanos;
+
+    /** 允许的突发容量对应的时间容差（纳秒） */
+    private final long burstToleranceNanos;
+
+    /** 突发容量（数据点数），单次申请不能超过该值 */
+    private final int burst;
+
+    /** 下次清理空闲桶的时间（纳秒） */
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime() + SWEEP_INTERVAL_NANOS);
+
+    /** 每个数据源的令牌桶 */
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param enabled 是否启用限流
+     * @param permitsPerSecond 每个数据源每秒允许写入的数据点数
+     * @param burst 突发容量（数据点数）
+     */
+    public SourceRateLimiter(
+            @Value("${uros.telemetry.ingest.rate-limit.enabled:false}") boolean enabled,
+            @Value("${uros.telemetry.ingest.rate-limit.permits-per-second:100}") double permitsPerSecond,
+            @Value("${uros.telemetry.ingest.rate-limit.burst:200}") int burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1");
+        }
+        this.enabled = enabled;
+        this.emissionIntervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * burst;
+        this.burst = burst;
+    }
+
+    /**
+     * 为数据源申请写入许可，超出限额时抛出异常
+     *
+     * @param sourceId 数据源ID
+     * @param permits 申请的许可数（数据点数）
+     * @throws IngestRateLimitedException 超出限额时抛出，包含建议的重试等待时间
+     * @throws IllegalArgumentException 申请的许可数超过突发容量，重试也无法准入
+     */
+    public void acquire(String sourceId, int permits) {
+        long waitNanos = tryAcquire(sourceId, permits, System.nanoTime());
+        if (waitNanos > 0) {
+            throw new IngestRateLimitedException(sourceId, TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+        }
+    }
+
+    /**
+     * 尝试为数据源申请写入许可
+     *
+     * @param sourceId 数据源ID
+     * @param permits 申请的许可数（数据点数）
+     * @param nowNanos 当前单调时间（纳秒）
+     * @return 0表示准入；大于0表示被拒绝，值为建议的等待时间（纳秒）
+     * @throws IllegalArgumentException 申请的许可数超过突发容量
+     */
+    long tryAcquire(String sourceId, int permits, long nowNanos) {
+        if (!enabled) {
+            return 0;
+        }
+        if (permits > burst) {
+            throw new IllegalArgumentException("Request of " + permits + " points from source " + sourceId
+                    + " exceeds the rate limit burst of " + burst + ", split it into smaller batches");
+        }
+        long nextSweep = nextSweepNanos.get();
+        if (nowNanos - nextSweep >= 0 && nextSweepNanos.compareAndSet(nextSweep, nowNanos + SWEEP_INTERVAL_NANOS)) {
+            evictIdle(nowNanos);
+        }
+        Bucket bucket = bucket(sourceId, nowNanos);
+
+        long cost = emissionIntervalNanos * Math.max(1, permits);
+        while (true) {
+            long tat = bucket.theoreticalArrival.get();
+            if (tat == RETIRED) {
+                buckets.remove(sourceId, bucket);
+                bucket = bucket(sourceId, nowNanos);
+                continue;
+            }
+            long newTat = Math.max(tat, nowNanos) + cost;
+            long allowAt = newTat - burstToleranceNanos;
+            if (allowAt > nowNanos) {
+                bucket.rejected.add(permits);
+                return allowAt - nowNanos;
+            }
+            if (bucket.theoreticalArrival.compareAndSet(tat, newTat)) {
+                bucket.accepted.add(permits);
+                return 0;
+            }
+        }
+    }
+
+    private Bucket bucket(String sourceId, long nowNanos) {
+        Bucket bucket = buckets.get(sourceId);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(sourceId, k -> new Bucket(nowNanos));
+        }
+        return bucket;
+    }
+
+    /**
+     * 清理理论到达时间已经过去的桶，这些桶已经回满，重新创建不影响准入结果
+     *
+     * @param nowNanos 当前单调时间（纳秒）
+     * @return 清理的桶数
+     */
+    int evictIdle(long nowNanos) {
+        int evicted = 0;
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            AtomicLong theoreticalArrival = entry.getValue().theoreticalArrival;
+            long tat = theoreticalArrival.get();
+            if (tat != RETIRED && nowNanos - tat >= 0 && theoreticalArrival.compareAndSet(tat, RETIRED)) {
+                buckets.remove(entry.getKey(), entry.getValue());
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 获取各数据源的准入统计，空闲后被清理的数据源不再出现
+     *
+     * @return 每项包含sourceId、accepted、rejected
+     */
+    public List<Map<String, Object>> getStatistics() {
+        List<Map<String, Object>> result = new ArrayList<>(buckets.size());
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("sourceId", entry.getKey());
+            stats.put("accepted", entry.getValue().accepted.sum());
+            stats.put("rejected", entry.getValue().rejected.sum());
+            result.add(stats);
+        }
+        return result;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 单个数据源的令牌桶状态
+     */
+    private static class Bucket {
+        /** 理论到达时间（纳秒），不晚于当前时间时桶为满 */
+        private final AtomicLong theoreticalArrival;
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        private Bucket(long nowNanos) {
+            this.theoreticalArrival = new AtomicLong(nowNanos);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.uros.kernel.telemetry.ingest;
+
+/**
+ * 数据源校验模式
+ */
+public enum SourceValidationMode {
+    /** 不校验，接受任意数据源ID */
+    OFF,
+    /** 拒绝未在资源注册表中登记的数据源 */
+    REJECT,
+    /** 未登记数据源的数据点暂存在隔离区，数据源登记后的下一次刷新时写入 */
+    QUARANTINE
+}
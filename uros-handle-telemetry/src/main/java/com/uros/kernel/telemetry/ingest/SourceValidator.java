@@ -0,0 +1,362 @@
+package com.uros.kernel.telemetry.ingest;
+
+import com.uros.kernel.handle.model.UniResource;
+import com.uros.kernel.handle.service.UniResourceService;
+import com.uros.kernel.telemetry.service.TelemetryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 数据源校验器
+ * 在本地缓存资源注册表中所有资源ID（布隆过滤器 + 精确集合），按固定周期整体刷新；
+ * 写入路径上的校验只查本地缓存，不访问注册表。未登记的数据源按模式拒绝或隔离，
+ * 被隔离的数据点在数据源登记后的下一次刷新时写入
+ */
+@Component
+public class SourceValidator implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(SourceValidator.class);
+
+    /** 布隆过滤器的期望误判率 */
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    /**
+     * 校验结果
+     */
+    public enum Verdict {
+        /** 写入 */
+        ACCEPT,
+        /** 拒绝 */
+        REJECT,
+        /** 隔离 */
+        QUARANTINE
+    }
+
+    private final TelemetryService telemetryService;
+
+    private final SourceValidationMode mode;
+
+    private final Supplier<Collection<String>> knownSourceLoader;
+
+    private final long refreshIntervalMillis;
+
+    private final int maxQuarantinedSources;
+
+    private final int maxSamplesPerSource;
+
+    /** 最近一次成功刷新的已知数据源，未刷新前为null */
+    private volatile KnownSources known;
+
+    private final Map<String, QuarantinedSource> quarantine = new ConcurrentHashMap<>();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder quarantined = new LongAdder();
+
+    private final LongAdder quarantineDropped = new LongAdder();
+
+    private final LongAdder released = new LongAdder();
+
+    private final LongAdder refreshFailures = new LongAdder();
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean running;
+
+    /**
+     * 构造函数
+     *
+     * @param telemetryService 遥测服务，用于写入解除隔离的数据点
+     * @param resourceService 资源服务
+     * @param mode 校验模式：off | reject | quarantine
+     * @param refreshIntervalMillis 已知数据源的刷新周期（毫秒）
+     * @param maxQuarantinedSources 隔离区最多容纳的数据源数
+     * @param maxSamplesPerSource 每个被隔离数据源最多暂存的数据点数，超出时丢弃最早的
+     */
+    @Autowired
+    public SourceValidator(
+            TelemetryService telemetryService,
+            UniResourceService resourceService,
+            @Value("${uros.telemetry.ingest.source-validation.mode:off}") String mode,
+            @Value("${uros.telemetry.ingest.source-validation.refresh-interval-ms:30000}") long refreshIntervalMillis,
+            @Value("${uros.telemetry.ingest.source-validation.quarantine.max-sources:1024}") int maxQuarantinedSources,
+            @Value("${uros.telemetry.ingest.source-validation.quarantine.max-samples:256}") int maxSamplesPerSource) {
+        this(telemetryService, SourceValidationMode.valueOf(mode.trim().toUpperCase()), () -> {
+            List<UniResource> resources = resourceService.getAllResources();
+            List<String> ids = new ArrayList<>(resources.size());
+            for (UniResource resource : resources) {
+                ids.add(resource.getId());
+            }
+            return ids;
+        }, refreshIntervalMillis, maxQuarantinedSources, maxSamplesPerSource);
+    }
+
+    SourceValidator(TelemetryService telemetryService, SourceValidationMode mode,
+                    Supplier<Collection<String>> knownSourceLoader, long refreshIntervalMillis,
+                    int maxQuarantinedSources, int maxSamplesPerSource) {
+        if (refreshIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Refresh interval must be positive: " + refreshIntervalMillis);
+        }
+        if (maxQuarantinedSources < 0 || maxSamplesPerSource <= 0) {
+            throw new IllegalArgumentException("Quarantine limits must be positive");
+        }
+        this.telemetryService = telemetryService;
+        this.mode = mode;
+        this.knownSourceLoader = knownSourceLoader;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.maxQuarantinedSources = maxQuarantinedSources;
+        this.maxSamplesPerSource = maxSamplesPerSource;
+    }
+
+    @Override
+    public void start() {
+        if (mode == SourceValidationMode.OFF || running) {
+            return;
+        }
+        refresh();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telemetry-source-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMillis, refreshIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        running = true;
+        logger.info("Telemetry source validation started in {} mode, refresh every {} ms",
+                mode, refreshIntervalMillis);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isEnabled() {
+        return mode != SourceValidationMode.OFF;
+    }
+
+    /**
+     * 校验数据源，只访问本地缓存
+     * 尚未成功刷新过已知数据源时一律放行，避免注册表不可用导致全部写入失败
+     *
+     * @param sourceId 数据源ID
+     * @return 校验结果
+     */
+    public Verdict check(String sourceId) {
+        if (mode == SourceValidationMode.OFF) {
+            return Verdict.ACCEPT;
+        }
+        KnownSources current = known;
+        if (current == null || current.contains(sourceId)) {
+            return Verdict.ACCEPT;
+        }
+        if (mode == SourceValidationMode.REJECT) {
+            rejected.increment();
+            return Verdict.REJECT;
+        }
+        return Verdict.QUARANTINE;
+    }
+
+    /**
+     * 暂存未登记数据源的数据点
+     *
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param values 数据值
+     * @param timestamps 时间戳
+     * @param count 数量
+     */
+    public void quarantine(String sourceId, String metricName, double[] values, long[] timestamps, int count) {
+        QuarantinedSource source = quarantine.get(sourceId);
+        if (source == null) {
+            if (quarantine.size() >= maxQuarantinedSources) {
+                quarantineDropped.add(count);
+                return;
+            }
+            source = quarantine.computeIfAbsent(sourceId, k -> new QuarantinedSource(maxSamplesPerSource));
+        }
+        int dropped = source.add(metricName, values, timestamps, count);
+        if (dropped < 0) {
+            // 刷新线程已在此期间解除隔离，数据源已登记
+            telemetryService.recordMetricBatch(sourceId, metricName, values, timestamps, count);
+            return;
+        }
+        quarantined.add(count);
+        quarantineDropped.add(dropped);
+    }
+
+    /**
+     * 暂存未登记数据源的单个数据点
+     */
+    public void quarantine(String sourceId, String metricName, double value, long timestamp) {
+        quarantine(sourceId, metricName, new double[]{value}, new long[]{timestamp}, 1);
+    }
+
+    /**
+     * 重新加载已知数据源，并写入已登记数据源的隔离数据点；加载失败时保留上一次的结果
+     *
+     * @return 是否加载成功
+     */
+    public boolean refresh() {
+        KnownSources next;
+        try {
+            next = new KnownSources(knownSourceLoader.get());
+        } catch (RuntimeException e) {
+            refreshFailures.increment();
+            logger.warn("Failed to refresh known telemetry sources, keeping previous set", e);
+            return false;
+        }
+        known = next;
+        releaseQuarantine(next);
+        return true;
+    }
+
+    private void releaseQuarantine(KnownSources current) {
+        Iterator<Map.Entry<String, QuarantinedSource>> iterator = quarantine.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, QuarantinedSource> entry = iterator.next();
+            if (!current.contains(entry.getKey())) {
+                continue;
+            }
+            iterator.remove();
+            int count = entry.getValue().drainTo(entry.getKey(), telemetryService);
+            released.add(count);
+            logger.info("Released {} quarantined samples of newly registered source {}", count, entry.getKey());
+        }
+    }
+
+    /**
+     * 获取校验统计
+     *
+     * @return 指标集合
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", mode);
+        KnownSources current = known;
+        result.put("knownSources", current == null ? null : current.ids.size());
+        result.put("lastRefresh", current == null ? null : current.loadedAt);
+        result.put("bloomBits", current == null ? null : current.bloom.getBitCount());
+        result.put("bloomHashes", current == null ? null : current.bloom.getHashCount());
+        result.put("refreshFailures", refreshFailures.sum());
+        result.put("rejected", rejected.sum());
+        result.put("quarantined", quarantined.sum());
+        result.put("quarantineDropped", quarantineDropped.sum());
+        result.put("released", released.sum());
+
+        List<Map<String, Object>> sources = new ArrayList<>(quarantine.size());
+        for (Map.Entry<String, QuarantinedSource> entry : quarantine.entrySet()) {
+            Map<String, Object> source = new LinkedHashMap<>();
+            source.put("sourceId", entry.getKey());
+            source.put("samples", entry.getValue().size());
+            source.put("firstSeen", entry.getValue().firstSeen);
+            sources.add(source);
+        }
+        result.put("quarantinedSources", sources);
+        return result;
+    }
+
+    /**
+     * 一次刷新得到的已知数据源
+     */
+    private static class KnownSources {
+        private final Set<String> ids;
+        private final BloomFilter bloom;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private KnownSources(Collection<String> sourceIds) {
+            this.ids = new HashSet<>(sourceIds);
+            this.bloom = new BloomFilter(ids, FALSE_POSITIVE_RATE);
+        }
+
+        private boolean contains(String sourceId) {
+            // 绝大多数未登记ID在布隆过滤器处即被排除，无需计算精确集合的哈希和比较
+            return bloom.mightContain(sourceId) && ids.contains(sourceId);
+        }
+    }
+
+    /**
+     * 单个被隔离数据源的数据点环形缓冲
+     */
+    private static class QuarantinedSource {
+        private final String[] metricNames;
+        private final double[] values;
+        private final long[] timestamps;
+        private final long firstSeen = System.currentTimeMillis();
+        private int head;
+        private int size;
+        private boolean drained;
+
+        private QuarantinedSource(int capacity) {
+            this.metricNames = new String[capacity];
+            this.values = new double[capacity];
+            this.timestamps = new long[capacity];
+        }
+
+        /**
+         * @return 因容量不足被覆盖的数据点数，已解除隔离时返回-1
+         */
+        private synchronized int add(String metricName, double[] newValues, long[] newTimestamps, int count) {
+            if (drained) {
+                return -1;
+            }
+            int dropped = 0;
+            for (int i = 0; i < count; i++) {
+                int index = (head + size) % metricNames.length;
+                if (size == metricNames.length) {
+                    head = (head + 1) % metricNames.length;
+                    dropped++;
+                } else {
+                    size++;
+                }
+                metricNames[index] = metricName;
+                values[index] = newValues[i];
+                timestamps[index] = newTimestamps[i];
+            }
+            return dropped;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private synchronized int drainTo(String sourceId, TelemetryService telemetryService) {
+            int count = size;
+            for (int i = 0; i < count; i++) {
+                int index = (head + i) % metricNames.length;
+                telemetryService.recordMetric(sourceId, metricNames[index], values[index], timestamps[index]);
+            }
+            size = 0;
+            drained = true;
+            return count;
+        }
+    }
+}
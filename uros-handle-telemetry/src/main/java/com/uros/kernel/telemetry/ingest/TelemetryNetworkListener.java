@@ -0,0 +1,287 @@
+package com.uros.kernel.telemetry.ingest;
+
+import com.uros.kernel.telemetry.ingest.protocol.BinaryFrameDecoder;
+import com.uros.kernel.telemetry.ingest.protocol.ByteStringCache;
+import com.uros.kernel.telemetry.ingest.protocol.FrameDecoder;
+import com.uros.kernel.telemetry.ingest.protocol.LineProtocolDecoder;
+import com.uros.kernel.telemetry.service.TelemetryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地UDP/TCP遥测监听器，绕过HTTP直接写入 {@link TelemetryService}
+ * 单个选择器线程同时处理UDP数据报和TCP连接，读取使用复用的直接缓冲区，
+ * 解码不产生分配；同一次读取中连续属于同一序列的数据点合并为一次 recordMetricBatch 调用
+ */
+@Component
+public class TelemetryNetworkListener implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryNetworkListener.class);
+
+    /** 单个读取缓冲区大小，也是UDP数据报和单行/单帧的最大长度 */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final boolean enabled;
+
+    private final String bindAddress;
+
+    private final int udpPort;
+
+    private final int tcpPort;
+
+    private final FrameDecoder decoder;
+
+    private final SeriesRunBatcher batcher;
+
+    private final LongAdder datagrams = new LongAdder();
+
+    private final LongAdder connections = new LongAdder();
+
+    private final LongAdder oversizedDrops = new LongAdder();
+
+    private volatile boolean running;
+
+    private Selector selector;
+
+    private DatagramChannel udpChannel;
+
+    private ServerSocketChannel tcpChannel;
+
+    private Thread thread;
+
+    /**
+     * 构造函数
+     *
+     * @param telemetryService 遥测服务
+     * @param sourceValidator 数据源校验器
+     * @param enabled 是否启用监听器
+     * @param bindAddress 监听地址，默认仅本机
+     * @param udpPort UDP端口，0表示不监听
+     * @param tcpPort TCP端口，0表示不监听
+     * @param format 帧格式：line（文本行协议）或 binary（二进制帧）
+     */
+    public TelemetryNetworkListener(
+            TelemetryService telemetryService,
+            SourceValidator sourceValidator,
+            @Value("${uros.telemetry.listener.enabled:false}") boolean enabled,
+            @Value("${uros.telemetry.listener.bind-address:127.0.0.1}") String bindAddress,
+            @Value("${uros.telemetry.listener.udp-port:8094}") int udpPort,
+            @Value("${uros.telemetry.listener.tcp-port:8095}") int tcpPort,
+            @Value("${uros.telemetry.listener.format:line}") String format) {
+        this.enabled = enabled;
+        this.bindAddress = bindAddress;
+        this.udpPort = udpPort;
+        this.tcpPort = tcpPort;
+        this.batcher = new SeriesRunBatcher(telemetryService, sourceValidator);
+        ByteStringCache strings = new ByteStringCache(16 * 1024);
+        if ("line".equalsIgnoreCase(format)) {
+            this.decoder = new LineProtocolDecoder(strings);
+        } else if ("binary".equalsIgnoreCase(format)) {
+            this.decoder = new BinaryFrameDecoder(strings);
+        } else {
+            throw new IllegalArgumentException("Unknown listener format: " + format);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        try {
+            selector = Selector.open();
+            if (udpPort > 0) {
+                udpChannel = DatagramChannel.open();
+                udpChannel.setOption(StandardSocketOptions.SO_RCVBUF, 4 * 1024 * 1024);
+                udpChannel.bind(new InetSocketAddress(bindAddress, udpPort));
+                udpChannel.configureBlocking(false);
+                udpChannel.register(selector, SelectionKey.OP_READ, ByteBuffer.allocateDirect(BUFFER_SIZE));
+            }
+            if (tcpPort > 0) {
+                tcpChannel = ServerSocketChannel.open();
+                tcpChannel.bind(new InetSocketAddress(bindAddress, tcpPort));
+                tcpChannel.configureBlocking(false);
+                tcpChannel.register(selector, SelectionKey.OP_ACCEPT);
+            }
+        } catch (IOException e) {
+            closeQuietly();
+            throw new UncheckedIOException("Failed to open telemetry listener", e);
+        }
+
+        running = true;
+        thread = new Thread(this::run, "telemetry-listener");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Telemetry listener started on {} (udp={}, tcp={}, format={})",
+                bindAddress, udpPort, tcpPort, decoder instanceof LineProtocolDecoder ? "line" : "binary");
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select(TimeUnit.SECONDS.toMillis(1));
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.channel() == udpChannel) {
+                            readDatagrams(key);
+                        } else {
+                            readStream(key);
+                        }
+                    } catch (IOException e) {
+                        logger.debug("Closing telemetry connection: {}", e.getMessage());
+                        closeKey(key);
+                    }
+                }
+                batcher.flush();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                logger.error("Telemetry listener failed", e);
+            }
+        } finally {
+            batcher.flush();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = tcpChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.register(selector, SelectionKey.OP_READ, ByteBuffer.allocateDirect(BUFFER_SIZE));
+        connections.increment();
+    }
+
+    private void readDatagrams(SelectionKey key) throws IOException {
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+        // 一次就绪事件中读完所有已到达的数据报
+        while (true) {
+            buffer.clear();
+            if (udpChannel.receive(buffer) == null) {
+                return;
+            }
+            datagrams.increment();
+            buffer.flip();
+            decoder.decode(buffer, batcher, System.currentTimeMillis(), true);
+        }
+    }
+
+    private void readStream(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+        int read = channel.read(buffer);
+        if (read < 0) {
+            buffer.flip();
+            decoder.decode(buffer, batcher, System.currentTimeMillis(), true);
+            closeKey(key);
+            return;
+        }
+        buffer.flip();
+        decoder.decode(buffer, batcher, System.currentTimeMillis(), false);
+        if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+            // 单行/单帧超过缓冲区大小，丢弃缓冲内容
+            oversizedDrops.increment();
+            buffer.clear();
+            return;
+        }
+        buffer.compact();
+    }
+
+    private void closeKey(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            logger.debug("Failed to close telemetry connection", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeQuietly();
+        logger.info("Telemetry listener stopped, {} samples received", batcher.getRecordedCount());
+    }
+
+    private void closeQuietly() {
+        try {
+            if (selector != null) {
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+            }
+            if (udpChannel != null) {
+                udpChannel.close();
+            }
+            if (tcpChannel != null) {
+                tcpChannel.close();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            logger.debug("Failed to close telemetry listener channels", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 获取监听器运行指标
+     *
+     * @return 指标集合
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("running", running);
+        result.put("udpPort", udpPort);
+        result.put("tcpPort", tcpPort);
+        result.put("received", batcher.getRecordedCount());
+        result.put("datagrams", datagrams.sum());
+        result.put("connections", connections.sum());
+        result.put("malformed", decoder.getMalformedCount());
+        result.put("oversizedDrops", oversizedDrops.sum());
+        return result;
+    }
+}
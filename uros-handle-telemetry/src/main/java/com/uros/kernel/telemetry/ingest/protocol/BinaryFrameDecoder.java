@@ -0,0 +1,71 @@
+package com.uros.kernel.telemetry.ingest.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 二进制帧解码器
+ * 每帧一个数据点，大端字节序：
+ * <pre>
+ * u16 sourceId长度 | sourceId(UTF-8) | u16 metricName长度 | metricName(UTF-8) | f64 value | i64 timestampMillis
+ * </pre>
+ * 时间戳为0时使用接收时间
+ */
+public class BinaryFrameDecoder implements FrameDecoder {
+
+    private static final int FIXED_BYTES = 2 + 2 + 8 + 8;
+
+    private final ByteStringCache strings;
+
+    private final LongAdder malformed = new LongAdder();
+
+    public BinaryFrameDecoder(ByteStringCache strings) {
+        this.strings = strings;
+    }
+
+    @Override
+    public int decode(ByteBuffer buffer, SampleSink sink, long receivedAt, boolean endOfInput) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        int decoded = 0;
+        int position = buffer.position();
+        int limit = buffer.limit();
+        while (limit - position >= FIXED_BYTES) {
+            int sourceLength = buffer.getShort(position) & 0xFFFF;
+            int metricOffset = position + 2 + sourceLength;
+            if (metricOffset + 2 > limit) {
+                break;
+            }
+            int metricLength = buffer.getShort(metricOffset) & 0xFFFF;
+            int valueOffset = metricOffset + 2 + metricLength;
+            int frameEnd = valueOffset + 16;
+            if (frameEnd > limit) {
+                break;
+            }
+
+            double value = buffer.getDouble(valueOffset);
+            long timestamp = buffer.getLong(valueOffset + 8);
+            if (sourceLength == 0 || metricLength == 0 || Double.isNaN(value) || timestamp < 0) {
+                malformed.increment();
+            } else {
+                String sourceId = strings.get(buffer, position + 2, metricOffset);
+                String metricName = strings.get(buffer, metricOffset + 2, valueOffset);
+                sink.accept(sourceId, metricName, value, timestamp == 0 ? receivedAt : timestamp);
+                decoded++;
+            }
+            position = frameEnd;
+        }
+        if (endOfInput && position < limit) {
+            // 数据报末尾的不完整帧
+            malformed.increment();
+            position = limit;
+        }
+        buffer.position(position);
+        return decoded;
+    }
+
+    @Override
+    public long getMalformedCount() {
+        return malformed.sum();
+    }
+}
@@ -0,0 +1,75 @@
+package com.uros.kernel.telemetry.ingest.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 字节序列到字符串的直接映射缓存
+ * 数据源ID和指标名称的取值集合有限，命中缓存时直接返回已有的String，解码过程不产生分配；
+ * 冲突时覆盖旧条目。非线程安全，每个解码线程各持有一个实例
+ */
+public class ByteStringCache {
+
+    private final int mask;
+
+    private final int[] hashes;
+
+    private final byte[][] keys;
+
+    private final String[] values;
+
+    /**
+     * 构造函数
+     *
+     * @param requestedSize 期望的条目数，会向上取整为2的幂
+     */
+    public ByteStringCache(int requestedSize) {
+        int size = Integer.highestOneBit(Math.max(2, requestedSize) - 1) << 1;
+        this.mask = size - 1;
+        this.hashes = new int[size];
+        this.keys = new byte[size][];
+        this.values = new String[size];
+    }
+
+    /**
+     * 获取缓冲区中 [start, end) 区间字节对应的字符串（UTF-8）
+     *
+     * @param buffer 缓冲区
+     * @param start 起始位置（绝对下标）
+     * @param end 结束位置（绝对下标，不含）
+     * @return 字符串
+     */
+    public String get(ByteBuffer buffer, int start, int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        hash ^= hash >>> 16;
+        int slot = hash & mask;
+
+        byte[] key = keys[slot];
+        if (key != null && hashes[slot] == hash && matches(key, buffer, start, end)) {
+            return values[slot];
+        }
+
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        hashes[slot] = hash;
+        keys[slot] = bytes;
+        values[slot] = value;
+        return value;
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer buffer, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,122 @@
+package com.uros.kernel.telemetry.ingest.protocol;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CSV解码器
+ * 每行一个数据点，字段以逗号分隔，两端的双引号会被去掉（字段内不支持逗号）：
+ * <pre>
+ * &lt;sourceId&gt;,&lt;metricName&gt;,&lt;timestampMillis&gt;,&lt;value&gt;\n
+ * </pre>
+ * 首字段为 sourceId 的行视为表头并跳过。时间戳为必填项
+ */
+public class CsvDecoder implements FrameDecoder {
+
+    private static final int FIELDS = 4;
+
+    private static final byte[] HEADER = {'s', 'o', 'u', 'r', 'c', 'e', 'I', 'd'};
+
+    private final ByteStringCache strings;
+
+    private final LongAdder malformed = new LongAdder();
+
+    private final int[] fieldStarts = new int[FIELDS];
+
+    private final int[] fieldEnds = new int[FIELDS];
+
+    public CsvDecoder(ByteStringCache strings) {
+        this.strings = strings;
+    }
+
+    @Override
+    public int decode(ByteBuffer buffer, SampleSink sink, long receivedAt, boolean endOfInput) {
+        int decoded = 0;
+        int lineStart = buffer.position();
+        int limit = buffer.limit();
+        for (int i = lineStart; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                if (decodeLine(buffer, lineStart, i, sink)) {
+                    decoded++;
+                }
+                lineStart = i + 1;
+            }
+        }
+        if (endOfInput && lineStart < limit) {
+            if (decodeLine(buffer, lineStart, limit, sink)) {
+                decoded++;
+            }
+            lineStart = limit;
+        }
+        buffer.position(lineStart);
+        return decoded;
+    }
+
+    private boolean decodeLine(ByteBuffer buffer, int start, int end, SampleSink sink) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (start == end) {
+            return false;
+        }
+        int fields = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buffer.get(i) == ',') {
+                if (fields == FIELDS) {
+                    malformed.increment();
+                    return false;
+                }
+                int from = fieldStart;
+                int to = i;
+                while (from < to && buffer.get(from) == ' ') {
+                    from++;
+                }
+                while (to > from && buffer.get(to - 1) == ' ') {
+                    to--;
+                }
+                if (to - from >= 2 && buffer.get(from) == '"' && buffer.get(to - 1) == '"') {
+                    from++;
+                    to--;
+                }
+                fieldStarts[fields] = from;
+                fieldEnds[fields++] = to;
+                fieldStart = i + 1;
+            }
+        }
+        if (fields == FIELDS && isHeader(buffer)) {
+            return false;
+        }
+        if (fields < FIELDS || fieldStarts[0] == fieldEnds[0] || fieldStarts[1] == fieldEnds[1]) {
+            malformed.increment();
+            return false;
+        }
+
+        long timestamp = LineProtocolDecoder.parseLong(buffer, fieldStarts[2], fieldEnds[2]);
+        double value = LineProtocolDecoder.parseDouble(buffer, fieldStarts[3], fieldEnds[3]);
+        if (Double.isNaN(value) || timestamp < 0) {
+            malformed.increment();
+            return false;
+        }
+        sink.accept(strings.get(buffer, fieldStarts[0], fieldEnds[0]),
+                strings.get(buffer, fieldStarts[1], fieldEnds[1]), value, timestamp);
+        return true;
+    }
+
+    private boolean isHeader(ByteBuffer buffer) {
+        if (fieldEnds[0] - fieldStarts[0] != HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (buffer.get(fieldStarts[0] + i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long getMalformedCount() {
+        return malformed.sum();
+    }
+}
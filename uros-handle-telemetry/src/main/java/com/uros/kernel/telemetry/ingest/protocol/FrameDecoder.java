@@ -0,0 +1,28 @@
+package com.uros.kernel.telemetry.ingest.protocol;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 遥测数据帧解码器
+ */
+public interface FrameDecoder {
+
+    /**
+     * 从缓冲区的 [position, limit) 中解码所有完整的帧；
+     * 返回时position指向第一个未消费的字节，流式输入中不完整的帧留待下次读取后继续解码
+     *
+     * @param buffer 输入缓冲区
+     * @param sink 数据点接收方
+     * @param receivedAt 接收时间，帧中未携带时间戳时使用
+     * @param endOfInput 输入是否完整（数据报为true，TCP流为false）
+     * @return 成功解码的数据点数量
+     */
+    int decode(ByteBuffer buffer, SampleSink sink, long receivedAt, boolean endOfInput);
+
+    /**
+     * 获取格式错误被丢弃的帧数量，可在解码线程之外读取
+     *
+     * @return 格式错误的帧数量
+     */
+    long getMalformedCount();
+}
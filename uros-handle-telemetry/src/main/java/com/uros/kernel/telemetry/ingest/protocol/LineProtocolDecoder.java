@@ -0,0 +1,186 @@
+package com.uros.kernel.telemetry.ingest.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文本行协议解码器
+ * 每行一个数据点，字段以空格或制表符分隔：
+ * <pre>
+ * &lt;sourceId&gt; &lt;metricName&gt; &lt;value&gt; [&lt;timestampMillis&gt;]\n
+ * </pre>
+ * 省略时间戳时使用接收时间。数值直接从字节解析，常见的定点小数不产生分配
+ */
+public class LineProtocolDecoder implements FrameDecoder {
+
+    /** 可精确表示的10的幂 */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** 尾数超过该值时无法保证精确，回退到Double.parseDouble */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final ByteStringCache strings;
+
+    private final LongAdder malformed = new LongAdder();
+
+    /** 字段边界（绝对下标），复用以避免分配 */
+    private final int[] fieldStarts = new int[4];
+
+    private final int[] fieldEnds = new int[4];
+
+    public LineProtocolDecoder(ByteStringCache strings) {
+        this.strings = strings;
+    }
+
+    @Override
+    public int decode(ByteBuffer buffer, SampleSink sink, long receivedAt, boolean endOfInput) {
+        int decoded = 0;
+        int lineStart = buffer.position();
+        int limit = buffer.limit();
+        for (int i = lineStart; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                if (decodeLine(buffer, lineStart, i, sink, receivedAt)) {
+                    decoded++;
+                }
+                lineStart = i + 1;
+            }
+        }
+        // 数据报没有跨包的行，末尾不带换行的内容也是完整的一行
+        if (endOfInput && lineStart < limit) {
+            if (decodeLine(buffer, lineStart, limit, sink, receivedAt)) {
+                decoded++;
+            }
+            lineStart = limit;
+        }
+        buffer.position(lineStart);
+        return decoded;
+    }
+
+    private boolean decodeLine(ByteBuffer buffer, int start, int end, SampleSink sink, long receivedAt) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        int fields = 0;
+        int i = start;
+        while (i < end) {
+            while (i < end && isSeparator(buffer.get(i))) {
+                i++;
+            }
+            if (i == end) {
+                break;
+            }
+            if (fields == fieldStarts.length) {
+                malformed.increment();
+                return false;
+            }
+            fieldStarts[fields] = i;
+            while (i < end && !isSeparator(buffer.get(i))) {
+                i++;
+            }
+            fieldEnds[fields++] = i;
+        }
+        if (fields == 0) {
+            // 空行
+            return false;
+        }
+        if (fields < 3) {
+            malformed.increment();
+            return false;
+        }
+
+        double value = parseDouble(buffer, fieldStarts[2], fieldEnds[2]);
+        long timestamp = fields == 4 ? parseLong(buffer, fieldStarts[3], fieldEnds[3]) : receivedAt;
+        if (Double.isNaN(value) || timestamp < 0) {
+            malformed.increment();
+            return false;
+        }
+
+        String sourceId = strings.get(buffer, fieldStarts[0], fieldEnds[0]);
+        String metricName = strings.get(buffer, fieldStarts[1], fieldEnds[1]);
+        sink.accept(sourceId, metricName, value, timestamp);
+        return true;
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    /**
+     * 解析非负整数，格式错误时返回-1
+     */
+    static long parseLong(ByteBuffer buffer, int start, int end) {
+        if (start == end || end - start > 18) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    /**
+     * 解析浮点数，格式错误时返回NaN
+     */
+    static double parseDouble(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenDot = false;
+        boolean exact = true;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && !seenDot) {
+                seenDot = true;
+            } else if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (seenDot) {
+                    fractionDigits++;
+                }
+                if (mantissa >= MAX_EXACT_MANTISSA) {
+                    exact = false;
+                    break;
+                }
+            } else {
+                // 指数、Infinity等不常见写法
+                exact = false;
+                break;
+            }
+        }
+        if (exact && digits > 0 && fractionDigits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        return parseSlow(buffer, start, end);
+    }
+
+    private static double parseSlow(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    @Override
+    public long getMalformedCount() {
+        return malformed.sum();
+    }
+}
@@ -0,0 +1,311 @@
+package com.uros.kernel.telemetry.ingest.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * NDJSON解码器
+ * 每行一个扁平JSON对象，读取 sourceId、metricName（字符串）、timestamp、value（数值）四个字段，其余字段忽略：
+ * <pre>
+ * {"sourceId":"s1","metricName":"temperature","timestamp":1700000000000,"value":21.5}
+ * </pre>
+ * 直接在字节上解析，不构建对象树；字符串含转义字符时才逐字符解码。时间戳为必填项
+ */
+public class NdjsonDecoder implements FrameDecoder {
+
+    private static final byte[] SOURCE_ID = {'s', 'o', 'u', 'r', 'c', 'e', 'I', 'd'};
+
+    private static final byte[] METRIC_NAME = {'m', 'e', 't', 'r', 'i', 'c', 'N', 'a', 'm', 'e'};
+
+    private static final byte[] TIMESTAMP = {'t', 'i', 'm', 'e', 's', 't', 'a', 'm', 'p'};
+
+    private static final byte[] VALUE = {'v', 'a', 'l', 'u', 'e'};
+
+    private final ByteStringCache strings;
+
+    private final LongAdder malformed = new LongAdder();
+
+    /** 解析位置，解析失败时为-1 */
+    private int pos;
+
+    private int end;
+
+    public NdjsonDecoder(ByteStringCache strings) {
+        this.strings = strings;
+    }
+
+    @Override
+    public int decode(ByteBuffer buffer, SampleSink sink, long receivedAt, boolean endOfInput) {
+        int decoded = 0;
+        int lineStart = buffer.position();
+        int limit = buffer.limit();
+        for (int i = lineStart; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                if (decodeLine(buffer, lineStart, i, sink)) {
+                    decoded++;
+                }
+                lineStart = i + 1;
+            }
+        }
+        if (endOfInput && lineStart < limit) {
+            if (decodeLine(buffer, lineStart, limit, sink)) {
+                decoded++;
+            }
+            lineStart = limit;
+        }
+        buffer.position(lineStart);
+        return decoded;
+    }
+
+    private boolean decodeLine(ByteBuffer buffer, int start, int lineEnd, SampleSink sink) {
+        pos = start;
+        end = lineEnd;
+        skipWhitespace(buffer);
+        if (pos == end) {
+            return false;
+        }
+        String sourceId = null;
+        String metricName = null;
+        long timestamp = -1;
+        double value = Double.NaN;
+
+        if (!expect(buffer, '{')) {
+            return reject();
+        }
+        skipWhitespace(buffer);
+        if (pos < end && buffer.get(pos) == '}') {
+            return reject();
+        }
+        while (true) {
+            skipWhitespace(buffer);
+            int keyStart = pos + 1;
+            int keyEnd = skipString(buffer);
+            if (keyEnd < 0) {
+                return reject();
+            }
+            skipWhitespace(buffer);
+            if (!expect(buffer, ':')) {
+                return reject();
+            }
+            skipWhitespace(buffer);
+            if (matches(buffer, keyStart, keyEnd, SOURCE_ID)) {
+                sourceId = readString(buffer);
+            } else if (matches(buffer, keyStart, keyEnd, METRIC_NAME)) {
+                metricName = readString(buffer);
+            } else if (matches(buffer, keyStart, keyEnd, TIMESTAMP)) {
+                int valueStart = pos;
+                skipScalar(buffer);
+                timestamp = LineProtocolDecoder.parseLong(buffer, valueStart, pos);
+            } else if (matches(buffer, keyStart, keyEnd, VALUE)) {
+                int valueStart = pos;
+                skipScalar(buffer);
+                value = LineProtocolDecoder.parseDouble(buffer, valueStart, pos);
+            } else {
+                skipValue(buffer);
+            }
+            if (pos < 0) {
+                return reject();
+            }
+            skipWhitespace(buffer);
+            if (pos < end && buffer.get(pos) == ',') {
+                pos++;
+                continue;
+            }
+            if (!expect(buffer, '}')) {
+                return reject();
+            }
+            break;
+        }
+        skipWhitespace(buffer);
+        if (pos != end && !(pos == end - 1 && buffer.get(pos) == '\r')) {
+            return reject();
+        }
+        if (sourceId == null || sourceId.isEmpty() || metricName == null || metricName.isEmpty()
+                || timestamp < 0 || Double.isNaN(value)) {
+            return reject();
+        }
+        sink.accept(sourceId, metricName, value, timestamp);
+        return true;
+    }
+
+    private boolean reject() {
+        malformed.increment();
+        return false;
+    }
+
+    private void skipWhitespace(ByteBuffer buffer) {
+        while (pos >= 0 && pos < end) {
+            byte b = buffer.get(pos);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private boolean expect(ByteBuffer buffer, char c) {
+        if (pos < 0 || pos >= end || buffer.get(pos) != c) {
+            return false;
+        }
+        pos++;
+        return true;
+    }
+
+    /**
+     * 跳过一个字符串
+     *
+     * @return 字符串内容的结束位置（不含引号），格式错误时返回-1
+     */
+    private int skipString(ByteBuffer buffer) {
+        if (!expect(buffer, '"')) {
+            pos = -1;
+            return -1;
+        }
+        while (pos < end) {
+            byte b = buffer.get(pos);
+            if (b == '\\') {
+                pos += 2;
+            } else if (b == '"') {
+                return pos++;
+            } else {
+                pos++;
+            }
+        }
+        pos = -1;
+        return -1;
+    }
+
+    private String readString(ByteBuffer buffer) {
+        int start = pos + 1;
+        int stringEnd = skipString(buffer);
+        if (stringEnd < 0) {
+            return null;
+        }
+        for (int i = start; i < stringEnd; i++) {
+            if (buffer.get(i) == '\\') {
+                return unescape(buffer, start, stringEnd);
+            }
+        }
+        return strings.get(buffer, start, stringEnd);
+    }
+
+    private String unescape(ByteBuffer buffer, int start, int stringEnd) {
+        byte[] raw = new byte[stringEnd - start];
+        buffer.get(start, raw);
+        String text = new String(raw, StandardCharsets.UTF_8);
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '\\' || i + 1 == text.length()) {
+                builder.append(c);
+                continue;
+            }
+            char escaped = text.charAt(++i);
+            switch (escaped) {
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'u':
+                    if (i + 4 >= text.length()) {
+                        pos = -1;
+                        return null;
+                    }
+                    try {
+                        builder.append((char) Integer.parseInt(text.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        pos = -1;
+                        return null;
+                    }
+                    i += 4;
+                    break;
+                default:
+                    builder.append(escaped);
+                    break;
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 跳过数值、true、false或null
+     */
+    private void skipScalar(ByteBuffer buffer) {
+        while (pos < end) {
+            byte b = buffer.get(pos);
+            if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\t' || b == '\r') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * 跳过任意值，嵌套的对象和数组按括号深度跳过
+     */
+    private void skipValue(ByteBuffer buffer) {
+        if (pos >= end) {
+            pos = -1;
+            return;
+        }
+        byte first = buffer.get(pos);
+        if (first == '"') {
+            skipString(buffer);
+            return;
+        }
+        if (first != '{' && first != '[') {
+            skipScalar(buffer);
+            return;
+        }
+        int depth = 0;
+        while (pos < end) {
+            byte b = buffer.get(pos);
+            if (b == '"') {
+                if (skipString(buffer) < 0) {
+                    return;
+                }
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+                if (depth == 0) {
+                    pos++;
+                    return;
+                }
+            }
+            pos++;
+        }
+        pos = -1;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int start, int stringEnd, byte[] key) {
+        if (stringEnd - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long getMalformedCount() {
+        return malformed.sum();
+    }
+}
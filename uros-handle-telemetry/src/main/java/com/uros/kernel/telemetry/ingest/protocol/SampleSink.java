@@ -0,0 +1,17 @@
+package com.uros.kernel.telemetry.ingest.protocol;
+
+/**
+ * 解码后的数据点接收方
+ */
+public interface SampleSink {
+
+    /**
+     * 接收一个数据点
+     *
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param value 指标值
+     * @param timestamp 时间戳（毫秒）
+     */
+    void accept(String sourceId, String metricName, double value, long timestamp);
+}
@@ -0,0 +1,375 @@
+package com.uros.kernel.telemetry.ingest.shm;
+
+import com.uros.kernel.telemetry.ingest.protocol.ByteStringCache;
+import com.uros.kernel.telemetry.ingest.protocol.SampleSink;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 基于内存映射文件的共享内存环形缓冲区，供同机的采集进程直接写入数据点
+ * 文件划分为多个区域，每个区域同一时刻只属于一个生产者（单生产者单消费者），
+ * 生产者写完记录后以release语义推进写位置，消费者以acquire语义读取写位置，全程无锁、无系统调用。
+ * 文件布局（小端字节序）：
+ * <pre>
+ * 文件头 128字节：i32 magic | i32 version | i32 regionCount | i32 regionSize
+ * 区域头 128字节：i64 writePosition | i64 ownerPid | ... | @64 i64 readPosition
+ * 区域数据 regionSize字节（2的幂），记录按8字节对齐：
+ *   u16 sourceId长度 | u16 metricName长度 | u32 保留 | i64 timestampMillis | f64 value | sourceId | metricName
+ * sourceId长度为0xFFFF的记录表示回绕标记，其后直到区域末尾的字节被跳过
+ * </pre>
+ */
+public class SharedMemoryRing implements AutoCloseable {
+
+    public static final int MAGIC = 0x55524F53;
+
+    public static final int VERSION = 1;
+
+    private static final int FILE_HEADER_SIZE = 128;
+
+    private static final int REGION_HEADER_SIZE = 128;
+
+    private static final int WRITE_POSITION_OFFSET = 0;
+
+    private static final int OWNER_OFFSET = 8;
+
+    private static final int READ_POSITION_OFFSET = 64;
+
+    private static final int RECORD_HEADER_SIZE = 24;
+
+    private static final int WRAP_MARKER = 0xFFFF;
+
+    private static final int MAX_NAME_LENGTH = 0xFFFE;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle INTS =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path path;
+
+    private final MappedByteBuffer buffer;
+
+    private final int regionCount;
+
+    private final int regionSize;
+
+    private SharedMemoryRing(Path path, MappedByteBuffer buffer, int regionCount, int regionSize) {
+        this.path = path;
+        this.buffer = buffer;
+        this.regionCount = regionCount;
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * 创建或复用共享内存文件
+     * 已存在且区域划分一致的文件会被复用，其中未消费的记录保留；否则重新初始化
+     *
+     * @param path 文件路径
+     * @param regionCount 区域数，即可同时写入的生产者数
+     * @param requestedRegionSize 每个区域的数据字节数，会向上取整为2的幂
+     * @return 共享内存环形缓冲区
+     * @throws IOException 文件映射失败
+     */
+    public static SharedMemoryRing create(Path path, int regionCount, int requestedRegionSize) throws IOException {
+        if (regionCount < 1) {
+            throw new IllegalArgumentException("regionCount must be at least 1");
+        }
+        if (requestedRegionSize < 1024 || requestedRegionSize > (1 << 30)) {
+            throw new IllegalArgumentException("Region size out of range: " + requestedRegionSize);
+        }
+        int regionSize = Integer.highestOneBit(requestedRegionSize - 1) << 1;
+        long fileSize = FILE_HEADER_SIZE + (long) regionCount * (REGION_HEADER_SIZE + regionSize);
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Shared memory file too large: " + fileSize + " bytes");
+        }
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        boolean reusable = (int) INTS.getAcquire(buffer, 0) == MAGIC
+                && buffer.getInt(4) == VERSION
+                && buffer.getInt(8) == regionCount
+                && buffer.getInt(12) == regionSize;
+        if (!reusable) {
+            // 先清零再写入划分信息，最后发布magic，生产者不会看到初始化一半的文件
+            INTS.setRelease(buffer, 0, 0);
+            buffer.putInt(4, 0);
+            for (int i = 8; i < fileSize; i += 8) {
+                buffer.putLong(i, 0L);
+            }
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, regionCount);
+            buffer.putInt(12, regionSize);
+            INTS.setRelease(buffer, 0, MAGIC);
+        }
+        return new SharedMemoryRing(path, buffer, regionCount, regionSize);
+    }
+
+    /**
+     * 打开已由遥测服务创建的共享内存文件（采集进程侧）
+     *
+     * @param path 文件路径
+     * @return 共享内存环形缓冲区
+     * @throws IOException 文件不存在、格式不匹配或映射失败
+     */
+    public static SharedMemoryRing open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long fileSize = channel.size();
+            if (fileSize < FILE_HEADER_SIZE) {
+                throw new IOException("Not a telemetry shared memory file: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if ((int) INTS.getAcquire(buffer, 0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a telemetry shared memory file: " + path);
+            }
+            int regionCount = buffer.getInt(8);
+            int regionSize = buffer.getInt(12);
+            if (FILE_HEADER_SIZE + (long) regionCount * (REGION_HEADER_SIZE + regionSize) != fileSize) {
+                throw new IOException("Corrupted telemetry shared memory file: " + path);
+            }
+            return new SharedMemoryRing(path, buffer, regionCount, regionSize);
+        }
+    }
+
+    /**
+     * 认领一个空闲区域作为生产者
+     * 属主进程已退出的区域视为空闲，新属主从原写位置继续写入
+     *
+     * @return 生产者；没有空闲区域时返回null
+     */
+    public Producer claimProducer() {
+        long pid = ProcessHandle.current().pid();
+        for (int region = 0; region < regionCount; region++) {
+            int ownerOffset = regionBase(region) + OWNER_OFFSET;
+            long owner = (long) LONGS.getAcquire(buffer, ownerOffset);
+            boolean free = owner == 0 || (owner != pid && !ProcessHandle.of(owner).map(ProcessHandle::isAlive).orElse(false));
+            if (free && LONGS.compareAndSet(buffer, ownerOffset, owner, pid)) {
+                return new Producer(region);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 消费一个区域中已发布的记录，仅允许单个消费者线程调用
+     *
+     * @param region 区域下标
+     * @param sink 数据点接收方
+     * @param strings 字符串缓存
+     * @param maxRecords 最多消费的记录数
+     * @return 消费的记录数；区域数据损坏时丢弃已发布的全部内容并返回 -1
+     */
+    public int drain(int region, SampleSink sink, ByteStringCache strings, int maxRecords) {
+        int base = regionBase(region);
+        int data = base + REGION_HEADER_SIZE;
+        int mask = regionSize - 1;
+        long read = (long) LONGS.getAcquire(buffer, base + READ_POSITION_OFFSET);
+        long write = (long) LONGS.getAcquire(buffer, base + WRITE_POSITION_OFFSET);
+
+        int consumed = 0;
+        while (read < write && consumed < maxRecords) {
+            int offset = (int) (read & mask);
+            int sourceLength = buffer.getShort(data + offset) & 0xFFFF;
+            if (sourceLength == WRAP_MARKER) {
+                read += regionSize - offset;
+                continue;
+            }
+            int metricLength = buffer.getShort(data + offset + 2) & 0xFFFF;
+            int length = recordLength(sourceLength, metricLength);
+            if (sourceLength == 0 || metricLength == 0 || offset + length > regionSize || read + length > write) {
+                LONGS.setRelease(buffer, base + READ_POSITION_OFFSET, write);
+                return -1;
+            }
+            long timestamp = buffer.getLong(data + offset + 8);
+            double value = buffer.getDouble(data + offset + 16);
+            int sourceStart = data + offset + RECORD_HEADER_SIZE;
+            int metricStart = sourceStart + sourceLength;
+            sink.accept(strings.get(buffer, sourceStart, metricStart),
+                    strings.get(buffer, metricStart, metricStart + metricLength), value, timestamp);
+            read += length;
+            consumed++;
+        }
+        LONGS.setRelease(buffer, base + READ_POSITION_OFFSET, read);
+        return consumed;
+    }
+
+    /**
+     * 获取区域中已写入但尚未消费的字节数
+     *
+     * @param region 区域下标
+     * @return 字节数
+     */
+    public long getBacklogBytes(int region) {
+        int base = regionBase(region);
+        return (long) LONGS.getAcquire(buffer, base + WRITE_POSITION_OFFSET)
+                - (long) LONGS.getAcquire(buffer, base + READ_POSITION_OFFSET);
+    }
+
+    /**
+     * 获取区域的属主进程ID
+     *
+     * @param region 区域下标
+     * @return 进程ID，空闲时为0
+     */
+    public long getOwnerPid(int region) {
+        return (long) LONGS.getAcquire(buffer, regionBase(region) + OWNER_OFFSET);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    public int getRegionSize() {
+        return regionSize;
+    }
+
+    private int regionBase(int region) {
+        if (region < 0 || region >= regionCount) {
+            throw new IndexOutOfBoundsException("Region " + region + " out of " + regionCount);
+        }
+        return FILE_HEADER_SIZE + region * (REGION_HEADER_SIZE + regionSize);
+    }
+
+    private static int recordLength(int sourceLength, int metricLength) {
+        return (RECORD_HEADER_SIZE + sourceLength + metricLength + 7) & ~7;
+    }
+
+    /**
+     * 把映射内容刷回文件；进程间共享不依赖该方法
+     */
+    @Override
+    public void close() {
+        buffer.force();
+    }
+
+    /**
+     * 区域生产者，仅允许单个线程使用
+     */
+    public class Producer implements AutoCloseable {
+
+        private final int region;
+
+        private final int base;
+
+        private final int data;
+
+        private final int mask;
+
+        private long write;
+
+        /** 缓存的消费者读位置，只有空间看起来不足时才重新读取 */
+        private long cachedRead;
+
+        private boolean closed;
+
+        private Producer(int region) {
+            this.region = region;
+            this.base = regionBase(region);
+            this.data = base + REGION_HEADER_SIZE;
+            this.mask = regionSize - 1;
+            this.write = (long) LONGS.getAcquire(buffer, base + WRITE_POSITION_OFFSET);
+            this.cachedRead = (long) LONGS.getAcquire(buffer, base + READ_POSITION_OFFSET);
+        }
+
+        /**
+         * 写入一个数据点
+         *
+         * @param sourceId 数据源ID
+         * @param metricName 指标名称
+         * @param value 指标值
+         * @param timestamp 时间戳（毫秒）
+         * @return 区域空间不足时返回false
+         */
+        public boolean offer(String sourceId, String metricName, double value, long timestamp) {
+            return offer(sourceId.getBytes(StandardCharsets.UTF_8),
+                    metricName.getBytes(StandardCharsets.UTF_8), value, timestamp);
+        }
+
+        /**
+         * 写入一个数据点，名称为预先编码好的UTF-8字节，写入过程不分配对象
+         *
+         * @param sourceId 数据源ID
+         * @param metricName 指标名称
+         * @param value 指标值
+         * @param timestamp 时间戳（毫秒）
+         * @return 区域空间不足时返回false
+         */
+        public boolean offer(byte[] sourceId, byte[] metricName, double value, long timestamp) {
+            if (closed) {
+                throw new IllegalStateException("Producer is closed");
+            }
+            if (sourceId.length == 0 || sourceId.length > MAX_NAME_LENGTH
+                    || metricName.length == 0 || metricName.length > MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("Invalid sourceId or metricName length");
+            }
+            int length = recordLength(sourceId.length, metricName.length);
+            int offset = (int) (write & mask);
+            int padding = offset + length > regionSize ? regionSize - offset : 0;
+            long required = padding + length;
+            if (required > regionSize) {
+                throw new IllegalArgumentException("Record larger than region: " + length + " bytes");
+            }
+            if (write + required - cachedRead > regionSize) {
+                cachedRead = (long) LONGS.getAcquire(buffer, base + READ_POSITION_OFFSET);
+                if (write + required - cachedRead > regionSize) {
+                    return false;
+                }
+            }
+
+            if (padding > 0) {
+                buffer.putShort(data + offset, (short) WRAP_MARKER);
+                offset = 0;
+            }
+            int position = data + offset;
+            buffer.putShort(position, (short) sourceId.length);
+            buffer.putShort(position + 2, (short) metricName.length);
+            buffer.putInt(position + 4, 0);
+            buffer.putLong(position + 8, timestamp);
+            buffer.putDouble(position + 16, value);
+            buffer.put(position + RECORD_HEADER_SIZE, sourceId);
+            buffer.put(position + RECORD_HEADER_SIZE + sourceId.length, metricName);
+
+            write += required;
+            LONGS.setRelease(buffer, base + WRITE_POSITION_OFFSET, write);
+            return true;
+        }
+
+        public int getRegion() {
+            return region;
+        }
+
+        /**
+         * 释放区域属主，已写入的记录仍会被消费
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                LONGS.setRelease(buffer, base + OWNER_OFFSET, 0L);
+            }
+        }
+    }
+}
@@ -0,0 +1,563 @@
+package com.uros.kernel.telemetry.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 计数器序列存储
+ * 数据点按块存储，每块最多 {@link #CHUNK_SIZE} 个点：时间戳使用二阶差分、数值使用一阶差分，
+ * 均以zigzag变长整数编码（非整数差值退化为8字节原值）。每块头部记录首尾点、块内增量和回零次数，
+ * 完全落在查询范围内的块直接使用块头汇总，无需解码
+ */
+public class CounterData {
+
+    /** 每块最多的数据点数 */
+    static final int CHUNK_SIZE = 120;
+
+    /** 每块除编码数组外的估算字节数：块对象、数组头和列表引用 */
+    static final int CHUNK_BYTES = 100;
+
+    /** 差值超过该范围时按原始double编码 */
+    private static final double MAX_INTEGRAL_DELTA = (double) (1L << 52);
+
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    /** 乱序（时间戳不大于最后一个点）被丢弃的数据点数 */
+    private long outOfOrderDrops;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 所有块的估算字节数 */
+    private long estimatedBytes;
+
+    /** 存储的数据点数 */
+    private int storedPoints;
+
+    /** 所属数据源的内存账户；未登记时为null */
+    private MemoryAccount memoryAccount;
+
+    /**
+     * 添加数据点
+     *
+     * @param value 计数器值
+     * @param timestamp 时间戳
+     * @return 时间戳不晚于最后一个点时丢弃并返回false
+     */
+    public boolean addDataPoint(double value, long timestamp) {
+        try {
+            lock.writeLock().lock();
+            long bytesBefore = estimatedBytes;
+            if (!append(value, timestamp)) {
+                return false;
+            }
+            report(bytesBefore, 1);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 批量添加数据点，整批只获取一次写锁
+     *
+     * @param values 数据值
+     * @param timestamps 时间戳
+     * @param offset 起始下标
+     * @param length 数量
+     * @return 成功写入的数量
+     */
+    public int addDataPoints(double[] values, long[] timestamps, int offset, int length) {
+        try {
+            lock.writeLock().lock();
+            long bytesBefore = estimatedBytes;
+            int written = 0;
+            for (int i = offset; i < offset + length; i++) {
+                if (append(values[i], timestamps[i])) {
+                    written++;
+                }
+            }
+            report(bytesBefore, written);
+            return written;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean append(double value, long timestamp) {
+        Chunk last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (last != null && timestamp <= last.lastTimestamp) {
+            outOfOrderDrops++;
+            return false;
+        }
+        if (last == null || last.count == CHUNK_SIZE) {
+            Chunk chunk = new Chunk(value, timestamp);
+            chunks.add(chunk);
+            estimatedBytes += CHUNK_BYTES + chunk.bytes.length;
+        } else {
+            int capacity = last.bytes.length;
+            last.append(value, timestamp);
+            estimatedBytes += last.bytes.length - capacity;
+        }
+        storedPoints++;
+        return true;
+    }
+
+    /**
+     * 把本次写入或清理的变化计入内存账户，调用方需持有写锁
+     *
+     * @param bytesBefore 变化前的估算字节数
+     * @param deltaPoints 数据点数变化
+     */
+    private void report(long bytesBefore, int deltaPoints) {
+        if (memoryAccount != null) {
+            memoryAccount.add(MemoryAccount.Tier.COUNTER, estimatedBytes - bytesBefore, deltaPoints);
+        }
+    }
+
+    /**
+     * 登记到数据源的内存账户，已有的数据块立即计入
+     *
+     * @param memoryAccount 内存账户
+     */
+    public void setMemoryAccount(MemoryAccount memoryAccount) {
+        try {
+            lock.writeLock().lock();
+            if (this.memoryAccount != null) {
+                this.memoryAccount.add(MemoryAccount.Tier.COUNTER, -estimatedBytes, -storedPoints);
+            }
+            this.memoryAccount = memoryAccount;
+            if (memoryAccount != null) {
+                memoryAccount.add(MemoryAccount.Tier.COUNTER, estimatedBytes, storedPoints);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取所有块的估算字节数，包括块对象和编码数组的未用容量
+     */
+    public long getEstimatedBytes() {
+        try {
+            lock.readLock().lock();
+            return estimatedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 计数器增量：新值小于旧值视为计数器从0重新开始
+     */
+    static double increase(double previous, double value) {
+        return value >= previous ? value - previous : value;
+    }
+
+    /**
+     * 汇总时间范围内的计数器变化
+     *
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 汇总结果，范围内没有数据点时count为0
+     */
+    public Summary summarize(long startTime, long endTime) {
+        try {
+            lock.readLock().lock();
+            Summary summary = new Summary();
+            for (int i = firstChunkEndingAtOrAfter(startTime); i < chunks.size(); i++) {
+                Chunk chunk = chunks.get(i);
+                if (chunk.firstTimestamp > endTime) {
+                    break;
+                }
+                if (chunk.firstTimestamp >= startTime && chunk.lastTimestamp <= endTime) {
+                    summary.addChunk(chunk);
+                } else {
+                    chunk.decode((value, timestamp) -> {
+                        if (timestamp >= startTime && timestamp <= endTime) {
+                            summary.addPoint(value, timestamp);
+                        }
+                    });
+                }
+            }
+            return summary;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 遍历时间范围内的数据点
+     *
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param visitor 访问者
+     */
+    public void forEachPoint(long startTime, long endTime, CounterVisitor visitor) {
+        try {
+            lock.readLock().lock();
+            for (int i = firstChunkEndingAtOrAfter(startTime); i < chunks.size(); i++) {
+                Chunk chunk = chunks.get(i);
+                if (chunk.firstTimestamp > endTime) {
+                    break;
+                }
+                chunk.decode((value, timestamp) -> {
+                    if (timestamp >= startTime && timestamp <= endTime) {
+                        visitor.visit(value, timestamp);
+                    }
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 在读锁内复制一批数据点到调用方数组，用于分批导出
+     * 计数器时间戳严格递增，以上一批最后的时间戳作为游标即可
+     *
+     * @param afterTime 只复制时间戳大于该值的点
+     * @param endTime 结束时间（包含）
+     * @param timestamps 时间戳输出
+     * @param values 数据值输出
+     * @return 复制的点数，小于数组长度表示已到范围末尾
+     */
+    public int copyPoints(long afterTime, long endTime, long[] timestamps, double[] values) {
+        try {
+            lock.readLock().lock();
+            int[] count = {0};
+            long from = afterTime == Long.MAX_VALUE ? afterTime : afterTime + 1;
+            for (int i = firstChunkEndingAtOrAfter(from); i < chunks.size() && count[0] < timestamps.length; i++) {
+                Chunk chunk = chunks.get(i);
+                if (chunk.firstTimestamp > endTime) {
+                    break;
+                }
+                chunk.decode((value, timestamp) -> {
+                    if (timestamp > afterTime && timestamp <= endTime && count[0] < timestamps.length) {
+                        timestamps[count[0]] = timestamp;
+                        values[count[0]] = value;
+                        count[0]++;
+                    }
+                });
+            }
+            return count[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int firstChunkEndingAtOrAfter(long time) {
+        int low = 0;
+        int high = chunks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (chunks.get(mid).lastTimestamp < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 删除最后时间戳早于截止时间的整块数据
+     *
+     * @param cutoffTime 截止时间
+     * @return 删除的数据点数
+     */
+    public int cleanupBefore(long cutoffTime) {
+        try {
+            lock.writeLock().lock();
+            int end = firstChunkEndingAtOrAfter(cutoffTime);
+            long bytesBefore = estimatedBytes;
+            int removed = 0;
+            for (int i = 0; i < end; i++) {
+                Chunk chunk = chunks.get(i);
+                removed += chunk.count;
+                estimatedBytes -= CHUNK_BYTES + chunk.bytes.length;
+            }
+            chunks.subList(0, end).clear();
+            storedPoints -= removed;
+            report(bytesBefore, -removed);
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取最后一个数据点，没有数据时返回null
+     *
+     * @return {值, 时间戳}
+     */
+    public double[] getLatest() {
+        try {
+            lock.readLock().lock();
+            if (chunks.isEmpty()) {
+                return null;
+            }
+            Chunk last = chunks.get(chunks.size() - 1);
+            return new double[]{last.lastValue, last.lastTimestamp};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取数据点总数
+     */
+    public int size() {
+        try {
+            lock.readLock().lock();
+            return storedPoints;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取编码后的字节数
+     */
+    public long getEncodedBytes() {
+        try {
+            lock.readLock().lock();
+            long bytes = 0;
+            for (Chunk chunk : chunks) {
+                bytes += chunk.length;
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getOutOfOrderDrops() {
+        try {
+            lock.readLock().lock();
+            return outOfOrderDrops;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 计数器数据点访问者
+     */
+    @FunctionalInterface
+    public interface CounterVisitor {
+        void visit(double value, long timestamp);
+    }
+
+    /**
+     * 差值编码的数据块
+     */
+    private static class Chunk {
+        private final double firstValue;
+        private final long firstTimestamp;
+        private double lastValue;
+        private long lastTimestamp;
+        private long lastTimestampDelta;
+        private int count;
+        /** 块内（不含与上一块之间）的增量 */
+        private double increase;
+        private int resets;
+        private byte[] bytes = new byte[64];
+        private int length;
+
+        private Chunk(double value, long timestamp) {
+            this.firstValue = value;
+            this.firstTimestamp = timestamp;
+            this.lastValue = value;
+            this.lastTimestamp = timestamp;
+            this.count = 1;
+        }
+
+        private void append(double value, long timestamp) {
+            long timestampDelta = timestamp - lastTimestamp;
+            writeVarLong(zigzag(timestampDelta - lastTimestampDelta));
+            double valueDelta = value - lastValue;
+            if (isIntegral(lastValue) && isIntegral(value) && Math.abs(valueDelta) < MAX_INTEGRAL_DELTA) {
+                writeVarLong(zigzag((long) valueDelta) << 1);
+            } else {
+                writeVarLong(1);
+                writeLong(Double.doubleToRawLongBits(value));
+            }
+            increase += CounterData.increase(lastValue, value);
+            if (value < lastValue) {
+                resets++;
+            }
+            lastTimestampDelta = timestampDelta;
+            lastValue = value;
+            lastTimestamp = timestamp;
+            count++;
+        }
+
+        private void decode(CounterVisitor visitor) {
+            double value = firstValue;
+            long timestamp = firstTimestamp;
+            long timestampDelta = 0;
+            visitor.visit(value, timestamp);
+            int[] position = {0};
+            for (int i = 1; i < count; i++) {
+                timestampDelta += unzigzag(readVarLong(position));
+                timestamp += timestampDelta;
+                long encoded = readVarLong(position);
+                if ((encoded & 1) == 0) {
+                    value += unzigzag(encoded >>> 1);
+                } else {
+                    value = Double.longBitsToDouble(readLong(position));
+                }
+                visitor.visit(value, timestamp);
+            }
+        }
+
+        private static boolean isIntegral(double value) {
+            return value == Math.rint(value) && Math.abs(value) < MAX_INTEGRAL_DELTA;
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        private void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        private long readVarLong(int[] position) {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                byte b = bytes[position[0]++];
+                result |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+                shift += 7;
+            }
+        }
+
+        private long readLong(int[] position) {
+            long result = 0;
+            for (int i = 0; i < 8; i++) {
+                result = (result << 8) | (bytes[position[0]++] & 0xFF);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 计数器在时间范围内的汇总
+     */
+    public static class Summary {
+        private int count;
+        private double firstValue;
+        private long firstTimestamp;
+        private double lastValue;
+        private long lastTimestamp;
+        private double increase;
+        private int resets;
+
+        private void addChunk(Chunk chunk) {
+            if (count == 0) {
+                start(chunk.firstValue, chunk.firstTimestamp);
+            } else {
+                step(chunk.firstValue);
+            }
+            increase += chunk.increase;
+            resets += chunk.resets;
+            count += chunk.count - 1;
+            lastValue = chunk.lastValue;
+            lastTimestamp = chunk.lastTimestamp;
+        }
+
+        private void addPoint(double value, long timestamp) {
+            if (count == 0) {
+                start(value, timestamp);
+                return;
+            }
+            step(value);
+            lastValue = value;
+            lastTimestamp = timestamp;
+        }
+
+        private void start(double value, long timestamp) {
+            count = 1;
+            firstValue = value;
+            firstTimestamp = timestamp;
+            lastValue = value;
+            lastTimestamp = timestamp;
+        }
+
+        private void step(double value) {
+            increase += CounterData.increase(lastValue, value);
+            if (value < lastValue) {
+                resets++;
+            }
+            count++;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getFirstValue() {
+            return firstValue;
+        }
+
+        public long getFirstTimestamp() {
+            return firstTimestamp;
+        }
+
+        public double getLastValue() {
+            return lastValue;
+        }
+
+        public long getLastTimestamp() {
+            return lastTimestamp;
+        }
+
+        /**
+         * @return 去除回零影响后的总增量
+         */
+        public double getIncrease() {
+            return increase;
+        }
+
+        public int getResets() {
+            return resets;
+        }
+
+        /**
+         * @return 每秒增长率，数据点不足两个时为0
+         */
+        public double getRate() {
+            long elapsed = lastTimestamp - firstTimestamp;
+            return elapsed > 0 ? increase / (elapsed / 1000.0) : 0;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.uros.kernel.telemetry.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 直方图序列存储
+ * 每个数据点是一次观测，按固定桶上界计数（最后一个桶为 +Inf）；
+ * 同一汇总周期内的观测合并为一组桶计数，查询时按周期合并，不保留原始观测值
+ */
+public class HistogramData {
+
+    /** 默认桶上界 */
+    public static final double[] DEFAULT_BOUNDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    /** 默认汇总周期（毫秒） */
+    public static final long DEFAULT_ROLLUP_MILLIS = 60_000;
+
+    /** 每个汇总周期除桶计数外的估算字节数：对象头和字段、数组头、列表引用 */
+    private static final int ROLLUP_BYTES = 76;
+
+    private final double[] bounds;
+
+    private final long rollupMillis;
+
+    /** 按周期起始时间升序排列的汇总 */
+    private final List<Rollup> rollups = new ArrayList<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 所属数据源的内存账户；未登记时为null */
+    private MemoryAccount memoryAccount;
+
+    /**
+     * 构造函数
+     *
+     * @param bounds 严格递增的有限桶上界
+     * @param rollupMillis 汇总周期（毫秒）
+     */
+    public HistogramData(double[] bounds, long rollupMillis) {
+        if (bounds == null || bounds.length == 0) {
+            throw new IllegalArgumentException("Histogram needs at least one bucket bound");
+        }
+        for (int i = 0; i < bounds.length; i++) {
+            if (!Double.isFinite(bounds[i]) || (i > 0 && bounds[i] <= bounds[i - 1])) {
+                throw new IllegalArgumentException("Bucket bounds must be finite and strictly increasing");
+            }
+        }
+        if (rollupMillis <= 0) {
+            throw new IllegalArgumentException("Rollup period must be positive: " + rollupMillis);
+        }
+        this.bounds = bounds.clone();
+        this.rollupMillis = rollupMillis;
+    }
+
+    /**
+     * 记录一次观测
+     *
+     * @param value 观测值
+     * @param timestamp 时间戳
+     */
+    public void addObservation(double value, long timestamp) {
+        try {
+            lock.writeLock().lock();
+            int before = rollups.size();
+            observe(value, timestamp);
+            report(rollups.size() - before);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 批量记录观测，整批只获取一次写锁
+     *
+     * @param values 观测值
+     * @param timestamps 时间戳
+     * @param offset 起始下标
+     * @param length 数量
+     */
+    public void addObservations(double[] values, long[] timestamps, int offset, int length) {
+        try {
+            lock.writeLock().lock();
+            int before = rollups.size();
+            for (int i = offset; i < offset + length; i++) {
+                observe(values[i], timestamps[i]);
+            }
+            report(rollups.size() - before);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void observe(double value, long timestamp) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        long start = Math.floorDiv(timestamp, rollupMillis) * rollupMillis;
+        Rollup rollup;
+        int size = rollups.size();
+        if (size > 0 && rollups.get(size - 1).start == start) {
+            rollup = rollups.get(size - 1);
+        } else {
+            int index = firstRollupAtOrAfter(start);
+            if (index < size && rollups.get(index).start == start) {
+                rollup = rollups.get(index);
+            } else {
+                rollup = new Rollup(start, bounds.length + 1);
+                rollups.add(index, rollup);
+            }
+        }
+        rollup.add(bucketIndex(value), value);
+    }
+
+    private int bucketIndex(double value) {
+        int index = Arrays.binarySearch(bounds, value);
+        // 桶上界包含等于上界的值
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private int firstRollupAtOrAfter(long start) {
+        int low = 0;
+        int high = rollups.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rollups.get(mid).start < start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 合并与时间范围相交的汇总周期
+     *
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 合并结果
+     */
+    public Summary summarize(long startTime, long endTime) {
+        try {
+            lock.readLock().lock();
+            Summary summary = new Summary(bounds);
+            long firstStart = Math.floorDiv(startTime, rollupMillis) * rollupMillis;
+            for (int i = firstRollupAtOrAfter(firstStart); i < rollups.size(); i++) {
+                Rollup rollup = rollups.get(i);
+                if (rollup.start > endTime) {
+                    break;
+                }
+                summary.merge(rollup);
+            }
+            return summary;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取与时间范围相交的各汇总周期
+     *
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 每个周期一个汇总结果
+     */
+    public List<Summary> getRollups(long startTime, long endTime) {
+        try {
+            lock.readLock().lock();
+            List<Summary> result = new ArrayList<>();
+            long firstStart = Math.floorDiv(startTime, rollupMillis) * rollupMillis;
+            for (int i = firstRollupAtOrAfter(firstStart); i < rollups.size(); i++) {
+                Rollup rollup = rollups.get(i);
+                if (rollup.start > endTime) {
+                    break;
+                }
+                Summary summary = new Summary(bounds);
+                summary.merge(rollup);
+                result.add(summary);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 删除在截止时间之前已结束的汇总周期
+     *
+     * @param cutoffTime 截止时间
+     * @return 删除的观测数
+     */
+    public int cleanupBefore(long cutoffTime) {
+        try {
+            lock.writeLock().lock();
+            int end = firstRollupAtOrAfter(Math.floorDiv(cutoffTime, rollupMillis) * rollupMillis);
+            long removed = 0;
+            for (int i = 0; i < end; i++) {
+                removed += rollups.get(i).count;
+            }
+            rollups.subList(0, end).clear();
+            report(-end);
+            return (int) Math.min(removed, Integer.MAX_VALUE);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 单个汇总周期的估算字节数
+     */
+    private long rollupBytes() {
+        return ROLLUP_BYTES + 8L * (bounds.length + 1);
+    }
+
+    /**
+     * 把汇总周期数的变化计入内存账户，调用方需持有写锁
+     */
+    private void report(int deltaRollups) {
+        if (deltaRollups != 0 && memoryAccount != null) {
+            memoryAccount.add(MemoryAccount.Tier.HISTOGRAM, deltaRollups * rollupBytes(), deltaRollups);
+        }
+    }
+
+    /**
+     * 登记到数据源的内存账户，已有的汇总周期立即计入
+     *
+     * @param memoryAccount 内存账户
+     */
+    public void setMemoryAccount(MemoryAccount memoryAccount) {
+        try {
+            lock.writeLock().lock();
+            report(-rollups.size());
+            this.memoryAccount = memoryAccount;
+            report(rollups.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取汇总周期的估算字节数
+     */
+    public long getEstimatedBytes() {
+        try {
+            lock.readLock().lock();
+            return rollups.size() * rollupBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取汇总周期数
+     */
+    public int getRollupCount() {
+        try {
+            lock.readLock().lock();
+            return rollups.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double[] getBounds() {
+        return bounds.clone();
+    }
+
+    public long getRollupMillis() {
+        return rollupMillis;
+    }
+
+    /**
+     * 单个汇总周期的桶计数
+     */
+    private static class Rollup {
+        private final long start;
+        private final long[] counts;
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private Rollup(long start, int buckets) {
+            this.start = start;
+            this.counts = new long[buckets];
+        }
+
+        private void add(int bucket, double value) {
+            counts[bucket]++;
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+    }
+
+    /**
+     * 合并后的直方图
+     */
+    public static class Summary {
+        private final double[] bounds;
+        private final long[] counts;
+        private long startTime = Long.MAX_VALUE;
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private Summary(double[] bounds) {
+            this.bounds = bounds;
+            this.counts = new long[bounds.length + 1];
+        }
+
+        private void merge(Rollup rollup) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += rollup.counts[i];
+            }
+            startTime = Math.min(startTime, rollup.start);
+            count += rollup.count;
+            sum += rollup.sum;
+            min = Math.min(min, rollup.min);
+            max = Math.max(max, rollup.max);
+        }
+
+        /**
+         * 估算分位数：在目标桶内线性插值，首尾桶以观测到的最小/最大值为边界
+         *
+         * @param quantile 分位数，0到1之间
+         * @return 估算值，没有观测时为NaN
+         */
+        public double quantile(double quantile) {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            double rank = quantile * count;
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0 || seen + counts[i] < rank) {
+                    seen += counts[i];
+                    continue;
+                }
+                double lower = i == 0 ? min : Math.max(bounds[i - 1], min);
+                double upper = i == bounds.length ? max : Math.min(bounds[i], max);
+                return lower + (upper - lower) * ((rank - seen) / counts[i]);
+            }
+            return max;
+        }
+
+        public double[] getBounds() {
+            return bounds.clone();
+        }
+
+        /**
+         * @return 各桶计数（非累积），最后一个为 +Inf 桶
+         */
+        public long[] getCounts() {
+            return counts.clone();
+        }
+
+        /**
+         * @return 最早的汇总周期起始时间
+         */
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getSum() {
+            return sum;
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+    }
+}
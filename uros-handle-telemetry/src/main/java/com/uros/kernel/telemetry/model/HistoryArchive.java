@@ -0,0 +1,53 @@
+package com.uros.kernel.telemetry.model;
+
+import java.util.List;
+
+/**
+ * 单个量值序列的归档存储，保存已从内存移出的历史数据点
+ */
+public interface HistoryArchive {
+
+    /**
+     * 写入一段历史数据点，写入的数据在提交之前对读取不可见
+     * 写入失败时抛出异常且不留下数据（进程重启后也不会出现），调用方不得删除内存中的数据
+     *
+     * @param points 数据点，按时间升序
+     * @return 待提交的写入，调用方在从内存中删除这些数据点的同时提交
+     */
+    PendingWrite write(List<TelemetryData.DataPoint> points);
+
+    /**
+     * 读取时间戳在范围内的归档数据点，以及范围之前最近的一个数据点（若存在）
+     *
+     * @param startTime 开始时间（包含）
+     * @param endTime 结束时间（包含）
+     * @return 数据点列表，按时间升序
+     */
+    List<TelemetryData.DataPoint> read(long startTime, long endTime);
+
+    /**
+     * 按时间顺序读取从开始时间起的前若干个归档数据点，只解码凑满数量所需的块，用于分批读取
+     *
+     * @param startTime 开始时间（包含）
+     * @param endTime 结束时间（包含）
+     * @param limit 最多返回的点数
+     * @return 数据点列表，按时间升序
+     */
+    List<TelemetryData.DataPoint> readFirst(long startTime, long endTime, int limit);
+
+    /**
+     * @return 已归档数据点中最大的有效期截止时间，没有归档数据时为Long.MIN_VALUE
+     */
+    long getArchivedUntil();
+
+    /**
+     * 已写入但尚未对读取可见的归档数据
+     */
+    interface PendingWrite {
+
+        /**
+         * 使写入的数据点对读取可见
+         */
+        void commit();
+    }
+}
@@ -0,0 +1,250 @@
+package com.uros.kernel.telemetry.model;
+
+import java.io.Serializable;
+
+/**
+ * 加法Holt-Winters指数平滑预测
+ * 原始数据点按固定步长分桶取均值，每个步长结束时以O(1)更新水平、趋势和季节分量；
+ * 季节长度为0时退化为Holt线性趋势模型。步长按纪元对齐，日季节即按UTC零点对齐。
+ * 中间缺失的步长按趋势外推，季节分量保持不变
+ */
+public class HoltWinters implements Serializable {
+
+    /** 最多的季节分量数 */
+    public static final int MAX_SEASON_LENGTH = 100_000;
+
+    private final long stepMillis;
+
+    private final int seasonLength;
+
+    private final double alpha;
+
+    private final double beta;
+
+    private final double gamma;
+
+    /** 季节分量；首个季节内暂存各步长的均值 */
+    private final double[] season;
+
+    /** 首个季节内已有数据的步长 */
+    private final boolean[] observed;
+
+    private double level;
+
+    private double trend;
+
+    /** 已应用到模型的步长数 */
+    private long steps;
+
+    /** 模型可以预测（Holt为两个步长后，Holt-Winters为首个完整季节后） */
+    private boolean ready;
+
+    private long firstStep;
+
+    /** 最后应用到模型的步长序号 */
+    private long lastStep;
+
+    /** 当前未结束步长的序号和累积 */
+    private long openStep = Long.MIN_VALUE;
+    private double openSum;
+    private int openCount;
+
+    /**
+     * 构造函数
+     *
+     * @param stepMillis 步长（毫秒）
+     * @param seasonMillis 季节周期（毫秒），0表示不考虑季节性
+     * @param alpha 水平平滑系数，(0, 1]
+     * @param beta 趋势平滑系数，[0, 1]
+     * @param gamma 季节平滑系数，[0, 1]
+     */
+    public HoltWinters(long stepMillis, long seasonMillis, double alpha, double beta, double gamma) {
+        if (stepMillis <= 0) {
+            throw new IllegalArgumentException("Forecast step must be positive: " + stepMillis);
+        }
+        if (seasonMillis < 0 || seasonMillis % stepMillis != 0) {
+            throw new IllegalArgumentException("Season must be a non-negative multiple of the step: " + seasonMillis);
+        }
+        long seasonLength = seasonMillis / stepMillis;
+        if (seasonLength == 1 || seasonLength > MAX_SEASON_LENGTH) {
+            throw new IllegalArgumentException("Season must span 2 to " + MAX_SEASON_LENGTH + " steps: " + seasonLength);
+        }
+        if (!(alpha > 0 && alpha <= 1) || !(beta >= 0 && beta <= 1) || !(gamma >= 0 && gamma <= 1)) {
+            throw new IllegalArgumentException("Smoothing factors must be within [0, 1] and alpha above 0");
+        }
+        this.stepMillis = stepMillis;
+        this.seasonLength = (int) seasonLength;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.season = new double[this.seasonLength];
+        this.observed = new boolean[this.seasonLength];
+    }
+
+    /**
+     * 加入一个原始数据点，早于当前步长的数据点被忽略
+     *
+     * @param value 数据值
+     * @param timestamp 时间戳
+     */
+    public void update(double value, long timestamp) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        long step = Math.floorDiv(timestamp, stepMillis);
+        if (step < openStep) {
+            return;
+        }
+        if (step > openStep) {
+            if (openCount > 0) {
+                apply(openStep, openSum / openCount);
+            }
+            openStep = step;
+            openSum = 0;
+            openCount = 0;
+        }
+        openSum += value;
+        openCount++;
+    }
+
+    private void apply(long step, double y) {
+        if (seasonLength > 0 && !ready) {
+            warmUp(step, y);
+        } else if (steps == 0) {
+            level = y;
+        } else if (!ready) {
+            // Holt：第二个步长确定初始趋势
+            trend = (y - level) / (step - lastStep);
+            level = y;
+            ready = true;
+        } else {
+            smooth(step, y);
+        }
+        lastStep = step;
+        steps++;
+    }
+
+    /**
+     * 首个季节内暂存各步长的均值；季节结束后以均值为初始水平、与均值之差为初始季节分量，趋势为0
+     */
+    private void warmUp(long step, double y) {
+        if (steps == 0) {
+            firstStep = step;
+        }
+        if (step - firstStep < seasonLength) {
+            int slot = (int) Math.floorMod(step, (long) seasonLength);
+            season[slot] = y;
+            observed[slot] = true;
+            return;
+        }
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < seasonLength; i++) {
+            if (observed[i]) {
+                sum += season[i];
+                count++;
+            }
+        }
+        level = sum / count;
+        for (int i = 0; i < seasonLength; i++) {
+            season[i] = observed[i] ? season[i] - level : 0;
+        }
+        trend = 0;
+        ready = true;
+        // 当前步长已属于下一个季节，按常规更新
+        smooth(step, y);
+    }
+
+    private void smooth(long step, double y) {
+        long gap = step - lastStep;
+        int slot = seasonLength > 0 ? (int) Math.floorMod(step, (long) seasonLength) : 0;
+        double seasonal = seasonLength > 0 ? season[slot] : 0;
+        double previous = level;
+        level = alpha * (y - seasonal) + (1 - alpha) * (level + gap * trend);
+        trend = beta * ((level - previous) / gap) + (1 - beta) * trend;
+        if (seasonLength > 0) {
+            season[slot] = gamma * (y - level) + (1 - gamma) * seasonal;
+        }
+    }
+
+    /**
+     * 预测最后应用的步长之后的若干步长
+     *
+     * @param count 步长数
+     * @return 预测结果，模型未就绪时values为空
+     */
+    public Forecast forecast(int count) {
+        double[] values = new double[ready ? count : 0];
+        for (int h = 1; h <= values.length; h++) {
+            double seasonal = seasonLength > 0 ? season[(int) Math.floorMod(lastStep + h, (long) seasonLength)] : 0;
+            values[h - 1] = level + h * trend + seasonal;
+        }
+        return new Forecast(this, values);
+    }
+
+    /**
+     * 预测结果快照
+     */
+    public static class Forecast {
+        private final boolean ready;
+        private final boolean seasonal;
+        private final long stepMillis;
+        private final long startTime;
+        private final long steps;
+        private final double level;
+        private final double trend;
+        private final double[] values;
+
+        private Forecast(HoltWinters model, double[] values) {
+            this.ready = model.ready;
+            this.seasonal = model.seasonLength > 0;
+            this.stepMillis = model.stepMillis;
+            this.startTime = (model.lastStep + 1) * model.stepMillis;
+            this.steps = model.steps;
+            this.level = model.level;
+            this.trend = model.trend;
+            this.values = values;
+        }
+
+        public boolean isReady() {
+            return ready;
+        }
+
+        public boolean isSeasonal() {
+            return seasonal;
+        }
+
+        public long getStepMillis() {
+            return stepMillis;
+        }
+
+        /**
+         * @return 第一个预测步长的起始时间
+         */
+        public long getStartTime() {
+            return startTime;
+        }
+
+        /**
+         * @return 已应用到模型的步长数
+         */
+        public long getSteps() {
+            return steps;
+        }
+
+        public double getLevel() {
+            return level;
+        }
+
+        /**
+         * @return 每个步长的趋势增量
+         */
+        public double getTrend() {
+            return trend;
+        }
+
+        public double[] getValues() {
+            return values.clone();
+        }
+    }
+}
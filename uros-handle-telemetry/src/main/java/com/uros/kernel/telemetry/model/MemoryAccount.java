@@ -0,0 +1,91 @@
+package com.uros.kernel.telemetry.model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个数据源的内存占用估算
+ * 序列在存储发生变化时按变化量增量更新，读取时无需遍历数据点；字节数按对象布局估算，不是精确值
+ */
+public class MemoryAccount {
+
+    /**
+     * 内存中的存储层
+     */
+    public enum Tier {
+        /** 序列对象、键和索引项 */
+        METADATA,
+        /** 量值历史数据点 */
+        GAUGE,
+        /** 计数器编码块 */
+        COUNTER,
+        /** 直方图汇总周期 */
+        HISTOGRAM
+    }
+
+    private static final Tier[] TIERS = Tier.values();
+
+    private final String sourceId;
+
+    private final LongAdder[] bytes = new LongAdder[TIERS.length];
+
+    private final LongAdder points = new LongAdder();
+
+    private final LongAdder series = new LongAdder();
+
+    public MemoryAccount(String sourceId) {
+        this.sourceId = sourceId;
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录存储变化
+     *
+     * @param tier 存储层
+     * @param deltaBytes 字节数变化
+     * @param deltaPoints 存储点数变化
+     */
+    public void add(Tier tier, long deltaBytes, long deltaPoints) {
+        if (deltaBytes != 0) {
+            bytes[tier.ordinal()].add(deltaBytes);
+        }
+        if (deltaPoints != 0) {
+            points.add(deltaPoints);
+        }
+    }
+
+    /**
+     * 记录新建的序列
+     *
+     * @param metadataBytes 序列对象、键和索引项的字节数
+     */
+    public void addSeries(long metadataBytes) {
+        series.increment();
+        bytes[Tier.METADATA.ordinal()].add(metadataBytes);
+    }
+
+    public String getSourceId() {
+        return sourceId;
+    }
+
+    public long getBytes() {
+        long total = 0;
+        for (LongAdder adder : bytes) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    public long getBytes(Tier tier) {
+        return bytes[tier.ordinal()].sum();
+    }
+
+    public long getPoints() {
+        return points.sum();
+    }
+
+    public long getSeries() {
+        return series.sum();
+    }
+}
@@ -0,0 +1,13 @@
+package com.uros.kernel.telemetry.model;
+
+/**
+ * 指标类型，在序列注册时确定，决定存储结构和聚合方式
+ */
+public enum MetricKind {
+    /** 量值：任意升降的瞬时值，存储于 {@link TelemetryData} */
+    GAUGE,
+    /** 计数器：单调递增、可能因重启回零的累计值，差值编码存储于 {@link CounterData} */
+    COUNTER,
+    /** 直方图：每个数据点是一次观测，按固定桶计数并按汇总周期合并，存储于 {@link HistogramData} */
+    HISTOGRAM
+}
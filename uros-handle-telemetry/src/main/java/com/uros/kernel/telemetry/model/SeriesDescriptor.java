@@ -0,0 +1,139 @@
+package com.uros.kernel.telemetry.model;
+
+import com.uros.kernel.telemetry.query.ResampleAggregation;
+
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+/**
+ * 序列元数据（不可变）：单位、采样间隔、降采样方式、存储策略和标签
+ * 所有实例经 {@link #intern} 驻留，配置相同的序列共享同一个对象，序列本身只保留一个引用；
+ * 修改元数据时替换为另一个驻留实例。驻留表只弱引用实例，不再被任何序列使用的元数据
+ * （例如按设备区分的标签、链式修改产生的中间组合）可以被回收
+ */
+public final class SeriesDescriptor implements Serializable {
+
+    /** 键和值都是弱引用；值不能强引用键，否则键永远不会被回收。访问时对自身加锁 */
+    private static final Map<SeriesDescriptor, WeakReference<SeriesDescriptor>> INTERNED = new WeakHashMap<>();
+
+    /** 默认元数据：无单位、1秒采样间隔、不降采样、存储全部数据点、无标签 */
+    public static final SeriesDescriptor DEFAULT =
+            intern(new SeriesDescriptor("", 1000, null, StoragePolicy.none(), Collections.emptyMap()));
+
+    private final String unit;
+
+    private final long sampleRate;
+
+    private final ResampleAggregation downsampling;
+
+    private final StoragePolicy storagePolicy;
+
+    private final Map<String, String> tags;
+
+    private final int hash;
+
+    private SeriesDescriptor(String unit, long sampleRate, ResampleAggregation downsampling,
+                             StoragePolicy storagePolicy, Map<String, String> tags) {
+        this.unit = unit == null ? "" : unit;
+        this.sampleRate = sampleRate;
+        this.downsampling = downsampling;
+        this.storagePolicy = storagePolicy == null ? StoragePolicy.none() : storagePolicy;
+        this.tags = tags;
+        // 枚举的hashCode随进程变化，使用序号，保证反序列化后哈希值一致
+        this.hash = Objects.hash(this.unit, sampleRate, downsampling == null ? -1 : downsampling.ordinal(),
+                this.storagePolicy, tags);
+    }
+
+    private static SeriesDescriptor intern(SeriesDescriptor descriptor) {
+        synchronized (INTERNED) {
+            WeakReference<SeriesDescriptor> reference = INTERNED.get(descriptor);
+            SeriesDescriptor existing = reference == null ? null : reference.get();
+            if (existing != null) {
+                return existing;
+            }
+            INTERNED.put(descriptor, new WeakReference<>(descriptor));
+            return descriptor;
+        }
+    }
+
+    public SeriesDescriptor withUnit(String unit) {
+        return intern(new SeriesDescriptor(unit, sampleRate, downsampling, storagePolicy, tags));
+    }
+
+    public SeriesDescriptor withSampleRate(long sampleRate) {
+        return intern(new SeriesDescriptor(unit, sampleRate, downsampling, storagePolicy, tags));
+    }
+
+    public SeriesDescriptor withDownsampling(ResampleAggregation downsampling) {
+        return intern(new SeriesDescriptor(unit, sampleRate, downsampling, storagePolicy, tags));
+    }
+
+    public SeriesDescriptor withStoragePolicy(StoragePolicy storagePolicy) {
+        return intern(new SeriesDescriptor(unit, sampleRate, downsampling, storagePolicy, tags));
+    }
+
+    /**
+     * @param tags 标签，为null时表示无标签；内容被复制
+     */
+    public SeriesDescriptor withTags(Map<String, String> tags) {
+        Map<String, String> copy = tags == null || tags.isEmpty()
+                ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(tags));
+        return intern(new SeriesDescriptor(unit, sampleRate, downsampling, storagePolicy, copy));
+    }
+
+    /**
+     * @return 已驻留且尚未回收的不同元数据个数
+     */
+    public static int internedCount() {
+        synchronized (INTERNED) {
+            return INTERNED.size();
+        }
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public long getSampleRate() {
+        return sampleRate;
+    }
+
+    public ResampleAggregation getDownsampling() {
+        return downsampling;
+    }
+
+    public StoragePolicy getStoragePolicy() {
+        return storagePolicy;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SeriesDescriptor)) {
+            return false;
+        }
+        SeriesDescriptor other = (SeriesDescriptor) o;
+        return hash == other.hash && sampleRate == other.sampleRate && downsampling == other.downsampling
+                && unit.equals(other.unit) && storagePolicy.equals(other.storagePolicy) && tags.equals(other.tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    private Object readResolve() {
+        return intern(this);
+    }
+}
@@ -0,0 +1,120 @@
+package com.uros.kernel.telemetry.model;
+
+import java.io.Serializable;
+
+/**
+ * 序列存储策略，决定新数据点是否需要单独存储
+ * 被抑制的数据点不会新增存储，只延长上一个数据点的有效期（validUntil）
+ */
+public class StoragePolicy implements Serializable {
+
+    /**
+     * 存储策略类型
+     */
+    public enum Type {
+        /** 存储全部数据点 */
+        NONE,
+        /** 值与上一个存储点完全相同时抑制 */
+        EXACT_REPEAT,
+        /** 与上一个存储点的差值不超过绝对容差时抑制 */
+        ABSOLUTE_DEADBAND,
+        /** 与上一个存储点的差值不超过其百分比容差时抑制 */
+        PERCENT_DEADBAND,
+        /** 旋转门压缩：相邻存储点之间的线性插值与原始数据的偏差不超过容差 */
+        SWINGING_DOOR
+    }
+
+    private static final StoragePolicy NONE = new StoragePolicy(Type.NONE, 0);
+
+    private static final StoragePolicy EXACT_REPEAT = new StoragePolicy(Type.EXACT_REPEAT, 0);
+
+    /** 策略类型 */
+    private final Type type;
+
+    /** 容差：绝对值、百分比或旋转门的偏差上限 */
+    private final double tolerance;
+
+    private StoragePolicy(Type type, double tolerance) {
+        this.type = type;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * 根据类型和容差创建存储策略
+     *
+     * @param type 策略类型
+     * @param tolerance 容差，NONE和EXACT_REPEAT忽略该参数
+     * @return 存储策略
+     */
+    public static StoragePolicy of(Type type, double tolerance) {
+        switch (type) {
+            case NONE:
+                return NONE;
+            case EXACT_REPEAT:
+                return EXACT_REPEAT;
+            default:
+                if (!(tolerance >= 0) || Double.isInfinite(tolerance)) {
+                    throw new IllegalArgumentException("Tolerance must be a finite non-negative number: " + tolerance);
+                }
+                return new StoragePolicy(type, tolerance);
+        }
+    }
+
+    public static StoragePolicy none() {
+        return NONE;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * 判断是否为阶梯保持型策略（被抑制区间内的值等于上一个存储点的值）
+     *
+     * @return 旋转门以外的压缩策略返回true
+     */
+    public boolean isStepHold() {
+        return type == Type.EXACT_REPEAT || type == Type.ABSOLUTE_DEADBAND || type == Type.PERCENT_DEADBAND;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StoragePolicy)) {
+            return false;
+        }
+        StoragePolicy other = (StoragePolicy) o;
+        return type == other.type && Double.compare(tolerance, other.tolerance) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return type.ordinal() * 31 + Double.hashCode(tolerance);
+    }
+
+    /**
+     * 阶梯保持型策略下判断新值是否落在上一个存储值的容差内
+     *
+     * @param storedValue 上一个存储点的值
+     * @param value 新值
+     * @return 是否应被抑制
+     */
+    public boolean withinDeadband(double storedValue, double value) {
+        switch (type) {
+            case EXACT_REPEAT:
+                return Double.compare(storedValue, value) == 0;
+            case ABSOLUTE_DEADBAND:
+                return Math.abs(value - storedValue) <= tolerance;
+            case PERCENT_DEADBAND:
+                return Math.abs(value - storedValue) <= Math.abs(storedValue) * tolerance / 100.0;
+            default:
+                return false;
+        }
+    }
+}
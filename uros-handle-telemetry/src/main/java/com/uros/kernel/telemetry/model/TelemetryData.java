@@ -1,9 +1,19 @@
 package com.uros.kernel.telemetry.model;
 
+import com.uros.kernel.telemetry.query.ResampleAggregation;
+import com.uros.kernel.telemetry.simd.AggregationKernels;
+import com.uros.kernel.telemetry.simd.RangeStats;
+
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.concurrent.locks.ReadWriteLock;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
@@ -11,6 +21,30 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  */
 public class TelemetryData implements Serializable {
 
+    /** 重新计算统计信息时每批复制的数据点数 */
+    private static final int STATISTICS_BATCH_SIZE = 4096;
+
+    /** 每个存储数据点的估算字节数：对象头和字段40字节，列表引用4字节 */
+    public static final int POINT_BYTES = 44;
+    
+    /** 空序列对象及其历史列表的估算字节数 */
+    public static final int SERIES_BYTES = 128;
+    
+    /** 锁分段数，必须是2的幂 */
+    private static final int LOCK_STRIPES = 1024;
+
+    /**
+     * 所有序列共享的分段读写锁，按对象的身份哈希选择
+     * 同一线程任何时候最多持有一个序列的锁，不同序列落在同一分段不会造成死锁
+     */
+    private static final ReentrantReadWriteLock[] LOCKS = new ReentrantReadWriteLock[LOCK_STRIPES];
+
+    static {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            LOCKS[i] = new ReentrantReadWriteLock();
+        }
+    }
+
     /** 当前值 */
     private double currentValue;
     
@@ -20,26 +54,53 @@ public class TelemetryData implements Serializable {
     /** 历史数据点 */
     private List<DataPoint> history;
     
-    /** 统计信息 */
-    private Statistics statistics;
+    /** 统计信息：原始数据点数 */
+    private int pointCount;
+    
+    /** 统计信息：总和 */
+    private double sum;
     
-    /** 数据单位 */
-    private String unit;
+    /** 统计信息：均值 */
+    private double mean;
     
-    /** 采样频率（毫秒） */
-    private long sampleRate;
+    /** 统计信息：最小值 */
+    private double min;
     
-    /** 读写锁，保证线程安全 */
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** 统计信息：最大值 */
+    private double max;
+    
+    /** 与均值差的平方和，用于增量计算标准差 */
+    private double m2;
+    
+    /** 共享的序列元数据（单位、采样间隔、降采样方式、存储策略、标签） */
+    private volatile SeriesDescriptor descriptor = SeriesDescriptor.DEFAULT;
+    
+    /** 旋转门压缩的状态，仅在使用旋转门策略后分配 */
+    private DoorState door;
+    
+    /** 降采样当前间隔的累积状态，仅在启用降采样后分配 */
+    private IntervalState interval;
+    
+    /** 指数平滑预测模型，仅在启用预测后分配 */
+    private HoltWinters forecaster;
+    
+    /** 冷数据归档，保存已从history移出的较早数据点；未归档时为null */
+    private HistoryArchive archive;
+    
+    /** 所属数据源的内存账户；未登记时为null */
+    private transient MemoryAccount memoryAccount;
+    
+    /** 已计入内存账户的存储点数 */
+    private transient int accountedPoints;
+    
+    /** 序列已改为计数器或直方图存储，之后的量值写入不再存储 */
+    private boolean typed;
     
     /**
      * 默认构造函数
      */
     public TelemetryData() {
         this.history = new ArrayList<>();
-        this.statistics = new Statistics();
-        this.unit = "";
-        this.sampleRate = 1000; // 默认1秒
     }
     
     /**
@@ -54,142 +115,585 @@ public class TelemetryData implements Serializable {
         this.currentValue = currentValue;
         this.timestamp = timestamp;
         this.history = new ArrayList<>();
-        this.statistics = new Statistics();
-        this.unit = unit;
-        this.sampleRate = sampleRate;
+        this.descriptor = SeriesDescriptor.DEFAULT.withUnit(unit).withSampleRate(sampleRate);
         
         // 添加第一个数据点
         addDataPoint(currentValue, timestamp);
     }
     
+    private ReentrantReadWriteLock lock() {
+        return LOCKS[System.identityHashCode(this) & (LOCK_STRIPES - 1)];
+    }
+    
     /**
      * 添加数据点
+     * 当前值、时间戳和统计信息始终按原始数据点更新，是否单独存储由降采样设置或存储策略决定
      * 
      * @param value 数据值
      * @param timestamp 时间戳
+     * @return false表示序列已改为计数器或直方图存储，未写入
      */
-    public void addDataPoint(double value, long timestamp) {
+    public boolean addDataPoint(double value, long timestamp) {
         try {
-            lock.writeLock().lock();
-            DataPoint dataPoint = new DataPoint(value, timestamp);
-            history.add(dataPoint);
-            updateStatistics();
+            lock().writeLock().lock();
+            if (typed) {
+                return false;
+            }
+            appendDataPoint(value, timestamp);
+            return true;
         } finally {
-            lock.writeLock().unlock();
+            reportMemory();
+            lock().writeLock().unlock();
         }
     }
     
     /**
-     * 更新当前值和时间戳
+     * 批量添加数据点，整批只获取一次写锁
      * 
-     * @param value 新的数据值
-     * @param timestamp 新的时间戳
+     * @param values 数据值数组
+     * @param timestamps 时间戳数组
+     * @param offset 起始下标
+     * @param length 数据点数量
+     * @return false表示序列已改为计数器或直方图存储，未写入
      */
-    public void updateCurrentValue(double value, long timestamp) {
+    public boolean addDataPoints(double[] values, long[] timestamps, int offset, int length) {
         try {
-            lock.writeLock().lock();
+            lock().writeLock().lock();
+            if (typed) {
+                return false;
+            }
+            for (int i = offset; i < offset + length; i++) {
+                appendDataPoint(values[i], timestamps[i]);
+            }
+            return true;
+        } finally {
+            reportMemory();
+            lock().writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 导入按时间升序排列的数据点，整批只获取一次写锁
+     * 全部晚于已有数据时按存储策略逐点追加；否则与已有历史数据做一次归并，O(n + m)，
+     * 归并写入的数据点与乱序数据一样不参与压缩
+     * 
+     * @param values 数据值数组
+     * @param timestamps 时间戳数组，必须升序
+     * @param offset 起始下标
+     * @param length 数据点数量
+     * @return false表示序列已改为计数器或直方图存储，未写入
+     */
+    public boolean addSortedDataPoints(double[] values, long[] timestamps, int offset, int length) {
+        if (length <= 0) {
+            return true;
+        }
+        try {
+            lock().writeLock().lock();
+            if (typed) {
+                return false;
+            }
+            int size = history.size();
+            if (size == 0 || timestamps[offset] >= history.get(size - 1).getTimestamp()) {
+                for (int i = offset; i < offset + length; i++) {
+                    appendDataPoint(values[i], timestamps[i]);
+                }
+                return true;
+            }
+            
+            List<DataPoint> merged = new ArrayList<>(size + length);
+            int existing = 0;
+            for (int i = offset; i < offset + length; i++) {
+                long time = timestamps[i];
+                // 相同时间戳时已有数据点在前，与乱序插入的顺序一致
+                while (existing < size && history.get(existing).getTimestamp() <= time) {
+                    merged.add(history.get(existing++));
+                }
+                merged.add(new DataPoint(values[i], time));
+                if (pointCount == 0 || time >= this.timestamp) {
+                    this.currentValue = values[i];
+                    this.timestamp = time;
+                }
+                accumulateStatistics(values[i], 1);
+            }
+            while (existing < size) {
+                merged.add(history.get(existing++));
+            }
+            history = merged;
+            resetWriteState();
+            return true;
+        } finally {
+            reportMemory();
+            lock().writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 在写锁内把序列改为计数器或直方图存储，与量值写入互斥，检查和切换之间不会写入量值数据
+     * 切换后量值写入方法返回false，由调用方改写到对应存储
+     * 
+     * @param conversion 切换操作，在写锁内执行，返回false表示未切换
+     * @return 切换操作的结果
+     */
+    public boolean convertStorage(BooleanSupplier conversion) {
+        try {
+            lock().writeLock().lock();
+            if (!conversion.getAsBoolean()) {
+                return false;
+            }
+            typed = true;
+            return true;
+        } finally {
+            lock().writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 写入单个原始数据点，调用方需持有写锁
+     * 
+     * @param value 数据值
+     * @param timestamp 时间戳
+     */
+    private void appendDataPoint(double value, long timestamp) {
+        if (pointCount == 0 || timestamp >= this.timestamp) {
             this.currentValue = value;
             this.timestamp = timestamp;
-            addDataPoint(value, timestamp);
-        } finally {
-            lock.writeLock().unlock();
+        }
+        accumulateStatistics(value, 1);
+        if (forecaster != null) {
+            forecaster.update(value, timestamp);
+        }
+        SeriesDescriptor current = descriptor;
+        if (current.getDownsampling() == null) {
+            storeDataPoint(current.getStoragePolicy(), value, timestamp);
+        } else {
+            storeDownsampled(current, value, timestamp);
         }
     }
     
     /**
-     * 更新统计信息
+     * 历史数据被整体改写后，最后一个点不再是暂存点或累积中的间隔，调用方需持有写锁
      */
-    private void updateStatistics() {
-        if (history.isEmpty()) {
+    private void resetWriteState() {
+        if (door != null) {
+            door.tentative = false;
+        }
+        if (interval != null) {
+            interval.open = false;
+        }
+    }
+    
+    /**
+     * 降采样写入，调用方需持有写锁，O(1)
+     * 每个采样间隔只存储一个点：时间戳为间隔起始时间，有效期到间隔内最后一个原始点，
+     * 数值按聚合方式随新数据点原地更新。早于当前间隔的乱序数据点按原样插入
+     * 
+     * @param value 数据值
+     * @param timestamp 时间戳
+     */
+    private void storeDownsampled(SeriesDescriptor current, double value, long timestamp) {
+        long sampleRate = current.getSampleRate();
+        long start = Math.floorDiv(timestamp, sampleRate) * sampleRate;
+        IntervalState state = interval;
+        if (state == null) {
+            state = interval = new IntervalState();
+        }
+        if (state.open && start == state.start) {
+            state.count++;
+            state.sum += value;
+            state.min = Math.min(state.min, value);
+            state.max = Math.max(state.max, value);
+            if (timestamp >= state.lastTime) {
+                state.last = value;
+                state.lastTime = timestamp;
+            }
+            history.set(history.size() - 1, new DataPoint(state.value(current.getDownsampling()), state.time,
+                    state.lastTime, state.count));
+            return;
+        }
+        long lastTime = history.isEmpty() ? Long.MIN_VALUE : history.get(history.size() - 1).getTimestamp();
+        if (state.open ? start < state.start : timestamp < lastTime) {
+            insertSorted(new DataPoint(value, timestamp));
+            return;
+        }
+        state.open = true;
+        state.start = start;
+        state.time = Math.max(start, lastTime);
+        state.count = 1;
+        state.sum = value;
+        state.min = value;
+        state.max = value;
+        state.last = value;
+        state.lastTime = timestamp;
+        history.add(new DataPoint(value, state.time, timestamp, 1));
+        if (door != null) {
+            door.tentative = false;
+        }
+    }
+    
+    /**
+     * 更新当前值和时间戳
+     * 
+     * @param value 新的数据值
+     * @param timestamp 新的时间戳
+     */
+    public void updateCurrentValue(double value, long timestamp) {
+        addDataPoint(value, timestamp);
+    }
+    
+    /**
+     * 按存储策略写入历史数据，调用方需持有写锁
+     * 
+     * @param value 数据值
+     * @param timestamp 时间戳
+     */
+    private void storeDataPoint(StoragePolicy storagePolicy, double value, long timestamp) {
+        int size = history.size();
+        if (size == 0) {
+            history.add(new DataPoint(value, timestamp));
+            resetWriteState();
             return;
         }
         
-        double sum = 0;
-        double min = Double.MAX_VALUE;
-        double max = Double.MIN_VALUE;
-        
-        for (DataPoint point : history) {
-            double value = point.getValue();
-            sum += value;
-            min = Math.min(min, value);
-            max = Math.max(max, value);
+        DataPoint last = history.get(size - 1);
+        if (timestamp < last.getTimestamp()) {
+            // 乱序数据按时间插入，不参与压缩
+            insertSorted(new DataPoint(value, timestamp));
+            resetWriteState();
+            return;
         }
         
-        double avg = sum / history.size();
+        if (storagePolicy.isStepHold()) {
+            if (storagePolicy.withinDeadband(last.getValue(), value)) {
+                history.set(size - 1, last.extendTo(timestamp));
+            } else {
+                history.add(new DataPoint(value, timestamp));
+            }
+        } else if (storagePolicy.getType() == StoragePolicy.Type.SWINGING_DOOR) {
+            storeSwingingDoor(storagePolicy, last, value, timestamp);
+        } else {
+            history.add(new DataPoint(value, timestamp));
+        }
+    }
+    
+    /**
+     * 旋转门压缩：最后一个点为暂存点，只要新点与归档点的连线能让其间所有原始点的偏差不超过容差，
+     * 就用新点替换暂存点；否则暂存点转为归档点，新点成为新的暂存点
+     * 
+     * @param last 历史数据的最后一个点
+     * @param value 数据值
+     * @param timestamp 时间戳
+     */
+    private void storeSwingingDoor(StoragePolicy storagePolicy, DataPoint last, double value, long timestamp) {
+        double tolerance = storagePolicy.getTolerance();
+        int size = history.size();
+        DoorState state = door;
+        if (state == null) {
+            state = door = new DoorState();
+        }
         
-        // 计算标准差
-        double sumSquaredDiff = 0;
-        for (DataPoint point : history) {
-            double diff = point.getValue() - avg;
-            sumSquaredDiff += diff * diff;
+        if (state.tentative) {
+            DataPoint archived = history.get(size - 2);
+            long dt = timestamp - archived.getTimestamp();
+            double slope = (value - archived.getValue()) / dt;
+            if (dt > 0 && slope <= state.upperSlope && slope >= state.lowerSlope) {
+                history.set(size - 1, new DataPoint(value, timestamp, timestamp, last.getSampleCount() + 1));
+                state.upperSlope = Math.min(state.upperSlope, (value + tolerance - archived.getValue()) / dt);
+                state.lowerSlope = Math.max(state.lowerSlope, (value - tolerance - archived.getValue()) / dt);
+                return;
+            }
         }
-        double stdDev = Math.sqrt(sumSquaredDiff / history.size());
         
-        statistics.setAvg(avg);
-        statistics.setMin(min);
-        statistics.setMax(max);
-        statistics.setStdDev(stdDev);
-        statistics.setCount(history.size());
+        // 门已打开：暂存点（或首个点）成为新的归档点
+        history.add(new DataPoint(value, timestamp));
+        long dt = timestamp - last.getTimestamp();
+        state.tentative = dt > 0;
+        if (state.tentative) {
+            state.upperSlope = (value + tolerance - last.getValue()) / dt;
+            state.lowerSlope = (value - tolerance - last.getValue()) / dt;
+        }
     }
     
     /**
-     * 分析趋势
+     * 按时间戳有序插入数据点（相同时间戳插在已有点之后）
      * 
-     * @param period 分析周期（毫秒）
-     * @return 趋势类型："rising"（上升）, "falling"（下降）, "stable"（稳定）
+     * @param dataPoint 数据点
      */
-    public String analyzeTrend(long period) {
-        try {
-            lock.readLock().lock();
-            if (history.size() < 2) {
-                return "stable";
+    private void insertSorted(DataPoint dataPoint) {
+        history.add(upperBound(history, dataPoint.getTimestamp()), dataPoint);
+    }
+    
+    /**
+     * 查找第一个时间戳不小于给定时间的数据点下标
+     */
+    private static int lowerBound(List<DataPoint> points, long time) {
+        int low = 0;
+        int high = points.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (points.get(mid).getTimestamp() < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
+        }
+        return low;
+    }
+    
+    /**
+     * 查找第一个时间戳大于给定时间的数据点下标
+     */
+    private static int upperBound(List<DataPoint> points, long time) {
+        int low = 0;
+        int high = points.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (points.get(mid).getTimestamp() <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * 获取覆盖时间范围的有序数据点，调用方需持有读锁
+     * 范围不涉及归档数据时直接返回history；否则把归档中的数据点与history在范围附近的数据点归并，
+     * 两侧各保留范围外最近的一个点
+     * 
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 按时间升序的数据点，不得修改
+     */
+    private List<DataPoint> view(long startTime, long endTime) {
+        if (archive == null) {
+            return history;
+        }
+        int from = lowerBound(history, startTime);
+        if (startTime > archive.getArchivedUntil() && from > 0) {
+            return history;
+        }
+        List<DataPoint> archived = archive.read(startTime, endTime);
+        if (archived.isEmpty()) {
+            return history;
+        }
+        List<DataPoint> recent = history.subList(Math.max(0, from - 1),
+                Math.min(history.size(), upperBound(history, endTime) + 1));
+        List<DataPoint> merged = new ArrayList<>(archived.size() + recent.size());
+        int i = 0;
+        int j = 0;
+        while (i < archived.size() || j < recent.size()) {
+            if (j == recent.size()
+                    || (i < archived.size() && archived.get(i).getTimestamp() <= recent.get(j).getTimestamp())) {
+                merged.add(archived.get(i++));
+            } else {
+                merged.add(recent.get(j++));
+            }
+        }
+        return merged;
+    }
+    
+    /**
+     * 获取与时间范围相交的数据点
+     * 阶梯保持型压缩下，起始时间之前但有效期延续到范围内的点会被包含；
+     * 旋转门压缩下，会额外包含范围两侧最近的存储点，以便在范围内做线性插值
+     * 
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 数据点列表，按时间升序
+     */
+    public List<DataPoint> getPointsInRange(long startTime, long endTime) {
+        try {
+            lock().readLock().lock();
+            List<DataPoint> points = view(startTime, endTime);
+            int size = points.size();
+            int from = lowerBound(points, startTime);
+            int to = upperBound(points, endTime);
+            boolean swingingDoor = descriptor.getStoragePolicy().getType() == StoragePolicy.Type.SWINGING_DOOR;
             
-            long currentTime = System.currentTimeMillis();
-            long startTime = currentTime - period;
-            
-            List<DataPoint> periodData = new ArrayList<>();
-            for (DataPoint point : history) {
-                if (point.getTimestamp() >= startTime && point.getTimestamp() <= currentTime) {
-                    periodData.add(point);
+            if (from > 0) {
+                boolean heldIntoRange = points.get(from - 1).getValidUntil() >= startTime;
+                boolean needsLeftAnchor = swingingDoor && (from == size || points.get(from).getTimestamp() > startTime);
+                if (heldIntoRange || needsLeftAnchor) {
+                    from--;
                 }
             }
-            
-            if (periodData.size() < 2) {
-                return "stable";
+            if (swingingDoor && to < size && (to == 0 || points.get(to - 1).getTimestamp() < endTime)) {
+                to++;
             }
             
-            // 简单线性回归分析趋势
-            double sumX = 0;
-            double sumY = 0;
-            double sumXY = 0;
-            double sumXX = 0;
-            
-            for (int i = 0; i < periodData.size(); i++) {
-                double x = i;
-                double y = periodData.get(i).getValue();
-                sumX += x;
-                sumY += y;
-                sumXY += x * y;
-                sumXX += x * x;
+            if (from >= to) {
+                return new ArrayList<>();
             }
-            
-            int n = periodData.size();
-            double slope = (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
-            
-            // 判断趋势
-            double threshold = 0.001; // 趋势判断阈值
-            if (Math.abs(slope) < threshold) {
-                return "stable";
-            } else if (slope > 0) {
-                return "rising";
-            } else {
-                return "falling";
+            return new ArrayList<>(points.subList(from, to));
+        } finally {
+            lock().readLock().unlock();
+        }
+    }
+    
+    /**
+     * 在读锁内按时间顺序遍历时间范围内的数据点，不复制历史数据
+     * 范围前最近的一个点和范围后最近的一个点也会被访问，便于调用方做前值填充和插值
+     * 
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param visitor 访问者
+     */
+    public void forEachPoint(long startTime, long endTime, PointVisitor visitor) {
+        try {
+            lock().readLock().lock();
+            List<DataPoint> points = view(startTime, endTime);
+            int from = Math.max(0, lowerBound(points, startTime) - 1);
+            int to = Math.min(points.size(), upperBound(points, endTime) + 1);
+            for (int i = from; i < to; i++) {
+                DataPoint point = points.get(i);
+                visitor.visit(point.getValue(), point.getTimestamp(), point.getValidUntil());
+            }
+        } finally {
+            lock().readLock().unlock();
+        }
+    }
+    
+    /**
+     * 在读锁内复制一批数据点到调用方数组，用于分批导出：锁只在复制期间持有，写出在锁外进行
+     * 游标为（起始时间, 跳过数），跳过数是上一批末尾与起始时间戳相同、已经复制过的点数
+     *
+     * @param fromTime 起始时间（包含）
+     * @param skip 跳过时间戳等于起始时间的前若干个点
+     * @param endTime 结束时间（包含）
+     * @param timestamps 时间戳输出
+     * @param values 数据值输出
+     * @return 复制的点数，小于数组长度表示已到范围末尾
+     */
+    public int copyPoints(long fromTime, int skip, long endTime, long[] timestamps, double[] values) {
+        return copyPoints(fromTime, skip, endTime, timestamps, values, null);
+    }
+
+    /**
+     * 分批复制数据点，同时复制每个点代表的原始数据点数量，用于按原始点加权的聚合
+     *
+     * @param fromTime 起始时间（包含）
+     * @param skip 跳过时间戳等于起始时间的前若干个点
+     * @param endTime 结束时间（包含）
+     * @param timestamps 时间戳输出
+     * @param values 数据值输出
+     * @param weights 原始数据点数量输出；为null时不复制
+     * @return 复制的点数，小于数组长度表示已到范围末尾
+     */
+    public int copyPoints(long fromTime, int skip, long endTime, long[] timestamps, double[] values,
+                          double[] weights) {
+        try {
+            lock().readLock().lock();
+            int from = lowerBound(history, fromTime);
+            int to = upperBound(history, endTime);
+            // 归档只读取本批需要的前若干个点，不展开整个范围
+            List<DataPoint> archived = archive == null || (fromTime > archive.getArchivedUntil() && from > 0)
+                    ? Collections.emptyList()
+                    : archive.readFirst(fromTime, endTime, skip + timestamps.length);
+            // 与view相同的归并顺序：时间戳相同时归档中的点在前
+            int i = 0;
+            int j = from;
+            int position = 0;
+            int count = 0;
+            while (count < timestamps.length && (i < archived.size() || j < to)) {
+                DataPoint point;
+                if (j == to
+                        || (i < archived.size() && archived.get(i).getTimestamp() <= history.get(j).getTimestamp())) {
+                    point = archived.get(i++);
+                } else {
+                    point = history.get(j++);
+                }
+                if (position++ < skip) {
+                    continue;
+                }
+                timestamps[count] = point.getTimestamp();
+                values[count] = point.getValue();
+                if (weights != null) {
+                    weights[count] = point.getSampleCount();
+                }
+                count++;
             }
+            return count;
+        } finally {
+            lock().readLock().unlock();
+        }
+    }
+
+    /**
+     * 在读锁内读取时间范围内存储的数据点，不复制历史数据
+     * 读取函数可以把列表分给其他线程并行读取，但必须在返回前全部完成，列表不得在函数外使用
+     *
+     * @param startTime 开始时间（包含）
+     * @param endTime 结束时间（包含）
+     * @param reader 读取函数，参数为只读的数据点列表，按时间升序
+     * @return 读取函数的结果
+     */
+    public <T> T readRange(long startTime, long endTime, Function<List<DataPoint>, T> reader) {
+        try {
+            lock().readLock().lock();
+            List<DataPoint> points = view(startTime, endTime);
+            int from = lowerBound(points, startTime);
+            int to = Math.max(from, upperBound(points, endTime));
+            return reader.apply(Collections.unmodifiableList(points.subList(from, to)));
         } finally {
-            lock.readLock().unlock();
+            lock().readLock().unlock();
         }
     }
+
+    /**
+     * 以新数据点增量更新统计信息（加权Welford算法），O(1)
+     * 
+     * @param value 新数据值
+     * @param weight 该值代表的原始数据点数量
+     */
+    private void accumulateStatistics(double value, int weight) {
+        pointCount += weight;
+        double delta = value - mean;
+        mean += delta * weight / pointCount;
+        m2 += weight * delta * (value - mean);
+        sum += value * weight;
+        min = pointCount == weight ? value : Math.min(min, value);
+        max = pointCount == weight ? value : Math.max(max, value);
+    }
+    
+    /**
+     * 删除数据点后重新计算统计信息，O(n)，仅在清理历史数据时调用
+     * 被压缩的数据点按其代表的原始数据点数量加权。这是近似值：死区和旋转门策略不保留被抑制的原始值，
+     * 重算时以存储点的值代替它们，旋转门序列中落在两个顶点之间的原始值也不做插值，
+     * 因此清理之后均值、标准差、最小值和最大值可能与清理前按原始值累积的结果不同
+     */
+    private void updateStatistics() {
+        pointCount = 0;
+        sum = 0;
+        mean = 0;
+        min = 0;
+        max = 0;
+        m2 = 0;
+        int size = history.size();
+        if (size == 0) {
+            return;
+        }
+        // 分批复制到基本类型数组，由聚合计算核完成求和与平方和
+        RangeStats stats = new RangeStats();
+        AggregationKernels kernels = AggregationKernels.get();
+        double[] values = new double[Math.min(size, STATISTICS_BATCH_SIZE)];
+        double[] weights = new double[values.length];
+        for (int start = 0; start < size; start += values.length) {
+            int count = Math.min(values.length, size - start);
+            for (int i = 0; i < count; i++) {
+                DataPoint point = history.get(start + i);
+                values[i] = point.getValue();
+                weights[i] = point.getSampleCount();
+            }
+            kernels.accumulateWeighted(values, weights, 0, count, stats);
+        }
+        m2 = stats.getM2();
+        pointCount = (int) stats.getCount();
+        sum = stats.getSum();
+        mean = stats.getMean();
+        min = stats.getMin();
+        max = stats.getMax();
+    }
     
     /**
      * 清除超过指定时间的历史数据
@@ -198,44 +702,138 @@ public class TelemetryData implements Serializable {
      * @return 清除的数据点数量
      */
     public int cleanupHistory(long retentionPeriod) {
+        return cleanupBefore(System.currentTimeMillis() - retentionPeriod);
+    }
+    
+    /**
+     * 清除有效期在截止时间之前结束的历史数据
+     * 有数据点被清除时按剩余存储点重算统计信息，压缩序列的结果是近似值，见 {@link #updateStatistics()}
+     * 
+     * @param cutoffTime 截止时间（毫秒）
+     * @return 清除的数据点数量
+     */
+    public int cleanupBefore(long cutoffTime) {
         try {
-            lock.writeLock().lock();
-            long cutoffTime = System.currentTimeMillis() - retentionPeriod;
+            lock().writeLock().lock();
             int initialSize = history.size();
             
-            history.removeIf(point -> point.getTimestamp() < cutoffTime);
+            history.removeIf(point -> point.getValidUntil() < cutoffTime);
+            resetWriteState();
             
-            // 更新统计信息
-            updateStatistics();
+            int removed = initialSize - history.size();
+            if (removed > 0) {
+                // 更新统计信息
+                updateStatistics();
+            }
             
-            return initialSize - history.size();
+            return removed;
         } finally {
-            lock.writeLock().unlock();
+            reportMemory();
+            lock().writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 把有效期在截止时间之前结束的历史数据写入归档并从内存中删除，统计信息保持不变
+     * 最后一个存储点始终保留在内存中，以便后续数据点继续参与压缩；归档写入失败时不删除任何数据
+     * 编码和写盘在锁外进行，只在删除内存数据并提交归档时持有写锁，同一序列不得并发迁移
+     * 
+     * @param cutoffTime 截止时间（毫秒）
+     * @param target 归档存储
+     * @return 移出的数据点数量
+     */
+    public int offloadBefore(long cutoffTime, HistoryArchive target) {
+        List<DataPoint> offloaded;
+        try {
+            lock().readLock().lock();
+            int count = 0;
+            while (count < history.size() - 1 && history.get(count).getValidUntil() < cutoffTime) {
+                count++;
+            }
+            if (count == 0) {
+                return 0;
+            }
+            offloaded = new ArrayList<>(history.subList(0, count));
+        } finally {
+            lock().readLock().unlock();
+        }
+        
+        HistoryArchive.PendingWrite pending = target.write(Collections.unmodifiableList(offloaded));
+        try {
+            lock().writeLock().lock();
+            history = removeOffloaded(history, offloaded);
+            archive = target;
+            pending.commit();
+            return offloaded.size();
+        } finally {
+            reportMemory();
+            lock().writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 从历史数据中删除已写入归档的数据点
+     * 写盘期间可能有迟到数据插入到前面或数据被清理，此时按对象身份逐个删除
+     */
+    private static List<DataPoint> removeOffloaded(List<DataPoint> history, List<DataPoint> offloaded) {
+        int count = offloaded.size();
+        boolean unchanged = history.size() > count;
+        for (int i = 0; unchanged && i < count; i++) {
+            unchanged = history.get(i) == offloaded.get(i);
+        }
+        if (unchanged) {
+            return new ArrayList<>(history.subList(count, history.size()));
+        }
+        Set<DataPoint> removed = Collections.newSetFromMap(new IdentityHashMap<>(count));
+        removed.addAll(offloaded);
+        List<DataPoint> kept = new ArrayList<>(history.size());
+        for (DataPoint point : history) {
+            if (!removed.contains(point)) {
+                kept.add(point);
+            }
+        }
+        return kept;
+    }
+    
+    /**
+     * 挂载已有的归档数据，用于进程重启后恢复较早历史数据的区间查询
+     * 
+     * @param archive 归档存储
+     */
+    public void setHistoryArchive(HistoryArchive archive) {
+        try {
+            lock().writeLock().lock();
+            this.archive = archive;
+        } finally {
+            lock().writeLock().unlock();
         }
     }
     
     /**
      * 限制历史数据点的最大数量
+     * 有数据点被清除时按剩余存储点重算统计信息，压缩序列的结果是近似值，见 {@link #updateStatistics()}
      * 
      * @param maxSize 最大数量
      * @return 清除的数据点数量
      */
     public int limitHistorySize(int maxSize) {
         try {
-            lock.writeLock().lock();
+            lock().writeLock().lock();
             if (history.size() <= maxSize) {
                 return 0;
             }
             
             int removeCount = history.size() - maxSize;
             history = new ArrayList<>(history.subList(removeCount, history.size()));
+            resetWriteState();
             
             // 更新统计信息
             updateStatistics();
             
             return removeCount;
         } finally {
-            lock.writeLock().unlock();
+            reportMemory();
+            lock().writeLock().unlock();
         }
     }
     
@@ -243,66 +841,325 @@ public class TelemetryData implements Serializable {
     
     public double getCurrentValue() {
         try {
-            lock.readLock().lock();
+            lock().readLock().lock();
             return currentValue;
         } finally {
-            lock.readLock().unlock();
+            lock().readLock().unlock();
         }
     }
     
     public long getTimestamp() {
         try {
-            lock.readLock().lock();
+            lock().readLock().lock();
             return timestamp;
         } finally {
-            lock.readLock().unlock();
+            lock().readLock().unlock();
         }
     }
     
     public List<DataPoint> getHistory() {
         try {
-            lock.readLock().lock();
+            lock().readLock().lock();
             return new ArrayList<>(history);
         } finally {
-            lock.readLock().unlock();
+            lock().readLock().unlock();
         }
     }
     
+    /**
+     * 获取统计信息快照
+     * 写入时按原始数据点增量累积；清理历史数据后改为按剩余存储点加权重算，压缩序列的结果随之变为近似值
+     * 
+     * @return 统计信息
+     */
     public Statistics getStatistics() {
         try {
-            lock.readLock().lock();
+            lock().readLock().lock();
+            Statistics statistics = new Statistics();
+            statistics.setCount(pointCount);
+            statistics.setSum(sum);
+            statistics.setAvg(mean);
+            statistics.setMin(min);
+            statistics.setMax(max);
+            statistics.setStdDev(pointCount == 0 ? 0 : Math.sqrt(m2 / pointCount));
             return statistics;
         } finally {
-            lock.readLock().unlock();
+            lock().readLock().unlock();
         }
     }
     
     public String getUnit() {
-        return unit;
+        return descriptor.getUnit();
     }
     
     public void setUnit(String unit) {
-        this.unit = unit;
+        try {
+            lock().writeLock().lock();
+            descriptor = descriptor.withUnit(unit);
+        } finally {
+            lock().writeLock().unlock();
+        }
     }
     
     public long getSampleRate() {
-        return sampleRate;
+        return descriptor.getSampleRate();
     }
     
     public void setSampleRate(long sampleRate) {
-        this.sampleRate = sampleRate;
+        try {
+            lock().writeLock().lock();
+            descriptor = descriptor.withSampleRate(sampleRate);
+            resetWriteState();
+        } finally {
+            lock().writeLock().unlock();
+        }
+    }
+    
+    public StoragePolicy getStoragePolicy() {
+        return descriptor.getStoragePolicy();
+    }
+    
+    public void setStoragePolicy(StoragePolicy storagePolicy) {
+        try {
+            lock().writeLock().lock();
+            descriptor = descriptor.withStoragePolicy(storagePolicy);
+            resetWriteState();
+        } finally {
+            lock().writeLock().unlock();
+        }
+    }
+    
+    public ResampleAggregation getDownsampling() {
+        return descriptor.getDownsampling();
     }
     
     /**
-     * 数据点内部类
+     * 设置写入时降采样：每个采样间隔内的原始数据点聚合为一个存储点，启用后存储策略不再生效
+     * 当前值和统计信息仍按原始数据点更新
+     * 
+     * @param sampleRate 采样间隔（毫秒），不大于0时保持原值
+     * @param aggregation 聚合方式，为null时关闭降采样
+     */
+    public void setDownsampling(long sampleRate, ResampleAggregation aggregation) {
+        if (aggregation != null && sampleRate <= 0) {
+            throw new IllegalArgumentException("Sample rate must be positive: " + sampleRate);
+        }
+        try {
+            lock().writeLock().lock();
+            SeriesDescriptor next = descriptor.withDownsampling(aggregation);
+            descriptor = sampleRate > 0 ? next.withSampleRate(sampleRate) : next;
+            resetWriteState();
+        } finally {
+            lock().writeLock().unlock();
+        }
+    }
+    
+    public Map<String, String> getTags() {
+        return descriptor.getTags();
+    }
+    
+    public void setTags(Map<String, String> tags) {
+        setTags(tags, null);
+    }
+    
+    /**
+     * 替换标签，并在同一写锁内通知变化，并发替换时标签索引按替换顺序更新
+     * 
+     * @param tags 新标签
+     * @param listener 变化通知，参数为旧标签和新标签；可以为null
+     */
+    public void setTags(Map<String, String> tags, BiConsumer<Map<String, String>, Map<String, String>> listener) {
+        try {
+            lock().writeLock().lock();
+            Map<String, String> oldTags = descriptor.getTags();
+            descriptor = descriptor.withTags(tags);
+            if (listener != null) {
+                listener.accept(oldTags, descriptor.getTags());
+            }
+        } finally {
+            lock().writeLock().unlock();
+        }
+    }
+    
+    /**
+     * @return 共享的序列元数据
+     */
+    public SeriesDescriptor getDescriptor() {
+        return descriptor;
+    }
+    
+    /**
+     * 启用或关闭指数平滑预测，启用时以内存中的历史数据点预热模型
+     * 
+     * @param forecaster 预测模型，为null时关闭
+     */
+    public void setForecaster(HoltWinters forecaster) {
+        try {
+            lock().writeLock().lock();
+            if (forecaster != null) {
+                for (DataPoint point : history) {
+                    forecaster.update(point.getValue(), point.getTimestamp());
+                }
+            }
+            this.forecaster = forecaster;
+        } finally {
+            lock().writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 预测最后一个完整步长之后的若干步长
+     * 
+     * @param steps 步长数
+     * @return 预测结果，未启用预测时返回null
+     */
+    public HoltWinters.Forecast forecast(int steps) {
+        try {
+            lock().readLock().lock();
+            return forecaster == null ? null : forecaster.forecast(steps);
+        } finally {
+            lock().readLock().unlock();
+        }
+    }
+    
+    /**
+     * 登记到数据源的内存账户，已有的存储点立即计入
+     * 
+     * @param memoryAccount 内存账户
+     */
+    public void setMemoryAccount(MemoryAccount memoryAccount) {
+        try {
+            lock().writeLock().lock();
+            if (this.memoryAccount != null) {
+                this.memoryAccount.add(MemoryAccount.Tier.GAUGE, -(long) accountedPoints * POINT_BYTES, -accountedPoints);
+            }
+            this.memoryAccount = memoryAccount;
+            this.accountedPoints = 0;
+            reportMemory();
+        } finally {
+            lock().writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 把上次计入后的存储点数变化计入内存账户，调用方需持有写锁
+     */
+    private void reportMemory() {
+        int delta = history.size() - accountedPoints;
+        if (delta != 0 && memoryAccount != null) {
+            memoryAccount.add(MemoryAccount.Tier.GAUGE, (long) delta * POINT_BYTES, delta);
+        }
+        accountedPoints = history.size();
+    }
+    
+    /**
+     * @return 内存中存储点数，不含已归档的数据点
+     */
+    public int getStoredPointCount() {
+        try {
+            lock().readLock().lock();
+            return history.size();
+        } finally {
+            lock().readLock().unlock();
+        }
+    }
+    
+    /**
+     * @return 序列对象和内存中存储点的估算字节数
+     */
+    public long getEstimatedBytes() {
+        return SERIES_BYTES + (long) getStoredPointCount() * POINT_BYTES;
+    }
+    
+    /**
+     * 旋转门压缩的状态
+     */
+    private static class DoorState implements Serializable {
+        /** 历史数据最后一个点是否为可被替换的暂存点 */
+        private boolean tentative;
+        /** 从归档点出发允许的斜率上界 */
+        private double upperSlope;
+        /** 从归档点出发允许的斜率下界 */
+        private double lowerSlope;
+    }
+    
+    /**
+     * 降采样当前间隔的累积状态，O(1)
+     */
+    private static class IntervalState implements Serializable {
+        /** 历史数据最后一个点是否为仍在累积的当前间隔 */
+        private boolean open;
+        /** 间隔起始时间 */
+        private long start;
+        /** 间隔存储点的时间戳，通常等于起始时间，不早于之前的存储点 */
+        private long time;
+        private int count;
+        private double sum;
+        private double min;
+        private double max;
+        /** 时间戳最大的数值 */
+        private double last;
+        private long lastTime;
+        
+        private double value(ResampleAggregation aggregation) {
+            switch (aggregation) {
+                case LAST:
+                    return last;
+                case MIN:
+                    return min;
+                case MAX:
+                    return max;
+                default:
+                    return sum / count;
+            }
+        }
+    }
+    
+    /**
+     * 数据点访问者
+     */
+    @FunctionalInterface
+    public interface PointVisitor {
+        
+        /**
+         * 访问一个数据点
+         * 
+         * @param value 数据值
+         * @param timestamp 时间戳
+         * @param validUntil 有效期截止时间
+         */
+        void visit(double value, long timestamp, long validUntil);
+    }
+    
+    /**
+     * 数据点内部类（不可变）
+     * 被压缩策略抑制的后续数据点只延长validUntil并累加sampleCount
      */
     public static class DataPoint implements Serializable {
-        private double value;
-        private long timestamp;
+        private final double value;
+        private final long timestamp;
+        private final long validUntil;
+        private final int sampleCount;
         
         public DataPoint(double value, long timestamp) {
+            this(value, timestamp, timestamp, 1);
+        }
+        
+        public DataPoint(double value, long timestamp, long validUntil, int sampleCount) {
             this.value = value;
             this.timestamp = timestamp;
+            this.validUntil = validUntil;
+            this.sampleCount = sampleCount;
+        }
+        
+        /**
+         * 延长有效期，表示又有一个被抑制的原始数据点
+         * 
+         * @param time 被抑制数据点的时间戳
+         * @return 新的数据点
+         */
+        public DataPoint extendTo(long time) {
+            return new DataPoint(value, timestamp, Math.max(validUntil, time), sampleCount + 1);
         }
         
         public double getValue() {
@@ -312,6 +1169,14 @@ public class TelemetryData implements Serializable {
         public long getTimestamp() {
             return timestamp;
         }
+        
+        public long getValidUntil() {
+            return validUntil;
+        }
+        
+        public int getSampleCount() {
+            return sampleCount;
+        }
     }
     
     /**
@@ -323,6 +1188,7 @@ public class TelemetryData implements Serializable {
         private double max;
         private double stdDev;
         private int count;
+        private double sum;
         
         public Statistics() {
             this.avg = 0;
@@ -330,6 +1196,23 @@ public class TelemetryData implements Serializable {
             this.max = 0;
             this.stdDev = 0;
             this.count = 0;
+            this.sum = 0;
+        }
+        
+        /**
+         * 创建统计信息的快照副本
+         * 
+         * @return 副本
+         */
+        public Statistics copy() {
+            Statistics copy = new Statistics();
+            copy.avg = avg;
+            copy.min = min;
+            copy.max = max;
+            copy.stdDev = stdDev;
+            copy.count = count;
+            copy.sum = sum;
+            return copy;
         }
         
         public double getAvg() {
@@ -371,5 +1254,13 @@ public class TelemetryData implements Serializable {
         public void setCount(int count) {
             this.count = count;
         }
+        
+        public double getSum() {
+            return sum;
+        }
+        
+        public void setSum(double sum) {
+            this.sum = sum;
+        }
     }
 }
\ No newline at end of file
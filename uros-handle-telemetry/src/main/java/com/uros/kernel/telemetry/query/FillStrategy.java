@@ -0,0 +1,13 @@
+package com.uros.kernel.telemetry.query;
+
+/**
+ * 重采样时空步长的填充策略
+ */
+public enum FillStrategy {
+    /** 使用前一个数据点的值 */
+    PREVIOUS,
+    /** 在前后两个数据点之间线性插值 */
+    LINEAR,
+    /** 不填充，值为null */
+    NULL
+}
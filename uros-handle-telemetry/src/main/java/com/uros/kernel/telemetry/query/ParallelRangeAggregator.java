@@ -0,0 +1,266 @@
+package com.uros.kernel.telemetry.query;
+
+import com.uros.kernel.telemetry.model.TelemetryData;
+import com.uros.kernel.telemetry.simd.AggregationKernels;
+import com.uros.kernel.telemetry.simd.RangeStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 大区间聚合的并行执行器
+ * 区间按数据点下标二分拆分到独立的ForkJoinPool上计算，每个叶子任务得到可合并的部分统计，
+ * 逐级按Chan算法合并。线程池与Web请求线程分开设置大小；未启动或区间较小时在调用线程内顺序计算。
+ * 跨序列的批量扫描按序列列表拆分到单独的线程池上：扫描任务要获取序列读锁，而区间聚合的调用方
+ * 持有序列读锁等待聚合任务，共用线程池时排队的写锁会使扫描任务占满线程、聚合任务无法执行
+ */
+@Component
+public class ParallelRangeAggregator implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelRangeAggregator.class);
+
+    /** 每个线程平均分到的叶子任务数，留出余量以便工作窃取平衡负载 */
+    private static final int LEAVES_PER_THREAD = 4;
+
+    /** 叶子任务复制数据点的缓冲区大小，与计算核的分块大小一致 */
+    private static final int COPY_BATCH_SIZE = 4096;
+
+    /** 跨序列扫描时每个叶子任务的序列数 */
+    private static final int SERIES_PER_LEAF = 64;
+
+    private final int parallelism;
+
+    private final int minSplitPoints;
+
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    private final AtomicInteger scanThreadCounter = new AtomicInteger();
+
+    private final LongAdder parallelAggregations = new LongAdder();
+
+    private final LongAdder sequentialAggregations = new LongAdder();
+
+    private final LongAdder leafTasks = new LongAdder();
+
+    private volatile ForkJoinPool pool;
+
+    /** 跨序列扫描的线程池，任务可能阻塞在序列锁上 */
+    private volatile ForkJoinPool scanPool;
+
+    /**
+     * 构造函数
+     *
+     * @param parallelism 线程池大小，不大于0时使用处理器核数
+     * @param minSplitPoints 叶子任务的最小数据点数，区间不超过该值时不拆分
+     */
+    public ParallelRangeAggregator(
+            @Value("${uros.telemetry.aggregate.parallelism:0}") int parallelism,
+            @Value("${uros.telemetry.aggregate.min-split-points:65536}") int minSplitPoints) {
+        if (minSplitPoints <= 0) {
+            throw new IllegalArgumentException("Minimum split size must be positive: " + minSplitPoints);
+        }
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.minSplitPoints = minSplitPoints;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (pool != null) {
+            return;
+        }
+        pool = newPool("telemetry-aggregate-", threadCounter);
+        scanPool = newPool("telemetry-scan-", scanThreadCounter);
+        logger.info("Telemetry range aggregation and scan pools started with {} threads each", parallelism);
+    }
+
+    private ForkJoinPool newPool(String namePrefix, AtomicInteger counter) {
+        return new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName(namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (pool == null) {
+            return;
+        }
+        pool.shutdown();
+        scanPool.shutdown();
+        try {
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+            scanPool.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pool = null;
+        scanPool = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return pool != null;
+    }
+
+    /**
+     * 计算数据点值的统计，每个存储点按其代表的原始数据点数量加权
+     * 调用方需保证计算期间列表不被修改，例如在 {@link TelemetryData#readRange} 内调用
+     *
+     * @param points 按时间升序的数据点
+     * @return 统计结果
+     */
+    public RangeStats aggregate(List<TelemetryData.DataPoint> points) {
+        int size = points.size();
+        int leafSize = leafSize(size);
+        ForkJoinPool current = pool;
+        if (current == null || size <= leafSize) {
+            sequentialAggregations.increment();
+            return accumulate(points, 0, size);
+        }
+        parallelAggregations.increment();
+        return current.invoke(new StatsTask(points, 0, size, leafSize));
+    }
+
+    /**
+     * 对每个序列分别计算，用于跨序列的批量扫描，在扫描线程池上执行
+     * 未启动或序列较少时在调用线程内顺序计算；函数需能在多个线程上同时调用，调用方不得持有序列锁
+     *
+     * @param series 序列
+     * @param function 单个序列的计算
+     * @return 与输入顺序一致的结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T, R> List<R> mapSeries(List<T> series, Function<T, R> function) {
+        Object[] results = new Object[series.size()];
+        ForkJoinPool current = scanPool;
+        if (current == null || series.size() <= SERIES_PER_LEAF) {
+            sequentialAggregations.increment();
+            for (int i = 0; i < results.length; i++) {
+                results[i] = function.apply(series.get(i));
+            }
+        } else {
+            parallelAggregations.increment();
+            current.invoke(new SeriesTask<>(series, function, results, 0, results.length));
+        }
+        return (List<R>) Arrays.asList(results);
+    }
+
+    /**
+     * 叶子任务大小：区间按线程数均分为若干份，不小于最小拆分大小，并按计算核的分块大小对齐
+     */
+    int leafSize(int size) {
+        long perLeaf = ((long) size + (long) parallelism * LEAVES_PER_THREAD - 1) / ((long) parallelism * LEAVES_PER_THREAD);
+        long aligned = (perLeaf + COPY_BATCH_SIZE - 1) / COPY_BATCH_SIZE * COPY_BATCH_SIZE;
+        return (int) Math.max(minSplitPoints, aligned);
+    }
+
+    private RangeStats accumulate(List<TelemetryData.DataPoint> points, int from, int to) {
+        RangeStats stats = new RangeStats();
+        double[] values = new double[Math.min(COPY_BATCH_SIZE, Math.max(0, to - from))];
+        double[] weights = new double[values.length];
+        AggregationKernels kernels = AggregationKernels.get();
+        for (int start = from; start < to; start += values.length) {
+            int count = Math.min(values.length, to - start);
+            for (int i = 0; i < count; i++) {
+                TelemetryData.DataPoint point = points.get(start + i);
+                values[i] = point.getValue();
+                weights[i] = point.getSampleCount();
+            }
+            kernels.accumulateWeighted(values, weights, 0, count, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * 获取并行聚合统计
+     */
+    public Map<String, Object> getStatistics() {
+        ForkJoinPool current = pool;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", current != null);
+        stats.put("parallelism", parallelism);
+        stats.put("minSplitPoints", minSplitPoints);
+        stats.put("kernels", AggregationKernels.get().getName());
+        stats.put("parallelAggregations", parallelAggregations.sum());
+        stats.put("sequentialAggregations", sequentialAggregations.sum());
+        stats.put("leafTasks", leafTasks.sum());
+        stats.put("stealCount", current == null ? 0L : current.getStealCount());
+        return stats;
+    }
+
+    private class StatsTask extends RecursiveTask<RangeStats> {
+        private final List<TelemetryData.DataPoint> points;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        private StatsTask(List<TelemetryData.DataPoint> points, int from, int to, int leafSize) {
+            this.points = points;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected RangeStats compute() {
+            if (to - from <= leafSize) {
+                leafTasks.increment();
+                return accumulate(points, from, to);
+            }
+            // 在叶子大小的整数倍处拆分，使叶子数据块保持对齐
+            int leaves = (to - from + leafSize - 1) / leafSize;
+            int mid = from + leaves / 2 * leafSize;
+            StatsTask right = new StatsTask(points, mid, to, leafSize);
+            right.fork();
+            RangeStats left = new StatsTask(points, from, mid, leafSize).compute();
+            return left.merge(right.join());
+        }
+    }
+
+    private class SeriesTask<T, R> extends RecursiveAction {
+        private final List<T> series;
+        private final Function<T, R> function;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+
+        private SeriesTask(List<T> series, Function<T, R> function, Object[] results, int from, int to) {
+            this.series = series;
+            this.function = function;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SERIES_PER_LEAF) {
+                leafTasks.increment();
+                for (int i = from; i < to; i++) {
+                    results[i] = function.apply(series.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SeriesTask<>(series, function, results, from, mid),
+                    new SeriesTask<>(series, function, results, mid, to));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.uros.kernel.telemetry.query;
+
+/**
+ * 按时间升序分批读取序列原始数据点的游标
+ * 每批在序列读锁内复制，批与批之间不持有锁；两批之间写入的数据点可能出现在后续批次中
+ */
+public interface PointCursor {
+
+    /**
+     * 读取下一批数据点
+     *
+     * @param timestamps 时间戳输出
+     * @param values 数据值输出
+     * @return 读取的点数，0表示已读完
+     */
+    int next(long[] timestamps, double[] values);
+}
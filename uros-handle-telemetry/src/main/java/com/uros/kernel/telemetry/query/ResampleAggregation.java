@@ -0,0 +1,15 @@
+package com.uros.kernel.telemetry.query;
+
+/**
+ * 重采样时每个步长内多个数据点的聚合方式
+ */
+public enum ResampleAggregation {
+    /** 平均值 */
+    AVG,
+    /** 最后一个值 */
+    LAST,
+    /** 最大值 */
+    MAX,
+    /** 最小值 */
+    MIN
+}
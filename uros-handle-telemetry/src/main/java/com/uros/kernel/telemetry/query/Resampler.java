@@ -0,0 +1,218 @@
+package com.uros.kernel.telemetry.query;
+
+import com.uros.kernel.telemetry.model.TelemetryData;
+
+import java.util.Arrays;
+
+/**
+ * 把按时间升序到达的数据点重采样到固定步长的时间网格上
+ * 网格按步长对齐到纪元时间（如10秒步长落在 xx:xx:00、xx:xx:10 ...），每个步长对应区间 [t, t + step)。
+ * 数据点只被访问一次，除当前步长的聚合状态和前一个数据点外不保留原始数据
+ */
+public class Resampler implements TelemetryData.PointVisitor {
+
+    /** 单次重采样允许的最大步数 */
+    public static final int MAX_BUCKETS = 11000;
+
+    private final long gridStart;
+
+    private final long step;
+
+    private final FillStrategy fill;
+
+    private final ResampleAggregation aggregation;
+
+    /** 相邻存储点之间的空步长是否按线性插值处理（旋转门压缩的序列） */
+    private final boolean interpolateGaps;
+
+    /** 每个步长的结果，NaN表示无值 */
+    private final double[] values;
+
+    private int current = -1;
+
+    private int count;
+
+    private double sum;
+
+    private double last;
+
+    private double max;
+
+    private double min;
+
+    private boolean hasPrevious;
+
+    private double previousValue;
+
+    private long previousTimestamp;
+
+    private long previousValidUntil;
+
+    private boolean finished;
+
+    /**
+     * 构造函数
+     *
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param step 步长（毫秒）
+     * @param fill 空步长的填充策略
+     * @param aggregation 步长内的聚合方式
+     * @param interpolateGaps 存储点之间的空步长是否总是线性插值
+     */
+    public Resampler(long startTime, long endTime, long step, FillStrategy fill,
+                     ResampleAggregation aggregation, boolean interpolateGaps) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("Step must be positive: " + step);
+        }
+        if (endTime < startTime) {
+            throw new IllegalArgumentException("End time must not be before start time");
+        }
+        long firstBucket = Math.floorDiv(startTime, step);
+        long buckets = Math.floorDiv(endTime, step) - firstBucket + 1;
+        if (buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Too many steps: " + buckets + " (max " + MAX_BUCKETS + ")");
+        }
+        this.gridStart = firstBucket * step;
+        this.step = step;
+        this.fill = fill;
+        this.aggregation = aggregation;
+        this.interpolateGaps = interpolateGaps;
+        this.values = new double[(int) buckets];
+        Arrays.fill(values, Double.NaN);
+    }
+
+    /**
+     * 需要遍历的时间范围起点
+     */
+    public long getScanStart() {
+        return gridStart;
+    }
+
+    /**
+     * 需要遍历的时间范围终点（含）
+     */
+    public long getScanEnd() {
+        return gridStart + values.length * step - 1;
+    }
+
+    @Override
+    public void visit(double value, long timestamp, long validUntil) {
+        if (finished) {
+            return;
+        }
+        long index = Math.floorDiv(timestamp - gridStart, step);
+        if (index < 0) {
+            remember(value, timestamp, validUntil);
+            return;
+        }
+        if (index >= values.length) {
+            closeCurrent();
+            fillGaps(current + 1, values.length, true, value, timestamp);
+            finished = true;
+            return;
+        }
+        if (index != current) {
+            closeCurrent();
+            fillGaps(current + 1, (int) index, true, value, timestamp);
+            current = (int) index;
+            count = 0;
+            sum = 0;
+            max = Double.NEGATIVE_INFINITY;
+            min = Double.POSITIVE_INFINITY;
+        }
+        count++;
+        sum += value;
+        last = value;
+        max = Math.max(max, value);
+        min = Math.min(min, value);
+        remember(value, timestamp, validUntil);
+    }
+
+    private void remember(double value, long timestamp, long validUntil) {
+        hasPrevious = true;
+        previousValue = value;
+        previousTimestamp = timestamp;
+        previousValidUntil = validUntil;
+    }
+
+    private void closeCurrent() {
+        if (current < 0 || count == 0) {
+            return;
+        }
+        switch (aggregation) {
+            case AVG:
+                values[current] = sum / count;
+                break;
+            case LAST:
+                values[current] = last;
+                break;
+            case MAX:
+                values[current] = max;
+                break;
+            case MIN:
+                values[current] = min;
+                break;
+            default:
+                throw new IllegalStateException("Unknown aggregation: " + aggregation);
+        }
+        count = 0;
+    }
+
+    private void fillGaps(int from, int to, boolean hasNext, double nextValue, long nextTimestamp) {
+        for (int bucket = from; bucket < to; bucket++) {
+            values[bucket] = gapValue(getTimestamp(bucket), hasNext, nextValue, nextTimestamp);
+        }
+    }
+
+    private double gapValue(long time, boolean hasNext, double nextValue, long nextTimestamp) {
+        if (!hasPrevious) {
+            return Double.NaN;
+        }
+        if (previousValidUntil >= time) {
+            // 死区压缩抑制的区间，值保持不变，不属于数据缺失
+            return previousValue;
+        }
+        if (interpolateGaps || fill == FillStrategy.LINEAR) {
+            if (!hasNext || nextTimestamp == previousTimestamp) {
+                return Double.NaN;
+            }
+            double ratio = (double) (time - previousTimestamp) / (nextTimestamp - previousTimestamp);
+            return previousValue + (nextValue - previousValue) * ratio;
+        }
+        return fill == FillStrategy.PREVIOUS ? previousValue : Double.NaN;
+    }
+
+    /**
+     * 结束遍历，填充剩余的步长
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        closeCurrent();
+        fillGaps(current + 1, values.length, false, 0, 0);
+        finished = true;
+    }
+
+    /**
+     * 获取步数
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * 获取第i个步长的起始时间
+     */
+    public long getTimestamp(int index) {
+        return gridStart + index * step;
+    }
+
+    /**
+     * 获取第i个步长的值，无值时为NaN
+     */
+    public double getValue(int index) {
+        return values[index];
+    }
+}
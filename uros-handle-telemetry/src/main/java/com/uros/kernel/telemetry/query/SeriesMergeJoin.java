@@ -0,0 +1,252 @@
+package com.uros.kernel.telemetry.query;
+
+import com.uros.kernel.telemetry.model.TelemetryData;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 多序列按时间戳对齐的归并连接
+ * 各序列已按时间升序排列，每轮取所有序列头部的最小时间戳作为行时间，
+ * 头部时间戳落在 [行时间, 行时间 + 容差] 内的序列各贡献一个值，其余列为空。
+ * 所有序列只顺序遍历一次；需要时在同一遍中增量计算两两Pearson相关系数。
+ * 结果缓冲区按最长序列（内连接按最短序列）分配，外连接超出时按需扩容，行数超过上限时拒绝
+ */
+public class SeriesMergeJoin {
+
+    /** 单次连接允许的最大序列数 */
+    public static final int MAX_SERIES = 16;
+
+    /** 单次连接默认允许的最大结果行数 */
+    public static final int MAX_ROWS = 1_000_000;
+
+    private final long tolerance;
+
+    private final boolean requireAll;
+
+    private final boolean correlate;
+
+    private final int maxRows;
+
+    /**
+     * 构造函数，结果行数上限为 {@link #MAX_ROWS}
+     *
+     * @param tolerance 对齐容差（毫秒），0表示时间戳必须相同
+     * @param requireAll 是否只保留所有序列都有值的行（内连接）
+     * @param correlate 是否计算两两Pearson相关系数
+     */
+    public SeriesMergeJoin(long tolerance, boolean requireAll, boolean correlate) {
+        this(tolerance, requireAll, correlate, MAX_ROWS);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param tolerance 对齐容差（毫秒），0表示时间戳必须相同
+     * @param requireAll 是否只保留所有序列都有值的行（内连接）
+     * @param correlate 是否计算两两Pearson相关系数
+     * @param maxRows 结果行数上限
+     */
+    public SeriesMergeJoin(long tolerance, boolean requireAll, boolean correlate, int maxRows) {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("Tolerance must not be negative: " + tolerance);
+        }
+        if (maxRows <= 0) {
+            throw new IllegalArgumentException("Max rows must be positive: " + maxRows);
+        }
+        this.tolerance = tolerance;
+        this.requireAll = requireAll;
+        this.correlate = correlate;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * 执行连接
+     *
+     * @param series 各序列的数据点，按时间升序
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 列式结果
+     * @throws IllegalArgumentException 序列数不合法或结果行数超过上限
+     */
+    public Result join(List<List<TelemetryData.DataPoint>> series, long startTime, long endTime) {
+        int k = series.size();
+        if (k == 0 || k > MAX_SERIES) {
+            throw new IllegalArgumentException("Series count must be between 1 and " + MAX_SERIES + ": " + k);
+        }
+
+        // 每行至少消费一个点：内连接行数不超过最短序列，外连接从最长序列起按需扩容
+        int[] cursors = new int[k];
+        int capacity = requireAll ? Integer.MAX_VALUE : 0;
+        for (int i = 0; i < k; i++) {
+            List<TelemetryData.DataPoint> points = series.get(i);
+            while (cursors[i] < points.size() && points.get(cursors[i]).getTimestamp() < startTime) {
+                cursors[i]++;
+            }
+            int remaining = points.size() - cursors[i];
+            capacity = requireAll ? Math.min(capacity, remaining) : Math.max(capacity, remaining);
+        }
+
+        long[] timestamps = new long[Math.max(Math.min(capacity, maxRows), 1)];
+        double[][] columns = new double[k][timestamps.length];
+        double[] row = new double[k];
+        PairMoments moments = correlate ? new PairMoments(k) : null;
+        int rows = 0;
+
+        while (true) {
+            long rowTime = Long.MAX_VALUE;
+            for (int i = 0; i < k; i++) {
+                List<TelemetryData.DataPoint> points = series.get(i);
+                if (cursors[i] < points.size()) {
+                    rowTime = Math.min(rowTime, points.get(cursors[i]).getTimestamp());
+                }
+            }
+            if (rowTime == Long.MAX_VALUE || rowTime > endTime) {
+                break;
+            }
+
+            int present = 0;
+            long limit = rowTime + tolerance;
+            for (int i = 0; i < k; i++) {
+                List<TelemetryData.DataPoint> points = series.get(i);
+                row[i] = Double.NaN;
+                if (cursors[i] < points.size()) {
+                    TelemetryData.DataPoint head = points.get(cursors[i]);
+                    if (head.getTimestamp() <= limit && head.getTimestamp() <= endTime) {
+                        row[i] = head.getValue();
+                        cursors[i]++;
+                        present++;
+                    }
+                }
+            }
+
+            if (requireAll && present < k) {
+                continue;
+            }
+            if (rows == timestamps.length) {
+                if (rows == maxRows) {
+                    throw new IllegalArgumentException("Join result exceeds " + maxRows
+                            + " rows, narrow the time range or the series list");
+                }
+                int grown = (int) Math.min((long) rows * 2, maxRows);
+                timestamps = Arrays.copyOf(timestamps, grown);
+                for (int i = 0; i < k; i++) {
+                    columns[i] = Arrays.copyOf(columns[i], grown);
+                }
+            }
+            timestamps[rows] = rowTime;
+            for (int i = 0; i < k; i++) {
+                columns[i][rows] = row[i];
+            }
+            if (moments != null) {
+                moments.add(row);
+            }
+            rows++;
+        }
+
+        if (rows < timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, rows);
+            for (int i = 0; i < k; i++) {
+                columns[i] = Arrays.copyOf(columns[i], rows);
+            }
+        }
+        return new Result(timestamps, columns, moments == null ? null : moments.correlation());
+    }
+
+    /**
+     * 两两序列的增量协方差（Welford算法），只统计两列都有值的行
+     */
+    private static class PairMoments {
+        private final int k;
+        private final long[] count;
+        private final double[] meanX;
+        private final double[] meanY;
+        private final double[] m2X;
+        private final double[] m2Y;
+        private final double[] coMoment;
+
+        private PairMoments(int k) {
+            this.k = k;
+            int pairs = k * k;
+            this.count = new long[pairs];
+            this.meanX = new double[pairs];
+            this.meanY = new double[pairs];
+            this.m2X = new double[pairs];
+            this.m2Y = new double[pairs];
+            this.coMoment = new double[pairs];
+        }
+
+        private void add(double[] row) {
+            for (int i = 0; i < k; i++) {
+                if (Double.isNaN(row[i])) {
+                    continue;
+                }
+                for (int j = i + 1; j < k; j++) {
+                    if (Double.isNaN(row[j])) {
+                        continue;
+                    }
+                    int p = i * k + j;
+                    long n = ++count[p];
+                    double dx = row[i] - meanX[p];
+                    double dy = row[j] - meanY[p];
+                    meanX[p] += dx / n;
+                    meanY[p] += dy / n;
+                    m2X[p] += dx * (row[i] - meanX[p]);
+                    m2Y[p] += dy * (row[j] - meanY[p]);
+                    coMoment[p] += dx * (row[j] - meanY[p]);
+                }
+            }
+        }
+
+        /**
+         * @return 相关系数矩阵，样本不足或方差为0时为NaN
+         */
+        private double[][] correlation() {
+            double[][] matrix = new double[k][k];
+            for (int i = 0; i < k; i++) {
+                matrix[i][i] = 1.0;
+                for (int j = i + 1; j < k; j++) {
+                    int p = i * k + j;
+                    double r = Double.NaN;
+                    if (count[p] >= 2 && m2X[p] > 0 && m2Y[p] > 0) {
+                        r = coMoment[p] / Math.sqrt(m2X[p] * m2Y[p]);
+                        r = Math.max(-1.0, Math.min(1.0, r));
+                    }
+                    matrix[i][j] = r;
+                    matrix[j][i] = r;
+                }
+            }
+            return matrix;
+        }
+    }
+
+    /**
+     * 列式连接结果，缺失值为NaN
+     */
+    public static class Result {
+        private final long[] timestamps;
+        private final double[][] columns;
+        private final double[][] correlation;
+
+        public Result(long[] timestamps, double[][] columns, double[][] correlation) {
+            this.timestamps = timestamps;
+            this.columns = columns;
+            this.correlation = correlation;
+        }
+
+        public long[] getTimestamps() {
+            return timestamps;
+        }
+
+        public double[][] getColumns() {
+            return columns;
+        }
+
+        /**
+         * @return 相关系数矩阵，未要求计算时为null
+         */
+        public double[][] getCorrelation() {
+            return correlation;
+        }
+    }
+}
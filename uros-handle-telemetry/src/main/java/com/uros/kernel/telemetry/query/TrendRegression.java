@@ -0,0 +1,78 @@
+package com.uros.kernel.telemetry.query;
+
+/**
+ * 数据点值对时间的最小二乘线性回归
+ * 逐点累加和项，不保存数据点；时间以第一个点为原点、按秒计，斜率单位为每秒
+ */
+public class TrendRegression {
+
+    /** 判定为上升或下降的最小斜率绝对值（每秒） */
+    public static final double TREND_THRESHOLD = 0.001;
+
+    private long origin;
+
+    private int count;
+
+    private double sumX;
+
+    private double sumY;
+
+    private double sumXY;
+
+    private double sumXX;
+
+    /**
+     * 加入一个数据点
+     *
+     * @param value 数据值
+     * @param timestamp 时间戳（毫秒）
+     */
+    public void add(double value, long timestamp) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (count == 0) {
+            origin = timestamp;
+        }
+        double x = (timestamp - origin) / 1000.0;
+        count++;
+        sumX += x;
+        sumY += value;
+        sumXY += x * value;
+        sumXX += x * x;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return 每秒斜率，少于两个点或所有点时间相同时为NaN
+     */
+    public double getSlope() {
+        if (count < 2) {
+            return Double.NaN;
+        }
+        double denominator = count * sumXX - sumX * sumX;
+        if (denominator == 0) {
+            return Double.NaN;
+        }
+        return (count * sumXY - sumX * sumY) / denominator;
+    }
+
+    /**
+     * 按斜率判定趋势
+     *
+     * @param slope 每秒斜率
+     * @return rising、falling 或 stable，斜率为NaN时为stable
+     */
+    public static String classify(double slope) {
+        if (slope > TREND_THRESHOLD) {
+            return "rising";
+        } else if (slope < -TREND_THRESHOLD) {
+            return "falling";
+        } else {
+            return "stable";
+        }
+    }
+}
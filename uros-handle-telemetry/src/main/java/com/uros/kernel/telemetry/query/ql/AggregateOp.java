@@ -0,0 +1,21 @@
+package com.uros.kernel.telemetry.query.ql;
+
+/**
+ * 跨序列聚合运算
+ */
+public enum AggregateOp {
+    SUM, AVG, MIN, MAX, COUNT;
+
+    /**
+     * @param name 运算名（小写）
+     * @return 对应的聚合运算，未知时返回null
+     */
+    public static AggregateOp of(String name) {
+        for (AggregateOp op : values()) {
+            if (op.name().toLowerCase().equals(name)) {
+                return op;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,129 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 跨序列聚合：按 by/without 指定的标签分组，每个时刻对组内有值的序列求聚合
+ * 分组关系在构造时确定，求值时只按序列下标累加
+ */
+class AggregateOperator implements Operator {
+
+    private final Expr.Aggregate aggregate;
+
+    private final Operator child;
+
+    private final List<Map<String, String>> groups = new ArrayList<>();
+
+    /** 子算子每个序列所属的分组下标 */
+    private final int[] groupOf;
+
+    private final StepBatch batch;
+
+    private final double[] counts;
+
+    AggregateOperator(Expr.Aggregate aggregate, Operator child) {
+        this.aggregate = aggregate;
+        this.child = child;
+        List<Map<String, String>> inputs = child.getSeries();
+        Set<String> grouping = new HashSet<>(aggregate.getGrouping());
+        Map<Map<String, String>, Integer> index = new LinkedHashMap<>();
+        this.groupOf = new int[inputs.size()];
+        for (int i = 0; i < inputs.size(); i++) {
+            Map<String, String> key = new TreeMap<>();
+            for (Map.Entry<String, String> label : inputs.get(i).entrySet()) {
+                if (label.getKey().equals(ResolvedSeries.NAME_LABEL)) {
+                    continue;
+                }
+                if (grouping.contains(label.getKey()) != aggregate.isWithout()) {
+                    key.put(label.getKey(), label.getValue());
+                }
+            }
+            Integer group = index.get(key);
+            if (group == null) {
+                group = groups.size();
+                index.put(key, group);
+                groups.add(Collections.unmodifiableMap(key));
+            }
+            groupOf[i] = group;
+        }
+        this.batch = new StepBatch(groups.size(), QueryContext.BATCH_STEPS);
+        this.counts = new double[groups.size()];
+    }
+
+    @Override
+    public List<Map<String, String>> getSeries() {
+        return groups;
+    }
+
+    @Override
+    public StepBatch next() {
+        StepBatch input = child.next();
+        if (input == null) {
+            return null;
+        }
+        int size = input.size;
+        System.arraycopy(input.timestamps, 0, batch.timestamps, 0, size);
+        batch.size = size;
+        AggregateOp op = aggregate.getOp();
+        for (int i = 0; i < size; i++) {
+            for (int g = 0; g < groups.size(); g++) {
+                batch.values[g][i] = Double.NaN;
+                counts[g] = 0;
+            }
+            for (int s = 0; s < groupOf.length; s++) {
+                double value = input.values[s][i];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                int g = groupOf[s];
+                double current = batch.values[g][i];
+                counts[g]++;
+                if (counts[g] == 1) {
+                    batch.values[g][i] = op == AggregateOp.COUNT ? 1 : value;
+                    continue;
+                }
+                switch (op) {
+                    case MIN:
+                        batch.values[g][i] = Math.min(current, value);
+                        break;
+                    case MAX:
+                        batch.values[g][i] = Math.max(current, value);
+                        break;
+                    case COUNT:
+                        batch.values[g][i] = counts[g];
+                        break;
+                    default:
+                        batch.values[g][i] = current + value;
+                        break;
+                }
+            }
+            if (op == AggregateOp.AVG) {
+                for (int g = 0; g < groups.size(); g++) {
+                    if (counts[g] > 0) {
+                        batch.values[g][i] /= counts[g];
+                    }
+                }
+            }
+        }
+        return batch;
+    }
+
+    @Override
+    public String describe() {
+        return "Aggregate " + aggregate.getOp().name().toLowerCase()
+                + (aggregate.isWithout() ? " without " : " by ") + aggregate.getGrouping()
+                + " inputs=" + groupOf.length + " groups=" + groups.size();
+    }
+
+    @Override
+    public List<Operator> getChildren() {
+        return Collections.singletonList(child);
+    }
+}
@@ -0,0 +1,134 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 算术运算：标量与标量、标量与向量逐值运算；向量与向量按去掉指标名称后的标签一对一匹配，
+ * 两侧都存在的标签组合才有输出
+ */
+class BinaryArithmeticOperator implements Operator {
+
+    private final char op;
+
+    private final Operator left;
+
+    private final Operator right;
+
+    private final List<Map<String, String>> series = new ArrayList<>();
+
+    /** 输出序列对应的左右输入下标 */
+    private final int[] leftIndex;
+
+    private final int[] rightIndex;
+
+    private final StepBatch batch;
+
+    BinaryArithmeticOperator(char op, Operator left, Operator right) {
+        this.op = op;
+        this.left = left;
+        this.right = right;
+        List<Map<String, String>> leftSeries = left.getSeries();
+        List<Map<String, String>> rightSeries = right.getSeries();
+        if (left.isScalar() || right.isScalar()) {
+            Operator vector = left.isScalar() ? right : left;
+            int count = vector.getSeries().size();
+            this.leftIndex = new int[count];
+            this.rightIndex = new int[count];
+            for (int i = 0; i < count; i++) {
+                series.add(vector.isScalar() ? vector.getSeries().get(i)
+                        : RangeFunctionOperator.withoutName(vector.getSeries().get(i)));
+                leftIndex[i] = left.isScalar() ? 0 : i;
+                rightIndex[i] = right.isScalar() ? 0 : i;
+            }
+        } else {
+            Map<Map<String, String>, Integer> rightBySignature = new HashMap<>();
+            for (int i = 0; i < rightSeries.size(); i++) {
+                Map<String, String> signature = RangeFunctionOperator.withoutName(rightSeries.get(i));
+                if (rightBySignature.put(signature, i) != null) {
+                    throw new IllegalArgumentException("Duplicate series " + signature + " on right side of '" + op + "'");
+                }
+            }
+            List<int[]> pairs = new ArrayList<>();
+            Map<Map<String, String>, Integer> seen = new HashMap<>();
+            for (int i = 0; i < leftSeries.size(); i++) {
+                Map<String, String> signature = RangeFunctionOperator.withoutName(leftSeries.get(i));
+                if (seen.put(signature, i) != null) {
+                    throw new IllegalArgumentException("Duplicate series " + signature + " on left side of '" + op + "'");
+                }
+                Integer match = rightBySignature.get(signature);
+                if (match != null) {
+                    pairs.add(new int[]{i, match});
+                    series.add(signature);
+                }
+            }
+            this.leftIndex = new int[pairs.size()];
+            this.rightIndex = new int[pairs.size()];
+            for (int i = 0; i < pairs.size(); i++) {
+                leftIndex[i] = pairs.get(i)[0];
+                rightIndex[i] = pairs.get(i)[1];
+            }
+        }
+        this.batch = new StepBatch(series.size(), QueryContext.BATCH_STEPS);
+    }
+
+    @Override
+    public List<Map<String, String>> getSeries() {
+        return series;
+    }
+
+    @Override
+    public StepBatch next() {
+        StepBatch leftBatch = left.next();
+        StepBatch rightBatch = right.next();
+        if (leftBatch == null || rightBatch == null) {
+            return null;
+        }
+        int size = leftBatch.size;
+        System.arraycopy(leftBatch.timestamps, 0, batch.timestamps, 0, size);
+        batch.size = size;
+        for (int s = 0; s < series.size(); s++) {
+            double[] a = leftBatch.values[leftIndex[s]];
+            double[] b = rightBatch.values[rightIndex[s]];
+            double[] out = batch.values[s];
+            for (int i = 0; i < size; i++) {
+                out[i] = apply(a[i], b[i]);
+            }
+        }
+        return batch;
+    }
+
+    private double apply(double a, double b) {
+        switch (op) {
+            case '+':
+                return a + b;
+            case '-':
+                return a - b;
+            case '*':
+                return a * b;
+            case '/':
+                return a / b;
+            default:
+                throw new IllegalStateException("Unknown operator " + op);
+        }
+    }
+
+    @Override
+    public boolean isScalar() {
+        return left.isScalar() && right.isScalar();
+    }
+
+    @Override
+    public String describe() {
+        String matching = left.isScalar() || right.isScalar() ? "scalar" : "one-to-one";
+        return "Binary '" + op + "' matching=" + matching + " series=" + series.size();
+    }
+
+    @Override
+    public List<Operator> getChildren() {
+        return Arrays.asList(left, right);
+    }
+}
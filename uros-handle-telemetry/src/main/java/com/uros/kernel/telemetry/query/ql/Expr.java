@@ -0,0 +1,178 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 查询语句的语法树
+ */
+public abstract class Expr {
+
+    /**
+     * 数值常量
+     */
+    public static class NumberLiteral extends Expr {
+        private final double value;
+
+        public NumberLiteral(double value) {
+            this.value = value;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return value == Math.rint(value) && Math.abs(value) < 1e15
+                    ? String.valueOf((long) value) : String.valueOf(value);
+        }
+    }
+
+    /**
+     * 序列选择器：metric{label="value"} 或带时间窗口的 metric{...}[5m]
+     */
+    public static class Selector extends Expr {
+        private final String metricName;
+        private final List<LabelMatcher> matchers;
+        private final long rangeMillis;
+
+        public Selector(String metricName, List<LabelMatcher> matchers, long rangeMillis) {
+            this.metricName = metricName;
+            this.matchers = matchers;
+            this.rangeMillis = rangeMillis;
+        }
+
+        /**
+         * @return 指标名称，只按标签选择时为null
+         */
+        public String getMetricName() {
+            return metricName;
+        }
+
+        public List<LabelMatcher> getMatchers() {
+            return matchers;
+        }
+
+        /**
+         * @return 时间窗口（毫秒），瞬时选择器为0
+         */
+        public long getRangeMillis() {
+            return rangeMillis;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            if (metricName != null) {
+                builder.append(metricName);
+            }
+            if (!matchers.isEmpty() || metricName == null) {
+                builder.append(matchers.stream().map(LabelMatcher::toString)
+                        .collect(Collectors.joining(", ", "{", "}")));
+            }
+            if (rangeMillis > 0) {
+                builder.append('[').append(rangeMillis).append("ms]");
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * 窗口函数调用：rate(x[5m])、avg_over_time(x[1h]) 等
+     */
+    public static class Call extends Expr {
+        private final RangeFunction function;
+        private final Selector argument;
+
+        public Call(RangeFunction function, Selector argument) {
+            this.function = function;
+            this.argument = argument;
+        }
+
+        public RangeFunction getFunction() {
+            return function;
+        }
+
+        public Selector getArgument() {
+            return argument;
+        }
+
+        @Override
+        public String toString() {
+            return function.getName() + "(" + argument + ")";
+        }
+    }
+
+    /**
+     * 跨序列聚合：sum by (room) (x)、avg without (sourceId) (x)
+     */
+    public static class Aggregate extends Expr {
+        private final AggregateOp op;
+        private final List<String> grouping;
+        private final boolean without;
+        private final Expr argument;
+
+        public Aggregate(AggregateOp op, List<String> grouping, boolean without, Expr argument) {
+            this.op = op;
+            this.grouping = grouping;
+            this.without = without;
+            this.argument = argument;
+        }
+
+        public AggregateOp getOp() {
+            return op;
+        }
+
+        public List<String> getGrouping() {
+            return grouping;
+        }
+
+        public boolean isWithout() {
+            return without;
+        }
+
+        public Expr getArgument() {
+            return argument;
+        }
+
+        @Override
+        public String toString() {
+            String clause = grouping.isEmpty() && !without ? ""
+                    : (without ? " without (" : " by (") + String.join(", ", grouping) + ")";
+            return op.name().toLowerCase() + clause + " (" + argument + ")";
+        }
+    }
+
+    /**
+     * 算术运算
+     */
+    public static class Binary extends Expr {
+        private final char op;
+        private final Expr left;
+        private final Expr right;
+
+        public Binary(char op, Expr left, Expr right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        public char getOp() {
+            return op;
+        }
+
+        public Expr getLeft() {
+            return left;
+        }
+
+        public Expr getRight() {
+            return right;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " " + op + " " + right + ")";
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import java.util.regex.Pattern;
+
+/**
+ * 标签匹配条件：=、!=、=~、!~，正则需完整匹配标签值
+ */
+public class LabelMatcher {
+
+    /**
+     * 匹配方式
+     */
+    public enum Op {
+        EQ("="), NEQ("!="), REGEX("=~"), NOT_REGEX("!~");
+
+        private final String symbol;
+
+        Op(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    private final String name;
+
+    private final Op op;
+
+    private final String value;
+
+    private final Pattern pattern;
+
+    public LabelMatcher(String name, Op op, String value) {
+        this.name = name;
+        this.op = op;
+        this.value = value;
+        this.pattern = op == Op.REGEX || op == Op.NOT_REGEX ? Pattern.compile(value) : null;
+    }
+
+    /**
+     * @param labelValue 标签值，标签不存在时为null（按空字符串匹配）
+     * @return 是否匹配
+     */
+    public boolean matches(String labelValue) {
+        String actual = labelValue == null ? "" : labelValue;
+        switch (op) {
+            case EQ:
+                return actual.equals(value);
+            case NEQ:
+                return !actual.equals(value);
+            case REGEX:
+                return pattern.matcher(actual).matches();
+            default:
+                return !pattern.matcher(actual).matches();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return name + op.symbol + '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
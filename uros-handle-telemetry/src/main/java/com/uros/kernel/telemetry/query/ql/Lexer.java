@@ -0,0 +1,181 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import com.uros.kernel.telemetry.exception.QueryParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 查询语句词法分析
+ * 标识符可包含 . 和 :（指标名称中常见）；数字后紧跟时间单位（ms、s、m、h、d、w）时识别为时长
+ */
+class Lexer {
+
+    private final String query;
+
+    private int position;
+
+    Lexer(String query) {
+        this.query = query;
+    }
+
+    List<Token> tokenize() {
+        List<Token> tokens = new ArrayList<>();
+        while (true) {
+            skipWhitespace();
+            if (position >= query.length()) {
+                tokens.add(new Token(Token.Type.EOF, "", 0, position));
+                return tokens;
+            }
+            tokens.add(nextToken());
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < query.length() && Character.isWhitespace(query.charAt(position))) {
+            position++;
+        }
+    }
+
+    private Token nextToken() {
+        int start = position;
+        char c = query.charAt(position);
+        if (Character.isLetter(c) || c == '_') {
+            while (position < query.length() && isIdentifierPart(query.charAt(position))) {
+                position++;
+            }
+            return new Token(Token.Type.IDENTIFIER, query.substring(start, position), 0, start);
+        }
+        if (Character.isDigit(c) || (c == '.' && position + 1 < query.length()
+                && Character.isDigit(query.charAt(position + 1)))) {
+            return number(start);
+        }
+        if (c == '"' || c == '\'') {
+            return string(start, c);
+        }
+        position++;
+        switch (c) {
+            case '(':
+                return new Token(Token.Type.LEFT_PAREN, "(", 0, start);
+            case ')':
+                return new Token(Token.Type.RIGHT_PAREN, ")", 0, start);
+            case '{':
+                return new Token(Token.Type.LEFT_BRACE, "{", 0, start);
+            case '}':
+                return new Token(Token.Type.RIGHT_BRACE, "}", 0, start);
+            case '[':
+                return new Token(Token.Type.LEFT_BRACKET, "[", 0, start);
+            case ']':
+                return new Token(Token.Type.RIGHT_BRACKET, "]", 0, start);
+            case ',':
+                return new Token(Token.Type.COMMA, ",", 0, start);
+            case '+':
+                return new Token(Token.Type.PLUS, "+", 0, start);
+            case '-':
+                return new Token(Token.Type.MINUS, "-", 0, start);
+            case '*':
+                return new Token(Token.Type.STAR, "*", 0, start);
+            case '/':
+                return new Token(Token.Type.SLASH, "/", 0, start);
+            case '=':
+                if (consume('~')) {
+                    return new Token(Token.Type.REGEX_MATCH, "=~", 0, start);
+                }
+                return new Token(Token.Type.EQ, "=", 0, start);
+            case '!':
+                if (consume('=')) {
+                    return new Token(Token.Type.NEQ, "!=", 0, start);
+                }
+                if (consume('~')) {
+                    return new Token(Token.Type.REGEX_NOT_MATCH, "!~", 0, start);
+                }
+                break;
+            default:
+                break;
+        }
+        throw new QueryParseException("Unexpected character '" + c + "'", query, start);
+    }
+
+    private boolean consume(char expected) {
+        if (position < query.length() && query.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == ':';
+    }
+
+    private Token number(int start) {
+        while (position < query.length()
+                && (Character.isDigit(query.charAt(position)) || query.charAt(position) == '.')) {
+            position++;
+        }
+        if (position < query.length() && (query.charAt(position) == 'e' || query.charAt(position) == 'E')
+                && position + 1 < query.length() && (Character.isDigit(query.charAt(position + 1))
+                || query.charAt(position + 1) == '-' || query.charAt(position + 1) == '+')) {
+            position += 2;
+            while (position < query.length() && Character.isDigit(query.charAt(position))) {
+                position++;
+            }
+        }
+        String digits = query.substring(start, position);
+        double value;
+        try {
+            value = Double.parseDouble(digits);
+        } catch (NumberFormatException e) {
+            throw new QueryParseException("Invalid number '" + digits + "'", query, start);
+        }
+
+        int unitStart = position;
+        while (position < query.length() && Character.isLetter(query.charAt(position))) {
+            position++;
+        }
+        if (unitStart == position) {
+            return new Token(Token.Type.NUMBER, digits, value, start);
+        }
+        String unit = query.substring(unitStart, position);
+        long unitMillis = unitMillis(unit);
+        if (unitMillis < 0) {
+            throw new QueryParseException("Unknown duration unit '" + unit + "'", query, unitStart);
+        }
+        return new Token(Token.Type.DURATION, query.substring(start, position), value * unitMillis, start);
+    }
+
+    private static long unitMillis(String unit) {
+        switch (unit) {
+            case "ms":
+                return 1;
+            case "s":
+                return 1000;
+            case "m":
+                return 60_000;
+            case "h":
+                return 3_600_000;
+            case "d":
+                return 86_400_000;
+            case "w":
+                return 604_800_000;
+            default:
+                return -1;
+        }
+    }
+
+    private Token string(int start, char quote) {
+        position++;
+        StringBuilder builder = new StringBuilder();
+        while (position < query.length()) {
+            char c = query.charAt(position++);
+            if (c == quote) {
+                return new Token(Token.Type.STRING, builder.toString(), 0, start);
+            }
+            if (c == '\\' && position < query.length()) {
+                c = query.charAt(position++);
+            }
+            builder.append(c);
+        }
+        throw new QueryParseException("Unterminated string", query, start);
+    }
+}
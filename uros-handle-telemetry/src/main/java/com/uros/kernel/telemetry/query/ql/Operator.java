@@ -0,0 +1,38 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 执行计划中的算子（拉取模型）
+ * 上游算子每次调用 {@link #next()} 拉取下一批求值时刻的结果，所有算子按相同的时刻批次同步推进
+ */
+interface Operator {
+
+    /**
+     * @return 输出序列的标签，顺序与 {@link StepBatch#values} 的第一维一致
+     */
+    List<Map<String, String>> getSeries();
+
+    /**
+     * @return 下一批结果，已到结束时间时返回null
+     */
+    StepBatch next();
+
+    /**
+     * @return 是否为标量（没有标签的单个值）
+     */
+    default boolean isScalar() {
+        return false;
+    }
+
+    /**
+     * @return 算子说明，用于展示执行计划
+     */
+    String describe();
+
+    /**
+     * @return 子算子
+     */
+    List<Operator> getChildren();
+}
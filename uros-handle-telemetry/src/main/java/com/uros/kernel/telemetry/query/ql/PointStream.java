@@ -0,0 +1,77 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import com.uros.kernel.telemetry.query.PointCursor;
+
+/**
+ * 在游标之上逐点读取的序列数据流，首次读取时才打开游标
+ */
+class PointStream {
+
+    private static final int BUFFER_SIZE = 512;
+
+    private final QueryContext context;
+
+    private final ResolvedSeries series;
+
+    private final long startTime;
+
+    private final long endTime;
+
+    private PointCursor cursor;
+
+    private final long[] timestamps = new long[BUFFER_SIZE];
+
+    private final double[] values = new double[BUFFER_SIZE];
+
+    private int position;
+
+    private int size;
+
+    private boolean exhausted;
+
+    PointStream(QueryContext context, ResolvedSeries series, long startTime, long endTime) {
+        this.context = context;
+        this.series = series;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    /**
+     * @return 是否还有数据点
+     */
+    boolean hasPoint() {
+        if (position < size) {
+            return true;
+        }
+        if (exhausted) {
+            return false;
+        }
+        if (cursor == null) {
+            cursor = context.telemetryService.openPointCursor(
+                    series.getSourceId(), series.getMetricName(), startTime, endTime);
+            if (cursor == null) {
+                exhausted = true;
+                return false;
+            }
+        }
+        size = cursor.next(timestamps, values);
+        position = 0;
+        context.pointsRead += size;
+        if (size < BUFFER_SIZE) {
+            exhausted = true;
+        }
+        return size > 0;
+    }
+
+    long timestamp() {
+        return timestamps[position];
+    }
+
+    double value() {
+        return values[position];
+    }
+
+    void advance() {
+        position++;
+    }
+}
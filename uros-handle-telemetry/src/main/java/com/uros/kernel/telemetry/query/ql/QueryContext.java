@@ -0,0 +1,78 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+
+/**
+ * 一次查询的求值时间轴和执行参数
+ */
+class QueryContext {
+
+    /** 每批最多的求值时刻数 */
+    static final int BATCH_STEPS = 128;
+
+    /** 最多的求值时刻数 */
+    static final int MAX_STEPS = 11_000;
+
+    final TelemetryService telemetryService;
+
+    final long start;
+
+    final long end;
+
+    final long step;
+
+    final int stepCount;
+
+    /** 瞬时选择器向前查找最近数据点的时间范围 */
+    final long lookbackMillis;
+
+    /** 单个选择器最多匹配的序列数 */
+    final int maxSeries;
+
+    /** 已读取的原始数据点数 */
+    long pointsRead;
+
+    /** 计数器数据块汇总次数 */
+    long counterSummaries;
+
+    QueryContext(TelemetryService telemetryService, long start, long end, long step,
+                 long lookbackMillis, int maxSeries) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("Step must be positive: " + step);
+        }
+        if (end < start) {
+            throw new IllegalArgumentException("End time must not be before start time");
+        }
+        long span;
+        try {
+            span = Math.subtractExact(end, start);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Query time range is too large: " + start + " to " + end);
+        }
+        long steps = span / step + 1;
+        if (steps > MAX_STEPS) {
+            throw new IllegalArgumentException("Query would produce " + steps + " steps, limit is " + MAX_STEPS);
+        }
+        this.telemetryService = telemetryService;
+        this.start = start;
+        this.end = end;
+        this.step = step;
+        this.stepCount = (int) steps;
+        this.lookbackMillis = lookbackMillis;
+        this.maxSeries = maxSeries;
+    }
+
+    /**
+     * 填充从第from个时刻开始的一批时刻
+     *
+     * @return 本批时刻数，0表示已结束
+     */
+    int fillSteps(StepBatch batch, int from) {
+        int size = Math.min(batch.timestamps.length, stepCount - from);
+        for (int i = 0; i < size; i++) {
+            batch.timestamps[i] = start + (from + i) * step;
+        }
+        batch.size = Math.max(0, size);
+        return batch.size;
+    }
+}
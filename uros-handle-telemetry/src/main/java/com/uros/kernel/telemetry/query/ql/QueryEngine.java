@@ -0,0 +1,141 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 遥测查询引擎
+ * 查询语句经解析、计划后由算子树按时刻批次拉取执行，原始数据点按序列流式读取，不整体加载到内存
+ */
+@Component
+public class QueryEngine {
+
+    private final TelemetryService telemetryService;
+
+    private final long lookbackMillis;
+
+    private final int maxSeries;
+
+    /**
+     * 构造函数
+     *
+     * @param telemetryService 遥测服务
+     * @param lookbackMillis 瞬时选择器向前查找最近数据点的时间范围（毫秒）
+     * @param maxSeries 单个选择器最多匹配的序列数
+     */
+    public QueryEngine(
+            TelemetryService telemetryService,
+            @Value("${uros.telemetry.query.lookback-ms:300000}") long lookbackMillis,
+            @Value("${uros.telemetry.query.max-series:10000}") int maxSeries) {
+        if (lookbackMillis <= 0 || maxSeries <= 0) {
+            throw new IllegalArgumentException("Query lookback and series limit must be positive");
+        }
+        this.telemetryService = telemetryService;
+        this.lookbackMillis = lookbackMillis;
+        this.maxSeries = maxSeries;
+    }
+
+    /**
+     * 在时间范围内按固定步长求值查询语句
+     *
+     * @param query 查询语句
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param step 步长（毫秒）
+     * @return 求值时刻、各序列的标签和值（没有值的时刻为null）以及执行统计
+     */
+    public Map<String, Object> execute(String query, long startTime, long endTime, long step) {
+        QueryContext context = new QueryContext(telemetryService, startTime, endTime, step, lookbackMillis, maxSeries);
+        Operator root = new QueryPlanner(context).plan(QueryParser.parse(query));
+
+        List<Map<String, String>> labels = root.getSeries();
+        double[][] values = new double[labels.size()][context.stepCount];
+        long[] timestamps = new long[context.stepCount];
+        int filled = 0;
+        StepBatch batch;
+        while ((batch = root.next()) != null) {
+            System.arraycopy(batch.timestamps, 0, timestamps, filled, batch.size);
+            for (int s = 0; s < labels.size(); s++) {
+                System.arraycopy(batch.values[s], 0, values[s], filled, batch.size);
+            }
+            filled += batch.size;
+        }
+
+        List<Long> times = new ArrayList<>(filled);
+        for (int i = 0; i < filled; i++) {
+            times.add(timestamps[i]);
+        }
+        List<Map<String, Object>> series = new ArrayList<>();
+        for (int s = 0; s < labels.size(); s++) {
+            List<Double> seriesValues = new ArrayList<>(filled);
+            boolean present = false;
+            for (int i = 0; i < filled; i++) {
+                double value = values[s][i];
+                boolean missing = Double.isNaN(value) || Double.isInfinite(value);
+                seriesValues.add(missing ? null : value);
+                present |= !missing;
+            }
+            if (!present) {
+                continue;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("labels", labels.get(s));
+            entry.put("values", seriesValues);
+            series.add(entry);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("steps", filled);
+        stats.put("pointsRead", context.pointsRead);
+        stats.put("counterSummaries", context.counterSummaries);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("query", query);
+        result.put("resultType", root.isScalar() ? "scalar" : "matrix");
+        result.put("timestamps", times);
+        result.put("series", series);
+        result.put("stats", stats);
+        return result;
+    }
+
+    /**
+     * 生成查询的执行计划，不读取数据点
+     *
+     * @param query 查询语句
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param step 步长（毫秒）
+     * @return 语法树和缩进的算子树
+     */
+    public Map<String, Object> explain(String query, long startTime, long endTime, long step) {
+        QueryContext context = new QueryContext(telemetryService, startTime, endTime, step, lookbackMillis, maxSeries);
+        Expr expr = QueryParser.parse(query);
+        Operator root = new QueryPlanner(context).plan(expr);
+        List<String> plan = new ArrayList<>();
+        describe(root, 0, plan);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("query", query);
+        result.put("parsed", expr.toString());
+        result.put("steps", context.stepCount);
+        result.put("plan", plan);
+        return result;
+    }
+
+    private static void describe(Operator operator, int depth, List<String> lines) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            line.append("  ");
+        }
+        lines.add(line.append(operator.describe()).toString());
+        for (Operator child : operator.getChildren()) {
+            describe(child, depth + 1, lines);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import com.uros.kernel.telemetry.exception.QueryParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 查询语句解析器（递归下降）
+ * <pre>
+ * expr      := term (('+' | '-') term)*
+ * term      := unary (('*' | '/') unary)*
+ * unary     := '-' unary | primary
+ * primary   := NUMBER | '(' expr ')' | aggregate | call | selector
+ * aggregate := AGG [grouping] '(' expr ')' [grouping]
+ * grouping  := ('by' | 'without') '(' [label (',' label)*] ')'
+ * call      := FUNCTION '(' selector ')'            -- 参数必须带时间窗口
+ * selector  := [metric] ['{' [matcher (',' matcher)*] '}'] ['[' DURATION ']']
+ * matcher   := label ('=' | '!=' | '=~' | '!~') STRING
+ * </pre>
+ */
+public class QueryParser {
+
+    private final String query;
+
+    private final List<Token> tokens;
+
+    private int index;
+
+    private QueryParser(String query) {
+        this.query = query;
+        this.tokens = new Lexer(query).tokenize();
+    }
+
+    /**
+     * 解析查询语句
+     *
+     * @param query 查询语句
+     * @return 语法树
+     * @throws QueryParseException 语法错误
+     */
+    public static Expr parse(String query) {
+        if (query == null || query.isBlank()) {
+            throw new QueryParseException("Empty query", String.valueOf(query), 0);
+        }
+        QueryParser parser = new QueryParser(query);
+        Expr expr = parser.expression();
+        parser.expect(Token.Type.EOF);
+        if (expr instanceof Expr.Selector && ((Expr.Selector) expr).getRangeMillis() > 0) {
+            throw parser.error("Range selector must be used inside a range function", 0);
+        }
+        return expr;
+    }
+
+    private Expr expression() {
+        Expr left = term();
+        while (peek().type == Token.Type.PLUS || peek().type == Token.Type.MINUS) {
+            char op = next().text.charAt(0);
+            left = new Expr.Binary(op, left, term());
+        }
+        return left;
+    }
+
+    private Expr term() {
+        Expr left = unary();
+        while (peek().type == Token.Type.STAR || peek().type == Token.Type.SLASH) {
+            char op = next().text.charAt(0);
+            left = new Expr.Binary(op, left, unary());
+        }
+        return left;
+    }
+
+    private Expr unary() {
+        if (peek().type == Token.Type.MINUS) {
+            next();
+            Expr operand = unary();
+            if (operand instanceof Expr.NumberLiteral) {
+                return new Expr.NumberLiteral(-((Expr.NumberLiteral) operand).getValue());
+            }
+            return new Expr.Binary('*', new Expr.NumberLiteral(-1), operand);
+        }
+        return primary();
+    }
+
+    private Expr primary() {
+        Token token = peek();
+        switch (token.type) {
+            case NUMBER:
+                next();
+                return new Expr.NumberLiteral(token.number);
+            case LEFT_PAREN:
+                next();
+                Expr inner = expression();
+                expect(Token.Type.RIGHT_PAREN);
+                return inner;
+            case LEFT_BRACE:
+                return selector(null);
+            case IDENTIFIER:
+                return identifier();
+            default:
+                throw error("Unexpected " + token, token.position);
+        }
+    }
+
+    private Expr identifier() {
+        Token name = next();
+        Token following = peek();
+        AggregateOp aggregateOp = AggregateOp.of(name.text);
+        if (aggregateOp != null && (following.type == Token.Type.LEFT_PAREN || isGroupingKeyword(following))) {
+            return aggregate(aggregateOp);
+        }
+        if (following.type == Token.Type.LEFT_PAREN) {
+            RangeFunction function = RangeFunction.of(name.text);
+            if (function == null) {
+                throw error("Unknown function '" + name.text + "'", name.position);
+            }
+            next();
+            Token argumentStart = peek();
+            Expr argument = expression();
+            expect(Token.Type.RIGHT_PAREN);
+            if (!(argument instanceof Expr.Selector) || ((Expr.Selector) argument).getRangeMillis() <= 0) {
+                throw error("Function '" + name.text + "' expects a range selector such as metric[5m]",
+                        argumentStart.position);
+            }
+            return new Expr.Call(function, (Expr.Selector) argument);
+        }
+        return selector(name.text);
+    }
+
+    private static boolean isGroupingKeyword(Token token) {
+        return token.type == Token.Type.IDENTIFIER && ("by".equals(token.text) || "without".equals(token.text));
+    }
+
+    private Expr aggregate(AggregateOp op) {
+        List<String> grouping = new ArrayList<>();
+        boolean without = false;
+        boolean grouped = false;
+        if (isGroupingKeyword(peek())) {
+            without = "without".equals(next().text);
+            grouping = labelList();
+            grouped = true;
+        }
+        expect(Token.Type.LEFT_PAREN);
+        Expr argument = expression();
+        expect(Token.Type.RIGHT_PAREN);
+        if (isGroupingKeyword(peek())) {
+            Token keyword = next();
+            if (grouped) {
+                throw error("Duplicate grouping clause", keyword.position);
+            }
+            without = "without".equals(keyword.text);
+            grouping = labelList();
+        }
+        return new Expr.Aggregate(op, grouping, without, argument);
+    }
+
+    private List<String> labelList() {
+        expect(Token.Type.LEFT_PAREN);
+        List<String> labels = new ArrayList<>();
+        if (peek().type != Token.Type.RIGHT_PAREN) {
+            labels.add(expect(Token.Type.IDENTIFIER).text);
+            while (peek().type == Token.Type.COMMA) {
+                next();
+                labels.add(expect(Token.Type.IDENTIFIER).text);
+            }
+        }
+        expect(Token.Type.RIGHT_PAREN);
+        return labels;
+    }
+
+    private Expr.Selector selector(String metricName) {
+        List<LabelMatcher> matchers = new ArrayList<>();
+        if (peek().type == Token.Type.LEFT_BRACE) {
+            next();
+            while (peek().type != Token.Type.RIGHT_BRACE) {
+                if (!matchers.isEmpty()) {
+                    expect(Token.Type.COMMA);
+                }
+                matchers.add(matcher());
+            }
+            next();
+        }
+        long range = 0;
+        if (peek().type == Token.Type.LEFT_BRACKET) {
+            next();
+            Token duration = expect(Token.Type.DURATION);
+            range = (long) duration.number;
+            if (range <= 0) {
+                throw error("Range must be positive", duration.position);
+            }
+            expect(Token.Type.RIGHT_BRACKET);
+        }
+        return new Expr.Selector(metricName, matchers, range);
+    }
+
+    private LabelMatcher matcher() {
+        String label = expect(Token.Type.IDENTIFIER).text;
+        Token op = next();
+        LabelMatcher.Op matchOp;
+        switch (op.type) {
+            case EQ:
+                matchOp = LabelMatcher.Op.EQ;
+                break;
+            case NEQ:
+                matchOp = LabelMatcher.Op.NEQ;
+                break;
+            case REGEX_MATCH:
+                matchOp = LabelMatcher.Op.REGEX;
+                break;
+            case REGEX_NOT_MATCH:
+                matchOp = LabelMatcher.Op.NOT_REGEX;
+                break;
+            default:
+                throw error("Expected label matcher operator but found " + op, op.position);
+        }
+        Token value = expect(Token.Type.STRING);
+        try {
+            return new LabelMatcher(label, matchOp, value.text);
+        } catch (PatternSyntaxException e) {
+            throw error("Invalid regular expression '" + value.text + "'", value.position);
+        }
+    }
+
+    private Token peek() {
+        return tokens.get(index);
+    }
+
+    private Token next() {
+        Token token = tokens.get(index);
+        if (token.type != Token.Type.EOF) {
+            index++;
+        }
+        return token;
+    }
+
+    private Token expect(Token.Type type) {
+        Token token = peek();
+        if (token.type != type) {
+            throw error("Expected " + type.name().toLowerCase().replace('_', ' ') + " but found " + token,
+                    token.position);
+        }
+        return next();
+    }
+
+    private QueryParseException error(String message, int position) {
+        return new QueryParseException(message, query, position);
+    }
+}
@@ -0,0 +1,115 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import com.uros.kernel.telemetry.index.SeriesTagIndex;
+import com.uros.kernel.telemetry.model.MetricKind;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 查询计划器：把语法树转换为算子树
+ * 选择器中的等值条件下推到倒排索引求交，其余条件在候选序列上过滤；
+ * 时间范围按窗口和回看范围下推到每个序列的读取游标
+ */
+class QueryPlanner {
+
+    private final QueryContext context;
+
+    QueryPlanner(QueryContext context) {
+        this.context = context;
+    }
+
+    Operator plan(Expr expr) {
+        if (expr instanceof Expr.NumberLiteral) {
+            return new ScalarOperator(context, ((Expr.NumberLiteral) expr).getValue());
+        }
+        if (expr instanceof Expr.Selector) {
+            Expr.Selector selector = (Expr.Selector) expr;
+            return new SelectorOperator(context, selector, resolve(selector));
+        }
+        if (expr instanceof Expr.Call) {
+            Expr.Call call = (Expr.Call) expr;
+            return new RangeFunctionOperator(context, call, resolve(call.getArgument()));
+        }
+        if (expr instanceof Expr.Aggregate) {
+            Expr.Aggregate aggregate = (Expr.Aggregate) expr;
+            Operator child = plan(aggregate.getArgument());
+            if (child.isScalar()) {
+                throw new IllegalArgumentException("Aggregation requires a vector argument: " + aggregate);
+            }
+            return new AggregateOperator(aggregate, child);
+        }
+        if (expr instanceof Expr.Binary) {
+            Expr.Binary binary = (Expr.Binary) expr;
+            return new BinaryArithmeticOperator(binary.getOp(), plan(binary.getLeft()), plan(binary.getRight()));
+        }
+        throw new IllegalArgumentException("Unsupported expression: " + expr);
+    }
+
+    /**
+     * 解析选择器匹配的序列，直方图序列没有原始数据点，不参与查询
+     */
+    List<ResolvedSeries> resolve(Expr.Selector selector) {
+        Map<String, String> indexMatchers = new HashMap<>();
+        for (LabelMatcher matcher : selector.getMatchers()) {
+            if (matcher.getOp() != LabelMatcher.Op.EQ) {
+                continue;
+            }
+            String name = matcher.getName();
+            if (name.equals(ResolvedSeries.NAME_LABEL)) {
+                continue;
+            }
+            String indexName = name.equals(ResolvedSeries.SOURCE_LABEL) ? SeriesTagIndex.SOURCE_TAG : name;
+            String previous = indexMatchers.put(indexName, matcher.getValue());
+            if (previous != null && !previous.equals(matcher.getValue())) {
+                return new ArrayList<>();
+            }
+        }
+        String metricName = selector.getMetricName();
+        if (metricName == null && indexMatchers.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Selector must have a metric name or at least one equality matcher: " + selector);
+        }
+
+        List<ResolvedSeries> result = new ArrayList<>();
+        for (Map<String, Object> candidate : context.telemetryService.selectSeries(metricName, indexMatchers)) {
+            String sourceId = (String) candidate.get("sourceId");
+            String name = (String) candidate.get("metricName");
+            @SuppressWarnings("unchecked")
+            Map<String, String> tags = (Map<String, String>) candidate.get("tags");
+            Map<String, String> labels = new TreeMap<>();
+            if (tags != null) {
+                labels.putAll(tags);
+            }
+            labels.put(ResolvedSeries.SOURCE_LABEL, sourceId);
+            labels.put(ResolvedSeries.NAME_LABEL, name);
+            if (!matchesAll(selector.getMatchers(), labels)) {
+                continue;
+            }
+            MetricKind kind = context.telemetryService.getMetricKind(sourceId, name);
+            if (kind == MetricKind.HISTOGRAM) {
+                continue;
+            }
+            if (result.size() >= context.maxSeries) {
+                throw new IllegalArgumentException("Selector " + selector + " matches more than "
+                        + context.maxSeries + " series");
+            }
+            result.add(new ResolvedSeries(sourceId, name, kind, labels));
+        }
+        result.sort(Comparator.comparing(ResolvedSeries::getMetricName).thenComparing(ResolvedSeries::getSourceId));
+        return result;
+    }
+
+    private static boolean matchesAll(List<LabelMatcher> matchers, Map<String, String> labels) {
+        for (LabelMatcher matcher : matchers) {
+            if (!matcher.matches(labels.get(matcher.getName()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
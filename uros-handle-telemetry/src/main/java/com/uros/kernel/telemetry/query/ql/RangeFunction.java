@@ -0,0 +1,49 @@
+package com.uros.kernel.telemetry.query.ql;
+
+/**
+ * 窗口函数，对每个序列在 (t - 窗口, t] 内的原始数据点求值
+ */
+public enum RangeFunction {
+    /** 每秒增长率（计数器回零视为从0重新计数） */
+    RATE("rate"),
+    /** 窗口内的增量（计数器回零视为从0重新计数） */
+    INCREASE("increase"),
+    /** 窗口内最后一个值与第一个值之差 */
+    DELTA("delta"),
+    AVG_OVER_TIME("avg_over_time"),
+    SUM_OVER_TIME("sum_over_time"),
+    MIN_OVER_TIME("min_over_time"),
+    MAX_OVER_TIME("max_over_time"),
+    COUNT_OVER_TIME("count_over_time"),
+    LAST_OVER_TIME("last_over_time");
+
+    private final String name;
+
+    RangeFunction(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param name 函数名
+     * @return 对应的窗口函数，未知时返回null
+     */
+    public static RangeFunction of(String name) {
+        for (RangeFunction function : values()) {
+            if (function.name.equals(name)) {
+                return function;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return 是否按计数器语义计算，可使用计数器数据块汇总
+     */
+    public boolean isCounterFunction() {
+        return this == RATE || this == INCREASE;
+    }
+}
@@ -0,0 +1,229 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import com.uros.kernel.telemetry.model.CounterData;
+import com.uros.kernel.telemetry.model.MetricKind;
+import com.uros.kernel.telemetry.simd.AggregationKernels;
+import com.uros.kernel.telemetry.simd.RangeStats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 窗口函数：每个时刻对各序列在 (t - 窗口, t] 内的数据点求值
+ * 读取范围下推为 [开始时间 - 窗口 + 1, 结束时间]，原始数据点只顺序读取一次，在滑动窗口中增删；
+ * 计数器序列上的 rate/increase 改为按窗口向存储请求汇总，完整落在窗口内的数据块直接使用块头，不解码
+ */
+class RangeFunctionOperator implements Operator {
+
+    private final QueryContext context;
+
+    private final Expr.Call call;
+
+    private final RangeFunction function;
+
+    private final long range;
+
+    private final List<ResolvedSeries> series;
+
+    private final List<Map<String, String>> labels;
+
+    /** 原始数据读取的序列为非null；使用计数器汇总的序列为null */
+    private final PointStream[] streams;
+
+    private final Window[] windows;
+
+    private final StepBatch batch;
+
+    /** *_over_time 函数的窗口统计，每次求值前清空复用 */
+    private final RangeStats stats = new RangeStats();
+
+    private int counterSeries;
+
+    private int stepIndex;
+
+    RangeFunctionOperator(QueryContext context, Expr.Call call, List<ResolvedSeries> series) {
+        this.context = context;
+        this.call = call;
+        this.function = call.getFunction();
+        this.range = call.getArgument().getRangeMillis();
+        this.series = series;
+        this.labels = new ArrayList<>(series.size());
+        this.streams = new PointStream[series.size()];
+        this.windows = new Window[series.size()];
+        for (int i = 0; i < series.size(); i++) {
+            ResolvedSeries resolved = series.get(i);
+            labels.add(withoutName(resolved.getLabels()));
+            if (function.isCounterFunction() && resolved.getKind() == MetricKind.COUNTER) {
+                counterSeries++;
+            } else {
+                streams[i] = new PointStream(context, resolved, context.start - range + 1, context.end);
+                windows[i] = new Window();
+            }
+        }
+        this.batch = new StepBatch(series.size(), QueryContext.BATCH_STEPS);
+    }
+
+    static Map<String, String> withoutName(Map<String, String> labels) {
+        if (!labels.containsKey(ResolvedSeries.NAME_LABEL)) {
+            return labels;
+        }
+        Map<String, String> result = new TreeMap<>(labels);
+        result.remove(ResolvedSeries.NAME_LABEL);
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public List<Map<String, String>> getSeries() {
+        return labels;
+    }
+
+    @Override
+    public StepBatch next() {
+        int size = context.fillSteps(batch, stepIndex);
+        if (size == 0) {
+            return null;
+        }
+        stepIndex += size;
+        for (int s = 0; s < streams.length; s++) {
+            double[] out = batch.values[s];
+            if (streams[s] == null) {
+                ResolvedSeries resolved = series.get(s);
+                for (int i = 0; i < size; i++) {
+                    long t = batch.timestamps[i];
+                    CounterData.Summary summary = context.telemetryService.summarizeCounter(
+                            resolved.getSourceId(), resolved.getMetricName(), t - range + 1, t);
+                    context.counterSummaries++;
+                    out[i] = summary == null || summary.getCount() < 2 ? Double.NaN : counterResult(summary.getIncrease());
+                }
+                continue;
+            }
+            PointStream stream = streams[s];
+            Window window = windows[s];
+            for (int i = 0; i < size; i++) {
+                long t = batch.timestamps[i];
+                while (stream.hasPoint() && stream.timestamp() <= t) {
+                    window.add(stream.timestamp(), stream.value());
+                    stream.advance();
+                }
+                window.evictUpTo(t - range);
+                out[i] = evaluate(window);
+            }
+        }
+        return batch;
+    }
+
+    private double counterResult(double increase) {
+        return function == RangeFunction.RATE ? increase / (range / 1000.0) : increase;
+    }
+
+    private double evaluate(Window window) {
+        int count = window.size;
+        if (count == 0) {
+            return Double.NaN;
+        }
+        switch (function) {
+            case COUNT_OVER_TIME:
+                return count;
+            case LAST_OVER_TIME:
+                return window.value(count - 1);
+            case DELTA:
+                return count < 2 ? Double.NaN : window.value(count - 1) - window.value(0);
+            case RATE:
+            case INCREASE: {
+                if (count < 2) {
+                    return Double.NaN;
+                }
+                double increase = 0;
+                double previous = window.value(0);
+                for (int i = 1; i < count; i++) {
+                    double value = window.value(i);
+                    // 新值小于旧值视为计数器从0重新开始
+                    increase += value >= previous ? value - previous : value;
+                    previous = value;
+                }
+                return counterResult(increase);
+            }
+            default:
+                break;
+        }
+        window.accumulate(stats);
+        switch (function) {
+            case SUM_OVER_TIME:
+                return stats.getSum();
+            case MIN_OVER_TIME:
+                return stats.getMin();
+            case MAX_OVER_TIME:
+                return stats.getMax();
+            default:
+                return stats.getMean();
+        }
+    }
+
+    @Override
+    public String describe() {
+        String tier = counterSeries == 0 ? "raw"
+                : counterSeries == series.size() ? "counter-chunks"
+                : "counter-chunks x" + counterSeries + ", raw x" + (series.size() - counterSeries);
+        return "RangeFunction " + function.getName() + " range=" + range + "ms tier=" + tier
+                + " series=" + series.size() + " read=[" + (context.start - range + 1) + ", " + context.end + "]"
+                + " selector=" + call.getArgument();
+    }
+
+    @Override
+    public List<Operator> getChildren() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 按时间升序的滑动窗口（环形缓冲）
+     */
+    private static class Window {
+        private long[] timestamps = new long[16];
+        private double[] values = new double[16];
+        private int head;
+        private int size;
+
+        private void add(long timestamp, double value) {
+            if (size == timestamps.length) {
+                long[] newTimestamps = new long[size * 2];
+                double[] newValues = new double[size * 2];
+                for (int i = 0; i < size; i++) {
+                    newTimestamps[i] = timestamps[(head + i) % size];
+                    newValues[i] = values[(head + i) % size];
+                }
+                timestamps = newTimestamps;
+                values = newValues;
+                head = 0;
+            }
+            int index = (head + size) % timestamps.length;
+            timestamps[index] = timestamp;
+            values[index] = value;
+            size++;
+        }
+
+        private void evictUpTo(long cutoff) {
+            while (size > 0 && timestamps[head] <= cutoff) {
+                head = (head + 1) % timestamps.length;
+                size--;
+            }
+        }
+
+        private double value(int i) {
+            return values[(head + i) % values.length];
+        }
+
+        /**
+         * 把窗口内的值累加到统计中，环形缓冲最多分为两段连续数组
+         */
+        private void accumulate(RangeStats stats) {
+            stats.reset();
+            AggregationKernels kernels = AggregationKernels.get();
+            int firstEnd = Math.min(values.length, head + size);
+            kernels.accumulate(values, head, firstEnd, stats);
+            kernels.accumulate(values, 0, size - (firstEnd - head), stats);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import com.uros.kernel.telemetry.model.MetricKind;
+
+import java.util.Map;
+
+/**
+ * 选择器匹配到的序列
+ */
+class ResolvedSeries {
+
+    /** 数据源ID标签 */
+    static final String SOURCE_LABEL = "sourceId";
+
+    /** 指标名称标签 */
+    static final String NAME_LABEL = "__name__";
+
+    private final String sourceId;
+
+    private final String metricName;
+
+    private final MetricKind kind;
+
+    private final Map<String, String> labels;
+
+    ResolvedSeries(String sourceId, String metricName, MetricKind kind, Map<String, String> labels) {
+        this.sourceId = sourceId;
+        this.metricName = metricName;
+        this.kind = kind;
+        this.labels = labels;
+    }
+
+    String getSourceId() {
+        return sourceId;
+    }
+
+    String getMetricName() {
+        return metricName;
+    }
+
+    MetricKind getKind() {
+        return kind;
+    }
+
+    Map<String, String> getLabels() {
+        return labels;
+    }
+}
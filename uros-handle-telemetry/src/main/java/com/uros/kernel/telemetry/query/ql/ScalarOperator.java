@@ -0,0 +1,57 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 常量：每个时刻输出同一个值
+ */
+class ScalarOperator implements Operator {
+
+    private final QueryContext context;
+
+    private final double value;
+
+    private final StepBatch batch;
+
+    private int stepIndex;
+
+    ScalarOperator(QueryContext context, double value) {
+        this.context = context;
+        this.value = value;
+        this.batch = new StepBatch(1, QueryContext.BATCH_STEPS);
+    }
+
+    @Override
+    public List<Map<String, String>> getSeries() {
+        return Collections.singletonList(Collections.emptyMap());
+    }
+
+    @Override
+    public StepBatch next() {
+        int size = context.fillSteps(batch, stepIndex);
+        if (size == 0) {
+            return null;
+        }
+        stepIndex += size;
+        Arrays.fill(batch.values[0], 0, size, value);
+        return batch;
+    }
+
+    @Override
+    public boolean isScalar() {
+        return true;
+    }
+
+    @Override
+    public String describe() {
+        return "Scalar " + value;
+    }
+
+    @Override
+    public List<Operator> getChildren() {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,84 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 瞬时选择器：每个时刻取各序列在 (t - 回看范围, t] 内的最后一个数据点
+ * 读取范围下推为 [开始时间 - 回看范围, 结束时间]
+ */
+class SelectorOperator implements Operator {
+
+    private final QueryContext context;
+
+    private final Expr.Selector selector;
+
+    private final List<Map<String, String>> labels;
+
+    private final PointStream[] streams;
+
+    private final double[] lastValues;
+
+    private final long[] lastTimestamps;
+
+    private final StepBatch batch;
+
+    private int stepIndex;
+
+    SelectorOperator(QueryContext context, Expr.Selector selector, List<ResolvedSeries> series) {
+        this.context = context;
+        this.selector = selector;
+        this.labels = new ArrayList<>(series.size());
+        this.streams = new PointStream[series.size()];
+        this.lastValues = new double[series.size()];
+        this.lastTimestamps = new long[series.size()];
+        for (int i = 0; i < series.size(); i++) {
+            labels.add(series.get(i).getLabels());
+            streams[i] = new PointStream(context, series.get(i), context.start - context.lookbackMillis + 1,
+                    context.end);
+            lastTimestamps[i] = Long.MIN_VALUE;
+        }
+        this.batch = new StepBatch(series.size(), QueryContext.BATCH_STEPS);
+    }
+
+    @Override
+    public List<Map<String, String>> getSeries() {
+        return labels;
+    }
+
+    @Override
+    public StepBatch next() {
+        int size = context.fillSteps(batch, stepIndex);
+        if (size == 0) {
+            return null;
+        }
+        stepIndex += size;
+        for (int s = 0; s < streams.length; s++) {
+            PointStream stream = streams[s];
+            double[] out = batch.values[s];
+            for (int i = 0; i < size; i++) {
+                long t = batch.timestamps[i];
+                while (stream.hasPoint() && stream.timestamp() <= t) {
+                    lastValues[s] = stream.value();
+                    lastTimestamps[s] = stream.timestamp();
+                    stream.advance();
+                }
+                out[i] = lastTimestamps[s] > t - context.lookbackMillis ? lastValues[s] : Double.NaN;
+            }
+        }
+        return batch;
+    }
+
+    @Override
+    public String describe() {
+        return "Selector " + selector + " series=" + streams.length
+                + " read=[" + (context.start - context.lookbackMillis + 1) + ", " + context.end + "]";
+    }
+
+    @Override
+    public List<Operator> getChildren() {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,19 @@
+package com.uros.kernel.telemetry.query.ql;
+
+/**
+ * 算子每次输出的一批求值时刻
+ * values[序列][时刻]，NaN表示该序列在该时刻没有值；数组由算子复用，只在下一次拉取前有效
+ */
+class StepBatch {
+
+    final long[] timestamps;
+
+    final double[][] values;
+
+    int size;
+
+    StepBatch(int seriesCount, int capacity) {
+        this.timestamps = new long[capacity];
+        this.values = new double[seriesCount][capacity];
+    }
+}
@@ -0,0 +1,41 @@
+package com.uros.kernel.telemetry.query.ql;
+
+/**
+ * 词法单元
+ */
+class Token {
+
+    /**
+     * 词法单元类型
+     */
+    enum Type {
+        IDENTIFIER, NUMBER, DURATION, STRING,
+        LEFT_PAREN, RIGHT_PAREN, LEFT_BRACE, RIGHT_BRACE, LEFT_BRACKET, RIGHT_BRACKET, COMMA,
+        EQ, NEQ, REGEX_MATCH, REGEX_NOT_MATCH,
+        PLUS, MINUS, STAR, SLASH,
+        EOF
+    }
+
+    final Type type;
+
+    /** 原文（字符串为去掉引号、处理转义后的内容） */
+    final String text;
+
+    /** 数值或时长（毫秒） */
+    final double number;
+
+    /** 在查询语句中的起始位置 */
+    final int position;
+
+    Token(Type type, String text, double number, int position) {
+        this.type = type;
+        this.text = text;
+        this.number = number;
+        this.position = position;
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.EOF ? "end of query" : "'" + text + "'";
+    }
+}
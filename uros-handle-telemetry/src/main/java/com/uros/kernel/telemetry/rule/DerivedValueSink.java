@@ -0,0 +1,18 @@
+package com.uros.kernel.telemetry.rule;
+
+/**
+ * 记录规则派生值的接收方
+ */
+@FunctionalInterface
+public interface DerivedValueSink {
+
+    /**
+     * 接收一个派生值
+     *
+     * @param sourceId 数据源ID
+     * @param ruleName 规则名称，即派生指标名称
+     * @param value 派生值
+     * @param timestamp 触发计算的数据点时间戳（毫秒）
+     */
+    void accept(String sourceId, String ruleName, double value, long timestamp);
+}
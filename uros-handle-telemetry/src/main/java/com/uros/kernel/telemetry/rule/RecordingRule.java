@@ -0,0 +1,81 @@
+package com.uros.kernel.telemetry.rule;
+
+/**
+ * 记录规则定义：对输入指标持续计算派生值，结果写入与输入同数据源、以规则名称为指标名的新序列
+ */
+public class RecordingRule {
+
+    /** 规则名称，同时是输出序列的指标名称 */
+    private final String name;
+
+    /** 输入指标名称 */
+    private final String metricName;
+
+    /** 计算函数 */
+    private final RuleFunction function;
+
+    /** 窗口长度（毫秒） */
+    private final long windowMillis;
+
+    /** 限定的数据源ID，为null时作用于所有数据源 */
+    private final String sourceId;
+
+    /**
+     * 构造函数
+     *
+     * @param name 规则名称（输出指标名称）
+     * @param metricName 输入指标名称
+     * @param function 计算函数
+     * @param windowMillis 窗口长度（毫秒），MOVING_SUM必须大于0，DERIVATIVE忽略
+     * @param sourceId 限定的数据源ID，可为null
+     */
+    public RecordingRule(String name, String metricName, RuleFunction function, long windowMillis, String sourceId) {
+        if (name == null || name.isEmpty() || metricName == null || metricName.isEmpty()) {
+            throw new IllegalArgumentException("Rule name and metric name must not be empty");
+        }
+        if (name.equals(metricName)) {
+            throw new IllegalArgumentException("Rule output must differ from its input metric: " + name);
+        }
+        if (function == null) {
+            throw new IllegalArgumentException("Rule function must not be null");
+        }
+        if (windowMillis < 0 || (function == RuleFunction.MOVING_SUM && windowMillis == 0)) {
+            throw new IllegalArgumentException("Invalid window for " + function + ": " + windowMillis);
+        }
+        this.name = name;
+        this.metricName = metricName;
+        this.function = function;
+        this.windowMillis = windowMillis;
+        this.sourceId = sourceId == null || sourceId.isEmpty() ? null : sourceId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public RuleFunction getFunction() {
+        return function;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public String getSourceId() {
+        return sourceId;
+    }
+
+    /**
+     * 判断规则是否作用于给定数据源
+     *
+     * @param sourceId 数据源ID
+     * @return 是否匹配
+     */
+    public boolean appliesTo(String sourceId) {
+        return this.sourceId == null || this.sourceId.equals(sourceId);
+    }
+}
@@ -0,0 +1,121 @@
+package com.uros.kernel.telemetry.rule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 记录规则引擎
+ * 规则按输入指标名称订阅，写入数据点时对匹配的规则做增量计算，派生值交给调用方写入输出序列。
+ * 派生值不会再次触发规则
+ */
+public class RecordingRuleEngine {
+
+    /** 输入指标名称 -> 订阅该指标的规则 */
+    private final Map<String, List<Binding>> bindingsByMetric = new ConcurrentHashMap<>();
+
+    /** 规则名称 -> 规则 */
+    private final Map<String, Binding> bindingsByName = new ConcurrentHashMap<>();
+
+    /**
+     * 添加规则，新规则从添加时起对新数据生效，不回填历史数据
+     *
+     * @param rule 规则
+     * @throws IllegalArgumentException 同名规则已存在，或规则输出被其他规则用作输入
+     */
+    public synchronized void addRule(RecordingRule rule) {
+        if (bindingsByName.containsKey(rule.getName())) {
+            throw new IllegalArgumentException("Recording rule already exists: " + rule.getName());
+        }
+        if (bindingsByMetric.containsKey(rule.getName()) || bindingsByName.containsKey(rule.getMetricName())) {
+            throw new IllegalArgumentException("Recording rules cannot be chained: " + rule.getName());
+        }
+        Binding binding = new Binding(rule);
+        bindingsByName.put(rule.getName(), binding);
+        bindingsByMetric.computeIfAbsent(rule.getMetricName(), k -> new CopyOnWriteArrayList<>()).add(binding);
+    }
+
+    /**
+     * 删除规则，已写入的输出序列保留
+     *
+     * @param name 规则名称
+     * @return 是否删除成功
+     */
+    public synchronized boolean removeRule(String name) {
+        Binding binding = bindingsByName.remove(name);
+        if (binding == null) {
+            return false;
+        }
+        List<Binding> bindings = bindingsByMetric.get(binding.rule.getMetricName());
+        bindings.remove(binding);
+        if (bindings.isEmpty()) {
+            bindingsByMetric.remove(binding.rule.getMetricName());
+        }
+        return true;
+    }
+
+    /**
+     * 获取所有规则
+     *
+     * @return 规则列表
+     */
+    public List<RecordingRule> getRules() {
+        List<RecordingRule> rules = new ArrayList<>(bindingsByName.size());
+        for (Binding binding : bindingsByName.values()) {
+            rules.add(binding.rule);
+        }
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * 判断指标是否被规则订阅，未订阅的指标写入时无需调用 {@link #evaluate}
+     *
+     * @param metricName 指标名称
+     * @return 是否被订阅
+     */
+    public boolean isSubscribed(String metricName) {
+        return !bindingsByMetric.isEmpty() && bindingsByMetric.containsKey(metricName);
+    }
+
+    /**
+     * 对一个新数据点计算所有订阅规则
+     *
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param value 数据值
+     * @param timestamp 时间戳
+     * @param output 派生值接收方，指标名称为规则名称
+     */
+    public void evaluate(String sourceId, String metricName, double value, long timestamp, DerivedValueSink output) {
+        List<Binding> bindings = bindingsByMetric.get(metricName);
+        if (bindings == null) {
+            return;
+        }
+        for (Binding binding : bindings) {
+            if (!binding.rule.appliesTo(sourceId)) {
+                continue;
+            }
+            RuleState state = binding.states.computeIfAbsent(sourceId,
+                    k -> new RuleState(binding.rule.getFunction(), binding.rule.getWindowMillis()));
+            double derived = state.apply(value, timestamp);
+            if (!Double.isNaN(derived) && !Double.isInfinite(derived)) {
+                output.accept(sourceId, binding.rule.getName(), derived, timestamp);
+            }
+        }
+    }
+
+    /**
+     * 规则及其在各数据源上的状态
+     */
+    private static class Binding {
+        private final RecordingRule rule;
+        private final Map<String, RuleState> states = new ConcurrentHashMap<>();
+
+        private Binding(RecordingRule rule) {
+            this.rule = rule;
+        }
+    }
+}
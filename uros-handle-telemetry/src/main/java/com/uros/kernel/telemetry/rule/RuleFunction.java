@@ -0,0 +1,13 @@
+package com.uros.kernel.telemetry.rule;
+
+/**
+ * 记录规则的计算函数
+ */
+public enum RuleFunction {
+    /** 计数器每秒增长率，计数器回零（重启）时以新值作为增量；窗口为0时使用相邻两点计算 */
+    RATE,
+    /** 量值每秒变化率（相邻两点），不做回零处理 */
+    DERIVATIVE,
+    /** 滑动窗口内的数据点之和 */
+    MOVING_SUM
+}
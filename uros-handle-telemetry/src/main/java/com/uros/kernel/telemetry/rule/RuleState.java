@@ -0,0 +1,131 @@
+package com.uros.kernel.telemetry.rule;
+
+/**
+ * 单条规则在单个数据源上的增量计算状态
+ * 每个数据点O(1)更新（窗口内数据点的淘汰为均摊O(1)），早于上一个数据点的乱序数据被忽略
+ */
+class RuleState {
+
+    private final RuleFunction function;
+
+    private final long windowMillis;
+
+    private boolean hasLast;
+
+    private double lastValue;
+
+    private long lastTimestamp;
+
+    /** 计数器去除回零后的累计增量 */
+    private double counterTotal;
+
+    /** 窗口内的数据点，环形数组 */
+    private long[] windowTimes = new long[16];
+
+    private double[] windowValues = new double[16];
+
+    private int windowHead;
+
+    private int windowSize;
+
+    private double windowSum;
+
+    RuleState(RuleFunction function, long windowMillis) {
+        this.function = function;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * 输入一个数据点
+     *
+     * @param value 数据值
+     * @param timestamp 时间戳
+     * @return 派生值，没有输出时返回NaN
+     */
+    synchronized double apply(double value, long timestamp) {
+        if (hasLast && timestamp <= lastTimestamp) {
+            return Double.NaN;
+        }
+        boolean first = !hasLast;
+        double previous = lastValue;
+        long elapsed = timestamp - lastTimestamp;
+        hasLast = true;
+        lastValue = value;
+        lastTimestamp = timestamp;
+
+        switch (function) {
+            case RATE:
+                if (!first) {
+                    double increase = counterIncrease(value, previous);
+                    counterTotal += increase;
+                    if (windowMillis == 0) {
+                        return increase / seconds(elapsed);
+                    }
+                } else if (windowMillis == 0) {
+                    return Double.NaN;
+                }
+                push(timestamp, counterTotal);
+                evictBefore(timestamp - windowMillis);
+                if (windowSize < 2) {
+                    return Double.NaN;
+                }
+                return (counterTotal - windowValues[windowHead]) / seconds(timestamp - windowTimes[windowHead]);
+            case DERIVATIVE:
+                return first ? Double.NaN : (value - previous) / seconds(elapsed);
+            case MOVING_SUM:
+                push(timestamp, value);
+                windowSum += value;
+                evictBefore(timestamp - windowMillis + 1);
+                if (windowSize == 1) {
+                    // 窗口只剩当前点时重置，避免加减累积误差
+                    windowSum = value;
+                }
+                return windowSum;
+            default:
+                throw new IllegalStateException("Unknown rule function: " + function);
+        }
+    }
+
+    /**
+     * 计数器增量：新值小于旧值视为计数器从0重新开始
+     */
+    private static double counterIncrease(double value, double previous) {
+        return value >= previous ? value - previous : value;
+    }
+
+    private static double seconds(long millis) {
+        return millis / 1000.0;
+    }
+
+    private void push(long timestamp, double value) {
+        if (windowSize == windowTimes.length) {
+            long[] times = new long[windowSize * 2];
+            double[] values = new double[windowSize * 2];
+            for (int i = 0; i < windowSize; i++) {
+                int index = (windowHead + i) % windowTimes.length;
+                times[i] = windowTimes[index];
+                values[i] = windowValues[index];
+            }
+            windowTimes = times;
+            windowValues = values;
+            windowHead = 0;
+        }
+        int tail = (windowHead + windowSize) % windowTimes.length;
+        windowTimes[tail] = timestamp;
+        windowValues[tail] = value;
+        windowSize++;
+    }
+
+    /**
+     * 淘汰时间戳早于给定时间的数据点
+     */
+    private void evictBefore(long time) {
+        while (windowSize > 1 && windowTimes[windowHead] < time) {
+            if (function == RuleFunction.MOVING_SUM) {
+                windowSum -= windowValues[windowHead];
+            }
+            windowHead = (windowHead + 1) % windowTimes.length;
+            windowSize--;
+        }
+    }
+}
@@ -1,7 +1,21 @@
 package com.uros.kernel.telemetry.service;
 
+import com.uros.kernel.telemetry.export.PointBatchSink;
+import com.uros.kernel.telemetry.index.SourceSnapshotIndex;
+import com.uros.kernel.telemetry.model.CounterData;
+import com.uros.kernel.telemetry.model.HistoryArchive;
+import com.uros.kernel.telemetry.model.MetricKind;
+import com.uros.kernel.telemetry.model.StoragePolicy;
+import com.uros.kernel.telemetry.query.FillStrategy;
+import com.uros.kernel.telemetry.query.PointCursor;
+import com.uros.kernel.telemetry.query.ResampleAggregation;
+import com.uros.kernel.telemetry.query.SeriesMergeJoin;
+import com.uros.kernel.telemetry.rule.RecordingRule;
+
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
 
 /**
  * 遥测服务接口，定义遥测数据的操作方法
@@ -48,6 +62,30 @@ public interface TelemetryService {
      */
     int recordMetrics(String sourceId, Map<String, Double> metrics, long timestamp);
     
+    /**
+     * 批量记录同一序列的多个数据点，整批只获取一次序列写锁
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param values 指标值数组
+     * @param timestamps 时间戳数组，与values一一对应
+     * @param count 数据点数量（取两个数组的前count项）
+     * @return 成功记录的数据点数量
+     */
+    int recordMetricBatch(String sourceId, String metricName, double[] values, long[] timestamps, int count);
+    
+    /**
+     * 导入历史数据：按时间升序的数据点直接写入序列存储，不经过限流、校验和记录规则
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param values 指标值数组
+     * @param timestamps 时间戳数组，必须升序
+     * @param count 数据点数量（取两个数组的前count项）
+     * @return 写入的数据点数量
+     */
+    int importSortedSeries(String sourceId, String metricName, double[] values, long[] timestamps, int count);
+    
     /**
      * 获取最新指标
      * 
@@ -57,6 +95,15 @@ public interface TelemetryService {
      */
     Map<String, Object> getLatestMetric(String sourceId, String metricName);
     
+    /**
+     * 获取数据源下所有序列的最新值快照（JSON），写入时维护，未变化时直接返回缓存的序列化结果
+     * 直方图序列的最新值为最后一次观测值
+     * 
+     * @param sourceId 数据源ID
+     * @return 快照，数据源没有任何数据点时返回null
+     */
+    SourceSnapshotIndex.Snapshot getSourceSnapshot(String sourceId);
+    
     /**
      * 查询指定时间范围内的指标
      * 
@@ -68,8 +115,39 @@ public interface TelemetryService {
      */
     List<Map<String, Object>> queryMetrics(String sourceId, String metricName, long startTime, long endTime);
     
+    /**
+     * 把指定时间范围内的指标重采样到固定步长的时间网格上
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param step 步长（毫秒），网格对齐到步长的整数倍
+     * @param fill 空步长的填充策略
+     * @param aggregation 步长内多个数据点的聚合方式
+     * @return 每个步长一个数据点，无值时value为null；序列不存在时返回空列表
+     */
+    List<Map<String, Object>> resampleMetrics(String sourceId, String metricName, long startTime, long endTime,
+                                              long step, FillStrategy fill, ResampleAggregation aggregation);
+    
+    /**
+     * 按时间戳对齐多个序列，返回列式结果
+     * 
+     * @param seriesKeys 序列标识列表，格式为 sourceId:metricName
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param tolerance 对齐容差（毫秒）
+     * @param requireAll 是否只保留所有序列都有值的行
+     * @param correlate 是否同时计算两两Pearson相关系数
+     * @return 包含timestamps、columns以及可选correlation的结果
+     * @throws IllegalArgumentException 序列格式不合法、单个序列范围内点数或结果行数超过 {@link SeriesMergeJoin#MAX_ROWS}
+     */
+    Map<String, Object> joinMetrics(List<String> seriesKeys, long startTime, long endTime, long tolerance,
+                                    boolean requireAll, boolean correlate);
+    
     /**
      * 计算统计数据
+     * 按原始数据点累积；使用死区或旋转门策略的序列在清理历史数据后按剩余存储点近似重算
      * 
      * @param sourceId 数据源ID
      * @param metricName 指标名称
@@ -78,7 +156,7 @@ public interface TelemetryService {
     Map<String, Object> calculateStatistics(String sourceId, String metricName);
     
     /**
-     * 分析趋势
+     * 分析趋势：对周期内的存储点按时间做线性回归，按每秒斜率判定，绝对值不超过0.001为稳定
      * 
      * @param sourceId 数据源ID
      * @param metricName 指标名称
@@ -87,6 +165,43 @@ public interface TelemetryService {
      */
     String analyzeTrend(String sourceId, String metricName, long period);
     
+    /**
+     * 批量分析匹配序列在周期内的趋势，逐序列并行计算
+     * 量值序列对周期内的存储点做线性回归，计数器序列使用数据块汇总的增长率，直方图序列不参与
+     * 
+     * @param metricName 指标名称，为null时不限
+     * @param tagMatchers 标签等值条件
+     * @param period 分析周期（毫秒）
+     * @param topK 按每秒斜率返回的上升和下降序列数
+     * @return 匹配和参与计算的序列数、各趋势的序列数，以及上升最快和下降最快的序列
+     */
+    Map<String, Object> scanTrends(String metricName, Map<String, String> tagMatchers, long period, int topK);
+    
+    /**
+     * 启用或关闭量值序列的指数平滑预测：原始数据点按步长取均值后以O(1)更新模型，启用时以内存中的历史数据预热
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param stepMillis 步长（毫秒），不大于0时关闭预测
+     * @param seasonMillis 季节周期（毫秒），0为Holt线性趋势模型，否则为加法Holt-Winters模型
+     * @param alpha 水平平滑系数
+     * @param beta 趋势平滑系数
+     * @param gamma 季节平滑系数
+     * @return 是否设置成功，序列不存在时为false
+     */
+    boolean setForecasting(String sourceId, String metricName, long stepMillis, long seasonMillis,
+                           double alpha, double beta, double gamma);
+    
+    /**
+     * 预测量值序列在最后一个完整步长之后一段时间内的值
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param horizon 预测时长（毫秒），须为正数，按步长向上取整
+     * @return 模型状态和各步长的预测值，模型未就绪时预测值为空，序列不存在或未启用预测时返回空Map
+     */
+    Map<String, Object> forecast(String sourceId, String metricName, long horizon);
+    
     /**
      * 清除历史数据
      * 
@@ -104,4 +219,202 @@ public interface TelemetryService {
      * @return 清除的数据点总数
      */
     int cleanupAllHistory(long retentionPeriod);
-}
\ No newline at end of file
+    
+    /**
+     * 把所有量值序列中有效期在截止时间之前结束的历史数据移入归档并从内存中删除，
+     * 之后涉及这些数据的区间查询由序列透明读取归档
+     * 
+     * @param cutoffTime 截止时间（毫秒）
+     * @param archives 按数据源ID和指标名称提供序列的归档存储
+     * @return 移出的数据点总数
+     */
+    long offloadHistory(long cutoffTime, BiFunction<String, String, HistoryArchive> archives);
+    
+    /**
+     * 获取内存占用估算，由各序列在写入和清理时增量维护，不遍历数据点
+     * 
+     * @param sourceId 数据源ID，为null时汇总所有数据源
+     * @param topK 按估算字节数返回的序列数（汇总所有数据源时同时返回数据源数），0表示不返回
+     * @return 估算字节数、各存储层字节数、序列数和存储点数，指定的数据源不存在时返回空Map
+     */
+    Map<String, Object> getMemoryUsage(String sourceId, int topK);
+    
+    /**
+     * 为量值序列挂载已有的归档存储，序列不存在时创建
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param archive 归档存储
+     */
+    void attachHistoryArchive(String sourceId, String metricName, HistoryArchive archive);
+    
+    /**
+     * 注册序列并设置标签，序列不存在时会被创建；已有标签将被整体替换
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param tags 标签集合，key为标签键，value为标签值（不允许以"__"开头的保留键）
+     * @return 是否成功
+     */
+    boolean registerSeries(String sourceId, String metricName, Map<String, String> tags);
+    
+    /**
+     * 按指标名称和标签选择序列
+     * 
+     * @param metricName 指标名称，为null时不限定
+     * @param tagMatchers 标签等值条件，多个条件取交集
+     * @return 匹配的序列列表，每项包含sourceId、metricName和tags
+     */
+    List<Map<String, Object>> selectSeries(String metricName, Map<String, String> tagMatchers);
+    
+    /**
+     * 设置序列的存储策略（重复值抑制、死区或旋转门压缩），序列不存在时会被创建
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param policy 存储策略
+     * @return 是否成功
+     */
+    boolean setStoragePolicy(String sourceId, String metricName, StoragePolicy policy);
+    
+    /**
+     * 设置量值序列的写入时降采样，每个采样间隔只存储一个聚合点，序列不存在时会被创建
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param sampleRate 采样间隔（毫秒）
+     * @param aggregation 间隔内的聚合方式，为null时关闭降采样
+     * @return 是否成功
+     */
+    boolean setDownsampling(String sourceId, String metricName, long sampleRate, ResampleAggregation aggregation);
+    
+    /**
+     * 添加记录规则，输出序列在写入输入指标时增量更新
+     * 
+     * @param rule 规则
+     * @throws IllegalArgumentException 规则已存在或与其他规则构成链
+     */
+    void addRecordingRule(RecordingRule rule);
+    
+    /**
+     * 删除记录规则
+     * 
+     * @param name 规则名称
+     * @return 是否删除成功
+     */
+    boolean removeRecordingRule(String name);
+    
+    /**
+     * 获取所有记录规则
+     * 
+     * @return 规则列表
+     */
+    List<Map<String, Object>> getRecordingRules();
+    
+    /**
+     * 设置序列的指标类型，只能在序列写入数据之前设置
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param kind 指标类型
+     * @param bucketBounds 直方图桶上界，为空时使用默认桶
+     * @param rollupMillis 直方图汇总周期（毫秒），不大于0时使用默认值
+     * @return 类型发生变化时返回true
+     * @throws IllegalArgumentException 序列已有其他类型的数据
+     */
+    boolean defineMetricKind(String sourceId, String metricName, MetricKind kind,
+                             double[] bucketBounds, long rollupMillis);
+    
+    /**
+     * 获取序列的指标类型，未设置时为GAUGE
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @return 指标类型
+     */
+    MetricKind getMetricKind(String sourceId, String metricName);
+    
+    /**
+     * 按指标类型聚合时间范围内的数据：量值返回最小/最大/平均值（降采样点按其代表的原始数据点数量加权），
+     * 计数器返回增量/速率/回零次数，直方图返回合并后的桶计数和分位数
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 聚合结果，序列不存在时返回空Map
+     */
+    Map<String, Object> aggregateMetrics(String sourceId, String metricName, long startTime, long endTime);
+    
+    /**
+     * 按批次导出时间范围内的原始数据点，每批在读锁内复制后于锁外交给接收方，
+     * 导出大范围数据时不会长时间持有序列锁，也不会一次性复制整个结果
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param batchSize 每批最多的数据点数
+     * @param sink 批次接收方
+     * @return 导出的数据点总数，序列不存在时返回-1
+     * @throws IOException 接收方写出失败
+     */
+    long exportRange(String sourceId, String metricName, long startTime, long endTime, int batchSize,
+                     PointBatchSink sink) throws IOException;
+    
+    /**
+     * 打开量值或计数器序列在时间范围内的原始数据点游标
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 游标，序列不存在时返回null
+     */
+    PointCursor openPointCursor(String sourceId, String metricName, long startTime, long endTime);
+    
+    /**
+     * 汇总计数器序列在时间范围内的增量，完整落在范围内的数据块直接使用块头汇总
+     * 
+     * @param sourceId 数据源ID
+     * @param metricName 指标名称
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @return 汇总结果，序列不是计数器时返回null
+     */
+    CounterData.Summary summarizeCounter(String sourceId, String metricName, long startTime, long endTime);
+    
+    /**
+     * 注册跨数据源聚合：对该指标名称下每个数据源的最新值维护数量、总和、平均值、最小值和最大值，
+     * 注册时以已有最新值回填，之后随写入增量更新
+     * 
+     * @param metricName 指标名称
+     * @return 是否新注册，已存在时返回false
+     */
+    boolean registerFleetAggregate(String metricName);
+    
+    /**
+     * 删除跨数据源聚合
+     * 
+     * @param metricName 指标名称
+     * @return 是否存在并已删除
+     */
+    boolean removeFleetAggregate(String metricName);
+    
+    /**
+     * 获取已注册跨数据源聚合的指标名称
+     * 
+     * @return 指标名称列表
+     */
+    List<String> getFleetAggregates();
+    
+    /**
+     * 读取跨数据源聚合结果
+     * 
+     * @param metricName 指标名称
+     * @param topK 按最新值返回的数据源数，0表示不返回
+     * @param descending true按值从大到小，false从小到大
+     * @return 聚合结果，未注册时返回空Map
+     */
+    Map<String, Object> getFleetAggregate(String metricName, int topK, boolean descending);
+}
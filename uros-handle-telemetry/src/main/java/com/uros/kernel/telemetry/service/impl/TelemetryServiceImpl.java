@@ -1,13 +1,39 @@
 package com.uros.kernel.telemetry.service.impl;
 
+import com.uros.kernel.telemetry.export.PointBatchSink;
+import com.uros.kernel.telemetry.index.FleetAggregate;
+import com.uros.kernel.telemetry.index.MemoryAccountant;
+import com.uros.kernel.telemetry.index.SeriesTagIndex;
+import com.uros.kernel.telemetry.index.SourceSnapshotIndex;
+import com.uros.kernel.telemetry.model.CounterData;
+import com.uros.kernel.telemetry.model.HistogramData;
+import com.uros.kernel.telemetry.model.HistoryArchive;
+import com.uros.kernel.telemetry.model.HoltWinters;
+import com.uros.kernel.telemetry.model.MemoryAccount;
+import com.uros.kernel.telemetry.model.MetricKind;
+import com.uros.kernel.telemetry.model.StoragePolicy;
 import com.uros.kernel.telemetry.model.TelemetryData;
+import com.uros.kernel.telemetry.query.FillStrategy;
+import com.uros.kernel.telemetry.query.ParallelRangeAggregator;
+import com.uros.kernel.telemetry.query.PointCursor;
+import com.uros.kernel.telemetry.query.ResampleAggregation;
+import com.uros.kernel.telemetry.query.Resampler;
+import com.uros.kernel.telemetry.query.SeriesMergeJoin;
+import com.uros.kernel.telemetry.query.TrendRegression;
+import com.uros.kernel.telemetry.rule.RecordingRule;
+import com.uros.kernel.telemetry.rule.RecordingRuleEngine;
 import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.simd.AggregationKernels;
+import com.uros.kernel.telemetry.simd.RangeStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 
 /**
  * 遥测服务实现类
@@ -17,9 +43,55 @@ public class TelemetryServiceImpl implements TelemetryService {
 
     private static final Logger logger = LoggerFactory.getLogger(TelemetryServiceImpl.class);
     
+    // 区间聚合每批复制的数据点数
+    private static final int AGGREGATE_BATCH_SIZE = 4096;
+    
+    // 单次预测最多的步长数
+    private static final int MAX_FORECAST_STEPS = 10_000;
+    
+    // 每个序列在存储映射和标签索引中的估算字节数（不含key字符串内容）
+    private static final int SERIES_INDEX_BYTES = 160;
+    
+    // 计数器或直方图存储对象本身（含数据列表和读写锁）的估算字节数
+    private static final int TYPED_SERIES_BYTES = 96;
+    
     // 存储所有遥测数据，key为sourceId:metricName
     private final Map<String, TelemetryData> telemetryDataMap = new ConcurrentHashMap<>();
     
+    // 序列标签倒排索引
+    private final SeriesTagIndex tagIndex = new SeriesTagIndex();
+    
+    // 按数据源分组的最新值索引
+    private final SourceSnapshotIndex snapshotIndex = new SourceSnapshotIndex();
+    
+    // 跨数据源聚合，key为指标名称
+    private final Map<String, FleetAggregate> fleetAggregates = new ConcurrentHashMap<>();
+    
+    // 记录规则（派生指标）引擎
+    private final RecordingRuleEngine ruleEngine = new RecordingRuleEngine();
+    
+    // 按数据源汇总的内存占用估算
+    private final MemoryAccountant memoryAccountant = new MemoryAccountant();
+    
+    // 计数器序列存储，key为sourceId:metricName
+    private final Map<String, CounterData> counterDataMap = new ConcurrentHashMap<>();
+    
+    // 直方图序列存储，key为sourceId:metricName
+    private final Map<String, HistogramData> histogramDataMap = new ConcurrentHashMap<>();
+    
+    // 大区间聚合的并行执行器，未注入时在请求线程内顺序计算
+    private volatile ParallelRangeAggregator rangeAggregator;
+    
+    /**
+     * 设置大区间聚合的并行执行器
+     * 
+     * @param rangeAggregator 并行执行器
+     */
+    @Autowired(required = false)
+    public void setRangeAggregator(ParallelRangeAggregator rangeAggregator) {
+        this.rangeAggregator = rangeAggregator;
+    }
+    
     // 生成数据存储的key
     private String generateKey(String sourceId, String metricName) {
         return sourceId + ":" + metricName;
@@ -28,7 +100,78 @@ public class TelemetryServiceImpl implements TelemetryService {
     // 获取或创建遥测数据对象
     private TelemetryData getOrCreateTelemetryData(String sourceId, String metricName) {
         String key = generateKey(sourceId, metricName);
-        return telemetryDataMap.computeIfAbsent(key, k -> new TelemetryData());
+        TelemetryData data = telemetryDataMap.get(key);
+        if (data != null) {
+            return data;
+        }
+        return telemetryDataMap.computeIfAbsent(key, k -> {
+            tagIndex.register(k, sourceId, metricName);
+            MemoryAccount account = memoryAccountant.account(sourceId);
+            account.addSeries(seriesMetadataBytes(k));
+            TelemetryData created = new TelemetryData();
+            created.setMemoryAccount(account);
+            return created;
+        });
+    }
+
+    // 序列对象、key和索引项的估算字节数
+    private static long seriesMetadataBytes(String key) {
+        return TelemetryData.SERIES_BYTES + SERIES_INDEX_BYTES + key.length();
+    }
+    
+    // 计数器和直方图序列写入各自的存储；返回false表示该序列是量值
+    private boolean storeTyped(String key, double value, long timestamp) {
+        if (counterDataMap.isEmpty() && histogramDataMap.isEmpty()) {
+            return false;
+        }
+        CounterData counter = counterDataMap.get(key);
+        if (counter != null) {
+            counter.addDataPoint(value, timestamp);
+            return true;
+        }
+        HistogramData histogram = histogramDataMap.get(key);
+        if (histogram != null) {
+            histogram.addObservation(value, timestamp);
+            return true;
+        }
+        return false;
+    }
+    
+    // 计数器和直方图序列批量写入各自的存储；返回-1表示该序列是量值
+    private int storeTypedBatch(String key, double[] values, long[] timestamps, int count) {
+        CounterData counter = counterDataMap.get(key);
+        if (counter != null) {
+            return counter.addDataPoints(values, timestamps, 0, count);
+        }
+        HistogramData histogram = histogramDataMap.get(key);
+        if (histogram != null) {
+            histogram.addObservations(values, timestamps, 0, count);
+            return count;
+        }
+        return -1;
+    }
+    
+    // 写入量值序列；写锁内发现序列已被定义为计数器或直方图时改写到对应存储
+    private void storeGauge(String sourceId, String metricName, double value, long timestamp) {
+        if (!getOrCreateTelemetryData(sourceId, metricName).addDataPoint(value, timestamp)) {
+            storeTyped(generateKey(sourceId, metricName), value, timestamp);
+        }
+    }
+    
+    // 更新数据源最新值索引，最新值变化时同步更新该指标的跨数据源聚合
+    private void updateLatest(String sourceId, String metricName, double value, long timestamp) {
+        if (snapshotIndex.update(sourceId, metricName, value, timestamp) && !fleetAggregates.isEmpty()) {
+            FleetAggregate aggregate = fleetAggregates.get(metricName);
+            if (aggregate != null) {
+                aggregate.update(sourceId, value, timestamp);
+            }
+        }
+    }
+    
+    // 写入记录规则的派生值，不再触发规则
+    private void recordDerived(String sourceId, String metricName, double value, long timestamp) {
+        storeGauge(sourceId, metricName, value, timestamp);
+        updateLatest(sourceId, metricName, value, timestamp);
     }
 
     @Override
@@ -39,8 +182,13 @@ public class TelemetryServiceImpl implements TelemetryService {
     @Override
     public boolean recordMetric(String sourceId, String metricName, double value, long timestamp) {
         try {
-            TelemetryData data = getOrCreateTelemetryData(sourceId, metricName);
-            data.addDataPoint(value, timestamp);
+            if (!storeTyped(generateKey(sourceId, metricName), value, timestamp)) {
+                storeGauge(sourceId, metricName, value, timestamp);
+            }
+            updateLatest(sourceId, metricName, value, timestamp);
+            if (ruleEngine.isSubscribed(metricName)) {
+                ruleEngine.evaluate(sourceId, metricName, value, timestamp, this::recordDerived);
+            }
             return true;
         } catch (Exception e) {
             logger.error("Failed to record metric: {}.{} = {} @ {}", sourceId, metricName, value, timestamp, e);
@@ -64,6 +212,56 @@ public class TelemetryServiceImpl implements TelemetryService {
         return successCount;
     }
 
+    @Override
+    public int recordMetricBatch(String sourceId, String metricName, double[] values, long[] timestamps, int count) {
+        if (count <= 0) {
+            return 0;
+        }
+        try {
+            String key = generateKey(sourceId, metricName);
+            int recorded = storeTypedBatch(key, values, timestamps, count);
+            if (recorded < 0) {
+                recorded = count;
+                if (!getOrCreateTelemetryData(sourceId, metricName).addDataPoints(values, timestamps, 0, count)) {
+                    recorded = storeTypedBatch(key, values, timestamps, count);
+                }
+            }
+            int latest = 0;
+            for (int i = 1; i < count; i++) {
+                if (timestamps[i] >= timestamps[latest]) {
+                    latest = i;
+                }
+            }
+            updateLatest(sourceId, metricName, values[latest], timestamps[latest]);
+            if (ruleEngine.isSubscribed(metricName)) {
+                for (int i = 0; i < count; i++) {
+                    ruleEngine.evaluate(sourceId, metricName, values[i], timestamps[i], this::recordDerived);
+                }
+            }
+            return recorded;
+        } catch (Exception e) {
+            logger.error("Failed to record metric batch: {}.{} ({} points)", sourceId, metricName, count, e);
+            return 0;
+        }
+    }
+
+    @Override
+    public int importSortedSeries(String sourceId, String metricName, double[] values, long[] timestamps, int count) {
+        if (count <= 0) {
+            return 0;
+        }
+        String key = generateKey(sourceId, metricName);
+        int imported = storeTypedBatch(key, values, timestamps, count);
+        if (imported < 0) {
+            imported = count;
+            if (!getOrCreateTelemetryData(sourceId, metricName).addSortedDataPoints(values, timestamps, 0, count)) {
+                imported = storeTypedBatch(key, values, timestamps, count);
+            }
+        }
+        updateLatest(sourceId, metricName, values[count - 1], timestamps[count - 1]);
+        return imported;
+    }
+
     @Override
     public Map<String, Object> getLatestMetric(String sourceId, String metricName) {
         String key = generateKey(sourceId, metricName);
@@ -76,11 +274,39 @@ public class TelemetryServiceImpl implements TelemetryService {
         Map<String, Object> result = new HashMap<>();
         result.put("sourceId", sourceId);
         result.put("metricName", metricName);
+        
+        CounterData counter = counterDataMap.get(key);
+        if (counter != null) {
+            double[] latest = counter.getLatest();
+            if (latest == null) {
+                return Collections.emptyMap();
+            }
+            result.put("kind", MetricKind.COUNTER);
+            result.put("value", latest[0]);
+            result.put("timestamp", (long) latest[1]);
+            return result;
+        }
+        HistogramData histogram = histogramDataMap.get(key);
+        if (histogram != null) {
+            List<HistogramData.Summary> rollups = histogram.getRollups(Long.MIN_VALUE, Long.MAX_VALUE);
+            if (rollups.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            result.putAll(histogramToMap(rollups.get(rollups.size() - 1)));
+            result.put("kind", MetricKind.HISTOGRAM);
+            return result;
+        }
+        
         result.put("value", data.getCurrentValue());
         result.put("timestamp", data.getTimestamp());
         return result;
     }
 
+    @Override
+    public SourceSnapshotIndex.Snapshot getSourceSnapshot(String sourceId) {
+        return snapshotIndex.getSnapshot(sourceId);
+    }
+
     @Override
     public List<Map<String, Object>> queryMetrics(String sourceId, String metricName, long startTime, long endTime) {
         String key = generateKey(sourceId, metricName);
@@ -90,23 +316,134 @@ public class TelemetryServiceImpl implements TelemetryService {
             return Collections.emptyList();
         }
         
-        List<Map<String, Object>> result = new ArrayList<>();
-        List<TelemetryData.DataPoint> dataPoints = data.getHistory();
-        
-        for (TelemetryData.DataPoint point : dataPoints) {
-            if (point.getTimestamp() >= startTime && point.getTimestamp() <= endTime) {
+        CounterData counter = counterDataMap.get(key);
+        if (counter != null) {
+            List<Map<String, Object>> result = new ArrayList<>();
+            counter.forEachPoint(startTime, endTime, (value, timestamp) -> {
                 Map<String, Object> pointMap = new HashMap<>();
                 pointMap.put("sourceId", sourceId);
                 pointMap.put("metricName", metricName);
-                pointMap.put("value", point.getValue());
-                pointMap.put("timestamp", point.getTimestamp());
+                pointMap.put("value", value);
+                pointMap.put("timestamp", timestamp);
+                result.add(pointMap);
+            });
+            return result;
+        }
+        HistogramData histogram = histogramDataMap.get(key);
+        if (histogram != null) {
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (HistogramData.Summary rollup : histogram.getRollups(startTime, endTime)) {
+                Map<String, Object> pointMap = histogramToMap(rollup);
+                pointMap.put("sourceId", sourceId);
+                pointMap.put("metricName", metricName);
                 result.add(pointMap);
             }
+            return result;
+        }
+        
+        List<TelemetryData.DataPoint> dataPoints = data.getPointsInRange(startTime, endTime);
+        List<Map<String, Object>> result = new ArrayList<>(dataPoints.size());
+        
+        for (TelemetryData.DataPoint point : dataPoints) {
+            Map<String, Object> pointMap = new HashMap<>();
+            pointMap.put("sourceId", sourceId);
+            pointMap.put("metricName", metricName);
+            pointMap.put("value", point.getValue());
+            pointMap.put("timestamp", point.getTimestamp());
+            pointMap.put("validUntil", point.getValidUntil());
+            result.add(pointMap);
+        }
+        
+        return result;
+    }
+
+    @Override
+    public List<Map<String, Object>> resampleMetrics(String sourceId, String metricName, long startTime, long endTime,
+                                                     long step, FillStrategy fill, ResampleAggregation aggregation) {
+        TelemetryData data = telemetryDataMap.get(generateKey(sourceId, metricName));
+        // 旋转门压缩的存储点之间本就是线性插值，空步长不视为缺失
+        boolean swingingDoor = data != null
+                && data.getStoragePolicy().getType() == StoragePolicy.Type.SWINGING_DOOR;
+        Resampler resampler = new Resampler(startTime, endTime, step, fill, aggregation, swingingDoor);
+        if (data == null) {
+            return Collections.emptyList();
+        }
+        
+        data.forEachPoint(resampler.getScanStart(), resampler.getScanEnd(), resampler);
+        resampler.finish();
+        
+        List<Map<String, Object>> result = new ArrayList<>(resampler.size());
+        for (int i = 0; i < resampler.size(); i++) {
+            double value = resampler.getValue(i);
+            Map<String, Object> pointMap = new HashMap<>();
+            pointMap.put("timestamp", resampler.getTimestamp(i));
+            pointMap.put("value", Double.isNaN(value) ? null : value);
+            result.add(pointMap);
         }
         
         return result;
     }
 
+    @Override
+    public Map<String, Object> joinMetrics(List<String> seriesKeys, long startTime, long endTime, long tolerance,
+                                           boolean requireAll, boolean correlate) {
+        SeriesMergeJoin join = new SeriesMergeJoin(tolerance, requireAll, correlate);
+        if (seriesKeys.isEmpty() || seriesKeys.size() > SeriesMergeJoin.MAX_SERIES) {
+            throw new IllegalArgumentException("Series count must be between 1 and " + SeriesMergeJoin.MAX_SERIES
+                    + ": " + seriesKeys.size());
+        }
+        List<List<TelemetryData.DataPoint>> series = new ArrayList<>(seriesKeys.size());
+        List<Map<String, Object>> columns = new ArrayList<>(seriesKeys.size());
+        for (String seriesKey : seriesKeys) {
+            int separator = seriesKey.indexOf(':');
+            if (separator <= 0 || separator == seriesKey.length() - 1) {
+                throw new IllegalArgumentException("Series must be given as sourceId:metricName: " + seriesKey);
+            }
+            TelemetryData data = telemetryDataMap.get(seriesKey);
+            // 连接只使用范围内的点，点数超过行数上限时不做复制直接拒绝
+            List<TelemetryData.DataPoint> points = data == null ? Collections.emptyList()
+                    : data.readRange(startTime, endTime,
+                            range -> range.size() > SeriesMergeJoin.MAX_ROWS ? null : new ArrayList<>(range));
+            if (points == null) {
+                throw new IllegalArgumentException("Series " + seriesKey + " has more than "
+                        + SeriesMergeJoin.MAX_ROWS + " points in range, narrow the time range");
+            }
+            series.add(points);
+            
+            Map<String, Object> column = new HashMap<>();
+            column.put("sourceId", seriesKey.substring(0, separator));
+            column.put("metricName", seriesKey.substring(separator + 1));
+            columns.add(column);
+        }
+        
+        SeriesMergeJoin.Result joined = join.join(series, startTime, endTime);
+        for (int i = 0; i < columns.size(); i++) {
+            columns.get(i).put("values", toNullableList(joined.getColumns()[i]));
+        }
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("rowCount", joined.getTimestamps().length);
+        result.put("timestamps", joined.getTimestamps());
+        result.put("columns", columns);
+        if (joined.getCorrelation() != null) {
+            List<List<Double>> correlation = new ArrayList<>();
+            for (double[] row : joined.getCorrelation()) {
+                correlation.add(toNullableList(row));
+            }
+            result.put("correlation", correlation);
+        }
+        return result;
+    }
+    
+    // NaN在JSON中没有合法表示，转换为null
+    private static List<Double> toNullableList(double[] values) {
+        List<Double> list = new ArrayList<>(values.length);
+        for (double value : values) {
+            list.add(Double.isNaN(value) ? null : value);
+        }
+        return list;
+    }
+
     @Override
     public Map<String, Object> calculateStatistics(String sourceId, String metricName) {
         String key = generateKey(sourceId, metricName);
@@ -115,6 +452,9 @@ public class TelemetryServiceImpl implements TelemetryService {
         if (data == null) {
             return Collections.emptyMap();
         }
+        if (counterDataMap.containsKey(key) || histogramDataMap.containsKey(key)) {
+            return aggregateMetrics(sourceId, metricName, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
         
         TelemetryData.Statistics stats = data.getStatistics();
         Map<String, Object> result = new HashMap<>();
@@ -123,7 +463,7 @@ public class TelemetryServiceImpl implements TelemetryService {
         result.put("count", stats.getCount());
         result.put("min", stats.getMin());
         result.put("max", stats.getMax());
-        result.put("sum", 0); // TelemetryData.Statistics没有sum方法
+        result.put("sum", stats.getSum());
         result.put("average", stats.getAvg());
         result.put("standardDeviation", stats.getStdDev());
         result.put("lastUpdated", 0); // TelemetryData.Statistics没有lastUpdated方法
@@ -135,52 +475,167 @@ public class TelemetryServiceImpl implements TelemetryService {
     public String analyzeTrend(String sourceId, String metricName, long period) {
         String key = generateKey(sourceId, metricName);
         TelemetryData data = telemetryDataMap.get(key);
-        
-        if (data == null || data.getHistory().size() < 2) {
+        if (data == null) {
             return "stable";
         }
         
-        long currentTime = System.currentTimeMillis();
-        long cutoffTime = currentTime - period;
-        
-        List<TelemetryData.DataPoint> relevantPoints = new ArrayList<>();
-        for (TelemetryData.DataPoint point : data.getHistory()) {
-            if (point.getTimestamp() >= cutoffTime) {
-                relevantPoints.add(point);
+        TrendRegression regression = regressTrend(data, System.currentTimeMillis() - period);
+        return TrendRegression.classify(regression.getSlope());
+    }
+    
+    // 对起始时间之后的存储点做线性回归，在读锁内逐点累加，不复制历史数据
+    private static TrendRegression regressTrend(TelemetryData data, long startTime) {
+        TrendRegression regression = new TrendRegression();
+        data.forEachPoint(startTime, Long.MAX_VALUE, (value, timestamp, validUntil) -> {
+            if (timestamp >= startTime) {
+                regression.add(value, timestamp);
             }
+        });
+        return regression;
+    }
+    
+    @Override
+    public Map<String, Object> scanTrends(String metricName, Map<String, String> tagMatchers, long period, int topK) {
+        Map<String, String> matchers = new HashMap<>();
+        if (tagMatchers != null) {
+            matchers.putAll(tagMatchers);
         }
-        
-        if (relevantPoints.size() < 2) {
-            return "stable";
+        if (metricName != null) {
+            matchers.put(SeriesTagIndex.NAME_TAG, metricName);
         }
+        List<SeriesTagIndex.SeriesRef> refs = tagIndex.select(matchers);
+        long startTime = System.currentTimeMillis() - period;
         
-        // 使用简单线性回归计算趋势
-        double sumX = 0;
-        double sumY = 0;
-        double sumXY = 0;
-        double sumX2 = 0;
-        int n = relevantPoints.size();
+        ParallelRangeAggregator aggregator = rangeAggregator;
+        List<SeriesTrend> trends;
+        if (aggregator != null) {
+            trends = aggregator.mapSeries(refs, ref -> evaluateTrend(ref, startTime));
+        } else {
+            trends = new ArrayList<>(refs.size());
+            for (SeriesTagIndex.SeriesRef ref : refs) {
+                trends.add(evaluateTrend(ref, startTime));
+            }
+        }
         
-        for (int i = 0; i < n; i++) {
-            double x = relevantPoints.get(i).getTimestamp() - cutoffTime;
-            double y = relevantPoints.get(i).getValue();
-            sumX += x;
-            sumY += y;
-            sumXY += x * y;
-            sumX2 += x * x;
+        List<SeriesTrend> rising = new ArrayList<>();
+        List<SeriesTrend> falling = new ArrayList<>();
+        int evaluated = 0;
+        for (SeriesTrend trend : trends) {
+            if (trend == null) {
+                continue;
+            }
+            evaluated++;
+            if (trend.slope > TrendRegression.TREND_THRESHOLD) {
+                rising.add(trend);
+            } else if (trend.slope < -TrendRegression.TREND_THRESHOLD) {
+                falling.add(trend);
+            }
         }
+        rising.sort((a, b) -> Double.compare(b.slope, a.slope));
+        falling.sort((a, b) -> Double.compare(a.slope, b.slope));
         
-        double slope = (n * sumXY - sumX * sumY) / (n * sumX2 - sumX * sumX);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("period", period);
+        result.put("matched", refs.size());
+        result.put("evaluated", evaluated);
+        result.put("risingCount", rising.size());
+        result.put("fallingCount", falling.size());
+        result.put("stableCount", evaluated - rising.size() - falling.size());
+        result.put("rising", describeTrends(rising, topK));
+        result.put("falling", describeTrends(falling, topK));
+        return result;
+    }
+    
+    @Override
+    public boolean setForecasting(String sourceId, String metricName, long stepMillis, long seasonMillis,
+                                  double alpha, double beta, double gamma) {
+        if (getMetricKind(sourceId, metricName) != MetricKind.GAUGE) {
+            throw new IllegalArgumentException("Forecasting is only supported for gauge series: "
+                    + generateKey(sourceId, metricName));
+        }
+        TelemetryData data = telemetryDataMap.get(generateKey(sourceId, metricName));
+        if (data == null) {
+            return false;
+        }
+        data.setForecaster(stepMillis > 0 ? new HoltWinters(stepMillis, seasonMillis, alpha, beta, gamma) : null);
+        return true;
+    }
+    
+    @Override
+    public Map<String, Object> forecast(String sourceId, String metricName, long horizon) {
+        TelemetryData data = telemetryDataMap.get(generateKey(sourceId, metricName));
+        HoltWinters.Forecast model = data == null ? null : data.forecast(0);
+        if (model == null) {
+            return Collections.emptyMap();
+        }
+        if (horizon <= 0) {
+            throw new IllegalArgumentException("Forecast horizon must be positive: " + horizon);
+        }
+        long stepMillis = model.getStepMillis();
+        // 向上取整，不先加步长以免horizon接近Long.MAX_VALUE时溢出
+        long count = horizon / stepMillis + (horizon % stepMillis == 0 ? 0 : 1);
+        if (count > MAX_FORECAST_STEPS) {
+            throw new IllegalArgumentException("Forecast horizon spans more than " + MAX_FORECAST_STEPS + " steps");
+        }
+        HoltWinters.Forecast forecast = data.forecast((int) count);
         
-        // 判断趋势
-        double threshold = 0.001; // 趋势判断阈值
-        if (slope > threshold) {
-            return "rising";
-        } else if (slope < -threshold) {
-            return "falling";
-        } else {
-            return "stable";
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sourceId", sourceId);
+        result.put("metricName", metricName);
+        result.put("model", forecast.isSeasonal() ? "holt-winters" : "holt");
+        result.put("ready", forecast.isReady());
+        result.put("stepMillis", stepMillis);
+        result.put("trainedSteps", forecast.getSteps());
+        result.put("level", forecast.getLevel());
+        result.put("trendPerStep", forecast.getTrend());
+        List<Map<String, Object>> points = new ArrayList<>();
+        double[] values = forecast.getValues();
+        for (int i = 0; i < values.length; i++) {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("timestamp", forecast.getStartTime() + i * stepMillis);
+            point.put("value", values[i]);
+            points.add(point);
         }
+        result.put("points", points);
+        return result;
+    }
+    
+    // 单个序列的趋势；量值序列做线性回归，计数器序列使用数据块汇总的增长率，直方图序列和点数不足两个时返回null
+    private SeriesTrend evaluateTrend(SeriesTagIndex.SeriesRef ref, long startTime) {
+        String key = ref.getKey();
+        CounterData counter = counterDataMap.get(key);
+        if (counter != null) {
+            CounterData.Summary summary = counter.summarize(startTime, Long.MAX_VALUE);
+            if (summary.getCount() < 2) {
+                return null;
+            }
+            return new SeriesTrend(ref, MetricKind.COUNTER, summary.getRate(), summary.getCount());
+        }
+        TelemetryData data = telemetryDataMap.get(key);
+        if (data == null || histogramDataMap.containsKey(key)) {
+            return null;
+        }
+        TrendRegression regression = regressTrend(data, startTime);
+        double slope = regression.getSlope();
+        if (Double.isNaN(slope)) {
+            return null;
+        }
+        return new SeriesTrend(ref, MetricKind.GAUGE, slope, regression.getCount());
+    }
+    
+    private static List<Map<String, Object>> describeTrends(List<SeriesTrend> trends, int topK) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int i = 0; i < Math.min(topK, trends.size()); i++) {
+            SeriesTrend trend = trends.get(i);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("sourceId", trend.ref.getSourceId());
+            item.put("metricName", trend.ref.getMetricName());
+            item.put("kind", trend.kind);
+            item.put("slopePerSecond", trend.slope);
+            item.put("points", trend.points);
+            result.add(item);
+        }
+        return result;
     }
 
     @Override
@@ -193,7 +648,15 @@ public class TelemetryServiceImpl implements TelemetryService {
         }
         
         long cutoffTime = System.currentTimeMillis() - retentionPeriod;
-        return data.cleanupHistory(cutoffTime);
+        CounterData counter = counterDataMap.get(key);
+        if (counter != null) {
+            return counter.cleanupBefore(cutoffTime);
+        }
+        HistogramData histogram = histogramDataMap.get(key);
+        if (histogram != null) {
+            return histogram.cleanupBefore(cutoffTime);
+        }
+        return data.cleanupHistory(retentionPeriod);
     }
 
     @Override
@@ -202,9 +665,442 @@ public class TelemetryServiceImpl implements TelemetryService {
         long cutoffTime = System.currentTimeMillis() - retentionPeriod;
         
         for (Map.Entry<String, TelemetryData> entry : telemetryDataMap.entrySet()) {
-            totalRemoved += entry.getValue().cleanupHistory(cutoffTime);
+            totalRemoved += entry.getValue().cleanupBefore(cutoffTime);
+        }
+        for (CounterData counter : counterDataMap.values()) {
+            totalRemoved += counter.cleanupBefore(cutoffTime);
+        }
+        for (HistogramData histogram : histogramDataMap.values()) {
+            totalRemoved += histogram.cleanupBefore(cutoffTime);
         }
         
         return totalRemoved;
     }
+
+    @Override
+    public long offloadHistory(long cutoffTime, BiFunction<String, String, HistoryArchive> archives) {
+        long offloaded = 0;
+        for (SeriesTagIndex.SeriesRef ref : tagIndex.select(Collections.emptyMap())) {
+            TelemetryData data = telemetryDataMap.get(ref.getKey());
+            if (data != null) {
+                offloaded += data.offloadBefore(cutoffTime, archives.apply(ref.getSourceId(), ref.getMetricName()));
+            }
+        }
+        return offloaded;
+    }
+
+    @Override
+    public Map<String, Object> getMemoryUsage(String sourceId, int topK) {
+        Map<String, Object> result;
+        List<SeriesTagIndex.SeriesRef> refs;
+        if (sourceId == null) {
+            result = memoryAccountant.summarize(topK);
+            refs = tagIndex.select(Collections.emptyMap());
+        } else {
+            MemoryAccount account = memoryAccountant.get(sourceId);
+            if (account == null) {
+                return new LinkedHashMap<>();
+            }
+            result = MemoryAccountant.describe(account, account.getBytes());
+            refs = tagIndex.select(Collections.singletonMap(SeriesTagIndex.SOURCE_TAG, sourceId));
+        }
+        if (topK > 0) {
+            MemoryAccountant.TopK<SeriesTagIndex.SeriesRef> top = new MemoryAccountant.TopK<>(topK);
+            for (SeriesTagIndex.SeriesRef ref : refs) {
+                top.offer(ref, estimateSeriesBytes(ref.getKey()));
+            }
+            List<Map<String, Object>> topSeries = new ArrayList<>();
+            for (MemoryAccountant.TopK.Entry<SeriesTagIndex.SeriesRef> entry : top.drain()) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("sourceId", entry.item.getSourceId());
+                item.put("metricName", entry.item.getMetricName());
+                item.put("kind", getMetricKind(entry.item.getSourceId(), entry.item.getMetricName()));
+                item.put("estimatedBytes", entry.weight);
+                topSeries.add(item);
+            }
+            result.put("topSeries", topSeries);
+        }
+        return result;
+    }
+    
+    // 单个序列的估算字节数，与内存账户使用相同的估算方式
+    private long estimateSeriesBytes(String key) {
+        TelemetryData data = telemetryDataMap.get(key);
+        if (data == null) {
+            return 0;
+        }
+        long bytes = SERIES_INDEX_BYTES + key.length() + data.getEstimatedBytes();
+        CounterData counter = counterDataMap.get(key);
+        if (counter != null) {
+            bytes += TYPED_SERIES_BYTES + counter.getEstimatedBytes();
+        }
+        HistogramData histogram = histogramDataMap.get(key);
+        if (histogram != null) {
+            bytes += TYPED_SERIES_BYTES + histogram.getEstimatedBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public void attachHistoryArchive(String sourceId, String metricName, HistoryArchive archive) {
+        getOrCreateTelemetryData(sourceId, metricName).setHistoryArchive(archive);
+    }
+
+    @Override
+    public boolean registerSeries(String sourceId, String metricName, Map<String, String> tags) {
+        Map<String, String> newTags = tags == null ? Collections.emptyMap() : tags;
+        for (String tagKey : newTags.keySet()) {
+            if (tagKey.startsWith("__")) {
+                throw new IllegalArgumentException("Tag key '" + tagKey + "' is reserved");
+            }
+        }
+        
+        String key = generateKey(sourceId, metricName);
+        getOrCreateTelemetryData(sourceId, metricName).setTags(newTags,
+                (oldTags, currentTags) -> tagIndex.updateTags(key, oldTags, currentTags));
+        return true;
+    }
+
+    @Override
+    public List<Map<String, Object>> selectSeries(String metricName, Map<String, String> tagMatchers) {
+        Map<String, String> matchers = new HashMap<>();
+        if (tagMatchers != null) {
+            matchers.putAll(tagMatchers);
+        }
+        if (metricName != null) {
+            matchers.put(SeriesTagIndex.NAME_TAG, metricName);
+        }
+        
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SeriesTagIndex.SeriesRef ref : tagIndex.select(matchers)) {
+            TelemetryData data = telemetryDataMap.get(ref.getKey());
+            Map<String, Object> series = new HashMap<>();
+            series.put("sourceId", ref.getSourceId());
+            series.put("metricName", ref.getMetricName());
+            series.put("tags", data == null ? Collections.emptyMap() : data.getTags());
+            result.add(series);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean setStoragePolicy(String sourceId, String metricName, StoragePolicy policy) {
+        TelemetryData data = getOrCreateTelemetryData(sourceId, metricName);
+        data.setStoragePolicy(policy);
+        return true;
+    }
+
+    @Override
+    public boolean setDownsampling(String sourceId, String metricName, long sampleRate,
+                                   ResampleAggregation aggregation) {
+        TelemetryData data = getOrCreateTelemetryData(sourceId, metricName);
+        data.setDownsampling(sampleRate, aggregation);
+        return true;
+    }
+
+    @Override
+    public void addRecordingRule(RecordingRule rule) {
+        ruleEngine.addRule(rule);
+        logger.info("Added recording rule {} = {}({}, {}ms)", rule.getName(), rule.getFunction(),
+                rule.getMetricName(), rule.getWindowMillis());
+    }
+
+    @Override
+    public boolean removeRecordingRule(String name) {
+        return ruleEngine.removeRule(name);
+    }
+
+    @Override
+    public List<Map<String, Object>> getRecordingRules() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (RecordingRule rule : ruleEngine.getRules()) {
+            Map<String, Object> ruleMap = new HashMap<>();
+            ruleMap.put("name", rule.getName());
+            ruleMap.put("metricName", rule.getMetricName());
+            ruleMap.put("function", rule.getFunction());
+            ruleMap.put("windowMillis", rule.getWindowMillis());
+            ruleMap.put("sourceId", rule.getSourceId());
+            result.add(ruleMap);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean defineMetricKind(String sourceId, String metricName, MetricKind kind,
+                                    double[] bucketBounds, long rollupMillis) {
+        String key = generateKey(sourceId, metricName);
+        TelemetryData data = getOrCreateTelemetryData(sourceId, metricName);
+        // 与量值写入共用序列写锁，检查和安装之间不会有量值数据写入
+        return data.convertStorage(() -> {
+            MetricKind current = getMetricKind(sourceId, metricName);
+            if (current == kind) {
+                return false;
+            }
+            if (current != MetricKind.GAUGE || data.getStatistics().getCount() > 0) {
+                throw new IllegalArgumentException("Series " + key + " already holds " + current + " data");
+            }
+            MemoryAccount account = memoryAccountant.account(sourceId);
+            if (kind == MetricKind.COUNTER) {
+                CounterData counter = new CounterData();
+                counter.setMemoryAccount(account);
+                counterDataMap.put(key, counter);
+            } else if (kind == MetricKind.HISTOGRAM) {
+                HistogramData histogram = new HistogramData(
+                        bucketBounds == null || bucketBounds.length == 0 ? HistogramData.DEFAULT_BOUNDS : bucketBounds,
+                        rollupMillis > 0 ? rollupMillis : HistogramData.DEFAULT_ROLLUP_MILLIS);
+                histogram.setMemoryAccount(account);
+                histogramDataMap.put(key, histogram);
+            }
+            account.add(MemoryAccount.Tier.METADATA, TYPED_SERIES_BYTES, 0);
+            return true;
+        });
+    }
+
+    @Override
+    public MetricKind getMetricKind(String sourceId, String metricName) {
+        String key = generateKey(sourceId, metricName);
+        if (counterDataMap.containsKey(key)) {
+            return MetricKind.COUNTER;
+        }
+        if (histogramDataMap.containsKey(key)) {
+            return MetricKind.HISTOGRAM;
+        }
+        return MetricKind.GAUGE;
+    }
+
+    @Override
+    public Map<String, Object> aggregateMetrics(String sourceId, String metricName, long startTime, long endTime) {
+        String key = generateKey(sourceId, metricName);
+        TelemetryData data = telemetryDataMap.get(key);
+        if (data == null) {
+            return Collections.emptyMap();
+        }
+        
+        Map<String, Object> result = new HashMap<>();
+        CounterData counter = counterDataMap.get(key);
+        HistogramData histogram = histogramDataMap.get(key);
+        if (counter != null) {
+            CounterData.Summary summary = counter.summarize(startTime, endTime);
+            result.put("kind", MetricKind.COUNTER);
+            result.put("count", summary.getCount());
+            result.put("increase", summary.getIncrease());
+            result.put("rate", summary.getRate());
+            result.put("resets", summary.getResets());
+            result.put("firstValue", summary.getCount() == 0 ? null : summary.getFirstValue());
+            result.put("lastValue", summary.getCount() == 0 ? null : summary.getLastValue());
+        } else if (histogram != null) {
+            result.putAll(histogramToMap(histogram.summarize(startTime, endTime)));
+            result.put("kind", MetricKind.HISTOGRAM);
+        } else {
+            RangeStats stats;
+            ParallelRangeAggregator aggregator = rangeAggregator;
+            if (aggregator != null) {
+                // 大区间在读锁内拆分到并行聚合线程池
+                stats = data.readRange(startTime, endTime, aggregator::aggregate);
+            } else {
+                // 按批复制到基本类型数组，由聚合计算核在锁外按原始数据点数量加权计算
+                stats = new RangeStats();
+                SeriesPointCursor cursor = new SeriesPointCursor(data, null, startTime, endTime);
+                long[] timestamps = new long[AGGREGATE_BATCH_SIZE];
+                double[] values = new double[AGGREGATE_BATCH_SIZE];
+                double[] weights = new double[AGGREGATE_BATCH_SIZE];
+                AggregationKernels kernels = AggregationKernels.get();
+                int count;
+                while ((count = cursor.next(timestamps, values, weights)) > 0) {
+                    kernels.accumulateWeighted(values, weights, 0, count, stats);
+                }
+            }
+            boolean empty = stats.getCount() == 0;
+            result.put("kind", MetricKind.GAUGE);
+            result.put("count", stats.getCount());
+            result.put("sum", stats.getSum());
+            result.put("average", empty ? null : stats.getMean());
+            result.put("min", empty ? null : stats.getMin());
+            result.put("max", empty ? null : stats.getMax());
+            result.put("standardDeviation", empty ? null : stats.getStdDev());
+        }
+        result.put("sourceId", sourceId);
+        result.put("metricName", metricName);
+        return result;
+    }
+    
+    @Override
+    public long exportRange(String sourceId, String metricName, long startTime, long endTime, int batchSize,
+                            PointBatchSink sink) throws IOException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        PointCursor cursor = openPointCursor(sourceId, metricName, startTime, endTime);
+        if (cursor == null) {
+            return -1;
+        }
+        
+        long[] timestamps = new long[batchSize];
+        double[] values = new double[batchSize];
+        long total = 0;
+        int count;
+        while ((count = cursor.next(timestamps, values)) > 0) {
+            sink.accept(timestamps, values, count);
+            total += count;
+        }
+        return total;
+    }
+    
+    @Override
+    public PointCursor openPointCursor(String sourceId, String metricName, long startTime, long endTime) {
+        String key = generateKey(sourceId, metricName);
+        TelemetryData data = telemetryDataMap.get(key);
+        if (data == null) {
+            return null;
+        }
+        if (histogramDataMap.containsKey(key)) {
+            throw new IllegalArgumentException("Histogram series cannot be read as points: " + key);
+        }
+        return new SeriesPointCursor(data, counterDataMap.get(key), startTime, endTime);
+    }
+    
+    @Override
+    public CounterData.Summary summarizeCounter(String sourceId, String metricName, long startTime, long endTime) {
+        CounterData counter = counterDataMap.get(generateKey(sourceId, metricName));
+        return counter == null ? null : counter.summarize(startTime, endTime);
+    }
+    
+    @Override
+    public boolean registerFleetAggregate(String metricName) {
+        if (metricName == null || metricName.isEmpty()) {
+            throw new IllegalArgumentException("Metric name is required");
+        }
+        FleetAggregate aggregate = new FleetAggregate(metricName);
+        if (fleetAggregates.putIfAbsent(metricName, aggregate) != null) {
+            return false;
+        }
+        // 先注册再回填：回填期间的并发写入已直接进入聚合，时间戳较旧的回填值会被忽略
+        snapshotIndex.forEachLatest(metricName, aggregate::update);
+        logger.info("Registered fleet aggregate for {} over {} sources", metricName, aggregate.getCount());
+        return true;
+    }
+    
+    @Override
+    public boolean removeFleetAggregate(String metricName) {
+        return fleetAggregates.remove(metricName) != null;
+    }
+    
+    @Override
+    public List<String> getFleetAggregates() {
+        List<String> names = new ArrayList<>(fleetAggregates.keySet());
+        Collections.sort(names);
+        return names;
+    }
+    
+    @Override
+    public Map<String, Object> getFleetAggregate(String metricName, int topK, boolean descending) {
+        FleetAggregate aggregate = fleetAggregates.get(metricName);
+        if (aggregate == null) {
+            return Collections.emptyMap();
+        }
+        return aggregate.toMap(topK, descending);
+    }
+    
+    /**
+     * 批量趋势扫描中单个序列的结果
+     */
+    private static class SeriesTrend {
+        private final SeriesTagIndex.SeriesRef ref;
+        private final MetricKind kind;
+        private final double slope;
+        private final int points;
+        
+        private SeriesTrend(SeriesTagIndex.SeriesRef ref, MetricKind kind, double slope, int points) {
+            this.ref = ref;
+            this.kind = kind;
+            this.slope = slope;
+            this.points = points;
+        }
+    }
+    
+    /**
+     * 量值或计数器序列的分批游标
+     * 量值序列允许时间戳重复，游标为（时间戳, 已读取的同时间戳点数）；计数器时间戳严格递增，游标为上一批最后的时间戳
+     */
+    private static class SeriesPointCursor implements PointCursor {
+        private final TelemetryData data;
+        private final CounterData counter;
+        private final long endTime;
+        private long cursor;
+        private int skip;
+        private boolean exhausted;
+        
+        private SeriesPointCursor(TelemetryData data, CounterData counter, long startTime, long endTime) {
+            this.data = data;
+            this.counter = counter;
+            this.endTime = endTime;
+            // 计数器游标不包含自身，首批从开始时间前一毫秒之后读取
+            this.cursor = counter != null && startTime != Long.MIN_VALUE ? startTime - 1 : startTime;
+        }
+        
+        @Override
+        public int next(long[] timestamps, double[] values) {
+            return next(timestamps, values, null);
+        }
+        
+        // 量值序列同时输出每个点代表的原始数据点数量，计数器每个点计为1
+        private int next(long[] timestamps, double[] values, double[] weights) {
+            if (exhausted) {
+                return 0;
+            }
+            int count;
+            if (counter != null) {
+                count = counter.copyPoints(cursor, endTime, timestamps, values);
+                if (weights != null) {
+                    Arrays.fill(weights, 0, count, 1.0);
+                }
+            } else {
+                count = data.copyPoints(cursor, skip, endTime, timestamps, values, weights);
+            }
+            if (count < timestamps.length) {
+                exhausted = true;
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long last = timestamps[count - 1];
+            if (counter == null) {
+                int sameTimestamp = 0;
+                while (sameTimestamp < count && timestamps[count - 1 - sameTimestamp] == last) {
+                    sameTimestamp++;
+                }
+                skip = sameTimestamp == count && last == cursor ? skip + count : sameTimestamp;
+            }
+            cursor = last;
+            return count;
+        }
+    }
+    
+    // 直方图汇总转换为响应结构，桶计数为累积值（与Prometheus le语义一致）
+    private static Map<String, Object> histogramToMap(HistogramData.Summary summary) {
+        double[] bounds = summary.getBounds();
+        long[] counts = summary.getCounts();
+        List<Map<String, Object>> buckets = new ArrayList<>(counts.length);
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            Map<String, Object> bucket = new HashMap<>();
+            bucket.put("le", i < bounds.length ? String.valueOf(bounds[i]) : "+Inf");
+            bucket.put("count", cumulative);
+            buckets.add(bucket);
+        }
+        
+        boolean empty = summary.getCount() == 0;
+        Map<String, Object> result = new HashMap<>();
+        result.put("timestamp", empty ? null : summary.getStartTime());
+        result.put("count", summary.getCount());
+        result.put("sum", summary.getSum());
+        result.put("min", empty ? null : summary.getMin());
+        result.put("max", empty ? null : summary.getMax());
+        result.put("p50", empty ? null : summary.quantile(0.50));
+        result.put("p90", empty ? null : summary.quantile(0.90));
+        result.put("p99", empty ? null : summary.quantile(0.99));
+        result.put("buckets", buckets);
+        return result;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.uros.kernel.telemetry.simd;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 基本类型数组上的聚合计算核
+ * 运行时加载了 jdk.incubator.vector 模块（JVM参数 --add-modules jdk.incubator.vector）时使用向量实现，
+ * 否则或通过系统属性 uros.telemetry.simd.enabled=false 关闭时使用标量实现。
+ * 输入按固定大小分块，每块先求总和、最小值、最大值，再以块均值求平方和，分块结果按Chan算法合并；
+ * 两种实现的分块方式相同，结果只有求和顺序带来的舍入差异
+ */
+public abstract class AggregationKernels {
+
+    private static final Logger logger = LoggerFactory.getLogger(AggregationKernels.class);
+
+    /** 分块大小，保证第二遍扫描时数据仍在缓存中 */
+    static final int BLOCK_SIZE = 4096;
+
+    private static final AggregationKernels SCALAR = new ScalarKernels();
+
+    private static final AggregationKernels DEFAULT = load();
+
+    /**
+     * @return 当前运行环境下最快的实现
+     */
+    public static AggregationKernels get() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return 标量实现
+     */
+    public static AggregationKernels scalar() {
+        return SCALAR;
+    }
+
+    private static AggregationKernels load() {
+        if (!Boolean.parseBoolean(System.getProperty("uros.telemetry.simd.enabled", "true"))) {
+            return SCALAR;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            logger.info("jdk.incubator.vector is not available, using scalar aggregation kernels");
+            return SCALAR;
+        }
+        try {
+            // 反射加载，避免在模块缺失时链接向量API
+            AggregationKernels kernels = (AggregationKernels) Class.forName(
+                    AggregationKernels.class.getPackageName() + ".VectorKernels")
+                    .getDeclaredConstructor().newInstance();
+            logger.info("Using {} aggregation kernels", kernels.getName());
+            return kernels;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.warn("Failed to load vector aggregation kernels, using scalar fallback", e);
+            return SCALAR;
+        }
+    }
+
+    /**
+     * @return 实现名称
+     */
+    public abstract String getName();
+
+    /**
+     * 把 values[from, to) 累加到统计中
+     *
+     * @param values 数据值
+     * @param from 起始下标（包含）
+     * @param to 结束下标（不包含）
+     * @param stats 统计结果
+     */
+    public void accumulate(double[] values, int from, int to, RangeStats stats) {
+        double[] block = new double[4];
+        for (int start = from; start < to; start += BLOCK_SIZE) {
+            int end = Math.min(to, start + BLOCK_SIZE);
+            summarize(values, start, end, block);
+            double mean = block[0] / (end - start);
+            stats.add(end - start, block[0], block[1], block[2], squaredDeviations(values, start, end, mean));
+        }
+    }
+
+    /**
+     * 把带权重的 values[from, to) 累加到统计中，每个值按权重计入数量、总和和平方和
+     *
+     * @param values 数据值
+     * @param weights 权重，必须为正整数
+     * @param from 起始下标（包含）
+     * @param to 结束下标（不包含）
+     * @param stats 统计结果
+     */
+    public void accumulateWeighted(double[] values, double[] weights, int from, int to, RangeStats stats) {
+        double[] block = new double[4];
+        for (int start = from; start < to; start += BLOCK_SIZE) {
+            int end = Math.min(to, start + BLOCK_SIZE);
+            summarizeWeighted(values, weights, start, end, block);
+            long count = (long) block[3];
+            double mean = block[0] / count;
+            stats.add(count, block[0], block[1], block[2],
+                    weightedSquaredDeviations(values, weights, start, end, mean));
+        }
+    }
+
+    /**
+     * @return values[from, to) 的总和
+     */
+    public double sum(double[] values, int from, int to) {
+        double[] block = new double[4];
+        double total = 0;
+        for (int start = from; start < to; start += BLOCK_SIZE) {
+            summarize(values, start, Math.min(to, start + BLOCK_SIZE), block);
+            total += block[0];
+        }
+        return total;
+    }
+
+    /**
+     * 一块数据的总和、最小值和最大值
+     *
+     * @param out 输出：[总和, 最小值, 最大值]
+     */
+    abstract void summarize(double[] values, int from, int to, double[] out);
+
+    /**
+     * 一块带权重数据的加权总和、最小值、最大值和权重之和
+     *
+     * @param out 输出：[加权总和, 最小值, 最大值, 权重之和]
+     */
+    abstract void summarizeWeighted(double[] values, double[] weights, int from, int to, double[] out);
+
+    /**
+     * @return 一块数据与均值差的平方和
+     */
+    abstract double squaredDeviations(double[] values, int from, int to, double mean);
+
+    /**
+     * @return 一块带权重数据与均值差的加权平方和
+     */
+    abstract double weightedSquaredDeviations(double[] values, double[] weights, int from, int to, double mean);
+}
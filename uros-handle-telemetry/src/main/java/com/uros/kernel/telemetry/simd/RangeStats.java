@@ -0,0 +1,115 @@
+package com.uros.kernel.telemetry.simd;
+
+/**
+ * 可合并的区间统计：数量、总和、最小值、最大值、均值和与均值差的平方和
+ * 两个区间的统计可按Chan的并行算法合并，合并结果与整体计算一致（误差在舍入范围内）
+ */
+public class RangeStats {
+
+    /** 数量（加权时为权重之和） */
+    private long count;
+
+    private double sum;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    private double mean;
+
+    /** 与均值差的平方和 */
+    private double m2;
+
+    /**
+     * 合并一个分块的统计结果
+     *
+     * @param blockCount 分块数量
+     * @param blockSum 分块总和
+     * @param blockMin 分块最小值
+     * @param blockMax 分块最大值
+     * @param blockM2 分块内与分块均值差的平方和
+     */
+    void add(long blockCount, double blockSum, double blockMin, double blockMax, double blockM2) {
+        if (blockCount == 0) {
+            return;
+        }
+        double blockMean = blockSum / blockCount;
+        long total = count + blockCount;
+        double delta = blockMean - mean;
+        m2 += blockM2 + delta * delta * ((double) count * blockCount / total);
+        mean += delta * blockCount / total;
+        count = total;
+        sum += blockSum;
+        min = Math.min(min, blockMin);
+        max = Math.max(max, blockMax);
+    }
+
+    /**
+     * 合并另一个区间的统计
+     *
+     * @param other 另一个区间
+     * @return 当前对象
+     */
+    public RangeStats merge(RangeStats other) {
+        if (other.count > 0) {
+            add(other.count, other.sum, other.min, other.max, other.m2);
+        }
+        return this;
+    }
+
+    /**
+     * 清空统计，便于复用
+     */
+    public void reset() {
+        count = 0;
+        sum = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        mean = 0;
+        m2 = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return 最小值，没有数据时为NaN
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * @return 最大值，没有数据时为NaN
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * @return 均值，没有数据时为NaN
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return 总体方差，没有数据时为NaN
+     */
+    public double getVariance() {
+        return count == 0 ? Double.NaN : m2 / count;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getM2() {
+        return m2;
+    }
+}
@@ -0,0 +1,67 @@
+package com.uros.kernel.telemetry.simd;
+
+/**
+ * 标量实现
+ */
+class ScalarKernels extends AggregationKernels {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    void summarize(double[] values, int from, int to, double[] out) {
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            double value = values[i];
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        out[0] = sum;
+        out[1] = min;
+        out[2] = max;
+    }
+
+    @Override
+    void summarizeWeighted(double[] values, double[] weights, int from, int to, double[] out) {
+        double sum = 0;
+        double weightSum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            double value = values[i];
+            sum += value * weights[i];
+            weightSum += weights[i];
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        out[0] = sum;
+        out[1] = min;
+        out[2] = max;
+        out[3] = weightSum;
+    }
+
+    @Override
+    double squaredDeviations(double[] values, int from, int to, double mean) {
+        double m2 = 0;
+        for (int i = from; i < to; i++) {
+            double delta = values[i] - mean;
+            m2 += delta * delta;
+        }
+        return m2;
+    }
+
+    @Override
+    double weightedSquaredDeviations(double[] values, double[] weights, int from, int to, double mean) {
+        double m2 = 0;
+        for (int i = from; i < to; i++) {
+            double delta = values[i] - mean;
+            m2 += weights[i] * delta * delta;
+        }
+        return m2;
+    }
+}
@@ -0,0 +1,114 @@
+package com.uros.kernel.telemetry.simd;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于 jdk.incubator.vector 的向量实现
+ * 只在模块可用时由 {@link AggregationKernels} 反射加载；每条通道独立累加，块末再做通道间归约，尾部按标量处理
+ */
+class VectorKernels extends AggregationKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public String getName() {
+        return "vector(" + SPECIES.vectorBitSize() + "-bit)";
+    }
+
+    @Override
+    void summarize(double[] values, int from, int to, double[] out) {
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        DoubleVector min = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+        DoubleVector max = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            sum = sum.add(v);
+            min = min.min(v);
+            max = max.max(v);
+        }
+        double s = sum.reduceLanes(VectorOperators.ADD);
+        double lo = min.reduceLanes(VectorOperators.MIN);
+        double hi = max.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            s += values[i];
+            lo = Math.min(lo, values[i]);
+            hi = Math.max(hi, values[i]);
+        }
+        out[0] = s;
+        out[1] = lo;
+        out[2] = hi;
+    }
+
+    @Override
+    void summarizeWeighted(double[] values, double[] weights, int from, int to, double[] out) {
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        DoubleVector weightSum = DoubleVector.zero(SPECIES);
+        DoubleVector min = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+        DoubleVector max = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            DoubleVector w = DoubleVector.fromArray(SPECIES, weights, i);
+            sum = v.fma(w, sum);
+            weightSum = weightSum.add(w);
+            min = min.min(v);
+            max = max.max(v);
+        }
+        double s = sum.reduceLanes(VectorOperators.ADD);
+        double ws = weightSum.reduceLanes(VectorOperators.ADD);
+        double lo = min.reduceLanes(VectorOperators.MIN);
+        double hi = max.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            s += values[i] * weights[i];
+            ws += weights[i];
+            lo = Math.min(lo, values[i]);
+            hi = Math.max(hi, values[i]);
+        }
+        out[0] = s;
+        out[1] = lo;
+        out[2] = hi;
+        out[3] = ws;
+    }
+
+    @Override
+    double squaredDeviations(double[] values, int from, int to, double mean) {
+        DoubleVector m2 = DoubleVector.zero(SPECIES);
+        DoubleVector meanVector = DoubleVector.broadcast(SPECIES, mean);
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector delta = DoubleVector.fromArray(SPECIES, values, i).sub(meanVector);
+            m2 = delta.fma(delta, m2);
+        }
+        double result = m2.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            double delta = values[i] - mean;
+            result += delta * delta;
+        }
+        return result;
+    }
+
+    @Override
+    double weightedSquaredDeviations(double[] values, double[] weights, int from, int to, double mean) {
+        DoubleVector m2 = DoubleVector.zero(SPECIES);
+        DoubleVector meanVector = DoubleVector.broadcast(SPECIES, mean);
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector delta = DoubleVector.fromArray(SPECIES, values, i).sub(meanVector);
+            DoubleVector w = DoubleVector.fromArray(SPECIES, weights, i);
+            m2 = delta.mul(w).fma(delta, m2);
+        }
+        double result = m2.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            double delta = values[i] - mean;
+            result += weights[i] * delta * delta;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,254 @@
+package com.uros.kernel.telemetry.tier;
+
+import com.uros.kernel.telemetry.model.TelemetryData;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 归档块编码
+ * 时间戳使用二阶差分、数值使用与前一个值的异或（按字节对齐记录有效字节的位置和长度），
+ * 有效期和压缩点数以相对值存储，均为变长整数；编码结果再以Deflate最高压缩级别压缩
+ */
+final class ArchiveBlockCodec {
+
+    private ArchiveBlockCodec() {
+    }
+
+    /**
+     * 编码并压缩一段数据点
+     *
+     * @param points 数据点，按时间升序
+     * @param from 起始下标
+     * @param to 结束下标（不包含）
+     * @return 压缩后的字节和未压缩长度
+     */
+    static Encoded encode(List<TelemetryData.DataPoint> points, int from, int to) {
+        Buffer out = new Buffer((to - from) * 4 + 32);
+        long previousTimestamp = 0;
+        long previousDelta = 0;
+        long previousBits = 0;
+        for (int i = from; i < to; i++) {
+            TelemetryData.DataPoint point = points.get(i);
+            long timestamp = point.getTimestamp();
+            long bits = Double.doubleToRawLongBits(point.getValue());
+            if (i == from) {
+                out.writeVarLong(zigzag(timestamp));
+                out.writeLong(bits);
+            } else {
+                long delta = timestamp - previousTimestamp;
+                out.writeVarLong(zigzag(delta - previousDelta));
+                previousDelta = delta;
+                writeXor(out, bits ^ previousBits);
+            }
+            previousTimestamp = timestamp;
+            previousBits = bits;
+            out.writeVarLong(point.getValidUntil() - timestamp);
+            out.writeVarLong(point.getSampleCount() - 1L);
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(out.bytes, 0, out.length);
+            deflater.finish();
+            byte[] compressed = new byte[Math.max(64, out.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            return new Encoded(Arrays.copyOf(compressed, length), out.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 解压并解码一个块
+     *
+     * @param compressed 压缩后的字节
+     * @param rawLength 未压缩长度
+     * @param count 数据点数
+     * @return 解码后的块
+     */
+    static DecodedBlock decode(byte[] compressed, int rawLength, int count) {
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int read = inflater.inflate(raw, length, rawLength - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != rawLength) {
+                throw new IllegalStateException("Corrupt archive block: expected " + rawLength
+                        + " bytes, inflated " + length);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archive block", e);
+        } finally {
+            inflater.end();
+        }
+
+        DecodedBlock block = new DecodedBlock(count);
+        int[] pos = {0};
+        long timestamp = 0;
+        long delta = 0;
+        long bits = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0) {
+                timestamp = unzigzag(readVarLong(raw, pos));
+                bits = readLong(raw, pos);
+            } else {
+                delta += unzigzag(readVarLong(raw, pos));
+                timestamp += delta;
+                bits ^= readXor(raw, pos);
+            }
+            block.timestamps[i] = timestamp;
+            block.values[i] = Double.longBitsToDouble(bits);
+            block.validUntil[i] = timestamp + readVarLong(raw, pos);
+            block.sampleCounts[i] = (int) (readVarLong(raw, pos) + 1);
+        }
+        return block;
+    }
+
+    /**
+     * 异或结果只写出非零字节：控制字节高4位为末尾零字节数，低4位为有效字节数
+     */
+    private static void writeXor(Buffer out, long xor) {
+        if (xor == 0) {
+            out.writeByte(0);
+            return;
+        }
+        int trailing = Long.numberOfTrailingZeros(xor) >>> 3;
+        int leading = Long.numberOfLeadingZeros(xor) >>> 3;
+        int length = 8 - trailing - leading;
+        out.writeByte((trailing << 4) | length);
+        long shifted = xor >>> (trailing * 8);
+        for (int i = 0; i < length; i++) {
+            out.writeByte((int) (shifted >>> (i * 8)));
+        }
+    }
+
+    private static long readXor(byte[] raw, int[] pos) {
+        int control = raw[pos[0]++] & 0xFF;
+        int length = control & 0x0F;
+        long shifted = 0;
+        for (int i = 0; i < length; i++) {
+            shifted |= (raw[pos[0]++] & 0xFFL) << (i * 8);
+        }
+        return shifted << ((control >>> 4) * 8);
+    }
+
+    private static long readVarLong(byte[] raw, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = raw[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    private static long readLong(byte[] raw, int[] pos) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (raw[pos[0]++] & 0xFFL);
+        }
+        return value;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 压缩后的块
+     */
+    static class Encoded {
+        final byte[] bytes;
+        final int rawLength;
+
+        private Encoded(byte[] bytes, int rawLength) {
+            this.bytes = bytes;
+            this.rawLength = rawLength;
+        }
+    }
+
+    /**
+     * 解码后的块，以基本类型数组保存，用于块缓存
+     */
+    static class DecodedBlock {
+        final long[] timestamps;
+        final double[] values;
+        final long[] validUntil;
+        final int[] sampleCounts;
+
+        private DecodedBlock(int count) {
+            this.timestamps = new long[count];
+            this.values = new double[count];
+            this.validUntil = new long[count];
+            this.sampleCounts = new int[count];
+        }
+
+        int size() {
+            return timestamps.length;
+        }
+
+        TelemetryData.DataPoint get(int index) {
+            return new TelemetryData.DataPoint(values[index], timestamps[index], validUntil[index], sampleCounts[index]);
+        }
+    }
+
+    private static class Buffer {
+        private byte[] bytes;
+        private int length;
+
+        private Buffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        private void writeLong(long value) {
+            ensureCapacity(8);
+            for (int i = 7; i >= 0; i--) {
+                bytes[length++] = (byte) (value >>> (i * 8));
+            }
+        }
+    }
+}
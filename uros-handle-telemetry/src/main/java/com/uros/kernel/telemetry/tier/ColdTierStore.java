@@ -0,0 +1,643 @@
+package com.uros.kernel.telemetry.tier;
+
+import com.uros.kernel.telemetry.model.HistoryArchive;
+import com.uros.kernel.telemetry.model.TelemetryData;
+import com.uros.kernel.telemetry.service.TelemetryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 冷数据分层存储
+ * 定期把量值序列中早于热数据周期的历史数据点移出内存：按UTC日期分组、每块最多 {@link #BLOCK_POINTS} 个点，
+ * 经 {@link ArchiveBlockCodec} 编码压缩后追加到该日期的归档文件，序列只保留块索引。
+ * 查询范围涉及归档数据时由序列透明读取，解码后的块保存在按块数限制的LRU缓存中。
+ * 超过保留期的整日归档文件被删除；启动时扫描归档目录重建块索引并挂载到对应序列
+ */
+@Component
+public class ColdTierStore implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColdTierStore.class);
+
+    /** 每块最多的数据点数 */
+    static final int BLOCK_POINTS = 2048;
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static final String FILE_SUFFIX = ".archive";
+
+    private static final int MAGIC = 0x55544152;
+
+    /** 块头中除两个字符串之外的固定长度：magic、三个时间戳、点数、两个长度 */
+    private static final int FIXED_HEADER_BYTES = 4 + 2 + 2 + 8 * 3 + 4 * 3;
+
+    private final TelemetryService telemetryService;
+
+    private final boolean enabled;
+
+    private final Path directory;
+
+    private final long hotPeriodMillis;
+
+    private final long retentionMillis;
+
+    private final long intervalMillis;
+
+    private final Map<String, SeriesArchive> archives = new ConcurrentHashMap<>();
+
+    private final Map<BlockRef, ArchiveBlockCodec.DecodedBlock> cache;
+
+    private final LongAdder offloadedPoints = new LongAdder();
+
+    private final LongAdder writtenBlocks = new LongAdder();
+
+    private final LongAdder writtenBytes = new LongAdder();
+
+    private final LongAdder rawBytes = new LongAdder();
+
+    private final LongAdder cacheHits = new LongAdder();
+
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private final LongAdder deletedFiles = new LongAdder();
+
+    private final LongAdder offloadFailures = new LongAdder();
+
+    private volatile long lastRun;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean running;
+
+    /**
+     * 构造函数
+     *
+     * @param telemetryService 遥测服务
+     * @param enabled 是否启用冷数据分层
+     * @param directory 归档文件目录
+     * @param hotPeriodMillis 保留在内存中的热数据周期（毫秒）
+     * @param retentionMillis 归档数据的保留期（毫秒），按整日删除
+     * @param intervalMillis 迁移周期（毫秒）
+     * @param cacheBlocks 解码块缓存的最大块数
+     */
+    public ColdTierStore(
+            TelemetryService telemetryService,
+            @Value("${uros.telemetry.tier.enabled:false}") boolean enabled,
+            @Value("${uros.telemetry.tier.directory:${java.io.tmpdir}/uros-telemetry-archive}") String directory,
+            @Value("${uros.telemetry.tier.hot-period-ms:604800000}") long hotPeriodMillis,
+            @Value("${uros.telemetry.tier.retention-ms:31536000000}") long retentionMillis,
+            @Value("${uros.telemetry.tier.interval-ms:3600000}") long intervalMillis,
+            @Value("${uros.telemetry.tier.cache-blocks:128}") int cacheBlocks) {
+        if (hotPeriodMillis <= 0 || intervalMillis <= 0 || retentionMillis < hotPeriodMillis) {
+            throw new IllegalArgumentException("Tier periods must be positive and retention must cover the hot period");
+        }
+        if (cacheBlocks <= 0) {
+            throw new IllegalArgumentException("Block cache size must be positive: " + cacheBlocks);
+        }
+        this.telemetryService = telemetryService;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.hotPeriodMillis = hotPeriodMillis;
+        this.retentionMillis = retentionMillis;
+        this.intervalMillis = intervalMillis;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<BlockRef, ArchiveBlockCodec.DecodedBlock>(
+                16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BlockRef, ArchiveBlockCodec.DecodedBlock> eldest) {
+                return size() > cacheBlocks;
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            loadIndex();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open archive directory " + directory, e);
+        }
+        for (SeriesArchive archive : archives.values()) {
+            telemetryService.attachHistoryArchive(archive.sourceId, archive.metricName, archive);
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telemetry-cold-tier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        running = true;
+        logger.info("Telemetry cold tier started at {}, {} archived series, hot period {} ms",
+                directory, archives.size(), hotPeriodMillis);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void runSafely() {
+        try {
+            run(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            offloadFailures.increment();
+            logger.warn("Telemetry cold tier run failed", e);
+        }
+    }
+
+    /**
+     * 执行一次迁移和过期清理，定时任务与手动触发互斥
+     *
+     * @param now 当前时间（毫秒）
+     * @return 本次迁移的数据点数
+     */
+    public synchronized long run(long now) {
+        long offloaded = telemetryService.offloadHistory(now - hotPeriodMillis, this::archiveFor);
+        offloadedPoints.add(offloaded);
+        int deleted = deleteExpired(now - retentionMillis);
+        lastRun = now;
+        if (offloaded > 0 || deleted > 0) {
+            logger.info("Offloaded {} points to {}, deleted {} expired archive files", offloaded, directory, deleted);
+        }
+        return offloaded;
+    }
+
+    private SeriesArchive archiveFor(String sourceId, String metricName) {
+        return archives.computeIfAbsent(seriesKey(sourceId, metricName), k -> new SeriesArchive(sourceId, metricName));
+    }
+
+    private static String seriesKey(String sourceId, String metricName) {
+        // 长度前缀避免数据源ID中的分隔符造成歧义
+        return sourceId.length() + ":" + sourceId + ":" + metricName;
+    }
+
+    /**
+     * 删除整日都早于截止时间的归档文件
+     */
+    private int deleteExpired(long cutoffTime) {
+        long lastExpiredDay = Math.floorDiv(cutoffTime, DAY_MILLIS) - 1;
+        List<Path> expired = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                Long day = parseDay(file);
+                if (day != null && day <= lastExpiredDay) {
+                    expired.add(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list archive directory " + directory, e);
+        }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        for (SeriesArchive archive : archives.values()) {
+            archive.dropDaysUpTo(lastExpiredDay);
+        }
+        synchronized (cache) {
+            cache.keySet().removeIf(block -> block.day <= lastExpiredDay);
+        }
+        int deleted = 0;
+        for (Path file : expired) {
+            try {
+                Files.deleteIfExists(file);
+                deleted++;
+            } catch (IOException e) {
+                logger.warn("Failed to delete expired archive file {}", file, e);
+            }
+        }
+        deletedFiles.add(deleted);
+        return deleted;
+    }
+
+    private Path dayFile(long day) {
+        return directory.resolve(LocalDate.ofEpochDay(day) + FILE_SUFFIX);
+    }
+
+    private static Long parseDay(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return LocalDate.parse(name.substring(0, name.length() - FILE_SUFFIX.length())).toEpochDay();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 追加一个块到所属日期的归档文件，同一时刻只有一个写入者
+     */
+    private synchronized BlockRef appendBlock(String sourceId, String metricName, long day,
+                                              List<TelemetryData.DataPoint> points, int from, int to) {
+        ArchiveBlockCodec.Encoded encoded = ArchiveBlockCodec.encode(points, from, to);
+        byte[] source = sourceId.getBytes(StandardCharsets.UTF_8);
+        byte[] metric = metricName.getBytes(StandardCharsets.UTF_8);
+        long maxValidUntil = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            maxValidUntil = Math.max(maxValidUntil, points.get(i).getValidUntil());
+        }
+        long minTimestamp = points.get(from).getTimestamp();
+        long maxTimestamp = points.get(to - 1).getTimestamp();
+
+        ByteBuffer record = ByteBuffer.allocate(FIXED_HEADER_BYTES + source.length + metric.length
+                + encoded.bytes.length);
+        record.putInt(MAGIC);
+        record.putShort((short) source.length).put(source);
+        record.putShort((short) metric.length).put(metric);
+        record.putLong(minTimestamp).putLong(maxTimestamp).putLong(maxValidUntil);
+        record.putInt(to - from).putInt(encoded.rawLength).putInt(encoded.bytes.length);
+        int payloadOffset = record.position();
+        record.put(encoded.bytes);
+        record.flip();
+
+        Path file = dayFile(day);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long offset = channel.size();
+            while (record.hasRemaining()) {
+                channel.write(record, offset + record.position());
+            }
+            channel.force(false);
+            writtenBlocks.increment();
+            writtenBytes.add(record.limit());
+            rawBytes.add(encoded.rawLength);
+            return new BlockRef(day, offset + payloadOffset, encoded.bytes.length, encoded.rawLength, to - from,
+                    minTimestamp, maxTimestamp, maxValidUntil);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append archive block to " + file, e);
+        }
+    }
+
+    private long fileSize(long day) {
+        Path file = dayFile(day);
+        try {
+            return Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to stat archive file " + file, e);
+        }
+    }
+
+    /**
+     * 把写入失败的归档文件截断回写入前的长度；调用方持有本对象的锁，期间没有其他写入者
+     */
+    private void rollBack(Map<Long, Long> fileSizes) {
+        for (Map.Entry<Long, Long> entry : fileSizes.entrySet()) {
+            Path file = dayFile(entry.getKey());
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(entry.getValue());
+                channel.force(false);
+            } catch (IOException e) {
+                logger.warn("Failed to roll archive file {} back to {} bytes", file, entry.getValue(), e);
+            }
+        }
+    }
+
+    /**
+     * 扫描归档目录，按块头重建索引；文件末尾不完整的块（写入时进程退出）被忽略
+     */
+    private void loadIndex() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                Long day = parseDay(file);
+                if (day != null) {
+                    loadFile(file, day);
+                }
+            }
+        }
+    }
+
+    private void loadFile(Path file, long day) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long offset = 0;
+            ByteBuffer fixed = ByteBuffer.allocate(4 + 2);
+            while (offset < size) {
+                fixed.clear();
+                if (!readFully(channel, fixed, offset) || fixed.getInt(0) != MAGIC) {
+                    logger.warn("Ignoring truncated or corrupt archive data in {} at offset {}", file, offset);
+                    return;
+                }
+                int sourceLength = fixed.getShort(4) & 0xFFFF;
+                ByteBuffer rest = ByteBuffer.allocate(sourceLength + 2);
+                if (!readFully(channel, rest, offset + 6)) {
+                    logger.warn("Ignoring truncated archive data in {} at offset {}", file, offset);
+                    return;
+                }
+                int metricLength = rest.getShort(sourceLength) & 0xFFFF;
+                ByteBuffer header = ByteBuffer.allocate(metricLength + 8 * 3 + 4 * 3);
+                long headerOffset = offset + 6 + sourceLength + 2;
+                if (!readFully(channel, header, headerOffset)) {
+                    logger.warn("Ignoring truncated archive data in {} at offset {}", file, offset);
+                    return;
+                }
+                header.flip();
+                String sourceId = new String(rest.array(), 0, sourceLength, StandardCharsets.UTF_8);
+                byte[] metric = new byte[metricLength];
+                header.get(metric);
+                String metricName = new String(metric, StandardCharsets.UTF_8);
+                long minTimestamp = header.getLong();
+                long maxTimestamp = header.getLong();
+                long maxValidUntil = header.getLong();
+                int count = header.getInt();
+                int rawLength = header.getInt();
+                int compressedLength = header.getInt();
+                long payloadOffset = headerOffset + header.capacity();
+                if (payloadOffset + compressedLength > size) {
+                    logger.warn("Ignoring truncated archive block in {} at offset {}", file, offset);
+                    return;
+                }
+                archiveFor(sourceId, metricName).addBlock(new BlockRef(day, payloadOffset, compressedLength, rawLength,
+                        count, minTimestamp, maxTimestamp, maxValidUntil));
+                offset = payloadOffset + compressedLength;
+            }
+        }
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取并解码一个块，优先使用缓存
+     */
+    private ArchiveBlockCodec.DecodedBlock load(BlockRef block) {
+        ArchiveBlockCodec.DecodedBlock decoded = cache.get(block);
+        if (decoded != null) {
+            cacheHits.increment();
+            return decoded;
+        }
+        cacheMisses.increment();
+        Path file = dayFile(block.day);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(block.compressedLength);
+            if (!readFully(channel, buffer, block.offset)) {
+                throw new IllegalStateException("Archive block beyond end of " + file);
+            }
+            decoded = ArchiveBlockCodec.decode(buffer.array(), block.rawLength, block.count);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive block from " + file, e);
+        }
+        cache.put(block, decoded);
+        return decoded;
+    }
+
+    /**
+     * 获取分层统计
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("directory", directory.toString());
+        stats.put("hotPeriodMs", hotPeriodMillis);
+        stats.put("retentionMs", retentionMillis);
+        stats.put("archivedSeries", archives.size());
+        long blocks = 0;
+        long points = 0;
+        for (SeriesArchive archive : archives.values()) {
+            long[] counts = archive.counts();
+            blocks += counts[0];
+            points += counts[1];
+        }
+        stats.put("archivedBlocks", blocks);
+        stats.put("archivedPoints", points);
+        stats.put("offloadedPoints", offloadedPoints.sum());
+        stats.put("writtenBlocks", writtenBlocks.sum());
+        stats.put("writtenBytes", writtenBytes.sum());
+        stats.put("rawBytes", rawBytes.sum());
+        stats.put("cachedBlocks", cache.size());
+        stats.put("cacheHits", cacheHits.sum());
+        stats.put("cacheMisses", cacheMisses.sum());
+        stats.put("deletedFiles", deletedFiles.sum());
+        stats.put("failures", offloadFailures.sum());
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+
+    /**
+     * 归档块在文件中的位置和时间范围
+     */
+    private static class BlockRef {
+        private final long day;
+        private final long offset;
+        private final int compressedLength;
+        private final int rawLength;
+        private final int count;
+        private final long minTimestamp;
+        private final long maxTimestamp;
+        private final long maxValidUntil;
+
+        private BlockRef(long day, long offset, int compressedLength, int rawLength, int count,
+                         long minTimestamp, long maxTimestamp, long maxValidUntil) {
+            this.day = day;
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.rawLength = rawLength;
+            this.count = count;
+            this.minTimestamp = minTimestamp;
+            this.maxTimestamp = maxTimestamp;
+            this.maxValidUntil = maxValidUntil;
+        }
+    }
+
+    /**
+     * 单个序列的归档：块索引按最小时间戳排序
+     */
+    private class SeriesArchive implements HistoryArchive {
+        private final String sourceId;
+        private final String metricName;
+        private final List<BlockRef> blocks = new ArrayList<>();
+        private volatile long archivedUntil = Long.MIN_VALUE;
+
+        private SeriesArchive(String sourceId, String metricName) {
+            this.sourceId = sourceId;
+            this.metricName = metricName;
+        }
+
+        @Override
+        public PendingWrite write(List<TelemetryData.DataPoint> points) {
+            List<BlockRef> written = new ArrayList<>();
+            // 本次写入前各日期文件的长度，失败时截断回去，避免重启重建索引时读到未提交的块
+            Map<Long, Long> fileSizes = new LinkedHashMap<>();
+            synchronized (ColdTierStore.this) {
+                try {
+                    int from = 0;
+                    while (from < points.size()) {
+                        long day = Math.floorDiv(points.get(from).getTimestamp(), DAY_MILLIS);
+                        int to = from + 1;
+                        while (to < points.size() && to - from < BLOCK_POINTS
+                                && Math.floorDiv(points.get(to).getTimestamp(), DAY_MILLIS) == day) {
+                            to++;
+                        }
+                        if (!fileSizes.containsKey(day)) {
+                            fileSizes.put(day, fileSize(day));
+                        }
+                        written.add(appendBlock(sourceId, metricName, day, points, from, to));
+                        from = to;
+                    }
+                } catch (RuntimeException e) {
+                    rollBack(fileSizes);
+                    throw e;
+                }
+            }
+            return () -> {
+                for (BlockRef block : written) {
+                    addBlock(block);
+                }
+            };
+        }
+
+        private synchronized void addBlock(BlockRef block) {
+            int index = blocks.size();
+            while (index > 0 && blocks.get(index - 1).minTimestamp > block.minTimestamp) {
+                index--;
+            }
+            blocks.add(index, block);
+            archivedUntil = Math.max(archivedUntil, block.maxValidUntil);
+        }
+
+        private synchronized void dropDaysUpTo(long lastDay) {
+            blocks.removeIf(block -> block.day <= lastDay);
+        }
+
+        private synchronized long[] counts() {
+            long points = 0;
+            for (BlockRef block : blocks) {
+                points += block.count;
+            }
+            return new long[]{blocks.size(), points};
+        }
+
+        @Override
+        public List<TelemetryData.DataPoint> read(long startTime, long endTime) {
+            // 与范围相交的块，以及范围之前最后开始的块（其中可能有范围前最近的点）
+            List<BlockRef> selected = new ArrayList<>();
+            synchronized (this) {
+                BlockRef before = null;
+                for (BlockRef block : blocks) {
+                    if (block.minTimestamp > endTime) {
+                        break;
+                    }
+                    if (block.maxTimestamp >= startTime) {
+                        selected.add(block);
+                    } else if (before == null || block.maxTimestamp > before.maxTimestamp) {
+                        before = block;
+                    }
+                }
+                if (before != null) {
+                    selected.add(before);
+                }
+            }
+
+            List<TelemetryData.DataPoint> points = new ArrayList<>();
+            TelemetryData.DataPoint previous = null;
+            for (BlockRef block : selected) {
+                ArchiveBlockCodec.DecodedBlock decoded = load(block);
+                for (int i = 0; i < decoded.size(); i++) {
+                    long timestamp = decoded.timestamps[i];
+                    if (timestamp < startTime) {
+                        if (previous == null || timestamp >= previous.getTimestamp()) {
+                            previous = decoded.get(i);
+                        }
+                    } else if (timestamp <= endTime) {
+                        points.add(decoded.get(i));
+                    }
+                }
+            }
+            // 同一天多次迁移（例如迟到数据）产生的块可能时间重叠，按时间稳定排序
+            points.sort((a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()));
+            if (previous != null) {
+                points.add(0, previous);
+            }
+            return points;
+        }
+
+        @Override
+        public List<TelemetryData.DataPoint> readFirst(long startTime, long endTime, int limit) {
+            List<TelemetryData.DataPoint> points = new ArrayList<>();
+            if (limit <= 0) {
+                return points;
+            }
+            List<BlockRef> selected = new ArrayList<>();
+            synchronized (this) {
+                for (BlockRef block : blocks) {
+                    if (block.minTimestamp > endTime) {
+                        break;
+                    }
+                    if (block.maxTimestamp >= startTime) {
+                        selected.add(block);
+                    }
+                }
+            }
+
+            for (BlockRef block : selected) {
+                // 块按最小时间戳排序，已凑满且后续块都晚于第limit个点时不再解码
+                if (points.size() >= limit && block.minTimestamp > points.get(limit - 1).getTimestamp()) {
+                    break;
+                }
+                ArchiveBlockCodec.DecodedBlock decoded = load(block);
+                for (int i = 0; i < decoded.size(); i++) {
+                    long timestamp = decoded.timestamps[i];
+                    if (timestamp >= startTime && timestamp <= endTime) {
+                        points.add(decoded.get(i));
+                    }
+                }
+                // 与read相同的稳定排序，保证分批读取时相同时间戳的点顺序一致
+                points.sort((a, b) -> Long.compare(a.getTimestamp(), b.getTimestamp()));
+                if (points.size() > limit) {
+                    points.subList(limit, points.size()).clear();
+                }
+            }
+            return points;
+        }
+
+        @Override
+        public long getArchivedUntil() {
+            return archivedUntil;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.uros.kernel.telemetry.export;
+
+import com.uros.kernel.telemetry.model.MetricKind;
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.message.ArrowBlock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Arrow导出测试类，使用Arrow官方Java实现读回校验
+ */
+public class ArrowExportTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static TelemetryService populate(String sourceId, String metricName, int count) {
+        TelemetryService service = new TelemetryServiceImpl();
+        double[] values = new double[count];
+        long[] timestamps = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = i * 0.5;
+            timestamps[i] = 1_000_000L + i * 1000L;
+        }
+        service.recordMetricBatch(sourceId, metricName, values, timestamps, count);
+        return service;
+    }
+
+    @Test
+    public void testStreamFormatReadBack() throws Exception {
+        TelemetryService service = populate("pump-1", "pressure", 10_000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows;
+        try (ArrowIpcWriter writer = new ArrowIpcWriter(out, false,
+                ArrowBulkExporter.seriesMetadata("pump-1", "pressure"))) {
+            rows = service.exportRange("pump-1", "pressure", 1_000_000L, 1_000_000L + 8999 * 1000L, 4096,
+                    writer::writeBatch);
+            assertEquals(3, writer.getBatchCount());
+        }
+        assertEquals(9000, rows);
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals("pump-1", root.getSchema().getCustomMetadata().get("sourceId"));
+            assertEquals("pressure", root.getSchema().getCustomMetadata().get("metricName"));
+            int index = 0;
+            while (reader.loadNextBatch()) {
+                TimeStampMilliTZVector timestamps = (TimeStampMilliTZVector) root.getVector("timestamp");
+                Float8Vector values = (Float8Vector) root.getVector("value");
+                assertEquals("UTC", timestamps.getTimeZone());
+                for (int i = 0; i < root.getRowCount(); i++, index++) {
+                    assertEquals(1_000_000L + index * 1000L, timestamps.get(i));
+                    assertEquals(index * 0.5, values.get(i));
+                }
+            }
+            assertEquals(9000, index);
+        }
+    }
+
+    @Test
+    public void testDuplicateTimestampsAcrossBatches() throws Exception {
+        TelemetryService service = new TelemetryServiceImpl();
+        for (int i = 0; i < 7; i++) {
+            service.recordMetric("s", "m", i, 5000L);
+        }
+        service.recordMetric("s", "m", 7, 6000L);
+
+        List<Double> values = new ArrayList<>();
+        long rows = service.exportRange("s", "m", 0, 10_000, 3, (ts, vals, count) -> {
+            for (int i = 0; i < count; i++) {
+                values.add(vals[i]);
+            }
+        });
+        assertEquals(8, rows);
+        assertEquals(List.of(0.0, 1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0), values);
+        assertEquals(-1, service.exportRange("s", "missing", 0, 1, 3, (ts, vals, count) -> { }));
+    }
+
+    @Test
+    public void testBulkFileExport() throws Exception {
+        TelemetryService service = populate("pump-1", "pressure", 20_000);
+        service.recordMetric("pump-2", "pressure", 1.5, 1_000_000L);
+        service.defineMetricKind("pump-3", "pressure", MetricKind.COUNTER, null, 0);
+        for (int i = 0; i < 300; i++) {
+            service.recordMetric("pump-3", "pressure", i, 1_000_000L + i);
+        }
+        service.defineMetricKind("pump-4", "pressure", MetricKind.HISTOGRAM, null, 0);
+
+        ArrowBulkExporter exporter = new ArrowBulkExporter(service, tempDir.toString(), 2);
+        List<Map<String, Object>> results = exporter.export(
+                service.selectSeries("pressure", null), "run-1", 0, Long.MAX_VALUE);
+        assertEquals(4, results.size());
+
+        for (Map<String, Object> result : results) {
+            String sourceId = (String) result.get("sourceId");
+            if ("pump-4".equals(sourceId)) {
+                assertEquals("histogram", result.get("skipped"));
+                continue;
+            }
+            long expected = "pump-1".equals(sourceId) ? 20_000 : "pump-2".equals(sourceId) ? 1 : 300;
+            assertEquals(expected, ((Number) result.get("rows")).longValue());
+
+            Path file = Path.of((String) result.get("file"));
+            assertTrue(file.startsWith(tempDir.resolve("run-1")));
+            try (BufferAllocator allocator = new RootAllocator();
+                 FileChannel channel = FileChannel.open(file);
+                 ArrowFileReader reader = new ArrowFileReader(channel, allocator)) {
+                long rows = 0;
+                double last = Double.NaN;
+                for (ArrowBlock block : reader.getRecordBlocks()) {
+                    assertTrue(reader.loadRecordBatch(block));
+                    VectorSchemaRoot root = reader.getVectorSchemaRoot();
+                    rows += root.getRowCount();
+                    last = ((Float8Vector) root.getVector("value")).get(root.getRowCount() - 1);
+                }
+                assertEquals(expected, rows);
+                assertEquals("pump-1".equals(sourceId) ? 19_999 * 0.5 : "pump-2".equals(sourceId) ? 1.5 : 299, last);
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> exporter.export(List.of(), "../outside", 0, 1));
+    }
+
+    @Test
+    public void testBulkExportRejectsSymbolicLinks() throws Exception {
+        TelemetryService service = populate("pump-1", "pressure", 100);
+        Path base = Files.createDirectories(tempDir.resolve("base"));
+        Path outside = Files.createDirectories(tempDir.resolve("outside"));
+        ArrowBulkExporter exporter = new ArrowBulkExporter(service, base.toString(), 1);
+        List<Map<String, Object>> series = service.selectSeries("pressure", null);
+
+        // 基础目录内指向目录外的目录链接
+        Files.createSymbolicLink(base.resolve("link"), outside);
+        assertThrows(IllegalArgumentException.class, () -> exporter.export(series, "link", 0, Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> exporter.export(series, "link/sub", 0, Long.MAX_VALUE));
+        try (Stream<Path> files = Files.list(outside)) {
+            assertEquals(0, files.count());
+        }
+
+        // 与导出文件同名的文件链接被替换，链接目标不被写入
+        Path target = Files.writeString(outside.resolve("target.txt"), "unchanged");
+        Files.createDirectories(base.resolve("run-1"));
+        Files.createSymbolicLink(base.resolve("run-1").resolve(ArrowBulkExporter.fileName("pump-1", "pressure")),
+                target);
+        List<Map<String, Object>> results = exporter.export(series, "run-1", 0, Long.MAX_VALUE);
+        assertEquals(100L, results.get(0).get("rows"));
+        assertEquals("unchanged", Files.readString(target));
+        assertFalse(Files.isSymbolicLink(Path.of((String) results.get(0).get("file"))));
+    }
+
+    @Test
+    public void testBulkFileNamesDoNotCollide() {
+        // 字符替换后相同的标识仍得到不同的文件名
+        assertNotEquals(ArrowBulkExporter.fileName("sensor:1", "t"), ArrowBulkExporter.fileName("sensor/1", "t"));
+        assertNotEquals(ArrowBulkExporter.fileName("a__b", "c"), ArrowBulkExporter.fileName("a", "b__c"));
+        assertNotEquals(ArrowBulkExporter.fileName("ab", "c"), ArrowBulkExporter.fileName("a", "bc"));
+        assertEquals(ArrowBulkExporter.fileName("pump-1", "pressure"), ArrowBulkExporter.fileName("pump-1", "pressure"));
+        assertTrue(ArrowBulkExporter.fileName("pump-1", "pressure").startsWith("pump-1__pressure-"));
+    }
+}
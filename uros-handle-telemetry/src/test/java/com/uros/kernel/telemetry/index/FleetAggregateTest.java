@@ -0,0 +1,86 @@
+package com.uros.kernel.telemetry.index;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 跨数据源聚合测试类
+ */
+public class FleetAggregateTest {
+
+    @Test
+    public void testIncrementalMatchesRecomputation() {
+        FleetAggregate aggregate = new FleetAggregate("temperature");
+        Map<String, Double> latest = new HashMap<>();
+        Random random = new Random(42);
+        for (int step = 0; step < 20_000; step++) {
+            String sourceId = "sensor-" + random.nextInt(500);
+            double value = random.nextInt(10) == 0 ? Double.NaN : Math.round(random.nextGaussian() * 1000) / 10.0;
+            aggregate.update(sourceId, value, step);
+            if (Double.isNaN(value)) {
+                latest.remove(sourceId);
+            } else {
+                latest.put(sourceId, value);
+            }
+        }
+
+        List<Map.Entry<String, Double>> expected = new ArrayList<>(latest.entrySet());
+        expected.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
+        double sum = latest.values().stream().mapToDouble(Double::doubleValue).sum();
+
+        Map<String, Object> result = aggregate.toMap(10, true);
+        assertEquals(latest.size(), result.get("count"));
+        assertEquals(sum, (Double) result.get("sum"), 1e-6);
+        assertEquals(sum / latest.size(), (Double) result.get("avg"), 1e-9);
+        assertEquals(expected.get(0).getValue(), result.get("max"));
+        assertEquals(expected.get(expected.size() - 1).getValue(), result.get("min"));
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> top = (List<Map<String, Object>>) result.get("top");
+        assertEquals(10, top.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(expected.get(i).getValue(), top.get(i).get("value"));
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> bottom = (List<Map<String, Object>>) aggregate.toMap(3, false).get("top");
+        assertEquals(expected.get(expected.size() - 1).getValue(), bottom.get(0).get("value"));
+        assertEquals(expected.get(expected.size() - 3).getValue(), bottom.get(2).get("value"));
+    }
+
+    @Test
+    public void testServiceBackfillAndIngest() {
+        TelemetryService service = new TelemetryServiceImpl();
+        service.recordMetric("s1", "temperature", 20, 1000);
+        service.recordMetric("s2", "temperature", 30, 1000);
+        service.recordMetric("s2", "humidity", 80, 1000);
+
+        assertTrue(service.registerFleetAggregate("temperature"));
+        assertFalse(service.registerFleetAggregate("temperature"));
+        assertEquals(25.0, service.getFleetAggregate("temperature", 0, true).get("avg"));
+
+        service.recordMetric("s3", "temperature", 40, 2000);
+        // 较旧的数据点不改变最新值
+        service.recordMetric("s1", "temperature", 99, 500);
+        service.recordMetricBatch("s1", "temperature", new double[]{22, 10}, new long[]{3000, 2500}, 2);
+
+        Map<String, Object> result = service.getFleetAggregate("temperature", 1, true);
+        assertEquals(3, result.get("count"));
+        assertEquals(92.0, result.get("sum"));
+        assertEquals(22.0, result.get("min"));
+        assertEquals("s3", result.get("maxSourceId"));
+
+        assertTrue(service.removeFleetAggregate("temperature"));
+        assertTrue(service.getFleetAggregate("temperature", 0, true).isEmpty());
+    }
+}
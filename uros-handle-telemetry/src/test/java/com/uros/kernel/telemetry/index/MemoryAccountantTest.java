@@ -0,0 +1,77 @@
+package com.uros.kernel.telemetry.index;
+
+import com.uros.kernel.telemetry.model.MemoryAccount;
+import com.uros.kernel.telemetry.model.MetricKind;
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存占用估算测试类
+ */
+public class MemoryAccountantTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testIncrementalMatchesSeriesEstimates() {
+        TelemetryService service = new TelemetryServiceImpl();
+        service.defineMetricKind("meter-1", "energy", MetricKind.COUNTER, null, 0);
+        service.defineMetricKind("api-1", "latency", MetricKind.HISTOGRAM, new double[]{0.1, 1}, 10_000);
+        long base = System.currentTimeMillis() - 1_000_000L;
+        for (int i = 0; i < 1000; i++) {
+            service.recordMetric("sensor-1", "temperature", 20 + i % 7, base + i * 1000L);
+            service.recordMetric("sensor-2", "humidity", 50 + i % 3, base + i * 1000L);
+            service.recordMetric("meter-1", "energy", i * 10, base + i * 1000L);
+            service.recordMetric("api-1", "latency", (i % 20) / 10.0, base + i * 1000L);
+        }
+        service.cleanupAllHistory(500_000L);
+
+        Map<String, Object> usage = service.getMemoryUsage(null, 10);
+        assertEquals(4L, usage.get("series"));
+        assertEquals(4, usage.get("sources"));
+        Map<String, Object> tiers = (Map<String, Object>) usage.get("tiers");
+        assertTrue((Long) tiers.get("gauge") > 0);
+        assertTrue((Long) tiers.get("counter") > 0);
+        assertTrue((Long) tiers.get("histogram") > 0);
+
+        // 增量维护的总量与逐个序列估算之和一致
+        List<Map<String, Object>> topSeries = (List<Map<String, Object>>) usage.get("topSeries");
+        assertEquals(4, topSeries.size());
+        long seriesBytes = 0;
+        for (Map<String, Object> series : topSeries) {
+            seriesBytes += (Long) series.get("estimatedBytes");
+        }
+        assertEquals(usage.get("estimatedBytes"), seriesBytes);
+        assertEquals("sensor-1", topSeries.get(0).get("sourceId"));
+
+        Map<String, Object> sensor = service.getMemoryUsage("sensor-1", 1);
+        assertEquals(1L, sensor.get("series"));
+        assertEquals((long) service.queryMetrics("sensor-1", "temperature", 0, Long.MAX_VALUE).size(), sensor.get("points"));
+        assertTrue(service.getMemoryUsage("missing", 1).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTopSourcesOrderedByBytes() {
+        MemoryAccountant accountant = new MemoryAccountant();
+        for (int i = 0; i < 100; i++) {
+            MemoryAccount account = accountant.account("source-" + i);
+            account.addSeries(100);
+            account.add(MemoryAccount.Tier.GAUGE, (i * 37L) % 100 * 44, (i * 37L) % 100);
+        }
+
+        Map<String, Object> summary = accountant.summarize(3);
+        assertEquals(100L, summary.get("series"));
+        List<Map<String, Object>> top = (List<Map<String, Object>>) summary.get("topSources");
+        assertEquals(3, top.size());
+        assertEquals(99 * 44 + 100L, top.get(0).get("estimatedBytes"));
+        assertEquals(98 * 44 + 100L, top.get(1).get("estimatedBytes"));
+        assertEquals(97 * 44 + 100L, top.get(2).get("estimatedBytes"));
+        assertFalse(accountant.summarize(0).containsKey("topSources"));
+    }
+}
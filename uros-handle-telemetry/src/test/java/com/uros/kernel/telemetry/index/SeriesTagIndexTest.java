@@ -0,0 +1,75 @@
+package com.uros.kernel.telemetry.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 序列标签倒排索引测试类
+ */
+public class SeriesTagIndexTest {
+
+    private SeriesTagIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new SeriesTagIndex();
+        index.register("s1:temperature", "s1", "temperature");
+        index.register("s2:temperature", "s2", "temperature");
+        index.register("s3:temperature", "s3", "temperature");
+        index.register("s1:humidity", "s1", "humidity");
+
+        index.updateTags("s1:temperature", Collections.emptyMap(), Map.of("room", "kitchen", "floor", "1"));
+        index.updateTags("s2:temperature", Collections.emptyMap(), Map.of("room", "kitchen", "floor", "2"));
+        index.updateTags("s3:temperature", Collections.emptyMap(), Map.of("room", "bedroom", "floor", "2"));
+        index.updateTags("s1:humidity", Collections.emptyMap(), Map.of("room", "kitchen"));
+    }
+
+    @Test
+    public void testRegisterIsIdempotent() {
+        SeriesTagIndex.SeriesRef first = index.register("s1:temperature", "s1", "temperature");
+        SeriesTagIndex.SeriesRef second = index.register("s1:temperature", "s1", "temperature");
+        assertSame(first, second);
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void testSelectByIntersection() {
+        Map<String, String> matchers = new HashMap<>();
+        matchers.put(SeriesTagIndex.NAME_TAG, "temperature");
+        matchers.put("room", "kitchen");
+
+        List<SeriesTagIndex.SeriesRef> refs = index.select(matchers);
+        assertEquals(2, refs.size());
+        assertEquals("s1", refs.get(0).getSourceId());
+        assertEquals("s2", refs.get(1).getSourceId());
+
+        matchers.put("floor", "2");
+        refs = index.select(matchers);
+        assertEquals(1, refs.size());
+        assertEquals("s2:temperature", refs.get(0).getKey());
+    }
+
+    @Test
+    public void testSelectUnknownValue() {
+        assertTrue(index.select(Map.of("room", "garage")).isEmpty());
+        assertTrue(index.select(Map.of("unknown", "x")).isEmpty());
+        assertEquals(4, index.select(Collections.emptyMap()).size());
+    }
+
+    @Test
+    public void testUpdateTagsRemovesOldPostings() {
+        index.updateTags("s3:temperature", Map.of("room", "bedroom", "floor", "2"), Map.of("room", "kitchen"));
+
+        assertEquals(4, index.select(Map.of("room", "kitchen")).size());
+        assertTrue(index.select(Map.of("room", "bedroom")).isEmpty());
+        assertFalse(index.getTagValues("room").contains("bedroom"));
+        assertEquals(1, index.select(Map.of("floor", "2")).size());
+    }
+}
@@ -0,0 +1,58 @@
+package com.uros.kernel.telemetry.index;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 数据源最新值快照索引测试类
+ */
+public class SourceSnapshotIndexTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testSnapshotCachedUntilWrite() throws Exception {
+        SourceSnapshotIndex index = new SourceSnapshotIndex();
+        assertNull(index.getSnapshot("pump-1"));
+
+        index.update("pump-1", "pressure", 2.5, 1000);
+        index.update("pump-1", "temperature", 40, 1000);
+        SourceSnapshotIndex.Snapshot first = index.getSnapshot("pump-1");
+        assertSame(first, index.getSnapshot("pump-1"));
+
+        // 更早的数据点不改变最新值，也不使缓存失效
+        index.update("pump-1", "pressure", 9, 500);
+        assertSame(first, index.getSnapshot("pump-1"));
+
+        index.update("pump-1", "pressure", 3.5, 2000);
+        SourceSnapshotIndex.Snapshot second = index.getSnapshot("pump-1");
+        assertNotSame(first, second);
+        assertNotEquals(first.getETag(), second.getETag());
+
+        JsonNode json = MAPPER.readTree(second.getJson());
+        assertEquals("pump-1", json.get("sourceId").asText());
+        assertEquals(2, json.get("metricCount").asInt());
+        assertEquals(3.5, json.get("metrics").get("pressure").get("value").asDouble());
+        assertEquals(2000, json.get("metrics").get("pressure").get("timestamp").asLong());
+        assertEquals(40, json.get("metrics").get("temperature").get("value").asDouble());
+    }
+
+    @Test
+    public void testServiceMaintainsSnapshotAtIngest() throws Exception {
+        TelemetryService service = new TelemetryServiceImpl();
+        service.recordMetric("pump-1", "pressure", 1.5, 1000);
+        service.recordMetricBatch("pump-1", "flow", new double[]{7, 9, 8}, new long[]{1000, 3000, 2000}, 3);
+        service.recordMetric("pump-2", "pressure", 4, 1000);
+
+        JsonNode json = MAPPER.readTree(service.getSourceSnapshot("pump-1").getJson());
+        assertEquals(2, json.get("metricCount").asInt());
+        assertEquals(9, json.get("metrics").get("flow").get("value").asDouble());
+        assertEquals(3000, json.get("metrics").get("flow").get("timestamp").asLong());
+        assertNull(service.getSourceSnapshot("pump-3"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.uros.kernel.telemetry.ingest;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 异步批量写入管道测试类
+ */
+public class AsyncIngestPipelineTest {
+
+    @Test
+    public void testConcurrentEnqueueIsAppliedInOrder() throws InterruptedException {
+        TelemetryService service = new TelemetryServiceImpl();
+        AsyncIngestPipeline pipeline = new AsyncIngestPipeline(service, true, 2, 1 << 16, 256);
+        pipeline.start();
+
+        int writers = 4;
+        int perWriter = 5_000;
+        Thread[] threads = new Thread[writers];
+        for (int w = 0; w < writers; w++) {
+            String sourceId = "device-" + w;
+            threads[w] = new Thread(() -> {
+                for (int i = 0; i < perWriter; i++) {
+                    while (!pipeline.enqueue(sourceId, "power", i, 1000L + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[w].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        pipeline.stop();
+
+        for (int w = 0; w < writers; w++) {
+            Map<String, Object> stats = service.calculateStatistics("device-" + w, "power");
+            assertEquals(perWriter, stats.get("count"));
+            Map<String, Object> latest = service.getLatestMetric("device-" + w, "power");
+            assertEquals((double) (perWriter - 1), latest.get("value"));
+        }
+
+        Map<String, Object> pipelineStats = pipeline.getStatistics();
+        assertEquals((long) writers * perWriter, pipelineStats.get("applied"));
+        assertEquals(0L, pipelineStats.get("queueDepth"));
+        assertTrue((long) pipelineStats.get("batches") > 0);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> latency = (Map<String, Object>) pipelineStats.get("latency");
+        assertEquals((long) writers * perWriter, latency.get("count"));
+    }
+
+    @Test
+    public void testAcceptedPointsSurviveConcurrentStop() throws InterruptedException {
+        TelemetryService service = new TelemetryServiceImpl();
+        AsyncIngestPipeline pipeline = new AsyncIngestPipeline(service, true, 2, 1 << 16, 256);
+        pipeline.start();
+
+        LongAdder accepted = new LongAdder();
+        Thread[] threads = new Thread[4];
+        for (int w = 0; w < threads.length; w++) {
+            String sourceId = "device-" + w;
+            threads[w] = new Thread(() -> {
+                for (int i = 0; i < 200_000; i++) {
+                    if (pipeline.enqueue(sourceId, "power", i, 1000L + i)) {
+                        accepted.increment();
+                    }
+                }
+            });
+            threads[w].start();
+        }
+        Thread.sleep(20);
+        pipeline.stop();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // 停止期间确认的数据点都已写入
+        assertEquals(accepted.sum(), pipeline.getStatistics().get("applied"));
+        assertEquals(0L, pipeline.getStatistics().get("queueDepth"));
+    }
+
+    @Test
+    public void testRejectsWhenNotRunning() {
+        AsyncIngestPipeline pipeline = new AsyncIngestPipeline(new TelemetryServiceImpl(), false, 1, 16, 16);
+        pipeline.start();
+        assertFalse(pipeline.isRunning());
+        assertFalse(pipeline.enqueue("device", "power", 1.0, 1000L));
+        assertEquals(1L, pipeline.getStatistics().get("rejected"));
+    }
+}
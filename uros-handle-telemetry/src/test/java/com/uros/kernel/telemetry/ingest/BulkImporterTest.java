@@ -0,0 +1,128 @@
+package com.uros.kernel.telemetry.ingest;
+
+import com.uros.kernel.telemetry.model.MetricKind;
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 历史数据批量导入测试类
+ */
+public class BulkImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private void write(String name, String content) throws Exception {
+        Files.write(tempDir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCsvImportSortsAndRejects() throws Exception {
+        StringBuilder csv = new StringBuilder("sourceId,metricName,timestamp,value\n");
+        // 逆序写入，导入时按序列排序
+        for (int i = 999; i >= 0; i--) {
+            csv.append("pump-1,pressure,").append(1_000_000L + i * 1000L).append(',').append(i).append('\n');
+            csv.append("pump-2,pressure,").append(1_000_000L + i * 1000L).append(',').append(-i).append('\n');
+        }
+        csv.append("pump-1,pressure,broken\n");
+        write("history.csv", csv.toString());
+
+        TelemetryService service = new TelemetryServiceImpl();
+        BulkImporter importer = new BulkImporter(service, tempDir.toString(), 4);
+        Map<String, Object> result = importer.importFile("history.csv", null);
+
+        assertEquals("csv", result.get("format"));
+        assertEquals(2, result.get("series"));
+        assertEquals(2000L, result.get("rows"));
+        assertEquals(1L, result.get("rejected"));
+
+        List<Map<String, Object>> points = service.queryMetrics("pump-1", "pressure", 0, Long.MAX_VALUE);
+        assertEquals(1000, points.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals((double) i, points.get(i).get("value"));
+        }
+        assertEquals(999.0, service.getLatestMetric("pump-1", "pressure").get("value"));
+        assertEquals(2000L, importer.getStatistics().get("importedRows"));
+    }
+
+    @Test
+    public void testImportMergesWithExistingHistory() throws Exception {
+        TelemetryService service = new TelemetryServiceImpl();
+        service.recordMetric("pump-1", "pressure", 1.0, 2_000L);
+        service.recordMetric("pump-1", "pressure", 3.0, 4_000L);
+        write("backfill.ndjson", "{\"sourceId\":\"pump-1\",\"metricName\":\"pressure\",\"timestamp\":3000,\"value\":2}\n"
+                + "{\"sourceId\":\"pump-1\",\"metricName\":\"pressure\",\"timestamp\":1000,\"value\":0,\"unit\":\"bar\"}\n");
+
+        BulkImporter importer = new BulkImporter(service, tempDir.toString(), 2);
+        Map<String, Object> result = importer.importFile("backfill.ndjson", null);
+        assertEquals("ndjson", result.get("format"));
+        assertEquals(2L, result.get("rows"));
+
+        List<Map<String, Object>> points = service.queryMetrics("pump-1", "pressure", 0, Long.MAX_VALUE);
+        assertEquals(4, points.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals((double) i, points.get(i).get("value"));
+        }
+        // 回填更早的数据不改变最新值
+        assertEquals(3.0, service.getLatestMetric("pump-1", "pressure").get("value"));
+    }
+
+    @Test
+    public void testCounterImport() throws Exception {
+        TelemetryService service = new TelemetryServiceImpl();
+        service.defineMetricKind("meter-1", "energy", MetricKind.COUNTER, null, 0);
+        write("energy.txt", "meter-1,energy,1000,10\nmeter-1,energy,2000,15\nmeter-1,energy,2000,15\n");
+
+        BulkImporter importer = new BulkImporter(service, tempDir.toString(), 1);
+        Map<String, Object> result = importer.importFile("energy.txt", "csv");
+        assertEquals(2L, result.get("rows"));
+        // 重复时间戳的计数器样本不写入
+        assertEquals(1L, result.get("rejected"));
+        assertEquals(15.0, service.getLatestMetric("meter-1", "energy").get("value"));
+    }
+
+    @Test
+    public void testLargeFileSplitsOnLineBoundaries() throws Exception {
+        // 约3MB，按1MB最小区段切分为3段，区段边界落在行中间时需对齐到下一行
+        StringBuilder csv = new StringBuilder();
+        int rows = 60_000;
+        for (int i = 0; i < rows; i++) {
+            csv.append("sensor-").append(i % 7).append(",temperature,")
+                    .append(1_000_000_000L + i * 1000L).append(',').append(i).append(".125\n");
+        }
+        write("large.csv", csv.toString());
+
+        TelemetryService service = new TelemetryServiceImpl();
+        BulkImporter importer = new BulkImporter(service, tempDir.toString(), 4);
+        Map<String, Object> result = importer.importFile("large.csv", null);
+        assertTrue((Integer) result.get("regions") > 1);
+        assertEquals((long) rows, result.get("rows"));
+        assertEquals(0L, result.get("rejected"));
+        assertEquals(7, result.get("series"));
+        assertEquals(rows / 7 + 1, service.queryMetrics("sensor-0", "temperature", 0, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testRejectsPathsOutsideBaseDir() throws Exception {
+        BulkImporter importer = new BulkImporter(new TelemetryServiceImpl(), tempDir.resolve("in").toString(), 1);
+        assertThrows(IllegalArgumentException.class, () -> importer.importFile("../history.csv", null));
+        // 基础目录内指向目录外文件的符号链接
+        Path outside = Files.writeString(tempDir.resolve("secret.csv"),
+                "sourceId,metricName,timestamp,value\nsensor-1,temperature,1000,1\n");
+        Files.createDirectories(tempDir.resolve("in"));
+        Files.createSymbolicLink(tempDir.resolve("in").resolve("link.csv"), outside);
+        assertThrows(IllegalArgumentException.class, () -> importer.importFile("link.csv", null));
+        assertThrows(IllegalArgumentException.class, () -> importer.importFile("missing.csv", null));
+        assertThrows(IllegalArgumentException.class, () -> ImportFormat.of(null, "history.parquet"));
+    }
+}
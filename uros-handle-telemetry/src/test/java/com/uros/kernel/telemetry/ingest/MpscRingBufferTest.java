@@ -0,0 +1,78 @@
+package com.uros.kernel.telemetry.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多生产者单消费者环形缓冲区测试类
+ */
+public class MpscRingBufferTest {
+
+    @Test
+    public void testCapacityRoundedToPowerOfTwo() {
+        assertEquals(8, new MpscRingBuffer(5).capacity());
+        assertEquals(16, new MpscRingBuffer(16).capacity());
+    }
+
+    @Test
+    public void testOfferUntilFullThenDrain() {
+        MpscRingBuffer ring = new MpscRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer("s", "m", i, 1000L + i));
+        }
+        assertFalse(ring.offer("s", "m", 99, 9999L));
+        assertEquals(4, ring.size());
+
+        MpscRingBuffer.Batch batch = new MpscRingBuffer.Batch(3);
+        assertEquals(3, ring.drainTo(batch, 10));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, batch.values[i]);
+            assertEquals(1000L + i, batch.timestamps[i]);
+        }
+
+        // 释放的槽位可以再次写入，且顺序保持
+        assertTrue(ring.offer("s", "m", 4, 1004L));
+        assertEquals(2, ring.drainTo(batch, 10));
+        assertEquals(3.0, batch.values[0]);
+        assertEquals(4.0, batch.values[1]);
+        assertEquals(0, ring.drainTo(batch, 10));
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        MpscRingBuffer ring = new MpscRingBuffer(1 << 16);
+        int producers = 4;
+        int perProducer = 10_000;
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            String sourceId = "producer-" + p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    assertTrue(ring.offer(sourceId, "m", i, i));
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // 每个生产者的数据按写入顺序出队
+        MpscRingBuffer.Batch batch = new MpscRingBuffer.Batch(1024);
+        double[] lastSeen = new double[producers];
+        Arrays.fill(lastSeen, -1);
+        int total = 0;
+        while (ring.drainTo(batch, 1024) > 0) {
+            for (int i = 0; i < batch.size(); i++) {
+                int producer = Integer.parseInt(batch.sourceIds[i].substring("producer-".length()));
+                assertTrue(batch.values[i] > lastSeen[producer]);
+                lastSeen[producer] = batch.values[i];
+                total++;
+            }
+        }
+        assertEquals(producers * perProducer, total);
+    }
+}
@@ -0,0 +1,109 @@
+package com.uros.kernel.telemetry.ingest;
+
+import com.uros.kernel.telemetry.exception.IngestRateLimitedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 写入限流器测试类
+ */
+public class SourceRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testBurstThenReject() {
+        // 每秒10个，突发容量5
+        SourceRateLimiter limiter = new SourceRateLimiter(true, 10, 5);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("device-1", 1, now));
+        }
+        long wait = limiter.tryAcquire("device-1", 1, now);
+        assertTrue(wait > 0);
+        assertEquals(SECOND / 10, wait);
+
+        // 等待一个发放间隔后恢复一个令牌
+        assertEquals(0, limiter.tryAcquire("device-1", 1, now + SECOND / 10));
+        assertTrue(limiter.tryAcquire("device-1", 1, now + SECOND / 10) > 0);
+    }
+
+    @Test
+    public void testSourcesAreIsolated() {
+        SourceRateLimiter limiter = new SourceRateLimiter(true, 10, 2);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, limiter.tryAcquire("noisy", 2, now));
+        assertTrue(limiter.tryAcquire("noisy", 1, now) > 0);
+        assertEquals(0, limiter.tryAcquire("quiet", 1, now));
+
+        List<Map<String, Object>> stats = limiter.getStatistics();
+        assertEquals(2, stats.size());
+        for (Map<String, Object> entry : stats) {
+            if ("noisy".equals(entry.get("sourceId"))) {
+                assertEquals(2L, entry.get("accepted"));
+                assertEquals(1L, entry.get("rejected"));
+            } else {
+                assertEquals(1L, entry.get("accepted"));
+                assertEquals(0L, entry.get("rejected"));
+            }
+        }
+    }
+
+    @Test
+    public void testAcquireThrowsWithRetryAfter() {
+        SourceRateLimiter limiter = new SourceRateLimiter(true, 1, 1);
+        limiter.acquire("device-1", 1);
+
+        IngestRateLimitedException ex = assertThrows(IngestRateLimitedException.class,
+                () -> limiter.acquire("device-1", 1));
+        assertEquals("device-1", ex.getSourceId());
+        assertTrue(ex.getRetryAfterMillis() > 0 && ex.getRetryAfterMillis() <= 1001);
+    }
+
+    @Test
+    public void testOversizedRequestIsNotRetryable() {
+        SourceRateLimiter limiter = new SourceRateLimiter(true, 10, 5);
+        long now = 1_000 * SECOND;
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> limiter.tryAcquire("device-1", 6, now));
+        assertTrue(ex.getMessage().contains("burst of 5"));
+        assertEquals(0, limiter.tryAcquire("device-1", 5, now));
+    }
+
+    @Test
+    public void testEvictIdleBuckets() {
+        SourceRateLimiter limiter = new SourceRateLimiter(true, 10, 2);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, limiter.tryAcquire("idle", 1, now));
+        assertEquals(0, limiter.tryAcquire("busy", 2, now));
+        assertTrue(limiter.tryAcquire("busy", 1, now) > 0);
+
+        // 0.1秒后idle已回满，busy仍欠一个令牌
+        assertEquals(1, limiter.evictIdle(now + SECOND / 10));
+        List<Map<String, Object>> stats = limiter.getStatistics();
+        assertEquals(1, stats.size());
+        assertEquals("busy", stats.get(0).get("sourceId"));
+
+        // 清理后重新创建的桶按满桶准入
+        assertEquals(0, limiter.tryAcquire("idle", 2, now + SECOND / 10));
+        assertTrue(limiter.tryAcquire("idle", 1, now + SECOND / 10) > 0);
+    }
+
+    @Test
+    public void testDisabledAdmitsEverything() {
+        SourceRateLimiter limiter = new SourceRateLimiter(false, 1, 1);
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire("device-1", 10);
+        }
+        assertTrue(limiter.getStatistics().isEmpty());
+    }
+}
@@ -0,0 +1,84 @@
+package com.uros.kernel.telemetry.ingest;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 数据源校验器测试类
+ */
+public class SourceValidatorTest {
+
+    @Test
+    public void testBloomFilterHasNoFalseNegatives() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add("device-" + i);
+        }
+        BloomFilter bloom = new BloomFilter(ids, 0.01);
+        for (String id : ids) {
+            assertTrue(bloom.mightContain(id));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (bloom.mightContain("unknown-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    public void testRejectMode() {
+        TelemetryService service = new TelemetryServiceImpl();
+        SourceValidator validator = new SourceValidator(service, SourceValidationMode.REJECT,
+                () -> Set.of("pump-1"), 30_000, 16, 4);
+        // 首次刷新之前放行
+        assertEquals(SourceValidator.Verdict.ACCEPT, validator.check("pmup-1"));
+        assertTrue(validator.refresh());
+        assertEquals(SourceValidator.Verdict.ACCEPT, validator.check("pump-1"));
+        assertEquals(SourceValidator.Verdict.REJECT, validator.check("pmup-1"));
+        assertEquals(1L, validator.getStatistics().get("rejected"));
+    }
+
+    @Test
+    public void testQuarantineReleasedAfterRegistration() {
+        TelemetryService service = new TelemetryServiceImpl();
+        Set<String> registry = new CopyOnWriteArraySet<>(Set.of("pump-1"));
+        SourceValidator validator = new SourceValidator(service, SourceValidationMode.QUARANTINE,
+                () -> registry, 30_000, 1, 3);
+        validator.refresh();
+
+        SeriesRunBatcher batcher = new SeriesRunBatcher(service, validator);
+        for (int i = 0; i < 5; i++) {
+            batcher.accept("pump-2", "pressure", i, 1000 + i);
+        }
+        batcher.accept("pump-1", "pressure", 9, 1000);
+        batcher.flush();
+        // 隔离区只容纳一个数据源
+        validator.quarantine("pump-3", "pressure", 1, 1000);
+
+        assertTrue(service.getLatestMetric("pump-2", "pressure").isEmpty());
+        assertEquals(9.0, service.getLatestMetric("pump-1", "pressure").get("value"));
+        Map<String, Object> stats = validator.getStatistics();
+        assertEquals(5L, stats.get("quarantined"));
+        assertEquals(3L, stats.get("quarantineDropped"));
+
+        registry.add("pump-2");
+        validator.refresh();
+        // 只保留最近的3个数据点
+        List<Map<String, Object>> points = service.queryMetrics("pump-2", "pressure", 0, Long.MAX_VALUE);
+        assertEquals(3, points.size());
+        assertEquals(2.0, points.get(0).get("value"));
+        assertEquals(3L, validator.getStatistics().get("released"));
+        assertEquals(SourceValidator.Verdict.ACCEPT, validator.check("pump-2"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.uros.kernel.telemetry.ingest;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UDP/TCP遥测监听器测试类
+ */
+public class TelemetryNetworkListenerTest {
+
+    @Test
+    public void testUdpAndTcpLineProtocol() throws Exception {
+        TelemetryService service = new TelemetryServiceImpl();
+        int udpPort = freePort();
+        int tcpPort = freePort();
+        TelemetryNetworkListener listener =
+                new TelemetryNetworkListener(service, disabledValidator(service), true, "127.0.0.1", udpPort, tcpPort,
+                        "line");
+        listener.start();
+        try {
+            try (Socket socket = new Socket("127.0.0.1", tcpPort)) {
+                OutputStream out = socket.getOutputStream();
+                StringBuilder lines = new StringBuilder();
+                for (int i = 0; i < 1000; i++) {
+                    lines.append("gateway-1 flow ").append(i).append(' ').append(1_000_000L + i).append('\n');
+                }
+                out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+
+            try (DatagramSocket socket = new DatagramSocket()) {
+                byte[] payload = "gateway-2 level 7.5 2000000\ngateway-2 level 8.5 2000001"
+                        .getBytes(StandardCharsets.UTF_8);
+                socket.send(new DatagramPacket(payload, payload.length, InetAddress.getLoopbackAddress(), udpPort));
+            }
+
+            waitFor(() -> count(service, "gateway-1", "flow") == 1000 && count(service, "gateway-2", "level") == 2);
+
+            assertEquals(999.0, service.getLatestMetric("gateway-1", "flow").get("value"));
+            assertEquals(8.5, service.getLatestMetric("gateway-2", "level").get("value"));
+            Map<String, Object> stats = listener.getStatistics();
+            assertEquals(1002L, stats.get("received"));
+            assertEquals(0L, stats.get("malformed"));
+        } finally {
+            listener.stop();
+        }
+        assertFalse(listener.isRunning());
+    }
+
+    private static int count(TelemetryService service, String sourceId, String metricName) {
+        Object count = service.calculateStatistics(sourceId, metricName).get("count");
+        return count == null ? 0 : ((Number) count).intValue();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for listener");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    static SourceValidator disabledValidator(TelemetryService service) {
+        return new SourceValidator(service, SourceValidationMode.OFF, List::of, 30_000, 0, 1);
+    }
+}
@@ -0,0 +1,145 @@
+package com.uros.kernel.telemetry.ingest.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 行协议与二进制帧解码器测试类
+ */
+public class FrameDecoderTest {
+
+    private final List<Object[]> samples = new ArrayList<>();
+
+    private final SampleSink sink = (sourceId, metricName, value, timestamp) ->
+            samples.add(new Object[]{sourceId, metricName, value, timestamp});
+
+    @Test
+    public void testLineProtocol() {
+        LineProtocolDecoder decoder = new LineProtocolDecoder(new ByteStringCache(64));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        buffer.put(("pump-1 pressure 3.25 1700000000000\n"
+                + "pump-1\ttemperature -12.5\r\n"
+                + "\n"
+                + "pump-1 broken\n"
+                + "pump-2 flow 1e3 1700000000001\n"
+                + "pump-2 flow 4.").getBytes(StandardCharsets.UTF_8));
+        buffer.flip();
+
+        int decoded = decoder.decode(buffer, sink, 42L, false);
+        assertEquals(3, decoded);
+        assertEquals(1, decoder.getMalformedCount());
+
+        assertEquals("pump-1", samples.get(0)[0]);
+        assertEquals("pressure", samples.get(0)[1]);
+        assertEquals(3.25, samples.get(0)[2]);
+        assertEquals(1700000000000L, samples.get(0)[3]);
+
+        assertEquals(-12.5, samples.get(1)[2]);
+        assertEquals(42L, samples.get(1)[3]);
+        assertEquals(1000.0, samples.get(2)[2]);
+
+        // 相同字节返回同一个String实例
+        assertSame(samples.get(0)[0], samples.get(1)[0]);
+
+        // 未完整的行保留在缓冲区中，续上后继续解码
+        assertEquals("pump-2 flow 4.".length(), buffer.remaining());
+        buffer.compact();
+        buffer.put("5\n".getBytes(StandardCharsets.UTF_8));
+        buffer.flip();
+        assertEquals(1, decoder.decode(buffer, sink, 43L, false));
+        assertEquals(4.5, samples.get(3)[2]);
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    public void testParseDoubleFastPathMatchesJdk() {
+        String[] inputs = {"0", "1", "-1", "0.1", "123.456", "-0.000001", "98765.4321", "3.141592653589793", "+7"};
+        for (String input : inputs) {
+            ByteBuffer buffer = ByteBuffer.wrap(input.getBytes(StandardCharsets.US_ASCII));
+            assertEquals(Double.parseDouble(input), LineProtocolDecoder.parseDouble(buffer, 0, input.length()), input);
+        }
+        ByteBuffer bad = ByteBuffer.wrap("abc".getBytes(StandardCharsets.US_ASCII));
+        assertTrue(Double.isNaN(LineProtocolDecoder.parseDouble(bad, 0, 3)));
+    }
+
+    @Test
+    public void testBinaryFrames() {
+        BinaryFrameDecoder decoder = new BinaryFrameDecoder(new ByteStringCache(64));
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        putFrame(buffer, "meter-7", "energy", 12.75, 1700000000000L);
+        putFrame(buffer, "meter-7", "power", 3.5, 0L);
+        int partialStart = buffer.position();
+        putFrame(buffer, "meter-8", "power", 1.0, 1L);
+        int frameEnd = buffer.position();
+        buffer.position(frameEnd - 5);
+        buffer.flip();
+
+        assertEquals(2, decoder.decode(buffer, sink, 99L, false));
+        assertEquals("meter-7", samples.get(0)[0]);
+        assertEquals(12.75, samples.get(0)[2]);
+        assertEquals(1700000000000L, samples.get(0)[3]);
+        assertEquals(99L, samples.get(1)[3]);
+        assertEquals(partialStart, buffer.position());
+
+        // 数据报中末尾不完整的帧计为格式错误
+        assertEquals(0, decoder.decode(buffer, sink, 99L, true));
+        assertEquals(1, decoder.getMalformedCount());
+    }
+
+    @Test
+    public void testCsv() {
+        CsvDecoder decoder = new CsvDecoder(new ByteStringCache(64));
+        ByteBuffer buffer = ByteBuffer.wrap(("sourceId,metricName,timestamp,value\r\n"
+                + "pump-1, pressure ,1700000000000,3.25\r\n"
+                + "\"pump-1\",\"pressure\",1700000001000,\"-1e2\"\n"
+                + "pump-1,pressure,not-a-time,1\n"
+                + "pump-1,pressure,1700000002000\n"
+                + "pump-2,flow,1700000003000,4.5").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(2, decoder.decode(buffer, sink, 42L, false));
+        assertEquals(2, decoder.getMalformedCount());
+        assertEquals("pressure", samples.get(1)[1]);
+        assertEquals(-100.0, samples.get(1)[2]);
+        assertEquals(1700000001000L, samples.get(1)[3]);
+
+        // 输入结束时最后一行不需要换行符
+        assertEquals(1, decoder.decode(buffer, sink, 42L, true));
+        assertEquals("pump-2", samples.get(2)[0]);
+        assertEquals(4.5, samples.get(2)[2]);
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testNdjson() {
+        NdjsonDecoder decoder = new NdjsonDecoder(new ByteStringCache(64));
+        ByteBuffer buffer = ByteBuffer.wrap(("{\"sourceId\":\"pump-1\",\"metricName\":\"pressure\","
+                + "\"timestamp\":1700000000000,\"value\":3.25}\n"
+                + " { \"value\" : -2 , \"unit\": {\"name\": \"bar\", \"scale\": [1, 2]}, \"timestamp\": 1700000001000,"
+                + " \"metricName\": \"pres\\\"sure\\u00e9\", \"sourceId\": \"pump-1\", \"ok\": true }\n"
+                + "{\"sourceId\":\"pump-1\",\"metricName\":\"pressure\",\"value\":1}\n"
+                + "{\"sourceId\":\"pump-1\",\"metricName\":\"pressure\"\n"
+                + "[1,2,3]\n").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(2, decoder.decode(buffer, sink, 42L, true));
+        assertEquals(3, decoder.getMalformedCount());
+        assertEquals(3.25, samples.get(0)[2]);
+        assertEquals(1700000000000L, samples.get(0)[3]);
+        assertEquals("pres\"sure\u00e9", samples.get(1)[1]);
+        assertEquals(-2.0, samples.get(1)[2]);
+        assertEquals(1700000001000L, samples.get(1)[3]);
+    }
+
+    private static void putFrame(ByteBuffer buffer, String sourceId, String metricName, double value, long timestamp) {
+        byte[] source = sourceId.getBytes(StandardCharsets.UTF_8);
+        byte[] metric = metricName.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) source.length).put(source);
+        buffer.putShort((short) metric.length).put(metric);
+        buffer.putDouble(value).putLong(timestamp);
+    }
+}
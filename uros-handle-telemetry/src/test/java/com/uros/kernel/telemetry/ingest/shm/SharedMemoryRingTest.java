@@ -0,0 +1,87 @@
+package com.uros.kernel.telemetry.ingest.shm;
+
+import com.uros.kernel.telemetry.ingest.protocol.ByteStringCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 共享内存环形缓冲区测试类
+ */
+public class SharedMemoryRingTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testProduceAndDrainAcrossWrapAround() throws Exception {
+        Path file = tempDir.resolve("ingest.shm");
+        List<Double> values = new ArrayList<>();
+        ByteStringCache strings = new ByteStringCache(16);
+
+        try (SharedMemoryRing server = SharedMemoryRing.create(file, 2, 1024);
+             SharedMemoryRing client = SharedMemoryRing.open(file)) {
+            assertEquals(2, client.getRegionCount());
+            SharedMemoryRing.Producer producer = client.claimProducer();
+            assertNotNull(producer);
+
+            // 每条记录48字节，1024字节的区域写满后回绕多次
+            int written = 0;
+            for (int round = 0; round < 10; round++) {
+                while (producer.offer("plc-01", "pressure", written, 1000L + written)) {
+                    written++;
+                }
+                assertTrue(server.getBacklogBytes(producer.getRegion()) > 1024 - 48);
+                server.drain(producer.getRegion(), (s, m, v, t) -> {
+                    assertEquals("plc-01", s);
+                    assertEquals("pressure", m);
+                    assertEquals(1000L + (long) v, t);
+                    values.add(v);
+                }, strings, Integer.MAX_VALUE);
+                assertEquals(0, server.getBacklogBytes(producer.getRegion()));
+            }
+
+            assertEquals(written, values.size());
+            for (int i = 0; i < written; i++) {
+                assertEquals(i, values.get(i));
+            }
+            producer.close();
+        }
+    }
+
+    @Test
+    public void testRegionOwnership() throws Exception {
+        Path file = tempDir.resolve("owners.shm");
+        try (SharedMemoryRing ring = SharedMemoryRing.create(file, 2, 1024)) {
+            SharedMemoryRing.Producer first = ring.claimProducer();
+            SharedMemoryRing.Producer second = ring.claimProducer();
+            assertNotNull(first);
+            assertNotNull(second);
+            assertNotEquals(first.getRegion(), second.getRegion());
+            assertNull(ring.claimProducer());
+            assertEquals(ProcessHandle.current().pid(), ring.getOwnerPid(first.getRegion()));
+
+            first.offer("plc-02", "flow", 1.5, 1L);
+            first.close();
+            assertEquals(0, ring.getOwnerPid(first.getRegion()));
+
+            // 区域重新认领后从原写位置继续，未消费的记录保留
+            SharedMemoryRing.Producer again = ring.claimProducer();
+            assertEquals(first.getRegion(), again.getRegion());
+            again.offer("plc-02", "flow", 2.5, 2L);
+            List<Double> values = new ArrayList<>();
+            ring.drain(again.getRegion(), (s, m, v, t) -> values.add(v), new ByteStringCache(16), 10);
+            assertEquals(List.of(1.5, 2.5), values);
+        }
+
+        // 区域划分一致时复用已有文件
+        try (SharedMemoryRing reopened = SharedMemoryRing.create(file, 2, 1024)) {
+            assertNotEquals(0, reopened.getOwnerPid(0) + reopened.getOwnerPid(1));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.uros.kernel.telemetry.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 计数器存储测试类
+ */
+public class CounterDataTest {
+
+    @Test
+    public void testDeltaEncodingRoundTrip() {
+        CounterData counter = new CounterData();
+        List<double[]> expected = new ArrayList<>();
+        double value = 1_000_000;
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < 1000; i++) {
+            timestamp += 1000 + (i % 7 == 0 ? 3 : 0);
+            value += i % 100 == 99 ? -value + 4 : 17;
+            if (i == 500) {
+                value += 0.25;
+            }
+            assertTrue(counter.addDataPoint(value, timestamp));
+            expected.add(new double[]{value, timestamp});
+        }
+        assertFalse(counter.addDataPoint(value + 1, timestamp));
+        assertEquals(1, counter.getOutOfOrderDrops());
+
+        List<double[]> decoded = new ArrayList<>();
+        counter.forEachPoint(Long.MIN_VALUE, Long.MAX_VALUE, (v, t) -> decoded.add(new double[]{v, t}));
+        assertEquals(expected.size(), decoded.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), decoded.get(i));
+        }
+        assertEquals(1000, counter.size());
+        // 规则递增的计数器每点只需几个字节
+        assertTrue(counter.getEncodedBytes() < 1000 * 4, "encoded bytes: " + counter.getEncodedBytes());
+    }
+
+    @Test
+    public void testSummaryHandlesResets() {
+        CounterData counter = new CounterData();
+        double[] values = {10, 20, 30, 5, 15};
+        for (int i = 0; i < 300; i++) {
+            counter.addDataPoint(values[i % values.length] + 100 * (i / values.length), i * 1000L);
+        }
+
+        // 整块走块头汇总与逐点解码的结果一致
+        CounterData.Summary all = counter.summarize(0, 299_000);
+        double increase = 0;
+        int resets = 0;
+        double previous = Double.NaN;
+        for (int i = 0; i < 300; i++) {
+            double value = values[i % values.length] + 100 * (i / values.length);
+            if (!Double.isNaN(previous)) {
+                increase += value >= previous ? value - previous : value;
+                resets += value < previous ? 1 : 0;
+            }
+            previous = value;
+        }
+        assertEquals(300, all.getCount());
+        assertEquals(increase, all.getIncrease(), 1e-9);
+        assertEquals(resets, all.getResets());
+        assertEquals(increase / 299, all.getRate(), 1e-9);
+
+        CounterData.Summary partial = counter.summarize(2000, 4000);
+        assertEquals(3, partial.getCount());
+        assertEquals(15, partial.getIncrease());
+        assertEquals(1, partial.getResets());
+
+        assertEquals(240, counter.cleanupBefore(250_000));
+        assertEquals(60, counter.size());
+    }
+}
@@ -0,0 +1,113 @@
+package com.uros.kernel.telemetry.model;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 直方图存储及指标类型测试类
+ */
+public class HistogramDataTest {
+
+    @Test
+    public void testRollupsAndQuantiles() {
+        HistogramData histogram = new HistogramData(new double[]{1, 2, 5}, 60_000);
+        for (int i = 1; i <= 100; i++) {
+            histogram.addObservation(i * 0.05, i * 1000L);
+        }
+        histogram.addObservation(100, 30_000);
+
+        List<HistogramData.Summary> rollups = histogram.getRollups(0, 200_000);
+        assertEquals(2, rollups.size());
+        assertEquals(60, rollups.get(0).getCount());
+        assertEquals(60_000, rollups.get(1).getStartTime());
+
+        HistogramData.Summary merged = histogram.summarize(0, 200_000);
+        assertEquals(101, merged.getCount());
+        assertArrayEquals(new long[]{20, 20, 60, 1}, merged.getCounts());
+        assertEquals(1.0, merged.quantile(20.0 / 101), 1e-9);
+        double median = merged.quantile(0.5);
+        assertTrue(median > 2 && median <= 5, "median: " + median);
+        assertEquals(100, merged.quantile(1.0), 1e-9);
+
+        assertEquals(60, histogram.cleanupBefore(60_000));
+        assertThrows(IllegalArgumentException.class, () -> new HistogramData(new double[]{2, 1}, 1000));
+    }
+
+    @Test
+    public void testServiceDispatchesByKind() {
+        TelemetryService service = new TelemetryServiceImpl();
+        assertTrue(service.defineMetricKind("meter-1", "energy", MetricKind.COUNTER, null, 0));
+        assertTrue(service.defineMetricKind("api-1", "latency", MetricKind.HISTOGRAM, new double[]{0.1, 1}, 10_000));
+        service.recordMetric("meter-1", "voltage", 230, 0);
+
+        service.recordMetric("meter-1", "energy", 100, 0);
+        service.recordMetricBatch("meter-1", "energy", new double[]{150, 20}, new long[]{10_000, 20_000}, 2);
+        service.recordMetricBatch("api-1", "latency", new double[]{0.05, 0.5, 3}, new long[]{0, 1, 2}, 3);
+
+        Map<String, Object> counter = service.aggregateMetrics("meter-1", "energy", 0, 20_000);
+        assertEquals(MetricKind.COUNTER, counter.get("kind"));
+        assertEquals(70.0, counter.get("increase"));
+        assertEquals(1, counter.get("resets"));
+        assertEquals(3.5, counter.get("rate"));
+        assertEquals(20.0, service.getLatestMetric("meter-1", "energy").get("value"));
+        assertEquals(3, service.queryMetrics("meter-1", "energy", 0, 20_000).size());
+
+        Map<String, Object> histogram = service.aggregateMetrics("api-1", "latency", 0, 10);
+        assertEquals(3L, histogram.get("count"));
+        List<?> buckets = (List<?>) histogram.get("buckets");
+        assertEquals(3L, ((Map<?, ?>) buckets.get(2)).get("count"));
+        assertEquals(MetricKind.HISTOGRAM, service.getMetricKind("api-1", "latency"));
+
+        Map<String, Object> gauge = service.aggregateMetrics("meter-1", "voltage", 0, 0);
+        assertEquals(MetricKind.GAUGE, gauge.get("kind"));
+        assertEquals(230.0, gauge.get("max"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.defineMetricKind("meter-1", "voltage", MetricKind.COUNTER, null, 0));
+        assertFalse(service.defineMetricKind("meter-1", "energy", MetricKind.COUNTER, null, 0));
+    }
+
+    @Test
+    public void testDefineKindRacesWithWrites() throws Exception {
+        TelemetryService service = new TelemetryServiceImpl();
+        for (int round = 0; round < 200; round++) {
+            String sourceId = "meter-" + round;
+            CountDownLatch start = new CountDownLatch(1);
+            CompletableFuture<Boolean> define = CompletableFuture.supplyAsync(() -> {
+                await(start);
+                try {
+                    return service.defineMetricKind(sourceId, "energy", MetricKind.COUNTER, null, 0);
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            });
+            CompletableFuture<Boolean> write = CompletableFuture.supplyAsync(() -> {
+                await(start);
+                return service.recordMetric(sourceId, "energy", 100, 0);
+            });
+            start.countDown();
+            assertTrue(write.get());
+
+            // 无论哪一方先完成，写入的点都只会进入最终类型的存储
+            Map<String, Object> result = service.aggregateMetrics(sourceId, "energy", 0, 0);
+            assertEquals(define.get() ? MetricKind.COUNTER : MetricKind.GAUGE, result.get("kind"));
+            assertEquals(1L, ((Number) result.get("count")).longValue());
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.uros.kernel.telemetry.model;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 指数平滑预测测试类
+ */
+public class HoltWintersTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    /** 按UTC零点对齐的起始时间 */
+    private static final long START = 1_700_006_400_000L;
+
+    @Test
+    public void testHoltFollowsLinearTrend() {
+        HoltWinters model = new HoltWinters(60_000, 0, 0.5, 0.3, 0);
+        assertFalse(model.forecast(5).isReady());
+        // 每分钟6个点，步长均值每分钟增加2
+        for (int i = 0; i < 600; i++) {
+            model.update(10 + 2 * (i / 6), i * 10_000L);
+        }
+
+        HoltWinters.Forecast forecast = model.forecast(5);
+        assertTrue(forecast.isReady());
+        assertFalse(forecast.isSeasonal());
+        // 最后一个步长（第99分钟）尚未结束，不参与模型
+        assertEquals(99, forecast.getSteps());
+        assertEquals(99 * 60_000L, forecast.getStartTime());
+        double[] values = forecast.getValues();
+        for (int h = 0; h < values.length; h++) {
+            assertEquals(10 + 2 * (99 + h), values[h], 1e-6);
+        }
+    }
+
+    @Test
+    public void testHoltWintersLearnsDailySeason() {
+        HoltWinters model = new HoltWinters(HOUR, 24 * HOUR, 0.1, 0.05, 0.3);
+        long start = START;
+        for (long t = start; t < start + 14 * 24 * HOUR; t += 300_000L) {
+            model.update(expected(t), t);
+        }
+        // 首个季节内只暂存均值
+        HoltWinters warming = new HoltWinters(HOUR, 24 * HOUR, 0.3, 0.05, 0.3);
+        warming.update(1, start);
+        warming.update(2, start + 23 * HOUR);
+        assertFalse(warming.forecast(1).isReady());
+
+        HoltWinters.Forecast forecast = model.forecast(48);
+        assertTrue(forecast.isReady());
+        double[] values = forecast.getValues();
+        for (int h = 0; h < values.length; h++) {
+            long stepStart = forecast.getStartTime() + h * HOUR;
+            double actual = (expected(stepStart) + expected(stepStart + HOUR - 300_000L)) / 2;
+            assertEquals(actual, values[h], 0.5, "step " + h);
+        }
+    }
+
+    // 每小时上升0.5，日内正弦波动±10
+    private static double expected(long t) {
+        return 100 + 0.5 * (t - START) / HOUR + 10 * Math.sin(2 * Math.PI * (t % (24 * HOUR)) / (24 * HOUR));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testServiceForecast() {
+        TelemetryService service = new TelemetryServiceImpl();
+        long start = START;
+        for (int i = 0; i < 100; i++) {
+            service.recordMetric("rack-1", "inlet", 20 + i * 0.1, start + i * 60_000L);
+        }
+        assertTrue(service.forecast("rack-1", "inlet", HOUR).isEmpty());
+
+        // 启用时以已有历史预热
+        service.setForecasting("rack-1", "inlet", 600_000L, 0, 0.5, 0.3, 0);
+        Map<String, Object> forecast = service.forecast("rack-1", "inlet", HOUR);
+        assertEquals("holt", forecast.get("model"));
+        assertEquals(true, forecast.get("ready"));
+        List<Map<String, Object>> points = (List<Map<String, Object>>) forecast.get("points");
+        assertEquals(6, points.size());
+        assertEquals(start + 5_400_000L, points.get(0).get("timestamp"));
+        assertEquals(29.45, (Double) points.get(0).get("value"), 1e-6);
+
+        // 继续写入时增量更新
+        service.recordMetric("rack-1", "inlet", 30, start + 6_000_000L);
+        assertEquals(start + 6_000_000L, ((List<Map<String, Object>>) service.forecast("rack-1", "inlet", HOUR)
+                .get("points")).get(0).get("timestamp"));
+
+        // 超长或非正的预测时长被拒绝，而不是溢出
+        assertThrows(IllegalArgumentException.class, () -> service.forecast("rack-1", "inlet", Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> service.forecast("rack-1", "inlet", 0));
+
+        // 不存在的序列不会被创建
+        assertFalse(service.setForecasting("rack-2", "inlet", 600_000L, 0, 0.5, 0.3, 0));
+        assertTrue(service.getLatestMetric("rack-2", "inlet").isEmpty());
+
+        service.defineMetricKind("meter-1", "energy", MetricKind.COUNTER, null, 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> service.setForecasting("meter-1", "energy", 600_000L, 0, 0.5, 0.3, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.setForecasting("rack-1", "inlet", 600_000L, 1_000_000L, 0.5, 0.3, 0));
+
+        service.setForecasting("rack-1", "inlet", 0, 0, 0, 0, 0);
+        assertTrue(service.forecast("rack-1", "inlet", HOUR).isEmpty());
+    }
+}
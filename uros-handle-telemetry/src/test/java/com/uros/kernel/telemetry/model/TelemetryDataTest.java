@@ -0,0 +1,265 @@
+package com.uros.kernel.telemetry.model;
+
+import com.uros.kernel.telemetry.query.ResampleAggregation;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 遥测数据模型测试类，覆盖存储策略、写入时降采样和每序列内存占用
+ */
+public class TelemetryDataTest {
+
+    @Test
+    public void testExactRepeatSuppression() {
+        TelemetryData data = new TelemetryData();
+        data.setStoragePolicy(StoragePolicy.of(StoragePolicy.Type.EXACT_REPEAT, 0));
+
+        for (int i = 0; i < 10; i++) {
+            data.addDataPoint(5.0, 1000L * i);
+        }
+        data.addDataPoint(6.0, 10_000L);
+
+        List<TelemetryData.DataPoint> history = data.getHistory();
+        assertEquals(2, history.size());
+        assertEquals(0L, history.get(0).getTimestamp());
+        assertEquals(9000L, history.get(0).getValidUntil());
+        assertEquals(10, history.get(0).getSampleCount());
+
+        // 当前值与统计信息仍按原始数据点计算
+        assertEquals(6.0, data.getCurrentValue());
+        assertEquals(10_000L, data.getTimestamp());
+        assertEquals(11, data.getStatistics().getCount());
+        assertEquals(56.0, data.getStatistics().getSum(), 1e-9);
+    }
+
+    @Test
+    public void testDeadbandHeldValueVisibleInRange() {
+        TelemetryData data = new TelemetryData();
+        data.setStoragePolicy(StoragePolicy.of(StoragePolicy.Type.ABSOLUTE_DEADBAND, 0.5));
+
+        data.addDataPoint(20.0, 0);
+        data.addDataPoint(20.3, 1000);
+        data.addDataPoint(19.6, 2000);
+        data.addDataPoint(21.0, 3000);
+
+        assertEquals(2, data.getHistory().size());
+
+        // 查询范围落在被抑制区间内，仍返回生效的存储点
+        List<TelemetryData.DataPoint> points = data.getPointsInRange(1500, 2500);
+        assertEquals(1, points.size());
+        assertEquals(20.0, points.get(0).getValue());
+
+        // 清理时保留有效期延续到截止时间之后的点
+        assertEquals(0, data.cleanupBefore(1500));
+        assertEquals(1, data.cleanupBefore(2500));
+        assertEquals(1, data.getStatistics().getCount());
+    }
+
+    @Test
+    public void testPercentDeadband() {
+        TelemetryData data = new TelemetryData();
+        data.setStoragePolicy(StoragePolicy.of(StoragePolicy.Type.PERCENT_DEADBAND, 1.0));
+
+        data.addDataPoint(100.0, 0);
+        data.addDataPoint(100.9, 1000);
+        data.addDataPoint(101.5, 2000);
+
+        assertEquals(2, data.getHistory().size());
+    }
+
+    @Test
+    public void testSwingingDoorStaysWithinTolerance() {
+        double tolerance = 0.2;
+        TelemetryData data = new TelemetryData();
+        data.setStoragePolicy(StoragePolicy.of(StoragePolicy.Type.SWINGING_DOOR, tolerance));
+
+        int n = 1000;
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            // 分段线性加小幅噪声
+            values[i] = (i < 500 ? i * 0.01 : 5.0 - (i - 500) * 0.02) + Math.sin(i) * 0.05;
+            data.addDataPoint(values[i], 1000L * i);
+        }
+
+        List<TelemetryData.DataPoint> history = data.getHistory();
+        assertTrue(history.size() < n / 10, "expected strong compression, got " + history.size());
+        assertEquals(0L, history.get(0).getTimestamp());
+        assertEquals(1000L * (n - 1), history.get(history.size() - 1).getTimestamp());
+
+        // 存储点之间线性插值，与原始数据的偏差不超过容差
+        int segment = 0;
+        for (int i = 0; i < n; i++) {
+            long t = 1000L * i;
+            while (history.get(segment + 1).getTimestamp() < t) {
+                segment++;
+            }
+            TelemetryData.DataPoint a = history.get(segment);
+            TelemetryData.DataPoint b = history.get(segment + 1);
+            double interpolated = a.getValue()
+                    + (b.getValue() - a.getValue()) * (t - a.getTimestamp()) / (b.getTimestamp() - a.getTimestamp());
+            assertEquals(values[i], interpolated, tolerance + 1e-9, "at sample " + i);
+        }
+
+        // 查询范围落在两个存储点之间时返回两侧的存储点
+        TelemetryData.DataPoint first = history.get(0);
+        TelemetryData.DataPoint second = history.get(1);
+        if (second.getTimestamp() - first.getTimestamp() > 2) {
+            List<TelemetryData.DataPoint> points = data.getPointsInRange(first.getTimestamp() + 1, second.getTimestamp() - 1);
+            assertEquals(2, points.size());
+        }
+    }
+
+    @Test
+    public void testOutOfOrderInsertKeepsHistorySorted() {
+        TelemetryData data = new TelemetryData();
+        data.addDataPoint(1.0, 1000);
+        data.addDataPoint(3.0, 3000);
+        data.addDataPoint(2.0, 2000);
+
+        List<TelemetryData.DataPoint> history = data.getHistory();
+        assertEquals(2000L, history.get(1).getTimestamp());
+        assertEquals(3.0, data.getCurrentValue());
+        assertEquals(3000L, data.getTimestamp());
+    }
+
+    @Test
+    public void testConvertStorageStopsGaugeWrites() {
+        TelemetryData data = new TelemetryData();
+        assertFalse(data.convertStorage(() -> false));
+        assertTrue(data.addDataPoint(1.0, 0));
+
+        TelemetryData empty = new TelemetryData();
+        assertTrue(empty.convertStorage(() -> empty.getStatistics().getCount() == 0));
+        assertFalse(empty.addDataPoint(1.0, 0));
+        assertFalse(empty.addDataPoints(new double[]{1.0}, new long[]{1000}, 0, 1));
+        assertFalse(empty.addSortedDataPoints(new double[]{1.0}, new long[]{1000}, 0, 1));
+        assertEquals(0, empty.getStatistics().getCount());
+    }
+
+    @Test
+    public void testDownsamplingStoresOnePointPerInterval() {
+        TelemetryData data = new TelemetryData();
+        data.setDownsampling(1000, ResampleAggregation.AVG);
+
+        // 100Hz，共3秒
+        for (int i = 0; i < 300; i++) {
+            data.addDataPoint(i % 100, 10L * i);
+        }
+
+        List<TelemetryData.DataPoint> history = data.getHistory();
+        assertEquals(3, history.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1000L * i, history.get(i).getTimestamp());
+            assertEquals(1000L * i + 990, history.get(i).getValidUntil());
+            assertEquals(100, history.get(i).getSampleCount());
+            assertEquals(49.5, history.get(i).getValue(), 1e-9);
+        }
+        // 当前值与统计信息仍按原始数据点计算
+        assertEquals(99.0, data.getCurrentValue());
+        assertEquals(300, data.getStatistics().getCount());
+
+        // 查询可以看到仍在累积的当前间隔
+        data.addDataPoint(1000.0, 3005L);
+        data.addDataPoint(0.0, 3001L);
+        List<TelemetryData.DataPoint> range = data.getPointsInRange(3000L, 3999L);
+        assertEquals(1, range.size());
+        assertEquals(500.0, range.get(0).getValue(), 1e-9);
+        assertEquals(3005L, range.get(0).getValidUntil());
+    }
+
+    @Test
+    public void testDownsamplingAggregations() {
+        double[] values = {3.0, 9.0, -1.0, 4.0};
+        long[] timestamps = {100L, 400L, 300L, 200L};
+        ResampleAggregation[] aggregations = {ResampleAggregation.LAST, ResampleAggregation.MIN,
+                ResampleAggregation.MAX};
+        double[] expected = {9.0, -1.0, 9.0};
+        for (int a = 0; a < aggregations.length; a++) {
+            TelemetryData data = new TelemetryData();
+            data.setDownsampling(1000, aggregations[a]);
+            data.addDataPoints(values, timestamps, 0, values.length);
+            List<TelemetryData.DataPoint> history = data.getHistory();
+            assertEquals(1, history.size());
+            assertEquals(expected[a], history.get(0).getValue(), aggregations[a].name());
+        }
+
+        // 早于当前间隔的乱序数据按原样插入，关闭降采样后恢复逐点存储
+        TelemetryData data = new TelemetryData();
+        data.setDownsampling(1000, ResampleAggregation.AVG);
+        data.addDataPoint(1.0, 5500L);
+        data.addDataPoint(2.0, 2500L);
+        data.setDownsampling(0, null);
+        data.addDataPoint(3.0, 5600L);
+        data.addDataPoint(4.0, 5700L);
+        List<TelemetryData.DataPoint> history = data.getHistory();
+        assertEquals(4, history.size());
+        assertEquals(2500L, history.get(0).getTimestamp());
+        assertEquals(5000L, history.get(1).getTimestamp());
+        assertEquals(5700L, history.get(3).getTimestamp());
+    }
+
+    @Test
+    public void testEmptySeriesFootprint() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int count = 100_000;
+        TelemetryData[] series = new TelemetryData[count];
+        // 预热，排除类加载和分段锁初始化
+        new TelemetryData().addDataPoint(1.0, 1L);
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < count; i++) {
+            series[i] = new TelemetryData();
+        }
+        long perSeries = (threads.getThreadAllocatedBytes(threadId) - before) / count;
+
+        // 序列对象和空的历史数据列表；元数据、锁和统计信息不再按序列分配
+        assertTrue(perSeries <= 160, "bytes per empty series: " + perSeries);
+        assertNotNull(series[count - 1]);
+    }
+
+    @Test
+    public void testDescriptorsAreShared() {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("site", "plant-1");
+        TelemetryData first = new TelemetryData();
+        TelemetryData second = new TelemetryData();
+        first.setTags(tags);
+        second.setTags(new HashMap<>(tags));
+        assertSame(first.getDescriptor(), second.getDescriptor());
+
+        // 修改一个序列的元数据不影响共享同一元数据的其他序列
+        second.setUnit("kPa");
+        assertNotSame(first.getDescriptor(), second.getDescriptor());
+        assertEquals("", first.getUnit());
+        assertEquals("kPa", second.getUnit());
+        assertEquals("plant-1", second.getTags().get("site"));
+
+        first.setUnit("kPa");
+        assertSame(first.getDescriptor(), second.getDescriptor());
+        assertSame(SeriesDescriptor.DEFAULT, new TelemetryData().getDescriptor());
+    }
+
+    @Test
+    public void testUnusedDescriptorsAreReclaimed() throws InterruptedException {
+        int before = SeriesDescriptor.internedCount();
+        for (int i = 0; i < 10_000; i++) {
+            TelemetryData data = new TelemetryData();
+            data.setTags(Map.of("device", "device-" + i));
+            data.setUnit("kPa");
+        }
+        // 序列不可达后，按设备区分的元数据及链式修改的中间组合都可以被回收
+        for (int i = 0; i < 20 && SeriesDescriptor.internedCount() >= before + 10_000; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertTrue(SeriesDescriptor.internedCount() < before + 10_000);
+    }
+}
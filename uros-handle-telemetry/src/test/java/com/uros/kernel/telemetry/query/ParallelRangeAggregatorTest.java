@@ -0,0 +1,147 @@
+package com.uros.kernel.telemetry.query;
+
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并行区间聚合测试类
+ */
+public class ParallelRangeAggregatorTest {
+
+    @Test
+    public void testParallelMatchesSequential() {
+        TelemetryServiceImpl sequential = new TelemetryServiceImpl();
+        TelemetryServiceImpl parallel = new TelemetryServiceImpl();
+        ParallelRangeAggregator aggregator = new ParallelRangeAggregator(4, 1000);
+        aggregator.start();
+        parallel.setRangeAggregator(aggregator);
+        try {
+            SplittableRandom random = new SplittableRandom(11);
+            double value = 50;
+            for (int i = 0; i < 200_000; i++) {
+                value += random.nextDouble(-1, 1);
+                sequential.recordMetric("s1", "pressure", value, 1_000_000L + i);
+                parallel.recordMetric("s1", "pressure", value, 1_000_000L + i);
+            }
+
+            long start = 1_000_000L + 12_345;
+            long end = 1_000_000L + 187_654;
+            Map<String, Object> expected = sequential.aggregateMetrics("s1", "pressure", start, end);
+            Map<String, Object> actual = parallel.aggregateMetrics("s1", "pressure", start, end);
+            assertEquals(175_310L, actual.get("count"));
+            assertEquals(expected.get("count"), actual.get("count"));
+            assertEquals(expected.get("min"), actual.get("min"));
+            assertEquals(expected.get("max"), actual.get("max"));
+            assertEquals((Double) expected.get("sum"), (Double) actual.get("sum"), 1e-6);
+            assertEquals((Double) expected.get("standardDeviation"), (Double) actual.get("standardDeviation"), 1e-9);
+
+            Map<String, Object> stats = aggregator.getStatistics();
+            assertEquals(1L, stats.get("parallelAggregations"));
+            assertTrue((Long) stats.get("leafTasks") > 1);
+
+            // 区间小于叶子大小时不拆分
+            parallel.aggregateMetrics("s1", "pressure", start, start + 10);
+            assertEquals(1L, aggregator.getStatistics().get("sequentialAggregations"));
+        } finally {
+            aggregator.stop();
+        }
+        assertFalse(aggregator.isRunning());
+    }
+
+    @Test
+    public void testDownsampledSeriesWeightedBySampleCount() {
+        TelemetryServiceImpl sequential = new TelemetryServiceImpl();
+        TelemetryServiceImpl parallel = new TelemetryServiceImpl();
+        ParallelRangeAggregator aggregator = new ParallelRangeAggregator(4, 100);
+        aggregator.start();
+        parallel.setRangeAggregator(aggregator);
+        try {
+            for (TelemetryServiceImpl service : List.of(sequential, parallel)) {
+                assertTrue(service.setDownsampling("s1", "pressure", 1000, ResampleAggregation.AVG));
+                // 每秒的原始点数不同，未加权时各间隔均值的平均与原始均值不同
+                for (int second = 0; second < 10_000; second++) {
+                    int samples = 1 + second % 7;
+                    for (int i = 0; i < samples; i++) {
+                        service.recordMetric("s1", "pressure", second + i, second * 1000L + i);
+                    }
+                }
+                service.recordMetric("s1", "pressure", 0, 10_000_000L);
+
+                Map<String, Object> raw = service.calculateStatistics("s1", "pressure");
+                Map<String, Object> aggregated = service.aggregateMetrics("s1", "pressure", 0, 9_999_999);
+                assertEquals(((Number) raw.get("count")).longValue() - 1, aggregated.get("count"));
+                assertEquals((Double) raw.get("sum"), (Double) aggregated.get("sum"), 1e-6);
+            }
+            assertEquals((Double) sequential.aggregateMetrics("s1", "pressure", 0, 9_999_999).get("average"),
+                    (Double) parallel.aggregateMetrics("s1", "pressure", 0, 9_999_999).get("average"), 1e-9);
+            assertTrue((Long) aggregator.getStatistics().get("parallelAggregations") > 0);
+        } finally {
+            aggregator.stop();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTrendScanMatchesSequential() {
+        TelemetryServiceImpl sequential = new TelemetryServiceImpl();
+        TelemetryServiceImpl parallel = new TelemetryServiceImpl();
+        ParallelRangeAggregator aggregator = new ParallelRangeAggregator(4, 1000);
+        aggregator.start();
+        parallel.setRangeAggregator(aggregator);
+        try {
+            long now = System.currentTimeMillis();
+            for (int source = 0; source < 500; source++) {
+                // 每秒斜率从 -2.5 到 2.49，source-250 保持不变
+                double slope = (source - 250) * 0.01;
+                for (int i = 0; i < 60; i++) {
+                    double value = 20 + slope * i * 10 + (i % 2) * 0.1;
+                    sequential.recordMetric("source-" + source, "temperature", value, now - 600_000L + i * 10_000L);
+                    parallel.recordMetric("source-" + source, "temperature", value, now - 600_000L + i * 10_000L);
+                }
+            }
+
+            Map<String, Object> expected = sequential.scanTrends("temperature", Collections.emptyMap(), 3_600_000L, 5);
+            Map<String, Object> actual = parallel.scanTrends("temperature", Collections.emptyMap(), 3_600_000L, 5);
+            assertEquals(expected, actual);
+            assertEquals(500, actual.get("evaluated"));
+            assertEquals(249, actual.get("risingCount"));
+            assertEquals(250, actual.get("fallingCount"));
+            List<Map<String, Object>> rising = (List<Map<String, Object>>) actual.get("rising");
+            assertEquals(5, rising.size());
+            assertEquals("source-499", rising.get(0).get("sourceId"));
+            assertEquals(2.49, (Double) rising.get(0).get("slopePerSecond"), 1e-3);
+            List<Map<String, Object>> falling = (List<Map<String, Object>>) actual.get("falling");
+            assertEquals("source-0", falling.get(0).get("sourceId"));
+            assertTrue((Long) aggregator.getStatistics().get("leafTasks") > 1);
+
+            // 扫描任务会获取序列锁，不能占用区间聚合的线程
+            List<Integer> series = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                series.add(i);
+            }
+            for (String thread : aggregator.mapSeries(series, i -> Thread.currentThread().getName())) {
+                assertFalse(thread.startsWith("telemetry-aggregate-"), thread);
+            }
+        } finally {
+            aggregator.stop();
+        }
+    }
+
+    @Test
+    public void testLeafSizeAdaptsToRange() {
+        ParallelRangeAggregator aggregator = new ParallelRangeAggregator(8, 65536);
+        assertEquals(65536, aggregator.leafSize(100_000));
+        // 3千万个点分给8个线程、每线程4份，按4096对齐
+        int leaf = aggregator.leafSize(30_000_000);
+        assertEquals(0, leaf % 4096);
+        assertTrue(leaf >= 30_000_000 / 32 && leaf < 30_000_000 / 32 + 4096);
+    }
+}
@@ -0,0 +1,101 @@
+package com.uros.kernel.telemetry.query;
+
+import com.uros.kernel.telemetry.model.StoragePolicy;
+import com.uros.kernel.telemetry.model.TelemetryData;
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 重采样测试类
+ */
+public class ResamplerTest {
+
+    /** 0s:1, 3s:3, 7s:5, 25s:11，10s步长为空 */
+    private static TelemetryData sampleSeries() {
+        TelemetryData data = new TelemetryData();
+        data.addDataPoint(1, 0);
+        data.addDataPoint(3, 3_000);
+        data.addDataPoint(5, 7_000);
+        data.addDataPoint(11, 25_000);
+        return data;
+    }
+
+    private static double[] resample(TelemetryData data, long start, long end, FillStrategy fill,
+                                     ResampleAggregation aggregation, boolean interpolateGaps) {
+        Resampler resampler = new Resampler(start, end, 10_000, fill, aggregation, interpolateGaps);
+        data.forEachPoint(resampler.getScanStart(), resampler.getScanEnd(), resampler);
+        resampler.finish();
+        double[] values = new double[resampler.size()];
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(resampler.getScanStart() + i * 10_000L, resampler.getTimestamp(i));
+            values[i] = resampler.getValue(i);
+        }
+        return values;
+    }
+
+    @Test
+    public void testAggregationsAndFills() {
+        TelemetryData data = sampleSeries();
+
+        assertArrayEquals(new double[]{3, Double.NaN, 11, Double.NaN},
+                resample(data, 0, 39_999, FillStrategy.NULL, ResampleAggregation.AVG, false));
+        assertArrayEquals(new double[]{5, 5, 11, 11},
+                resample(data, 0, 39_999, FillStrategy.PREVIOUS, ResampleAggregation.LAST, false));
+        assertArrayEquals(new double[]{5, 6, 11, Double.NaN},
+                resample(data, 0, 39_999, FillStrategy.LINEAR, ResampleAggregation.MAX, false));
+        assertArrayEquals(new double[]{1, 6, 11, Double.NaN},
+                resample(data, 0, 39_999, FillStrategy.LINEAR, ResampleAggregation.MIN, false));
+
+        // 网格对齐到步长整数倍；范围之前的点用于填充，之后的点用于插值
+        assertArrayEquals(new double[]{6},
+                resample(data, 12_000, 18_000, FillStrategy.LINEAR, ResampleAggregation.AVG, false));
+        assertArrayEquals(new double[]{5},
+                resample(data, 12_000, 18_000, FillStrategy.PREVIOUS, ResampleAggregation.AVG, false));
+    }
+
+    @Test
+    public void testCompressedSeries() {
+        TelemetryData data = new TelemetryData();
+        data.setStoragePolicy(StoragePolicy.of(StoragePolicy.Type.ABSOLUTE_DEADBAND, 0.5));
+        data.addDataPoint(10, 0);
+        data.addDataPoint(10.2, 15_000);
+        data.addDataPoint(10.1, 28_000);
+        data.addDataPoint(20, 40_000);
+
+        // 死区抑制的区间沿用存储值，不按缺失处理
+        assertArrayEquals(new double[]{10, 10, 10, Double.NaN, 20},
+                resample(data, 0, 40_000, FillStrategy.NULL, ResampleAggregation.AVG, false));
+        // 旋转门压缩的存储点之间按线性插值
+        TelemetryData door = new TelemetryData();
+        door.addDataPoint(0, 0);
+        door.addDataPoint(40, 40_000);
+        assertArrayEquals(new double[]{0, 10, 20, 30, 40},
+                resample(door, 0, 40_000, FillStrategy.NULL, ResampleAggregation.AVG, true));
+    }
+
+    @Test
+    public void testServiceResample() {
+        TelemetryService service = new TelemetryServiceImpl();
+        service.recordMetric("pump-1", "flow", 2, 10_000);
+        service.recordMetric("pump-1", "flow", 4, 15_000);
+        service.recordMetric("pump-1", "flow", 8, 30_000);
+
+        List<Map<String, Object>> points = service.resampleMetrics("pump-1", "flow", 10_000, 30_000, 10_000,
+                FillStrategy.NULL, ResampleAggregation.AVG);
+        assertEquals(3, points.size());
+        assertEquals(3.0, points.get(0).get("value"));
+        assertNull(points.get(1).get("value"));
+        assertEquals(30_000L, points.get(2).get("timestamp"));
+
+        assertTrue(service.resampleMetrics("pump-1", "missing", 0, 1, 1, FillStrategy.NULL,
+                ResampleAggregation.AVG).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.resampleMetrics("pump-1", "flow", 0,
+                Long.MAX_VALUE / 2, 1, FillStrategy.NULL, ResampleAggregation.AVG));
+    }
+}
@@ -0,0 +1,93 @@
+package com.uros.kernel.telemetry.query;
+
+import com.uros.kernel.telemetry.model.TelemetryData;
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多序列归并连接测试类
+ */
+public class SeriesMergeJoinTest {
+
+    private static List<TelemetryData.DataPoint> series(double... valueTimestampPairs) {
+        TelemetryData.DataPoint[] points = new TelemetryData.DataPoint[valueTimestampPairs.length / 2];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new TelemetryData.DataPoint(valueTimestampPairs[2 * i], (long) valueTimestampPairs[2 * i + 1]);
+        }
+        return Arrays.asList(points);
+    }
+
+    @Test
+    public void testJoinWithTolerance() {
+        List<TelemetryData.DataPoint> power = series(1, 1000, 2, 2000, 3, 3000);
+        List<TelemetryData.DataPoint> temperature = series(10, 1040, 30, 3010, 40, 4000);
+
+        SeriesMergeJoin.Result outer = new SeriesMergeJoin(50, false, false)
+                .join(List.of(power, temperature), 0, 5000);
+        assertArrayEquals(new long[]{1000, 2000, 3000, 4000}, outer.getTimestamps());
+        assertArrayEquals(new double[]{1, 2, 3, Double.NaN}, outer.getColumns()[0]);
+        assertArrayEquals(new double[]{10, Double.NaN, 30, 40}, outer.getColumns()[1]);
+        assertNull(outer.getCorrelation());
+
+        SeriesMergeJoin.Result exact = new SeriesMergeJoin(0, true, false)
+                .join(List.of(power, temperature), 0, 5000);
+        assertEquals(0, exact.getTimestamps().length);
+
+        SeriesMergeJoin.Result inner = new SeriesMergeJoin(50, true, false)
+                .join(List.of(power, temperature), 1500, 5000);
+        assertArrayEquals(new long[]{3000}, inner.getTimestamps());
+    }
+
+    @Test
+    public void testRowLimit() {
+        List<TelemetryData.DataPoint> a = series(1, 1000, 2, 2000, 3, 3000);
+        List<TelemetryData.DataPoint> b = series(4, 1500, 5, 2500);
+
+        // 外连接行数超过最长序列时扩容
+        SeriesMergeJoin.Result outer = new SeriesMergeJoin(0, false, false, 5).join(List.of(a, b), 0, 5000);
+        assertArrayEquals(new long[]{1000, 1500, 2000, 2500, 3000}, outer.getTimestamps());
+        assertArrayEquals(new double[]{Double.NaN, 4, Double.NaN, 5, Double.NaN}, outer.getColumns()[1]);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new SeriesMergeJoin(0, false, false, 4).join(List.of(a, b), 0, 5000));
+        assertEquals(2, new SeriesMergeJoin(600, true, false, 2).join(List.of(a, b), 0, 5000).getTimestamps().length);
+    }
+
+    @Test
+    public void testCorrelation() {
+        List<TelemetryData.DataPoint> x = series(1, 0, 2, 10, 3, 20, 4, 30);
+        List<TelemetryData.DataPoint> y = series(2, 0, 4, 10, 6, 20, 8, 30);
+        List<TelemetryData.DataPoint> z = series(8, 0, 6, 10, 4, 20, 2, 30);
+
+        double[][] r = new SeriesMergeJoin(0, false, true).join(List.of(x, y, z), 0, 30).getCorrelation();
+        assertEquals(1.0, r[0][1], 1e-12);
+        assertEquals(-1.0, r[0][2], 1e-12);
+        assertEquals(r[2][1], r[1][2]);
+        assertEquals(1.0, r[2][2]);
+    }
+
+    @Test
+    public void testServiceJoin() {
+        TelemetryService service = new TelemetryServiceImpl();
+        service.recordMetric("dev-1", "power", 100, 1000);
+        service.recordMetric("dev-1", "power", 120, 2000);
+        service.recordMetric("dev-1", "temperature", 40, 1005);
+
+        Map<String, Object> result = service.joinMetrics(
+                List.of("dev-1:power", "dev-1:temperature"), 0, 3000, 10, false, true);
+        assertEquals(2, result.get("rowCount"));
+        List<?> columns = (List<?>) result.get("columns");
+        assertEquals(Arrays.asList(40.0, null), ((Map<?, ?>) columns.get(1)).get("values"));
+        assertNull(((List<?>) ((List<?>) result.get("correlation")).get(0)).get(1));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.joinMetrics(List.of("power"), 0, 1, 0, false, false));
+    }
+}
@@ -0,0 +1,143 @@
+package com.uros.kernel.telemetry.query.ql;
+
+import com.uros.kernel.telemetry.exception.QueryParseException;
+import com.uros.kernel.telemetry.model.MetricKind;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 查询引擎测试类
+ */
+public class QueryEngineTest {
+
+    private static final long T0 = 1_000_000_000L;
+
+    private static final long START = T0 + 120_000;
+
+    private static final long END = T0 + 600_000;
+
+    private TelemetryServiceImpl telemetryService;
+
+    private QueryEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        telemetryService = new TelemetryServiceImpl();
+        engine = new QueryEngine(telemetryService, 300_000, 10_000);
+
+        telemetryService.defineMetricKind("a", "requests", MetricKind.COUNTER, null, 0);
+        telemetryService.defineMetricKind("b", "requests", MetricKind.COUNTER, null, 0);
+        telemetryService.registerSeries("a", "requests", Collections.singletonMap("site", "north"));
+        telemetryService.registerSeries("b", "requests", Collections.singletonMap("site", "south"));
+        telemetryService.registerSeries("a", "requests_raw", Collections.singletonMap("site", "north"));
+        telemetryService.registerSeries("b", "requests_raw", Collections.singletonMap("site", "south"));
+        for (int i = 0; i <= 600; i++) {
+            long timestamp = T0 + i * 1000L;
+            double b = i < 300 ? i * 5 : (i - 300) * 5;
+            telemetryService.recordMetric("a", "requests", i * 10, timestamp);
+            telemetryService.recordMetric("b", "requests", b, timestamp);
+            telemetryService.recordMetric("a", "requests_raw", i * 10, timestamp);
+            telemetryService.recordMetric("b", "requests_raw", b, timestamp);
+        }
+    }
+
+    @Test
+    public void testParseErrors() {
+        assertThrows(QueryParseException.class, () -> QueryParser.parse("rate(requests)"));
+        assertThrows(QueryParseException.class, () -> QueryParser.parse("requests{site=\"north\""));
+        assertThrows(QueryParseException.class, () -> QueryParser.parse("requests[5m]"));
+        assertThrows(QueryParseException.class, () -> QueryParser.parse("unknown_fn(requests[5m])"));
+        assertThrows(IllegalArgumentException.class, () -> engine.execute("{site!=\"x\"}", START, END, 60_000));
+        // 时间跨度溢出long时不能绕过时刻数上限
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.execute("requests_raw", -Long.MAX_VALUE, Long.MAX_VALUE, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.execute("requests_raw", START, START + 60_000L * QueryContext.MAX_STEPS, 60_000));
+    }
+
+    @Test
+    public void testCounterRateMatchesRawRate() {
+        Map<String, Object> counter = engine.execute("rate(requests[1m])", START, END, 60_000);
+        Map<String, Object> raw = engine.execute("rate(requests_raw[1m])", START, END, 60_000);
+
+        List<Map<String, Object>> counterSeries = series(counter);
+        List<Map<String, Object>> rawSeries = series(raw);
+        assertEquals(2, counterSeries.size());
+        assertEquals(9, ((List<?>) counter.get("timestamps")).size());
+        for (int s = 0; s < 2; s++) {
+            assertEquals(rawSeries.get(s).get("labels"), counterSeries.get(s).get("labels"));
+            List<Double> expected = values(rawSeries.get(s));
+            List<Double> actual = values(counterSeries.get(s));
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), actual.get(i), 1e-9);
+            }
+        }
+        // 窗口内59个间隔，每秒增长10
+        assertEquals(590 / 60.0, values(counterSeries.get(0)).get(0), 1e-9);
+
+        Map<?, ?> counterStats = (Map<?, ?>) counter.get("stats");
+        Map<?, ?> rawStats = (Map<?, ?>) raw.get("stats");
+        assertEquals(18L, counterStats.get("counterSummaries"));
+        assertEquals(0L, counterStats.get("pointsRead"));
+        assertTrue((Long) rawStats.get("pointsRead") > 900);
+    }
+
+    @Test
+    public void testSumByAndSelectorMatchers() {
+        Map<String, Object> result = engine.execute("sum by (site) (requests_raw{site=~\"n.*|s.*\"})",
+                START, END, 60_000);
+        List<Map<String, Object>> series = series(result);
+        assertEquals(2, series.size());
+        assertEquals(Collections.singletonMap("site", "north"), series.get(0).get("labels"));
+        assertEquals(1200.0, values(series.get(0)).get(0));
+
+        Map<String, Object> total = engine.execute("sum(requests_raw{sourceId=\"b\"})", START, END, 60_000);
+        assertEquals(1, series(total).size());
+        // 第300秒回零后从0重新计数
+        assertEquals(0.0, values(series(total).get(0)).get(3));
+    }
+
+    @Test
+    public void testBinaryOperators() {
+        Map<String, Object> scaled = engine.execute("requests_raw{sourceId=\"a\"} / 10 - 1", START, END, 60_000);
+        assertEquals(119.0, values(series(scaled).get(0)).get(0));
+
+        Map<String, Object> matched = engine.execute("requests_raw - requests", START, END, 60_000);
+        List<Map<String, Object>> series = series(matched);
+        assertEquals(2, series.size());
+        assertFalse(((Map<?, ?>) series.get(0).get("labels")).containsKey("__name__"));
+        assertEquals(0.0, values(series.get(1)).get(5));
+
+        Map<String, Object> scalar = engine.execute("2 * (3 + 4)", START, END, 60_000);
+        assertEquals("scalar", scalar.get("resultType"));
+        assertEquals(14.0, values(series(scalar).get(0)).get(0));
+    }
+
+    @Test
+    public void testExplain() {
+        Map<String, Object> plan = engine.explain("sum(rate(requests[5m])) / sum(rate(requests_raw[5m]))",
+                START, END, 60_000);
+        @SuppressWarnings("unchecked")
+        List<String> lines = (List<String>) plan.get("plan");
+        assertTrue(lines.get(0).startsWith("Binary '/'"));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("tier=counter-chunks")));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("tier=raw")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> series(Map<String, Object> result) {
+        return (List<Map<String, Object>>) result.get("series");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Double> values(Map<String, Object> series) {
+        return (List<Double>) series.get("values");
+    }
+}
@@ -0,0 +1,84 @@
+package com.uros.kernel.telemetry.rule;
+
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 记录规则引擎测试类
+ */
+public class RecordingRuleEngineTest {
+
+    private final List<Double> outputs = new ArrayList<>();
+
+    private void feed(RecordingRuleEngine engine, String metricName, double... valueTimestampPairs) {
+        for (int i = 0; i < valueTimestampPairs.length; i += 2) {
+            engine.evaluate("meter-1", metricName, valueTimestampPairs[i], (long) valueTimestampPairs[i + 1],
+                    (s, m, v, t) -> outputs.add(v));
+        }
+    }
+
+    @Test
+    public void testRateHandlesCounterReset() {
+        RecordingRuleEngine engine = new RecordingRuleEngine();
+        engine.addRule(new RecordingRule("energy:rate", "energy", RuleFunction.RATE, 0, null));
+
+        // 第三个点计数器回零后从5重新计数
+        feed(engine, "energy", 100, 0, 110, 1000, 5, 2000, 25, 4000);
+        assertEquals(List.of(10.0, 5.0, 10.0), outputs);
+
+        outputs.clear();
+        RecordingRuleEngine windowed = new RecordingRuleEngine();
+        windowed.addRule(new RecordingRule("energy:rate1m", "energy", RuleFunction.RATE, 60_000, null));
+        feed(windowed, "energy", 0, 0, 60, 30_000, 10, 60_000, 70, 90_000);
+        // 以窗口内最早数据点的累计增量为基准，回零后的10计入增量
+        assertEquals(List.of(2.0, 70.0 / 60, 70.0 / 60), outputs);
+    }
+
+    @Test
+    public void testDerivativeAndMovingSum() {
+        RecordingRuleEngine engine = new RecordingRuleEngine();
+        engine.addRule(new RecordingRule("temp:deriv", "temp", RuleFunction.DERIVATIVE, 0, null));
+        feed(engine, "temp", 20, 0, 18, 2000, 18, 1000);
+        assertEquals(List.of(-1.0), outputs);
+
+        outputs.clear();
+        RecordingRuleEngine sums = new RecordingRuleEngine();
+        sums.addRule(new RecordingRule("flow:sum10s", "flow", RuleFunction.MOVING_SUM, 10_000, "meter-1"));
+        feed(sums, "flow", 1, 0, 2, 5000, 3, 10_000, 4, 30_000);
+        assertEquals(List.of(1.0, 3.0, 5.0, 4.0), outputs);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> sums.addRule(new RecordingRule("flow:sum10s", "flow", RuleFunction.RATE, 0, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> sums.addRule(new RecordingRule("chained", "flow:sum10s", RuleFunction.RATE, 0, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RecordingRule("x", "flow", RuleFunction.MOVING_SUM, 0, null));
+    }
+
+    @Test
+    public void testServiceMaterializesRules() {
+        TelemetryService service = new TelemetryServiceImpl();
+        service.addRecordingRule(new RecordingRule("energy:rate", "energy", RuleFunction.RATE, 0, "meter-1"));
+
+        service.recordMetric("meter-1", "energy", 0, 0);
+        service.recordMetricBatch("meter-1", "energy", new double[]{20, 40}, new long[]{10_000, 20_000}, 2);
+        service.recordMetric("meter-2", "energy", 0, 0);
+
+        List<Map<String, Object>> derived = service.queryMetrics("meter-1", "energy:rate", 0, 20_000);
+        assertEquals(2, derived.size());
+        assertEquals(2.0, derived.get(1).get("value"));
+        assertTrue(service.queryMetrics("meter-2", "energy:rate", 0, 20_000).isEmpty());
+
+        assertEquals(1, service.getRecordingRules().size());
+        assertTrue(service.removeRecordingRule("energy:rate"));
+        service.recordMetric("meter-1", "energy", 60, 30_000);
+        assertEquals(2, service.queryMetrics("meter-1", "energy:rate", 0, 40_000).size());
+    }
+}
@@ -154,4 +154,33 @@ public class TelemetryServiceTest {
         assertEquals(40.0, results.get(0).get("value"));
         assertEquals(50.0, results.get(1).get("value"));
     }
+
+    @Test
+    public void testSelectSeriesByTags() {
+        // 注册带标签的序列
+        Map<String, String> kitchen = new HashMap<>();
+        kitchen.put("room", "kitchen");
+        Map<String, String> bedroom = new HashMap<>();
+        bedroom.put("room", "bedroom");
+
+        telemetryService.recordMetric("sensor-1", "temperature", 21.0);
+        assertTrue(telemetryService.registerSeries("sensor-1", "temperature", kitchen));
+        assertTrue(telemetryService.registerSeries("sensor-2", "temperature", bedroom));
+        assertTrue(telemetryService.registerSeries("sensor-3", "humidity", kitchen));
+
+        // 按指标名称和标签选择
+        List<Map<String, Object>> series = telemetryService.selectSeries("temperature", kitchen);
+        assertEquals(1, series.size());
+        assertEquals("sensor-1", series.get(0).get("sourceId"));
+        assertEquals(kitchen, series.get(0).get("tags"));
+
+        assertEquals(2, telemetryService.selectSeries("temperature", null).size());
+        assertEquals(2, telemetryService.selectSeries(null, kitchen).size());
+
+        // 保留标签键不允许手工设置
+        Map<String, String> reserved = new HashMap<>();
+        reserved.put("__name__", "x");
+        assertThrows(IllegalArgumentException.class,
+                () -> telemetryService.registerSeries("sensor-1", "temperature", reserved));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.uros.kernel.telemetry.simd;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 聚合计算核测试类
+ */
+public class AggregationKernelsTest {
+
+    @Test
+    public void testDefaultKernelsUseVectorApiWhenAvailable() {
+        // 测试通过 --add-modules=jdk.incubator.vector 运行
+        assertTrue(AggregationKernels.get().getName().startsWith("vector"), AggregationKernels.get().getName());
+        assertEquals("scalar", AggregationKernels.scalar().getName());
+    }
+
+    @Test
+    public void testKernelsMatchNaiveComputation() {
+        SplittableRandom random = new SplittableRandom(7);
+        // 覆盖不足一个向量、不足一块和跨多块的长度，以及非零起始下标
+        for (int length : new int[]{0, 1, 3, 17, 4095, 4096, 4097, 50_001}) {
+            double[] values = new double[length + 5];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = 1e6 + random.nextGaussian() * 10;
+            }
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 5; i < values.length; i++) {
+                sum += values[i];
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+            double mean = sum / length;
+            double m2 = 0;
+            for (int i = 5; i < values.length; i++) {
+                m2 += (values[i] - mean) * (values[i] - mean);
+            }
+
+            for (AggregationKernels kernels : new AggregationKernels[]{AggregationKernels.scalar(), AggregationKernels.get()}) {
+                RangeStats stats = new RangeStats();
+                kernels.accumulate(values, 5, values.length, stats);
+                assertEquals(length, stats.getCount());
+                if (length == 0) {
+                    assertTrue(Double.isNaN(stats.getMean()));
+                    continue;
+                }
+                assertEquals(sum, stats.getSum(), Math.abs(sum) * 1e-12);
+                assertEquals(sum, kernels.sum(values, 5, values.length), Math.abs(sum) * 1e-12);
+                assertEquals(min, stats.getMin());
+                assertEquals(max, stats.getMax());
+                assertEquals(m2 / length, stats.getVariance(), 1e-6 * Math.max(1, m2 / length));
+            }
+        }
+    }
+
+    @Test
+    public void testWeightedMatchesExpandedValues() {
+        double[] values = {3, 1, 4, 1, 5, 9, 2, 6, 5, 3, 5};
+        double[] weights = {1, 2, 1, 3, 1, 1, 4, 1, 1, 2, 1};
+        int total = 0;
+        for (double weight : weights) {
+            total += (int) weight;
+        }
+        double[] expanded = new double[total];
+        int index = 0;
+        for (int i = 0; i < values.length; i++) {
+            for (int w = 0; w < weights[i]; w++) {
+                expanded[index++] = values[i];
+            }
+        }
+
+        RangeStats expected = new RangeStats();
+        AggregationKernels.scalar().accumulate(expanded, 0, expanded.length, expected);
+        for (AggregationKernels kernels : new AggregationKernels[]{AggregationKernels.scalar(), AggregationKernels.get()}) {
+            RangeStats stats = new RangeStats();
+            kernels.accumulateWeighted(values, weights, 0, values.length, stats);
+            assertEquals(expected.getCount(), stats.getCount());
+            assertEquals(expected.getSum(), stats.getSum(), 1e-9);
+            assertEquals(expected.getVariance(), stats.getVariance(), 1e-9);
+            assertEquals(1.0, stats.getMin());
+            assertEquals(9.0, stats.getMax());
+        }
+    }
+
+    @Test
+    public void testMergeEqualsWholeRange() {
+        double[] values = new double[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.sin(i) * 100 + i * 0.01;
+        }
+        RangeStats whole = new RangeStats();
+        AggregationKernels.get().accumulate(values, 0, values.length, whole);
+
+        RangeStats left = new RangeStats();
+        RangeStats right = new RangeStats();
+        AggregationKernels.get().accumulate(values, 0, 3333, left);
+        AggregationKernels.get().accumulate(values, 3333, values.length, right);
+        left.merge(right).merge(new RangeStats());
+
+        assertEquals(whole.getCount(), left.getCount());
+        assertEquals(whole.getMean(), left.getMean(), 1e-9);
+        assertEquals(whole.getVariance(), left.getVariance(), 1e-6);
+        assertEquals(whole.getMin(), left.getMin());
+        assertEquals(whole.getMax(), left.getMax());
+    }
+}
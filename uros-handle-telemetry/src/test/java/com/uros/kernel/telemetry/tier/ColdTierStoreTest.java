@@ -0,0 +1,218 @@
+package com.uros.kernel.telemetry.tier;
+
+import com.uros.kernel.telemetry.model.StoragePolicy;
+import com.uros.kernel.telemetry.model.TelemetryData;
+import com.uros.kernel.telemetry.service.TelemetryService;
+import com.uros.kernel.telemetry.service.impl.TelemetryServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 冷数据分层存储测试类
+ */
+public class ColdTierStoreTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private static final long HOUR = 60L * 60 * 1000;
+
+    /** 固定的当前时间，整日边界之后半天 */
+    private static final long NOW = 20_000 * DAY + DAY / 2;
+
+    @TempDir
+    Path tempDir;
+
+    private ColdTierStore newStore(TelemetryService service, long retention) {
+        return new ColdTierStore(service, true, tempDir.toString(), 7 * DAY, retention, HOUR, 4);
+    }
+
+    /** 最近10天每分钟一个点 */
+    private static TelemetryService populate() {
+        TelemetryService service = new TelemetryServiceImpl();
+        int count = 10 * 24 * 60;
+        double[] values = new double[count];
+        long[] timestamps = new long[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = NOW - 10 * DAY + i * 60_000L;
+            values[i] = Math.sin(i / 100.0) * 50 + (i % 7) * 0.125;
+        }
+        service.recordMetricBatch("boiler-1", "temperature", values, timestamps, count);
+        return service;
+    }
+
+    @Test
+    public void testOffloadIsTransparentToQueries() {
+        TelemetryService service = populate();
+        List<Map<String, Object>> before = service.queryMetrics("boiler-1", "temperature", 0, NOW);
+        Map<String, Object> aggregateBefore = service.aggregateMetrics("boiler-1", "temperature",
+                NOW - 9 * DAY, NOW - 8 * DAY);
+
+        ColdTierStore store = newStore(service, 365 * DAY);
+        long offloaded = store.run(NOW);
+        // 7天之前的3天数据被迁移
+        assertEquals(3 * 24 * 60, offloaded);
+        // 从半天开始的3天数据跨越4个UTC日期
+        assertEquals(4, countFiles());
+
+        List<Map<String, Object>> after = service.queryMetrics("boiler-1", "temperature", 0, NOW);
+        assertEquals(before, after);
+        assertEquals(aggregateBefore, service.aggregateMetrics("boiler-1", "temperature",
+                NOW - 9 * DAY, NOW - 8 * DAY));
+
+        // 跨越冷热边界的查询
+        List<Map<String, Object>> boundary = service.queryMetrics("boiler-1", "temperature",
+                NOW - 7 * DAY - HOUR, NOW - 7 * DAY + HOUR);
+        assertEquals(121, boundary.size());
+
+        // 重复读取命中解码块缓存
+        service.queryMetrics("boiler-1", "temperature", NOW - 9 * DAY, NOW - 9 * DAY + HOUR);
+        service.queryMetrics("boiler-1", "temperature", NOW - 9 * DAY, NOW - 9 * DAY + HOUR);
+        Map<String, Object> stats = store.getStatistics();
+        assertTrue((Long) stats.get("cacheHits") > 0);
+        assertTrue((Integer) stats.get("cachedBlocks") <= 4);
+        assertTrue((Long) stats.get("writtenBytes") < (Long) stats.get("rawBytes"));
+
+        // 再次迁移没有新数据
+        assertEquals(0, store.run(NOW));
+    }
+
+    @Test
+    public void testRestartReattachesArchive() {
+        TelemetryService service = populate();
+        List<Map<String, Object>> expected = service.queryMetrics("boiler-1", "temperature", 0, NOW - 7 * DAY - 1);
+        newStore(service, 365 * DAY).run(NOW);
+
+        TelemetryService restarted = new TelemetryServiceImpl();
+        ColdTierStore store = newStore(restarted, 365 * DAY);
+        store.start();
+        try {
+            assertEquals(1, store.getStatistics().get("archivedSeries"));
+            assertEquals(expected, restarted.queryMetrics("boiler-1", "temperature", 0, NOW - 7 * DAY - 1));
+        } finally {
+            store.stop();
+        }
+    }
+
+    @Test
+    public void testCompressedPointsAndRetention() {
+        TelemetryService service = new TelemetryServiceImpl();
+        service.setStoragePolicy("valve-1", "position", StoragePolicy.of(StoragePolicy.Type.EXACT_REPEAT, 0));
+        for (int i = 0; i < 20 * 24; i++) {
+            service.recordMetric("valve-1", "position", (i / 30) % 2, NOW - 20 * DAY + i * HOUR);
+        }
+        List<Map<String, Object>> before = service.queryMetrics("valve-1", "position", 0, NOW);
+        List<Map<String, Object>> recent = service.queryMetrics("valve-1", "position", NOW - 9 * DAY, NOW);
+
+        ColdTierStore store = newStore(service, 10 * DAY);
+        assertTrue(store.run(NOW) > 0);
+        assertTrue((Long) store.getStatistics().get("deletedFiles") > 0);
+
+        // 保留期内的归档数据仍可透明读取，保留期之外的整日归档已删除
+        assertEquals(recent, service.queryMetrics("valve-1", "position", NOW - 9 * DAY, NOW));
+        List<Map<String, Object>> retained = service.queryMetrics("valve-1", "position", 0, NOW);
+        assertTrue(retained.size() < before.size());
+        long firstRetained = ((Number) retained.get(0).get("timestamp")).longValue();
+        assertTrue(firstRetained >= (NOW - 10 * DAY) / DAY * DAY - 30 * HOUR);
+    }
+
+    @Test
+    public void testBatchedExportDecodesEachBlockOnce() throws Exception {
+        // 10秒一个点，迁移的3天数据约有20个块，多于4个块的缓存
+        TelemetryService service = new TelemetryServiceImpl();
+        int count = 10 * 24 * 360;
+        double[] values = new double[count];
+        long[] timestamps = new long[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = NOW - 10 * DAY + i * 10_000L;
+            values[i] = i;
+        }
+        service.recordMetricBatch("boiler-1", "temperature", values, timestamps, count);
+        ColdTierStore store = newStore(service, 365 * DAY);
+        store.run(NOW);
+        long blocks = (Long) store.getStatistics().get("archivedBlocks");
+        assertTrue(blocks > 4);
+
+        List<Long> exported = new ArrayList<>();
+        long rows = service.exportRange("boiler-1", "temperature", 0, NOW, 1000, (ts, vals, n) -> {
+            for (int i = 0; i < n; i++) {
+                exported.add(ts[i]);
+                assertEquals((ts[i] - timestamps[0]) / 10_000L, vals[i]);
+            }
+        });
+        assertEquals(count, rows);
+        for (int i = 0; i < count; i++) {
+            assertEquals(timestamps[i], exported.get(i));
+        }
+        // 每批只解码所需的块，跨块的批次最多再解码一次前一个块
+        assertTrue((Long) store.getStatistics().get("cacheMisses") <= 2 * blocks);
+    }
+
+    @Test
+    public void testFailedOffloadLeavesNoBlocks() throws Exception {
+        TelemetryService service = populate();
+        List<Map<String, Object>> before = service.queryMetrics("boiler-1", "temperature", 0, NOW);
+        // 最后一天的归档文件被目录占用，写到该日时失败
+        long lastDay = (NOW - 7 * DAY) / DAY;
+        Path blocker = Files.createDirectory(tempDir.resolve(LocalDate.ofEpochDay(lastDay) + ".archive"));
+
+        ColdTierStore store = newStore(service, 365 * DAY);
+        assertThrows(UncheckedIOException.class, () -> store.run(NOW));
+        assertEquals(before, service.queryMetrics("boiler-1", "temperature", 0, NOW));
+        for (long day = lastDay - 3; day < lastDay; day++) {
+            assertEquals(0, Files.size(tempDir.resolve(LocalDate.ofEpochDay(day) + ".archive")));
+        }
+
+        // 重启后不会从文件中读到未提交的块
+        Files.delete(blocker);
+        TelemetryService restarted = new TelemetryServiceImpl();
+        ColdTierStore reloaded = newStore(restarted, 365 * DAY);
+        reloaded.start();
+        try {
+            assertEquals(0, reloaded.getStatistics().get("archivedSeries"));
+        } finally {
+            reloaded.stop();
+        }
+    }
+
+    @Test
+    public void testBlockCodecRoundTrip() {
+        List<TelemetryData.DataPoint> points = new ArrayList<>();
+        points.add(new TelemetryData.DataPoint(-0.0, -5_000L));
+        points.add(new TelemetryData.DataPoint(Double.MAX_VALUE, 1_000L, 9_000L, 42));
+        points.add(new TelemetryData.DataPoint(Double.MIN_VALUE, 1_000L));
+        points.add(new TelemetryData.DataPoint(3.14159, 999_999_999_999L));
+        points.add(new TelemetryData.DataPoint(3.14159, 1_000_000_000_000L));
+        points.add(new TelemetryData.DataPoint(Double.NEGATIVE_INFINITY, 1_000_000_000_007L));
+
+        ArchiveBlockCodec.Encoded encoded = ArchiveBlockCodec.encode(points, 0, points.size());
+        ArchiveBlockCodec.DecodedBlock decoded = ArchiveBlockCodec.decode(encoded.bytes, encoded.rawLength,
+                points.size());
+        for (int i = 0; i < points.size(); i++) {
+            TelemetryData.DataPoint point = decoded.get(i);
+            assertEquals(Double.doubleToRawLongBits(points.get(i).getValue()),
+                    Double.doubleToRawLongBits(point.getValue()));
+            assertEquals(points.get(i).getTimestamp(), point.getTimestamp());
+            assertEquals(points.get(i).getValidUntil(), point.getValidUntil());
+            assertEquals(points.get(i).getSampleCount(), point.getSampleCount());
+        }
+    }
+
+    private long countFiles() {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}